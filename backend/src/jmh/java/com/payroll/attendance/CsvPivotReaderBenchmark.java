@@ -0,0 +1,80 @@
+package com.payroll.attendance;
+
+import com.payroll.bench.SyntheticData;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a pivot attendance CSV of the given size, cell by cell, with the byte tokenizer
+ * (from the stored file, as import jobs do, and from a stream, as uploads do) and with the
+ * readLine and split the import used before. Run with -prof gc to compare allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CsvPivotReaderBenchmark {
+
+    @Param({"100"})
+    private int megabytes;
+
+    @Param({"500"})
+    private int employees;
+
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("attendance-bench-", ".csv");
+        new SyntheticData(42).writePivotCsv(file, employees, megabytes * 1024L * 1024L);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void tokenizerFromFile(Blackhole blackhole) throws IOException {
+        CsvPivotReader.read(file, (rowIndex, cells) -> consume(cells, blackhole));
+    }
+
+    @Benchmark
+    public void tokenizerFromStream(Blackhole blackhole) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            CsvPivotReader.read(in, (rowIndex, cells) -> consume(cells, blackhole));
+        }
+    }
+
+    @Benchmark
+    public void readLineAndSplit(Blackhole blackhole) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                for (String value : line.split(",", -1)) {
+                    String cell = value.trim();
+                    blackhole.consume(cell.isEmpty() ? null : cell);
+                }
+            }
+        }
+    }
+
+    private static void consume(List<String> cells, Blackhole blackhole) {
+        for (int i = 0; i < cells.size(); i++) {
+            blackhole.consume(cells.get(i));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.payroll.bench;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * In-memory stand-ins for Spring Data repositories. Only the methods a benchmark answers
+ * are implemented; anything else fails loudly so a benchmark never silently measures a
+ * code path it did not set up.
+ */
+public final class Stubs {
+
+    private Stubs() {
+    }
+
+    public static <T> Builder<T> repository(Class<T> type) {
+        return new Builder<>(type);
+    }
+
+    /**
+     * Set a field on a service that uses field injection.
+     */
+    public static void inject(Object target, String fieldName, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot inject " + fieldName + " into " + target.getClass(), e);
+        }
+    }
+
+    public static final class Builder<T> {
+
+        private final Class<T> type;
+        private final Map<String, Function<Object[], Object>> answers = new HashMap<>();
+
+        private Builder(Class<T> type) {
+            this.type = type;
+        }
+
+        /**
+         * Answer every call to the named method with the given function of its arguments.
+         */
+        public Builder<T> answer(String methodName, Function<Object[], Object> answer) {
+            answers.put(methodName, answer);
+            return this;
+        }
+
+        public T build() {
+            Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+                switch (method.getName()) {
+                    case "toString":
+                        return "Stub<" + type.getSimpleName() + ">";
+                    case "hashCode":
+                        return System.identityHashCode(self);
+                    case "equals":
+                        return self == args[0];
+                    default:
+                        Function<Object[], Object> answer = answers.get(method.getName());
+                        if (answer == null) {
+                            throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName()
+                                    + " is not stubbed");
+                        }
+                        return answer.apply(args);
+                }
+            });
+            return type.cast(proxy);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.payroll.bench;
+
+import com.payroll.entity.Attendance;
+import com.payroll.entity.Employee;
+import com.payroll.entity.LeaveType;
+import com.payroll.entity.PayRunEmployee;
+import com.payroll.organization.Organization;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic tenants for benchmarks. The same seed always produces the same
+ * employees and attendance, so runs before and after a change measure the same work.
+ */
+public final class SyntheticData {
+
+    public static final long ORGANIZATION_ID = 1L;
+
+    private static final String[] LOCATIONS = {"Tamil Nadu", "Karnataka", "Maharashtra", "Kerala"};
+
+    private final Random random;
+
+    public SyntheticData(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public Organization organization() {
+        Organization organization = new Organization();
+        organization.setId(ORGANIZATION_ID);
+        organization.setCompanyName("Benchmark Pvt Ltd");
+        return organization;
+    }
+
+    /**
+     * Employees with CTCs between 2.4 and 36 lakh, split the way EmployeeService splits them.
+     */
+    public List<Employee> employees(Organization organization, int count) {
+        List<Employee> employees = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            BigDecimal annualCtc = BigDecimal.valueOf(240_000 + random.nextInt(3_360_000));
+            BigDecimal monthly = annualCtc.divide(BigDecimal.valueOf(12), 2, RoundingMode.HALF_UP);
+            BigDecimal basic = monthly.multiply(new BigDecimal("0.50")).setScale(2, RoundingMode.HALF_UP);
+            BigDecimal hra = basic.multiply(new BigDecimal("0.50")).setScale(2, RoundingMode.HALF_UP);
+            BigDecimal conveyance = new BigDecimal("1600.00");
+
+            Employee employee = new Employee();
+            employee.setId((long) i);
+            employee.setEmployeeId(String.format("EMP%06d", i));
+            employee.setFirstName("Employee");
+            employee.setLastName(String.valueOf(i));
+            employee.setWorkEmail("employee" + i + "@example.com");
+            employee.setMobileNumber(String.format("9%09d", i));
+            employee.setDateOfJoining(LocalDate.of(2020, 1, 1).plusDays(random.nextInt(1500)));
+            employee.setBankName("HDFC Bank");
+            employee.setAccountNumber(String.format("5010%010d", i));
+            employee.setIfscCode("HDFC0000" + (100 + random.nextInt(900)));
+            employee.setPanNumber(String.format("ABCDE%04dF", i % 10000));
+            employee.setStatus("Active");
+            employee.setGender(random.nextBoolean() ? "Male" : "Female");
+            employee.setWorkLocation(LOCATIONS[random.nextInt(LOCATIONS.length)]);
+            employee.setProfessionalTax(random.nextInt(10) > 0);
+            employee.setAnnualCtc(annualCtc);
+            employee.setBasicMonthly(basic);
+            employee.setHraMonthly(hra);
+            employee.setConveyanceAllowanceMonthly(conveyance);
+            employee.setFixedAllowanceMonthly(monthly.subtract(basic).subtract(hra).subtract(conveyance).max(BigDecimal.ZERO));
+            employee.setOrganization(organization);
+            employees.add(employee);
+        }
+        return employees;
+    }
+
+    /**
+     * Casual (12 days), sick (6 days) and unpaid leave.
+     */
+    public List<LeaveType> leaveTypes() {
+        return List.of(
+                leaveType(1L, "Casual Leave", "CL", 12, true),
+                leaveType(2L, "Sick Leave", "SL", 6, true),
+                leaveType(3L, "Leave Without Pay", "LWP", 0, false));
+    }
+
+    /**
+     * Attendance for every employee from the first of the year to the end of the given month.
+     *
+     * @param density share of working days that have a record (0 to 1)
+     * @param leaveTypeIds leave types to draw LEAVE days from
+     */
+    public List<Attendance> attendance(List<Employee> employees, YearMonth upTo, double density,
+                                       List<Long> leaveTypeIds) {
+        List<Attendance> records = new ArrayList<>();
+        LocalDate end = upTo.atEndOfMonth();
+        long id = 1;
+        for (Employee employee : employees) {
+            for (LocalDate date = LocalDate.of(upTo.getYear(), 1, 1); !date.isAfter(end); date = date.plusDays(1)) {
+                DayOfWeek day = date.getDayOfWeek();
+                if (day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY || random.nextDouble() >= density) {
+                    continue;
+                }
+                Attendance attendance = new Attendance();
+                attendance.setId(id++);
+                attendance.setEmployeeId(employee.getId());
+                attendance.setOrganizationId(employee.getOrganization().getId());
+                attendance.setDate(date);
+                int roll = random.nextInt(100);
+                if (roll < 85) {
+                    attendance.setStatus("PRESENT");
+                } else if (roll < 90) {
+                    attendance.setStatus("ABSENT");
+                } else if (roll < 95) {
+                    attendance.setStatus("HALF_DAY");
+                } else {
+                    attendance.setStatus("LEAVE");
+                    attendance.setLeaveTypeId(leaveTypeIds.get(random.nextInt(leaveTypeIds.size())));
+                }
+                records.add(attendance);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Pay run rows as createPayRun drafts them, with a few LOP days and adjustments.
+     */
+    public List<PayRunEmployee> payRunEmployees(List<Employee> employees, int workingDays) {
+        List<PayRunEmployee> rows = new ArrayList<>(employees.size());
+        for (Employee employee : employees) {
+            PayRunEmployee pre = new PayRunEmployee();
+            pre.setId(employee.getId());
+            pre.setEmployee(employee);
+            pre.setBasicSalary(employee.getBasicMonthly());
+            pre.setHra(employee.getHraMonthly());
+            pre.setConveyanceAllowance(employee.getConveyanceAllowanceMonthly());
+            pre.setFixedAllowance(employee.getFixedAllowanceMonthly());
+            pre.setOtherEarnings(random.nextInt(10) == 0 ? new BigDecimal("2500.00") : new BigDecimal("0.00"));
+            pre.setOtherDeductions(random.nextInt(20) == 0 ? new BigDecimal("1000.00") : new BigDecimal("0.00"));
+            pre.setWorkingDays(workingDays);
+            pre.setDaysWorked(workingDays);
+            pre.setLopDays(random.nextInt(5) == 0 ? 1 + random.nextInt(3) : 0);
+            rows.add(pre);
+        }
+        return rows;
+    }
+
+    /**
+     * A pivot attendance CSV as the import template lays it out (Date, Sprint, Day, then one
+     * column per employee), with rows added until the file reaches the given size. Most cells
+     * are empty (present); the rest are ABSENT, HALF_DAY or a leave name.
+     */
+    public void writePivotCsv(Path file, int employees, long targetBytes) throws IOException {
+        String[] marks = {"ABSENT", "HALF_DAY", "Casual", "Sick", "CL"};
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            StringBuilder row = new StringBuilder("Date,Sprint,Day");
+            for (int i = 1; i <= employees; i++) {
+                row.append(",Employee ").append(i);
+            }
+            long written = 0;
+            LocalDate date = LocalDate.of(2000, 1, 1);
+            while (written < targetBytes) {
+                row.append('\n');
+                writer.append(row);
+                written += row.length();
+
+                row.setLength(0);
+                row.append(date).append(",Sprint ").append(date.getDayOfYear() / 14 + 1).append(',').append(date.getDayOfWeek());
+                for (int i = 0; i < employees; i++) {
+                    row.append(',');
+                    if (random.nextInt(10) == 0) {
+                        row.append(marks[random.nextInt(marks.length)]);
+                    }
+                }
+                date = date.plusDays(1);
+            }
+        }
+    }
+
+    private static LeaveType leaveType(Long id, String name, String code, int daysPerYear, boolean paid) {
+        LeaveType leaveType = new LeaveType();
+        leaveType.setId(id);
+        leaveType.setOrganizationId(ORGANIZATION_ID);
+        leaveType.setName(name);
+        leaveType.setCode(code);
+        leaveType.setDaysPerYear(daysPerYear);
+        leaveType.setIsPaid(paid);
+        return leaveType;
+    }
+}
@@ -0,0 +1,194 @@
+package com.payroll.loadtest;
+
+import com.payroll.PayrollBackendApplication;
+import com.payroll.dto.PayRunDTO;
+import com.payroll.service.BankFileService;
+import com.payroll.service.PayRunCalculationEngine;
+import com.payroll.service.PayRunService;
+import com.payroll.service.PayslipService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * End-to-end month-end load test: generates a synthetic tenant, then for each pay month runs
+ * create, calculate, approve, payslips and bank file through the real services and reports
+ * wall time and SQL executions per stage.
+ *
+ * <pre>
+ * mvn -Pbenchmarks test-compile exec:exec@loadtest -Dloadtest.args="--employees=10000 --budget.calculate=60000"
+ * </pre>
+ *
+ * Options (all --name=value): employees (1000), months (12), pay-months (1), density (0.95),
+ * seed (42), year (last year), output (target/loadtest/results.csv), and budget.STAGE=millis
+ * to fail the run when a stage is slower than its budget.
+ *
+ * The database is the one in LOADTEST_JDBC_URL / LOADTEST_DB_USER / LOADTEST_DB_PASSWORD
+ * when set; otherwise a throwaway PostgreSQL container is started (requires Docker).
+ */
+public final class PayrollLoadTest {
+
+    private static final List<String> STAGES = List.of("create", "calculate", "approve", "payslips", "bankfile");
+
+    private record StageResult(YearMonth month, String stage, long millis, StatementCounter.Snapshot sql) {
+    }
+
+    private PayrollLoadTest() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parse(args);
+        int employees = Integer.parseInt(options.getOrDefault("employees", "1000"));
+        int months = Integer.parseInt(options.getOrDefault("months", "12"));
+        int payMonths = Integer.parseInt(options.getOrDefault("pay-months", "1"));
+        double density = Double.parseDouble(options.getOrDefault("density", "0.95"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        int year = Integer.parseInt(options.getOrDefault("year", String.valueOf(YearMonth.now().getYear() - 1)));
+        Path output = Path.of(options.getOrDefault("output", "target/loadtest/results.csv"));
+
+        PostgreSQLContainer<?> container = null;
+        String url = System.getenv("LOADTEST_JDBC_URL");
+        String user = System.getenv().getOrDefault("LOADTEST_DB_USER", "postgres");
+        String password = System.getenv().getOrDefault("LOADTEST_DB_PASSWORD", "postgres");
+        if (url == null) {
+            container = new PostgreSQLContainer<>("postgres:16-alpine");
+            container.start();
+            url = container.getJdbcUrl() + "&reWriteBatchedInserts=true";
+            user = container.getUsername();
+            password = container.getPassword();
+        }
+
+        StatementCounter counter = new StatementCounter();
+        List<StageResult> results = new ArrayList<>();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(PayrollBackendApplication.class)
+                .initializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(counter))
+                // Command line arguments, so they take precedence over application.yml
+                .run("--server.port=0",
+                        "--spring.datasource.url=" + url,
+                        "--spring.datasource.username=" + user,
+                        "--spring.datasource.password=" + password,
+                        "--spring.jpa.properties.hibernate.format_sql=false",
+                        "--payslip.storage.path=target/loadtest/payslips",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.payroll=WARN",
+                        "--logging.level.com.payroll.loadtest=INFO",
+                        "--logging.level.org.springframework.security=WARN")) {
+
+            YearMonth last = YearMonth.of(year, months);
+            SyntheticTenantGenerator.Tenant tenant = timed("generate", () ->
+                    new SyntheticTenantGenerator(context).generate(employees, last, density, seed));
+            System.out.printf("Tenant %d: %d employees, %d attendance rows%n", tenant.organizationId(),
+                    tenant.employees(), tenant.attendanceRows());
+
+            PayRunService payRunService = context.getBean(PayRunService.class);
+            PayslipService payslipService = context.getBean(PayslipService.class);
+            BankFileService bankFileService = context.getBean(BankFileService.class);
+            Long tenantId = tenant.organizationId();
+
+            for (int m = Math.max(1, months - payMonths + 1); m <= months; m++) {
+                YearMonth month = YearMonth.of(year, m);
+                PayRunDTO.CreatePayRunRequest request = new PayRunDTO.CreatePayRunRequest();
+                request.setPayPeriodStart(month.atDay(1));
+                request.setPayPeriodEnd(month.atEndOfMonth());
+
+                Long payRunId = stage(results, counter, month, "create",
+                        () -> payRunService.createPayRun(tenantId, request, tenant.ownerId()).getId());
+                stage(results, counter, month, "calculate", () -> payRunService.calculatePayRun(payRunId, tenantId,
+                        true, PayRunCalculationEngine.ProgressListener.NONE));
+                stage(results, counter, month, "approve",
+                        () -> payRunService.approvePayRun(payRunId, tenantId, tenant.ownerId()));
+                stage(results, counter, month, "payslips", () -> payslipService.generatePayslips(payRunId, tenantId));
+                stage(results, counter, month, "bankfile",
+                        () -> bankFileService.generateBankPaymentFile(payRunId, tenantId, "NEFT"));
+            }
+        } finally {
+            if (container != null) {
+                container.stop();
+            }
+        }
+
+        report(results, employees, output);
+        System.exit(checkBudgets(results, options) ? 0 : 1);
+    }
+
+    private static <T> T stage(List<StageResult> results, StatementCounter counter, YearMonth month, String stage,
+                               Supplier<T> work) {
+        StatementCounter.Snapshot before = counter.snapshot();
+        long start = System.nanoTime();
+        T result = work.get();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        results.add(new StageResult(month, stage, millis, counter.snapshot().minus(before)));
+        return result;
+    }
+
+    private static <T> T timed(String label, Supplier<T> work) {
+        long start = System.nanoTime();
+        T result = work.get();
+        System.out.printf("%s took %d ms%n", label, (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    private static void report(List<StageResult> results, int employees, Path output) throws IOException {
+        System.out.printf("%n%-8s %-10s %10s %14s %12s %14s%n", "month", "stage", "millis", "employees/s",
+                "statements", "batched rows");
+        for (StageResult r : results) {
+            double perSecond = r.millis() > 0 ? employees * 1000.0 / r.millis() : 0;
+            System.out.printf("%-8s %-10s %10d %14.1f %12d %14d%n", r.month(), r.stage(), r.millis(), perSecond,
+                    r.sql().executions(), r.sql().batchedRows());
+        }
+
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(output))) {
+            out.println("month,stage,employees,millis,statements,batched_rows");
+            for (StageResult r : results) {
+                out.printf("%s,%s,%d,%d,%d,%d%n", r.month(), r.stage(), employees, r.millis(),
+                        r.sql().executions(), r.sql().batchedRows());
+            }
+        }
+        System.out.println("Results written to " + output.toAbsolutePath());
+    }
+
+    /**
+     * @return false if any stage exceeded its budget.STAGE option in any month
+     */
+    private static boolean checkBudgets(List<StageResult> results, Map<String, String> options) {
+        boolean ok = true;
+        for (String stage : STAGES) {
+            String budget = options.get("budget." + stage);
+            if (budget == null) {
+                continue;
+            }
+            long limit = Long.parseLong(budget);
+            for (StageResult r : results) {
+                if (r.stage().equals(stage) && r.millis() > limit) {
+                    System.out.printf("FAIL: %s for %s took %d ms, budget %d ms%n", stage, r.month(), r.millis(), limit);
+                    ok = false;
+                }
+            }
+        }
+        return ok;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+}
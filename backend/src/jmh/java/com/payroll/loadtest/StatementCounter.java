@@ -0,0 +1,99 @@
+package com.payroll.loadtest;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wraps the application's DataSource and counts what reaches the database: statement
+ * executions (one round trip each, a JDBC batch counts once) and rows added to batches.
+ */
+public class StatementCounter implements BeanPostProcessor {
+
+    /**
+     * Counts at a point in time; subtract two snapshots to get the work done in between.
+     */
+    public record Snapshot(long executions, long batchedRows) {
+
+        public Snapshot minus(Snapshot earlier) {
+            return new Snapshot(executions - earlier.executions, batchedRows - earlier.batchedRows);
+        }
+    }
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder batchedRows = new LongAdder();
+
+    public Snapshot snapshot() {
+        return new Snapshot(executions.sum(), batchedRows.sum());
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource) {
+            return proxy(DataSource.class, dataSource, (target, method, args) -> {
+                Object result = invoke(target, method, args);
+                return result instanceof Connection connection ? wrap(connection) : result;
+            });
+        }
+        return bean;
+    }
+
+    private Connection wrap(Connection connection) {
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            if (result instanceof CallableStatement statement) {
+                return wrap(CallableStatement.class, statement);
+            } else if (result instanceof PreparedStatement statement) {
+                return wrap(PreparedStatement.class, statement);
+            } else if (result instanceof Statement statement) {
+                return wrap(Statement.class, statement);
+            }
+            return result;
+        });
+    }
+
+    private <S extends Statement> S wrap(Class<S> type, S statement) {
+        return proxy(type, statement, (target, method, args) -> {
+            String name = method.getName();
+            if (name.equals("addBatch")) {
+                batchedRows.increment();
+            } else if (name.startsWith("execute")) {
+                executions.increment();
+            }
+            return invoke(target, method, args);
+        });
+    }
+
+    private interface Handler {
+        Object handle(Object target, Method method, Object[] args) throws Throwable;
+    }
+
+    private static <T> T proxy(Class<T> type, T target, Handler handler) {
+        InvocationHandler invocationHandler = (self, method, args) -> {
+            if (method.getName().equals("unwrap") && args != null && args[0] instanceof Class<?> iface
+                    && iface.isInstance(target)) {
+                return target;
+            }
+            return handler.handle(target, method, args);
+        };
+        return type.cast(Proxy.newProxyInstance(StatementCounter.class.getClassLoader(), new Class<?>[]{type},
+                invocationHandler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.payroll.loadtest;
+
+import com.payroll.bench.SyntheticData;
+import com.payroll.entity.Attendance;
+import com.payroll.entity.Employee;
+import com.payroll.entity.LeaveType;
+import com.payroll.entity.Loan;
+import com.payroll.entity.SalaryComponent;
+import com.payroll.entity.TaxDeclaration;
+import com.payroll.enums.CalculationType;
+import com.payroll.enums.ComponentType;
+import com.payroll.organization.Organization;
+import com.payroll.organization.OrganizationRepository;
+import com.payroll.repository.EmployeeRepository;
+import com.payroll.repository.LeaveTypeRepository;
+import com.payroll.repository.LoanRepository;
+import com.payroll.repository.SalaryComponentRepository;
+import com.payroll.repository.TaxDeclarationRepository;
+import com.payroll.user.User;
+import com.payroll.user.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Writes a synthetic tenant into the database: an owner, the organization with basic, HRA,
+ * conveyance and special allowance components, leave types, employees with component assignments, attendance for
+ * every month of the year up to the given month, and tax declarations and loans where
+ * those tables exist. Employees are saved through JPA as the application saves them;
+ * the high-volume rows (attendance, assignments) go through JDBC batches.
+ */
+@Slf4j
+public class SyntheticTenantGenerator {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private static final String INSERT_ATTENDANCE =
+            "INSERT INTO attendance (employee_id, organization_id, date, status, leave_type_id, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, NOW(), NOW())";
+
+    private static final String INSERT_ASSIGNMENT =
+            "INSERT INTO employee_salary_components (employee_id, component_id, value, effective_from, is_active) " +
+            "VALUES (?, ?, ?, ?, true)";
+
+    /**
+     * What was generated.
+     */
+    public record Tenant(Long organizationId, Long ownerId, int employees, long attendanceRows) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UserRepository userRepository;
+    private final OrganizationRepository organizationRepository;
+    private final EmployeeRepository employeeRepository;
+    private final LeaveTypeRepository leaveTypeRepository;
+    private final TaxDeclarationRepository taxDeclarationRepository;
+    private final LoanRepository loanRepository;
+    private final SalaryComponentRepository salaryComponentRepository;
+
+    public SyntheticTenantGenerator(ApplicationContext context) {
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+        this.transactionTemplate = context.getBean(TransactionTemplate.class);
+        this.userRepository = context.getBean(UserRepository.class);
+        this.organizationRepository = context.getBean(OrganizationRepository.class);
+        this.employeeRepository = context.getBean(EmployeeRepository.class);
+        this.leaveTypeRepository = context.getBean(LeaveTypeRepository.class);
+        this.taxDeclarationRepository = context.getBean(TaxDeclarationRepository.class);
+        this.loanRepository = context.getBean(LoanRepository.class);
+        this.salaryComponentRepository = context.getBean(SalaryComponentRepository.class);
+    }
+
+    /**
+     * @param upTo last month with attendance; attendance starts in January of the same year
+     * @param density share of working days with an attendance record
+     */
+    public Tenant generate(int employeeCount, YearMonth upTo, double density, long seed) {
+        SyntheticData data = new SyntheticData(seed);
+        String suffix = Long.toString(System.currentTimeMillis(), 36);
+
+        User owner = userRepository.save(User.builder()
+                .email("loadtest-" + suffix + "@example.com")
+                .password("{noop}loadtest")
+                .companyName("Load Test " + suffix)
+                .build());
+        Organization organization = organizationRepository.save(Organization.builder()
+                .companyName("Load Test " + suffix)
+                .businessLocation("Tamil Nadu")
+                .industry("Software")
+                .addressLine1("1 Test Street")
+                .state("Tamil Nadu")
+                .city("Chennai")
+                .pinCode("600001")
+                .createdBy(owner)
+                .build());
+        Long organizationId = organization.getId();
+        Map<String, Long> componentIds = saveComponents(organization);
+
+        List<LeaveType> leaveTypes = new ArrayList<>();
+        for (LeaveType leaveType : data.leaveTypes()) {
+            leaveType.setId(null);
+            leaveType.setOrganizationId(organizationId);
+            leaveTypes.add(leaveTypeRepository.save(leaveType));
+        }
+        List<Long> leaveTypeIds = leaveTypes.stream().map(LeaveType::getId).collect(Collectors.toList());
+
+        boolean withDeclarations = tableExists("tax_declarations");
+        boolean withLoans = tableExists("loans");
+        if (!withDeclarations || !withLoans) {
+            log.warn("Skipping {}{}: table not present in this schema", withDeclarations ? "" : "tax declarations ",
+                    withLoans ? "" : "loans");
+        }
+
+        List<Employee> all = data.employees(organization, employeeCount);
+        long attendanceRows = 0;
+        for (int from = 0; from < all.size(); from += CHUNK_SIZE) {
+            List<Employee> chunk = all.subList(from, Math.min(from + CHUNK_SIZE, all.size()));
+            chunk.forEach(e -> {
+                e.setId(null);
+                e.setWorkEmail(e.getEmployeeId().toLowerCase() + "." + suffix + "@example.com");
+                e.setCreatedBy(owner);
+            });
+            List<Employee> saved = transactionTemplate.execute(tx -> employeeRepository.saveAll(chunk));
+
+            List<Attendance> attendance = data.attendance(saved, upTo, density, leaveTypeIds);
+            insertAttendance(attendance);
+            attendanceRows += attendance.size();
+            insertAssignments(saved, componentIds, LocalDate.of(upTo.getYear(), 1, 1));
+
+            if (withDeclarations) {
+                saveDeclarations(saved, organizationId, upTo);
+            }
+            if (withLoans) {
+                saveLoans(saved, organizationId, upTo);
+            }
+            log.info("Generated {}/{} employees", from + chunk.size(), all.size());
+        }
+
+        return new Tenant(organizationId, owner.getId(), all.size(), attendanceRows);
+    }
+
+    private Map<String, Long> saveComponents(Organization organization) {
+        List<SalaryComponent> components = new ArrayList<>();
+        SalaryComponent basic = component(organization, "Basic Salary", "BASIC", CalculationType.PERCENTAGE, true, 1);
+        components.add(basic);
+        SalaryComponent hra = component(organization, "House Rent Allowance", "HRA", CalculationType.PERCENTAGE, true, 2);
+        hra.setBaseComponent(basic);
+        components.add(hra);
+        components.add(component(organization, "Conveyance Allowance", "CONVEYANCE", CalculationType.FIXED, false, 3));
+        components.add(component(organization, "Special Allowance", "SPECIAL", CalculationType.FIXED, true, 4));
+
+        Map<String, Long> ids = new HashMap<>();
+        transactionTemplate.executeWithoutResult(tx -> salaryComponentRepository.saveAll(components)
+                .forEach(c -> ids.put(c.getCode(), c.getId())));
+        return ids;
+    }
+
+    private static SalaryComponent component(Organization organization, String name, String code,
+                                             CalculationType calculationType, boolean taxable, int displayOrder) {
+        SalaryComponent component = new SalaryComponent();
+        component.setOrganization(organization);
+        component.setName(name);
+        component.setCode(code);
+        component.setType(ComponentType.EARNING);
+        component.setCalculationType(calculationType);
+        component.setIsTaxable(taxable);
+        component.setDisplayOrder(displayOrder);
+        return component;
+    }
+
+    private void insertAttendance(List<Attendance> rows) {
+        jdbcTemplate.batchUpdate(INSERT_ATTENDANCE, rows, 1000, (ps, a) -> {
+            ps.setLong(1, a.getEmployeeId());
+            ps.setLong(2, a.getOrganizationId());
+            ps.setDate(3, Date.valueOf(a.getDate()));
+            ps.setString(4, a.getStatus());
+            ps.setObject(5, a.getLeaveTypeId());
+        });
+    }
+
+    /**
+     * The default structure: BASIC 50% of CTC, HRA 50% of BASIC, conveyance, and the rest as special allowance.
+     */
+    private void insertAssignments(List<Employee> employees, Map<String, Long> componentIds, LocalDate effectiveFrom) {
+        List<Object[]> rows = new ArrayList<>(employees.size() * 4);
+        Date from = Date.valueOf(effectiveFrom);
+        for (Employee e : employees) {
+            rows.add(new Object[]{e.getId(), componentIds.get("BASIC"), new BigDecimal("50"), from});
+            rows.add(new Object[]{e.getId(), componentIds.get("HRA"), new BigDecimal("50"), from});
+            rows.add(new Object[]{e.getId(), componentIds.get("CONVEYANCE"), e.getConveyanceAllowanceMonthly(), from});
+            rows.add(new Object[]{e.getId(), componentIds.get("SPECIAL"), e.getFixedAllowanceMonthly(), from});
+        }
+        jdbcTemplate.batchUpdate(INSERT_ASSIGNMENT, rows);
+    }
+
+    private void saveDeclarations(List<Employee> employees, Long organizationId, YearMonth upTo) {
+        int startYear = upTo.getMonthValue() >= 4 ? upTo.getYear() : upTo.getYear() - 1;
+        String financialYear = startYear + "-" + String.format("%02d", (startYear + 1) % 100);
+        List<TaxDeclaration> declarations = new ArrayList<>(employees.size());
+        for (Employee e : employees) {
+            TaxDeclaration declaration = new TaxDeclaration();
+            declaration.setEmployee(e);
+            declaration.setTenantId(organizationId);
+            declaration.setFinancialYear(financialYear);
+            declaration.setTaxRegime(e.getId() % 3 == 0 ? "OLD" : "NEW");
+            declaration.setSection80cPpf(new BigDecimal("100000"));
+            declaration.setRentPaidAnnual(e.getHraMonthly().multiply(BigDecimal.valueOf(12)));
+            declarations.add(declaration);
+        }
+        transactionTemplate.executeWithoutResult(tx -> taxDeclarationRepository.saveAll(declarations));
+    }
+
+    /**
+     * A salary advance for roughly one employee in twenty.
+     */
+    private void saveLoans(List<Employee> employees, Long organizationId, YearMonth upTo) {
+        List<Loan> loans = new ArrayList<>();
+        for (Employee e : employees) {
+            if (e.getId() % 20 != 0) {
+                continue;
+            }
+            BigDecimal principal = e.getBasicMonthly().setScale(0, RoundingMode.HALF_UP);
+            BigDecimal emi = principal.divide(BigDecimal.valueOf(6), 2, RoundingMode.HALF_UP);
+            Loan loan = new Loan();
+            loan.setEmployeeId(e.getId());
+            loan.setOrganizationId(organizationId);
+            loan.setLoanType("SALARY_ADVANCE");
+            loan.setLoanNumber("LN-" + organizationId + "-" + e.getId());
+            loan.setPrincipalAmount(principal);
+            loan.setTenureMonths(6);
+            loan.setEmiAmount(emi);
+            loan.setTotalAmount(principal);
+            loan.setDisbursedAmount(principal);
+            loan.setOutstandingAmount(principal);
+            loan.setPendingEmis(6);
+            loan.setStartDate(upTo.atDay(1));
+            loan.setNextEmiDate(upTo.atEndOfMonth());
+            loan.setStatus("ACTIVE");
+            loans.add(loan);
+        }
+        transactionTemplate.executeWithoutResult(tx -> loanRepository.saveAll(loans));
+    }
+
+    private boolean tableExists(String table) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.tables WHERE table_name = ? AND table_schema = current_schema()",
+                Integer.class, table);
+        return count != null && count > 0;
+    }
+}
@@ -0,0 +1,116 @@
+package com.payroll.service;
+
+import com.payroll.bench.Stubs;
+import com.payroll.bench.SyntheticData;
+import com.payroll.calendar.WorkCalendarCache;
+import com.payroll.dto.AttendanceSummaryDTO;
+import com.payroll.entity.Attendance;
+import com.payroll.entity.Employee;
+import com.payroll.entity.LeaveType;
+import com.payroll.repository.AttendanceRepository;
+import com.payroll.repository.HolidayRepository;
+import com.payroll.repository.LeaveTypeRepository;
+import com.payroll.repository.OrganizationSettingsRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * LOP for a month, computed per employee (as the attendance endpoints do) and for the whole
+ * tenant at once (as pay run creation does). Repository answers are precomputed, so only
+ * the service's own work is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LopCalculationBenchmark {
+
+    private static final YearMonth MONTH = YearMonth.of(2025, 9);
+
+    @Param({"100", "1000"})
+    private int employees;
+
+    /** Share of working days with an attendance record. */
+    @Param({"0.5", "1.0"})
+    private double density;
+
+    private AttendanceService attendanceService;
+    private List<Long> employeeIds;
+
+    @Setup
+    public void setUp() {
+        SyntheticData data = new SyntheticData(42);
+        List<Employee> staff = data.employees(data.organization(), employees);
+        List<LeaveType> leaveTypes = data.leaveTypes();
+        List<Attendance> attendance = data.attendance(staff, MONTH, density,
+                leaveTypes.stream().map(LeaveType::getId).collect(Collectors.toList()));
+        employeeIds = staff.stream().map(Employee::getId).collect(Collectors.toList());
+
+        LocalDate monthStart = MONTH.atDay(1);
+        Map<Long, List<Attendance>> monthByEmployee = attendance.stream()
+                .filter(a -> !a.getDate().isBefore(monthStart))
+                .collect(Collectors.groupingBy(Attendance::getEmployeeId));
+        Map<Long, List<Attendance>> earlierByEmployee = attendance.stream()
+                .filter(a -> a.getDate().isBefore(monthStart))
+                .collect(Collectors.groupingBy(Attendance::getEmployeeId));
+        List<Attendance> month = attendance.stream()
+                .filter(a -> !a.getDate().isBefore(monthStart))
+                .collect(Collectors.toList());
+        List<Attendance> leaves = attendance.stream()
+                .filter(a -> "LEAVE".equals(a.getStatus()) && a.getDate().isBefore(monthStart))
+                .collect(Collectors.toList());
+
+        AttendanceRepository attendanceRepository = Stubs.repository(AttendanceRepository.class)
+                .answer("findByEmployeeIdAndMonthYear", args -> monthByEmployee.getOrDefault(args[0], List.of()))
+                .answer("findByEmployeeIdAndDateBetween", args -> earlierByEmployee.getOrDefault(args[0], List.of()))
+                .answer("findReadOnlyByOrganizationIdAndDateBetween", args -> month)
+                .answer("findLeavesByOrganizationIdAndDateBetween", args -> leaves)
+                .build();
+        LeaveTypeRepository leaveTypeRepository = Stubs.repository(LeaveTypeRepository.class)
+                .answer("findByOrganizationId", args -> leaveTypes)
+                .answer("findAllById", args -> {
+                    Collection<?> ids = (Collection<?>) args[0];
+                    return new ArrayList<>(leaveTypes.stream().filter(lt -> ids.contains(lt.getId())).toList());
+                })
+                .build();
+
+        // Default settings and no holidays: Saturdays and Sundays off
+        WorkCalendarCache workCalendarCache = new WorkCalendarCache(
+                Stubs.repository(OrganizationSettingsRepository.class)
+                        .answer("findByOrganizationId", args -> Optional.empty())
+                        .build(),
+                Stubs.repository(HolidayRepository.class)
+                        .answer("findByOrganizationIdAndYear", args -> List.of())
+                        .build());
+
+        attendanceService = new AttendanceService();
+        Stubs.inject(attendanceService, "attendanceRepository", attendanceRepository);
+        Stubs.inject(attendanceService, "leaveTypeRepository", leaveTypeRepository);
+        Stubs.inject(attendanceService, "workCalendarCache", workCalendarCache);
+    }
+
+    @Benchmark
+    public void lopPerEmployee(Blackhole blackhole) {
+        for (Long employeeId : employeeIds) {
+            blackhole.consume(attendanceService.calculateLopDays(employeeId, MONTH.getMonthValue(), MONTH.getYear()));
+        }
+    }
+
+    @Benchmark
+    public Map<Long, AttendanceSummaryDTO> monthlySummaries() {
+        return attendanceService.calculateMonthlySummaries(SyntheticData.ORGANIZATION_ID, employeeIds,
+                MONTH.getMonthValue(), MONTH.getYear());
+    }
+}
@@ -0,0 +1,44 @@
+package com.payroll.service;
+
+import com.payroll.bench.SyntheticData;
+import com.payroll.entity.PayRunEmployee;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-employee pay calculation (gross, LOP, PF, ESI, PT, totals) over a whole pay run.
+ * One operation is the calculation of every employee in the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayRunCalculationBenchmark {
+
+    @Param({"1000", "10000"})
+    private int employees;
+
+    private PayRunService payRunService;
+    private List<PayRunEmployee> rows;
+
+    @Setup
+    public void setUp() {
+        SyntheticData data = new SyntheticData(42);
+        rows = data.payRunEmployees(data.employees(data.organization(), employees), 22);
+        // calculateEmployeeSalary touches no collaborators
+        payRunService = new PayRunService(null, null, null, null, null, null, null, null, null);
+    }
+
+    @Benchmark
+    public void calculatePayRun(Blackhole blackhole) {
+        for (PayRunEmployee pre : rows) {
+            payRunService.calculateEmployeeSalary(pre);
+            blackhole.consume(pre.getNetSalary());
+        }
+    }
+}
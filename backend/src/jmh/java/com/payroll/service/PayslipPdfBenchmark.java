@@ -0,0 +1,107 @@
+package com.payroll.service;
+
+import com.payroll.bench.SyntheticData;
+import com.payroll.entity.Employee;
+import com.payroll.entity.PayRunEmployee;
+import com.payroll.entity.Payslip;
+import com.payroll.organization.Organization;
+import com.payroll.payslip.LocalPayslipStorage;
+import com.payroll.payslip.PayslipTemplateCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Rendering one payslip PDF into local payslip storage, cycling through employees so the
+ * variable fields change between calls; after the first round every PDF is already stored.
+ * Run with -prof gc to compare allocation per payslip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayslipPdfBenchmark {
+
+    private static final int PAYSLIPS = 500;
+
+    private PayslipService payslipService;
+    private LocalPayslipStorage storage;
+    private Organization organization;
+    private List<Payslip> payslips;
+    private Path directory;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        SyntheticData data = new SyntheticData(42);
+        organization = data.organization();
+        organization.setAddressLine1("4th Floor, Tidel Park");
+        organization.setCity("Chennai");
+        organization.setState("Tamil Nadu");
+        organization.setPinCode("600113");
+
+        List<Employee> employees = data.employees(organization, PAYSLIPS);
+        employees.forEach(employee -> {
+            employee.setDesignation("Software Engineer");
+            employee.setDepartment("Engineering");
+        });
+        payslips = data.payRunEmployees(employees, 22).stream()
+                .map(PayslipPdfBenchmark::payslip)
+                .toList();
+
+        directory = Files.createTempDirectory("payslip-bench-");
+        storage = new LocalPayslipStorage(directory.toString());
+        payslipService = new PayslipService(null, null, null, null, null, null, new PayslipTemplateCache(), storage);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public String generatePdf() throws IOException {
+        Payslip payslip = payslips.get(next++ % PAYSLIPS);
+        String key = payslipService.generatePdf(payslip, organization);
+        storage.release(key);
+        return key;
+    }
+
+    private static Payslip payslip(PayRunEmployee pre) {
+        Payslip payslip = new Payslip();
+        payslip.setId(pre.getId());
+        payslip.setEmployee(pre.getEmployee());
+        payslip.setPayPeriodStart(LocalDate.of(2025, 1, 1));
+        payslip.setPayPeriodEnd(LocalDate.of(2025, 1, 31));
+        payslip.setBasicSalary(pre.getBasicSalary());
+        payslip.setHra(pre.getHra());
+        payslip.setConveyanceAllowance(pre.getConveyanceAllowance());
+        payslip.setFixedAllowance(pre.getFixedAllowance());
+        payslip.setOtherEarnings(pre.getOtherEarnings());
+        payslip.setGrossSalary(pre.getBasicSalary().add(pre.getHra()).add(pre.getConveyanceAllowance())
+                .add(pre.getFixedAllowance()).add(pre.getOtherEarnings()));
+        payslip.setPfEmployee(pre.getBasicSalary().min(new BigDecimal("15000")).multiply(new BigDecimal("0.12")));
+        payslip.setProfessionalTax(new BigDecimal("208.00"));
+        payslip.setOtherDeductions(pre.getOtherDeductions());
+        payslip.setTotalDeductions(payslip.getPfEmployee().add(payslip.getProfessionalTax()).add(pre.getOtherDeductions()));
+        payslip.setNetSalary(payslip.getGrossSalary().subtract(payslip.getTotalDeductions()));
+        payslip.setWorkingDays(pre.getWorkingDays());
+        payslip.setDaysWorked(pre.getDaysWorked() - pre.getLopDays());
+        payslip.setLopDays(pre.getLopDays());
+        return payslip;
+    }
+}
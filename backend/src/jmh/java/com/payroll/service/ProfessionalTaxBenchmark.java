@@ -0,0 +1,78 @@
+package com.payroll.service;
+
+import com.payroll.bench.Stubs;
+import com.payroll.entity.ProfessionalTaxSlab;
+import com.payroll.repository.ProfessionalTaxSlabRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Slab lookup in StatutoryComplianceService.calculateProfessionalTax for a spread of gross
+ * salaries. "Default" has no slabs configured and falls back to the built-in Tamil Nadu slabs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProfessionalTaxBenchmark {
+
+    @Param({"Karnataka", "West Bengal", "Default"})
+    private String state;
+
+    private StatutoryComplianceService statutoryComplianceService;
+    private BigDecimal[] grossSalaries;
+
+    @Setup
+    public void setUp() {
+        List<ProfessionalTaxSlab> slabs = new ArrayList<>();
+        slabs.add(slab("Karnataka", "0", "15000", "0"));
+        slabs.add(slab("Karnataka", "15001", "25000", "150"));
+        slabs.add(slab("Karnataka", "25001", null, "200"));
+        slabs.add(slab("West Bengal", "0", "10000", "0"));
+        slabs.add(slab("West Bengal", "10001", "15000", "110"));
+        slabs.add(slab("West Bengal", "15001", "25000", "130"));
+        slabs.add(slab("West Bengal", "25001", "40000", "150"));
+        slabs.add(slab("West Bengal", "40001", null, "200"));
+        Map<String, List<ProfessionalTaxSlab>> byState = slabs.stream()
+                .collect(Collectors.groupingBy(ProfessionalTaxSlab::getState));
+
+        ProfessionalTaxSlabRepository slabRepository = Stubs.repository(ProfessionalTaxSlabRepository.class)
+                .answer("findByStateAndIsActiveOrderByFromAmountAsc", args -> byState.getOrDefault(args[0], List.of()))
+                .build();
+        statutoryComplianceService = new StatutoryComplianceService(null, null, slabRepository, null);
+
+        Random random = new Random(42);
+        grossSalaries = new BigDecimal[1024];
+        for (int i = 0; i < grossSalaries.length; i++) {
+            grossSalaries[i] = BigDecimal.valueOf(2_000_00L + random.nextInt(1_50_000_00), 2);
+        }
+    }
+
+    @Benchmark
+    public void calculateProfessionalTax(Blackhole blackhole) {
+        for (int i = 0; i < grossSalaries.length; i++) {
+            blackhole.consume(statutoryComplianceService.calculateProfessionalTax(grossSalaries[i], state,
+                    (i & 1) == 0 ? "Male" : "Female"));
+        }
+    }
+
+    private static ProfessionalTaxSlab slab(String state, String from, String to, String tax) {
+        ProfessionalTaxSlab slab = new ProfessionalTaxSlab();
+        slab.setState(state);
+        slab.setFromAmount(new BigDecimal(from));
+        slab.setToAmount(to != null ? new BigDecimal(to) : null);
+        slab.setTaxAmount(new BigDecimal(tax));
+        slab.setIsActive(true);
+        return slab;
+    }
+}
@@ -0,0 +1,120 @@
+package com.payroll.service;
+
+import com.payroll.bench.Stubs;
+import com.payroll.bench.SyntheticData;
+import com.payroll.dto.SalaryBreakdownDTO;
+import com.payroll.entity.Employee;
+import com.payroll.entity.EmployeeSalaryComponent;
+import com.payroll.entity.SalaryComponent;
+import com.payroll.enums.CalculationType;
+import com.payroll.enums.ComponentType;
+import com.payroll.organization.Organization;
+import com.payroll.repository.EmployeeRepository;
+import com.payroll.repository.EmployeeSalaryComponentRepository;
+import com.payroll.repository.SalaryComponentRepository;
+import com.payroll.salary.SalaryStructureCache;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Salary breakdown for every employee with the seeded component set (BASIC, HRA and DA as
+ * percentages, fixed allowances, a PF formula and PT).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SalaryBreakdownBenchmark {
+
+    @Param({"1000"})
+    private int employees;
+
+    private EmployeeSalaryService employeeSalaryService;
+    private List<Long> employeeIds;
+
+    @Setup
+    public void setUp() {
+        SyntheticData data = new SyntheticData(42);
+        Organization organization = data.organization();
+        List<Employee> staff = data.employees(organization, employees);
+        Map<Long, Employee> byId = staff.stream().collect(Collectors.toMap(Employee::getId, Function.identity()));
+        employeeIds = staff.stream().map(Employee::getId).collect(Collectors.toList());
+
+        SalaryComponent basic = component(1L, organization, "BASIC", ComponentType.EARNING, CalculationType.PERCENTAGE, null, null);
+        SalaryComponent hra = component(2L, organization, "HRA", ComponentType.EARNING, CalculationType.PERCENTAGE, basic, null);
+        SalaryComponent da = component(3L, organization, "DA", ComponentType.EARNING, CalculationType.PERCENTAGE, basic, null);
+        SalaryComponent conveyance = component(4L, organization, "CONVEYANCE", ComponentType.EARNING, CalculationType.FIXED, null, null);
+        SalaryComponent medical = component(5L, organization, "MEDICAL", ComponentType.EARNING, CalculationType.FIXED, null, null);
+        SalaryComponent pf = component(6L, organization, "PF", ComponentType.DEDUCTION, CalculationType.FORMULA, null,
+                "MIN(BASIC + DA, 15000) * 12 / 100");
+        SalaryComponent pt = component(7L, organization, "PT", ComponentType.DEDUCTION, CalculationType.FIXED, null, null);
+        List<SalaryComponent> components = List.of(basic, hra, da, conveyance, medical, pf, pt);
+
+        Map<Long, List<EmployeeSalaryComponent>> assignments = staff.stream().collect(Collectors.toMap(Employee::getId, e -> {
+            List<EmployeeSalaryComponent> list = new ArrayList<>();
+            list.add(assign(e, basic, "50"));
+            list.add(assign(e, hra, "40"));
+            list.add(assign(e, da, "10"));
+            list.add(assign(e, conveyance, "1600"));
+            list.add(assign(e, medical, "1250"));
+            list.add(assign(e, pf, "0"));
+            list.add(assign(e, pt, "208"));
+            return list;
+        }));
+
+        EmployeeRepository employeeRepository = Stubs.repository(EmployeeRepository.class)
+                .answer("findById", args -> Optional.ofNullable(byId.get(args[0])))
+                .build();
+        EmployeeSalaryComponentRepository assignmentRepository = Stubs.repository(EmployeeSalaryComponentRepository.class)
+                .answer("findActiveComponentsForEmployeeOnDate", args -> assignments.getOrDefault(args[0], List.of()))
+                .build();
+        SalaryComponentRepository componentRepository = Stubs.repository(SalaryComponentRepository.class)
+                .answer("findByOrganizationId", args -> components)
+                .build();
+
+        employeeSalaryService = new EmployeeSalaryService(assignmentRepository, componentRepository, employeeRepository,
+                new ProfessionalTaxService(), new SalaryStructureCache(componentRepository));
+    }
+
+    @Benchmark
+    public void calculateSalaryBreakdown(Blackhole blackhole) {
+        for (Long employeeId : employeeIds) {
+            SalaryBreakdownDTO breakdown = employeeSalaryService.calculateSalaryBreakdown(employeeId);
+            blackhole.consume(breakdown.getNetSalary());
+        }
+    }
+
+    private static SalaryComponent component(Long id, Organization organization, String code, ComponentType type,
+                                             CalculationType calculationType, SalaryComponent base, String formula) {
+        SalaryComponent component = new SalaryComponent();
+        component.setId(id);
+        component.setOrganization(organization);
+        component.setName(code);
+        component.setCode(code);
+        component.setType(type);
+        component.setCalculationType(calculationType);
+        component.setBaseComponent(base);
+        component.setFormula(formula);
+        component.setDisplayOrder(id.intValue());
+        return component;
+    }
+
+    private static EmployeeSalaryComponent assign(Employee employee, SalaryComponent component, String value) {
+        EmployeeSalaryComponent assignment = new EmployeeSalaryComponent();
+        assignment.setEmployee(employee);
+        assignment.setComponent(component);
+        assignment.setValue(new BigDecimal(value));
+        return assignment;
+    }
+}
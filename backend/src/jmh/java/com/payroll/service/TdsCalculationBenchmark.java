@@ -0,0 +1,87 @@
+package com.payroll.service;
+
+import com.payroll.bench.Stubs;
+import com.payroll.bench.SyntheticData;
+import com.payroll.dto.TaxCalculationDTO;
+import com.payroll.entity.Employee;
+import com.payroll.entity.EmployeeStatutoryInfo;
+import com.payroll.entity.TaxDeclaration;
+import com.payroll.repository.EmployeeRepository;
+import com.payroll.repository.EmployeeStatutoryInfoRepository;
+import com.payroll.repository.TaxDeclarationRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Annual tax projection for every employee under the old or the new regime.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TdsCalculationBenchmark {
+
+    private static final String FINANCIAL_YEAR = "2025-26";
+
+    @Param({"1000"})
+    private int employees;
+
+    @Param({"OLD", "NEW"})
+    private String regime;
+
+    private TDSCalculationService tdsCalculationService;
+    private List<Long> employeeIds;
+
+    @Setup
+    public void setUp() {
+        SyntheticData data = new SyntheticData(42);
+        List<Employee> staff = data.employees(data.organization(), employees);
+        Map<Long, Employee> byId = staff.stream().collect(Collectors.toMap(Employee::getId, Function.identity()));
+        employeeIds = staff.stream().map(Employee::getId).collect(Collectors.toList());
+
+        Map<Long, TaxDeclaration> declarations = staff.stream().collect(Collectors.toMap(Employee::getId, e -> {
+            TaxDeclaration declaration = new TaxDeclaration();
+            declaration.setEmployee(e);
+            declaration.setFinancialYear(FINANCIAL_YEAR);
+            declaration.setTaxRegime(regime);
+            declaration.setSection80cPpf(new BigDecimal("100000"));
+            declaration.setSection80dSelfFamily(new BigDecimal("20000"));
+            declaration.setRentPaidAnnual(new BigDecimal("240000"));
+            declaration.setIsMetroCity(e.getId() % 2 == 0);
+            return declaration;
+        }));
+        EmployeeStatutoryInfo statutoryInfo = new EmployeeStatutoryInfo();
+        statutoryInfo.setTaxRegime(regime);
+
+        EmployeeRepository employeeRepository = Stubs.repository(EmployeeRepository.class)
+                .answer("findById", args -> Optional.ofNullable(byId.get(args[0])))
+                .build();
+        TaxDeclarationRepository taxDeclarationRepository = Stubs.repository(TaxDeclarationRepository.class)
+                .answer("findByEmployeeIdAndFinancialYear", args -> Optional.ofNullable(declarations.get(args[0])))
+                .build();
+        EmployeeStatutoryInfoRepository statutoryInfoRepository = Stubs.repository(EmployeeStatutoryInfoRepository.class)
+                .answer("findByEmployeeId", args -> Optional.of(statutoryInfo))
+                .build();
+
+        tdsCalculationService = new TDSCalculationService(taxDeclarationRepository, employeeRepository,
+                statutoryInfoRepository, null);
+    }
+
+    @Benchmark
+    public void calculateTax(Blackhole blackhole) {
+        for (Long employeeId : employeeIds) {
+            TaxCalculationDTO result = tdsCalculationService.calculateTax(employeeId, FINANCIAL_YEAR);
+            blackhole.consume(result.getMonthlyTds());
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package com.payroll.attendance;
+
+import com.payroll.calendar.WorkCalendar;
+import com.payroll.calendar.WorkCalendarCache;
+import com.payroll.dto.EmployeeNameDTO;
+import com.payroll.entity.Attendance;
+import com.payroll.entity.LeaveType;
+import com.payroll.repository.AttendanceBatchRepository;
+import com.payroll.repository.AttendanceBatchRepository.UpsertResult;
+import com.payroll.repository.EmployeeRepository;
+import com.payroll.repository.LeaveTypeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pivot-style attendance import (date rows, employee columns) in three stages:
+ * <ol>
+ *   <li>parse: a reader ({@link CsvPivotReader}, {@link XlsxPivotReader}) turns the file into rows
+ *   and feeds them to a {@link Run};</li>
+ *   <li>resolve: the run maps header columns to employees through an {@link EmployeeNameIndex}
+ *   and each cell to a status and leave type through a {@link LeaveTypeLookup}; empty cells
+ *   follow the organization's {@link WorkCalendar};</li>
+ *   <li>write: resolved cells are upserted a batch at a time, each batch in its own transaction.</li>
+ * </ol>
+ * A failure late in a large file therefore only affects its own batch. When a batch fails,
+ * its cells are retried one by one so that only the bad ones are reported and the rest are
+ * still written.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AttendanceImportPipeline {
+
+    private static final int MAX_REPORTED_MESSAGES = 20;
+
+    private static final Set<String> STATUSES = Set.of("PRESENT", "ABSENT", "LEAVE", "HALF_DAY", "HOLIDAY", "WEEKEND");
+
+    // Date formats accepted in column A, including DD-MMM-YY
+    private static final List<DateTimeFormatter> DATE_FORMATS = List.of(
+            DateTimeFormatter.ofPattern("yyyy-MM-dd"),
+            DateTimeFormatter.ofPattern("dd/MM/yyyy"),
+            DateTimeFormatter.ofPattern("dd-MM-yyyy"),
+            DateTimeFormatter.ofPattern("MM/dd/yyyy"),
+            DateTimeFormatter.ofPattern("yyyy/MM/dd"),
+            DateTimeFormatter.ofPattern("dd-MMM-yy"),
+            DateTimeFormatter.ofPattern("dd-MMM-yyyy"));
+
+    private final EmployeeRepository employeeRepository;
+    private final LeaveTypeRepository leaveTypeRepository;
+    private final AttendanceBatchRepository attendanceBatchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final WorkCalendarCache workCalendarCache;
+
+    /** Cells upserted per statement and transaction. */
+    @Value("${app.attendance.import.batch-size:1000}")
+    private int batchSize;
+
+    /** Match misspelt header names to the closest employee name. */
+    @Value("${app.attendance.import.fuzzy-names:false}")
+    private boolean fuzzyNames;
+
+    public Run start(Long tenantId, String fileType) {
+        return start(tenantId, fileType, ImportProgressListener.NONE);
+    }
+
+    /**
+     * Begin an import. Feed every row of the file to the returned run, then call
+     * {@link Run#finish()}. Must not be called inside a transaction, or the batches would
+     * commit with it instead of one at a time.
+     *
+     * @param fileType CSV or Excel, used in error messages
+     */
+    public Run start(Long tenantId, String fileType, ImportProgressListener listener) {
+        EmployeeNameIndex employees = new EmployeeNameIndex(employeeRepository.findNamesByOrganizationId(tenantId), fuzzyNames);
+        LeaveTypeLookup leaveTypes = new LeaveTypeLookup(leaveTypeRepository.findByOrganizationId(tenantId));
+        return new Run(tenantId, fileType, employees, leaveTypes, listener);
+    }
+
+    /**
+     * Continue an interrupted import of the same file from its last reported progress: rows
+     * up to {@link ImportProgress#lastRow()} are skipped and the counts carry on from there.
+     */
+    public Run resume(Long tenantId, String fileType, ImportProgressListener listener, ImportProgress checkpoint) {
+        Run run = start(tenantId, fileType, listener);
+        run.skipThrough = checkpoint.lastRow();
+        run.rowsRead = checkpoint.rowsRead();
+        run.lastRow = checkpoint.lastRow();
+        run.batches = checkpoint.batches();
+        run.created = checkpoint.created();
+        run.updated = checkpoint.updated();
+        run.errorCount = checkpoint.errors();
+        return run;
+    }
+
+    private record CellKey(Long employeeId, LocalDate date) {
+    }
+
+    /**
+     * A resolved cell waiting to be written, with where it came from for error reporting.
+     */
+    private record PendingCell(int row, String employee, Attendance attendance) {
+    }
+
+    /**
+     * One import in progress. Not thread-safe; rows must arrive in file order.
+     */
+    public class Run implements PivotRowHandler {
+
+        private final Long tenantId;
+        private final String fileType;
+        private final EmployeeNameIndex employees;
+        private final LeaveTypeLookup leaveTypes;
+        private final ImportProgressListener listener;
+
+        private final Map<Integer, EmployeeNameDTO> columnToEmployee = new LinkedHashMap<>();
+        private final Map<CellKey, PendingCell> pending = new LinkedHashMap<>();
+        private boolean headerRead;
+        private int skipThrough;
+        private DateTimeFormatter dateFormat = DATE_FORMATS.get(0);
+        private WorkCalendar calendar;
+
+        private final List<String> errors = new ArrayList<>();
+        private final List<String> warnings = new ArrayList<>();
+        private int rowsRead;
+        private int lastRow;
+        private int batches;
+        private int created;
+        private int updated;
+        private int errorCount;
+
+        private Run(Long tenantId, String fileType, EmployeeNameIndex employees, LeaveTypeLookup leaveTypes,
+                    ImportProgressListener listener) {
+            this.tenantId = tenantId;
+            this.fileType = fileType;
+            this.employees = employees;
+            this.leaveTypes = leaveTypes;
+            this.listener = listener;
+        }
+
+        @Override
+        public void row(int rowIndex, List<String> cells) {
+            if (!headerRead) {
+                if (rowIndex != 0) {
+                    throw new RuntimeException(fileType + " file is empty or missing header row");
+                }
+                readHeader(cells);
+                headerRead = true;
+                return;
+            }
+
+            int row = rowIndex + 1;
+            if (row <= skipThrough) {
+                return;
+            }
+
+            // Parse date from column A
+            String dateStr = cells.isEmpty() ? null : cells.get(0);
+            if (dateStr == null || dateStr.trim().isEmpty()) {
+                return;
+            }
+            rowsRead++;
+            lastRow = row;
+
+            LocalDate date = parseDate(dateStr.trim());
+            if (date == null) {
+                error(new ImportError(row, null, "Invalid date format: " + dateStr));
+                return;
+            }
+
+            // Resolve each employee column
+            for (Map.Entry<Integer, EmployeeNameDTO> entry : columnToEmployee.entrySet()) {
+                int col = entry.getKey();
+                EmployeeNameDTO employee = entry.getValue();
+                String cellValue = col < cells.size() ? cells.get(col) : null;
+
+                Attendance attendance = new Attendance();
+                attendance.setEmployeeId(employee.getId());
+                attendance.setOrganizationId(tenantId);
+                attendance.setDate(date);
+                resolve(cellValue, attendance, row, employee);
+
+                // The last value for an employee and date wins, as it would if written in order
+                if (pending.put(new CellKey(employee.getId(), date), new PendingCell(row, employee.getEmployeeId(), attendance)) != null) {
+                    updated++;
+                }
+            }
+
+            if (pending.size() >= batchSize) {
+                writeBatch();
+            }
+        }
+
+        /**
+         * Write what is still buffered and return the result in the shape the import
+         * endpoint responds with.
+         */
+        public Map<String, Object> finish() {
+            if (!headerRead) {
+                throw new RuntimeException(fileType + " file is empty or missing header row");
+            }
+            writeBatch();
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", errorCount == 0);
+            result.put("successCount", created);
+            result.put("updatedCount", updated);
+            result.put("errorCount", errorCount);
+            result.put("errors", errors);
+            result.put("warnings", warnings);
+            result.put("totalProcessed", created + updated + errorCount);
+            result.put("batches", batches);
+
+            log.info("{} import for tenant {} completed: {} rows in {} batches, {} created, {} updated, {} errors",
+                    fileType, tenantId, rowsRead, batches, created, updated, errorCount);
+            return result;
+        }
+
+        /**
+         * Progress so far. Its last row is only committed when read from
+         * {@link ImportProgressListener#batchWritten} or after {@link #finish()}.
+         */
+        public ImportProgress progress() {
+            return new ImportProgress(batches, rowsRead, lastRow, created, updated, errorCount);
+        }
+
+        /**
+         * Parse with the format the previous date matched first, since a file uses one
+         * format throughout and every failed attempt costs an exception.
+         */
+        private LocalDate parseDate(String dateStr) {
+            try {
+                return LocalDate.parse(dateStr, dateFormat);
+            } catch (DateTimeParseException e) {
+                // Try the other formats
+            }
+            for (DateTimeFormatter format : DATE_FORMATS) {
+                if (format == dateFormat) {
+                    continue;
+                }
+                try {
+                    LocalDate date = LocalDate.parse(dateStr, format);
+                    dateFormat = format;
+                    return date;
+                } catch (DateTimeParseException e) {
+                    // Try next format
+                }
+            }
+            return null;
+        }
+
+        private void readHeader(List<String> cells) {
+            if (cells.size() < 4) {
+                throw new RuntimeException("Invalid " + fileType + " format. Expected: Date, Sprint, Day, Employee1, Employee2, ...");
+            }
+
+            // Parse employee names from header (columns D onwards, index 3+)
+            List<String> employeeNames = new ArrayList<>();
+            for (int col = 3; col < cells.size(); col++) {
+                String employeeName = cells.get(col);
+                if (employeeName != null && !employeeName.trim().isEmpty()) {
+                    employeeNames.add(employeeName.trim());
+                    List<EmployeeNameDTO> candidates = employees.candidates(employeeName);
+                    if (candidates.size() == 1) {
+                        columnToEmployee.put(col, candidates.get(0));
+                    } else if (candidates.isEmpty()) {
+                        warning("Employee not found in header: " + employeeName);
+                    } else {
+                        warning("Employee name in header matches " + candidates.size() + " employees, use the employee ID instead: "
+                                + employeeName);
+                    }
+                }
+            }
+
+            if (columnToEmployee.isEmpty()) {
+                throw new RuntimeException("No valid employees found in header row. " +
+                        "Header contained: [" + String.join(", ", employeeNames) + "]. " +
+                        "Please ensure these employee names exist in your system. " +
+                        "Use actual employee names or employee IDs in columns D onwards, after Date, Sprint, Day.");
+            }
+        }
+
+        /**
+         * Empty = HOLIDAY on the organization's holidays, WEEKEND on its weekends and PRESENT
+         * otherwise; a status name = that status, a leave type name or code = LEAVE, anything
+         * else = ABSENT. HOLIDAY cells reference the calendar's holiday for the date, if any.
+         */
+        private void resolve(String cellValue, Attendance attendance, int row, EmployeeNameDTO employee) {
+            LocalDate date = attendance.getDate();
+            if (cellValue == null || cellValue.trim().isEmpty()) {
+                WorkCalendar workCalendar = calendar(date);
+                if (workCalendar.isHoliday(date)) {
+                    attendance.setStatus("HOLIDAY");
+                    attendance.setHolidayId(workCalendar.getHolidayId(date));
+                } else {
+                    attendance.setStatus(workCalendar.isWeekend(date) ? "WEEKEND" : "PRESENT");
+                }
+                return;
+            }
+
+            String upperValue = cellValue.trim().toUpperCase();
+            if (STATUSES.contains(upperValue)) {
+                attendance.setStatus(upperValue);
+                if ("HOLIDAY".equals(upperValue)) {
+                    attendance.setHolidayId(calendar(date).getHolidayId(date));
+                }
+                return;
+            }
+
+            LeaveType leaveType = leaveTypes.find(upperValue);
+            if (leaveType != null) {
+                attendance.setStatus("LEAVE");
+                attendance.setLeaveTypeId(leaveType.getId());
+                return;
+            }
+
+            warning("Row " + row + ", Employee " + employee.getEmployeeId() + ": Unknown value '"
+                    + cellValue.trim() + "', marking as ABSENT");
+            attendance.setStatus("ABSENT");
+        }
+
+        /**
+         * The calendar of the date's year. A file normally stays within one year, so the last
+         * one used is kept.
+         */
+        private WorkCalendar calendar(LocalDate date) {
+            if (calendar == null || calendar.getYear() != date.getYear()) {
+                calendar = workCalendarCache.getCalendar(tenantId, date.getYear());
+            }
+            return calendar;
+        }
+
+        private void writeBatch() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<PendingCell> cells = new ArrayList<>(pending.values());
+            pending.clear();
+            batches++;
+
+            try {
+                List<Attendance> batch = new ArrayList<>(cells.size());
+                for (PendingCell cell : cells) {
+                    batch.add(cell.attendance());
+                }
+                count(transactionTemplate.execute(tx -> attendanceBatchRepository.upsert(batch)));
+            } catch (RuntimeException e) {
+                log.warn("{} import for tenant {}: batch {} failed, retrying its {} cells one by one: {}",
+                        fileType, tenantId, batches, cells.size(), NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+                for (PendingCell cell : cells) {
+                    try {
+                        count(transactionTemplate.execute(tx -> attendanceBatchRepository.upsert(List.of(cell.attendance()))));
+                    } catch (RuntimeException cellFailure) {
+                        error(new ImportError(cell.row(), cell.employee(),
+                                NestedExceptionUtils.getMostSpecificCause(cellFailure).getMessage()));
+                    }
+                }
+            }
+
+            ImportProgress progress = progress();
+            log.debug("{} import for tenant {}: batch {} written, {}", fileType, tenantId, batches, progress);
+            listener.batchWritten(progress);
+        }
+
+        private void count(UpsertResult result) {
+            created += result.created();
+            updated += result.updated();
+        }
+
+        private void error(ImportError error) {
+            errorCount++;
+            if (errors.size() < MAX_REPORTED_MESSAGES) {
+                errors.add(error.toString());
+            }
+            listener.rowFailed(error);
+        }
+
+        private void warning(String message) {
+            if (warnings.size() < MAX_REPORTED_MESSAGES) {
+                warnings.add(message);
+            }
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.payroll.attendance;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads a pivot-style attendance CSV (RFC 4180) record by record, tokenizing the raw UTF-8
+ * bytes in a reusable buffer instead of decoding lines and splitting them.
+ *
+ * Fields are separated by commas and records by LF or CRLF. A field in double quotes may
+ * contain commas, line breaks and doubled quotes. Unquoted fields are trimmed, as the import
+ * has always done. Empty fields become null, and blank lines are skipped.
+ *
+ * Attendance cells repeat a handful of values (ABSENT, a leave name) across the whole sheet,
+ * so cells after the header and outside column A (the date) are looked up by their bytes in
+ * a small cache and the same String is handed out again; a sheet of cells makes no strings
+ * beyond its distinct values and one date per row.
+ */
+public final class CsvPivotReader {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int CACHE_SLOTS = 4096;
+    private static final int MAX_CACHED_LENGTH = 64;
+    private static final int INCOMPLETE = -1;
+
+    private final ReadableByteChannel channel;
+    private final PivotRowHandler handler;
+
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int start;
+    private int limit;
+    private boolean eof;
+
+    private final List<String> cells = new ArrayList<>();
+    private byte[] unescaped = new byte[256];
+    private int line;
+    private int newlinesInRecord;
+    private boolean header = true;
+
+    // Direct-mapped cache: each slot holds the last value whose bytes hashed to it
+    private final byte[][] cachedBytes = new byte[CACHE_SLOTS][];
+    private final String[] cachedValues = new String[CACHE_SLOTS];
+
+    private CsvPivotReader(ReadableByteChannel channel, PivotRowHandler handler) {
+        this.channel = channel;
+        this.handler = handler;
+    }
+
+    public static void read(Path file, PivotRowHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            new CsvPivotReader(channel, handler).read();
+        }
+    }
+
+    /**
+     * Read the whole stream; the caller closes it.
+     */
+    public static void read(InputStream in, PivotRowHandler handler) throws IOException {
+        new CsvPivotReader(Channels.newChannel(in), handler).read();
+    }
+
+    private void read() throws IOException {
+        // A stream may hand back fewer bytes than asked for, so read until the byte order
+        // mark could be complete before looking for it
+        do {
+            fill();
+        } while (limit < 3 && !eof);
+        // UTF-8 byte order mark, as Excel writes it
+        if (limit >= 3 && buffer[0] == (byte) 0xEF && buffer[1] == (byte) 0xBB && buffer[2] == (byte) 0xBF) {
+            start = 3;
+        }
+
+        while (true) {
+            if (start == limit) {
+                if (eof) {
+                    return;
+                }
+                fill();
+                continue;
+            }
+
+            int end = parseRecord();
+            if (end == INCOMPLETE) {
+                fill();
+                continue;
+            }
+            start = end;
+
+            int rowIndex = line;
+            line += 1 + newlinesInRecord;
+            if (cells.size() == 1 && cells.get(0) == null) {
+                continue;
+            }
+            handler.row(rowIndex, cells);
+            header = false;
+        }
+    }
+
+    /**
+     * Move the unread bytes to the front of the buffer, growing it if one record fills it
+     * completely, and read more after them.
+     */
+    private void fill() throws IOException {
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, limit - start);
+            limit -= start;
+            start = 0;
+        }
+        if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int read = channel.read(ByteBuffer.wrap(buffer, limit, buffer.length - limit));
+        if (read < 0) {
+            eof = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    /**
+     * Tokenize the record at the start of the buffer into {@link #cells}.
+     *
+     * @return where the next record starts, or {@link #INCOMPLETE} if the buffer ends
+     *         before the record does and more input may follow
+     */
+    private int parseRecord() {
+        cells.clear();
+        newlinesInRecord = 0;
+        int p = start;
+        while (true) {
+            int column = cells.size();
+            if (p < limit && buffer[p] == '"') {
+                p = quotedField(p + 1, column);
+            } else {
+                p = unquotedField(p, column);
+            }
+            if (p == INCOMPLETE) {
+                return INCOMPLETE;
+            }
+
+            if (p == limit) {
+                return p; // end of input
+            }
+            byte b = buffer[p];
+            if (b == ',') {
+                p++;
+            } else if (b == '\n') {
+                return p + 1;
+            } else { // '\r'
+                if (p + 1 == limit && !eof) {
+                    return INCOMPLETE;
+                }
+                return p + 1 < limit && buffer[p + 1] == '\n' ? p + 2 : p + 1;
+            }
+        }
+    }
+
+    private int unquotedField(int from, int column) {
+        byte[] buf = buffer;
+        int end = limit;
+        int p = from;
+        while (p < end) {
+            byte b = buf[p];
+            if (b == ',' || b == '\n' || b == '\r') {
+                break;
+            }
+            p++;
+        }
+        if (p == end && !eof) {
+            return INCOMPLETE;
+        }
+
+        int s = from;
+        int e = p;
+        while (s < e && (buf[s] == ' ' || buf[s] == '\t')) {
+            s++;
+        }
+        while (e > s && (buf[e - 1] == ' ' || buf[e - 1] == '\t')) {
+            e--;
+        }
+        cells.add(s == e ? null : value(buf, s, e, column));
+        return p;
+    }
+
+    /**
+     * @param from first byte after the opening quote
+     * @return the position of the delimiter after the closing quote
+     */
+    private int quotedField(int from, int column) {
+        int p = from;
+        boolean escapes = false;
+        while (true) {
+            if (p == limit) {
+                if (!eof) {
+                    return INCOMPLETE;
+                }
+                break; // unterminated quote: take the rest of the input
+            }
+            byte b = buffer[p];
+            if (b == '"') {
+                if (p + 1 == limit && !eof) {
+                    return INCOMPLETE;
+                }
+                if (p + 1 < limit && buffer[p + 1] == '"') {
+                    escapes = true;
+                    p += 2;
+                    continue;
+                }
+                break;
+            }
+            if (b == '\n') {
+                newlinesInRecord++;
+            }
+            p++;
+        }
+        int end = p;
+
+        // Skip the closing quote and anything up to the delimiter
+        p = Math.min(p + 1, limit);
+        while (p < limit && buffer[p] != ',' && buffer[p] != '\n' && buffer[p] != '\r') {
+            p++;
+        }
+        if (p == limit && !eof) {
+            return INCOMPLETE;
+        }
+
+        if (end == from) {
+            cells.add(null);
+        } else if (!escapes) {
+            cells.add(value(buffer, from, end, column));
+        } else {
+            int length = 0;
+            if (unescaped.length < end - from) {
+                unescaped = new byte[end - from];
+            }
+            for (int i = from; i < end; i++) {
+                unescaped[length++] = buffer[i];
+                if (buffer[i] == '"') {
+                    i++; // second quote of the pair
+                }
+            }
+            cells.add(value(unescaped, 0, length, column));
+        }
+        return p;
+    }
+
+    private String value(byte[] bytes, int from, int to, int column) {
+        int length = to - from;
+        if (header || column == 0 || length > MAX_CACHED_LENGTH) {
+            return new String(bytes, from, length, StandardCharsets.UTF_8);
+        }
+
+        int hash = 1;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        int slot = (hash ^ (hash >>> 16)) & (CACHE_SLOTS - 1);
+        byte[] cached = cachedBytes[slot];
+        if (cached != null && Arrays.equals(cached, 0, cached.length, bytes, from, to)) {
+            return cachedValues[slot];
+        }
+        String value = new String(bytes, from, length, StandardCharsets.UTF_8);
+        cachedBytes[slot] = Arrays.copyOfRange(bytes, from, to);
+        cachedValues[slot] = value;
+        return value;
+    }
+}
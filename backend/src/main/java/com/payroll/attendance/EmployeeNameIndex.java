@@ -0,0 +1,173 @@
+package com.payroll.attendance;
+
+import com.payroll.dto.EmployeeNameDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory index of one tenant's employee names, built once per import so that every
+ * header column is resolved with a few map lookups instead of a query.
+ *
+ * A header is matched, in order, by:
+ * <ol>
+ *   <li>employee code (EMP001), ignoring case;</li>
+ *   <li>full name, with or without the middle name;</li>
+ *   <li>whole words: employees whose name contains every word of the header, in any order
+ *   ("Smith", "Smith John");</li>
+ *   <li>if fuzzy matching is on, the closest name within two edits among employees sharing
+ *   at least one word with the header ("Jhon Smith").</li>
+ * </ol>
+ * Names are compared lower-cased, with punctuation and repeated spaces collapsed.
+ */
+final class EmployeeNameIndex {
+
+    private static final int MAX_EDITS = 2;
+
+    private record Entry(EmployeeNameDTO employee, String fullName, String firstLast, Set<String> words) {
+    }
+
+    private final Map<String, Entry> byCode = new HashMap<>();
+    private final Map<String, List<Entry>> byName = new HashMap<>();
+    private final Map<String, List<Entry>> byWord = new HashMap<>();
+    private final boolean fuzzy;
+
+    EmployeeNameIndex(List<EmployeeNameDTO> employees, boolean fuzzy) {
+        this.fuzzy = fuzzy;
+        for (EmployeeNameDTO employee : employees) {
+            String fullName = normalize(join(employee.getFirstName(), employee.getMiddleName(), employee.getLastName()));
+            String firstLast = normalize(join(employee.getFirstName(), null, employee.getLastName()));
+            Set<String> words = new LinkedHashSet<>(Arrays.asList(fullName.split(" ")));
+            words.remove("");
+            Entry entry = new Entry(employee, fullName, firstLast, words);
+
+            if (employee.getEmployeeId() != null) {
+                byCode.put(employee.getEmployeeId().trim().toUpperCase(Locale.ROOT), entry);
+            }
+            byName.computeIfAbsent(fullName, k -> new ArrayList<>()).add(entry);
+            if (!firstLast.equals(fullName)) {
+                byName.computeIfAbsent(firstLast, k -> new ArrayList<>()).add(entry);
+            }
+            for (String word : words) {
+                byWord.computeIfAbsent(word, k -> new ArrayList<>()).add(entry);
+            }
+        }
+    }
+
+    /**
+     * Employees the header could refer to: none if it matches nobody, one if it resolves,
+     * several if it is ambiguous.
+     */
+    List<EmployeeNameDTO> candidates(String header) {
+        Entry byEmployeeCode = byCode.get(header.trim().toUpperCase(Locale.ROOT));
+        if (byEmployeeCode != null) {
+            return List.of(byEmployeeCode.employee());
+        }
+
+        String name = normalize(header);
+        if (name.isEmpty()) {
+            return List.of();
+        }
+        List<Entry> exact = byName.get(name);
+        if (exact != null) {
+            return employees(exact);
+        }
+
+        List<String> words = Arrays.asList(name.split(" "));
+        List<Entry> allWords = byWord.getOrDefault(rarestWord(words), List.of()).stream()
+                .filter(entry -> entry.words().containsAll(words))
+                .toList();
+        if (!allWords.isEmpty() || !fuzzy) {
+            return employees(allWords);
+        }
+        return closest(name, words);
+    }
+
+    private String rarestWord(List<String> words) {
+        String rarest = words.get(0);
+        int fewest = Integer.MAX_VALUE;
+        for (String word : words) {
+            int count = byWord.getOrDefault(word, List.of()).size();
+            if (count < fewest) {
+                rarest = word;
+                fewest = count;
+            }
+        }
+        return rarest;
+    }
+
+    private List<EmployeeNameDTO> closest(String name, List<String> words) {
+        Set<Entry> sharingAWord = new LinkedHashSet<>();
+        for (String word : words) {
+            sharingAWord.addAll(byWord.getOrDefault(word, List.of()));
+        }
+
+        List<Entry> best = new ArrayList<>();
+        int bestDistance = MAX_EDITS + 1;
+        for (Entry entry : sharingAWord) {
+            int distance = Math.min(editDistance(name, entry.fullName()), editDistance(name, entry.firstLast()));
+            if (distance < bestDistance) {
+                best.clear();
+                bestDistance = distance;
+            }
+            if (distance == bestDistance) {
+                best.add(entry);
+            }
+        }
+        return employees(best);
+    }
+
+    private static List<EmployeeNameDTO> employees(List<Entry> entries) {
+        return entries.stream().map(Entry::employee).distinct().toList();
+    }
+
+    private static String join(String first, String middle, String last) {
+        StringBuilder name = new StringBuilder();
+        for (String part : new String[]{first, middle, last}) {
+            if (part != null && !part.isBlank()) {
+                name.append(part).append(' ');
+            }
+        }
+        return name.toString();
+    }
+
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    /**
+     * Levenshtein distance, giving up once it is certain to exceed {@link #MAX_EDITS}.
+     */
+    private static int editDistance(String a, String b) {
+        if (Math.abs(a.length() - b.length()) > MAX_EDITS) {
+            return MAX_EDITS + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > MAX_EDITS) {
+                return MAX_EDITS + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
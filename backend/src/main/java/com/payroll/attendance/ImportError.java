@@ -0,0 +1,18 @@
+package com.payroll.attendance;
+
+/**
+ * A row, or one employee's cell in a row, that could not be imported.
+ *
+ * @param row one-based row number in the uploaded file
+ * @param employee employee code of the column, or null when the whole row was rejected
+ * @param message why it was rejected
+ */
+public record ImportError(int row, String employee, String message) {
+
+    @Override
+    public String toString() {
+        return employee == null
+                ? "Row " + row + ": " + message
+                : "Row " + row + ", Employee " + employee + ": " + message;
+    }
+}
@@ -0,0 +1,15 @@
+package com.payroll.attendance;
+
+/**
+ * Running totals of an attendance import, reported after each batch is written.
+ *
+ * @param batches batches written so far
+ * @param rowsRead data rows read so far, including rows that were rejected
+ * @param lastRow one-based row number of the last row whose cells are all committed; an
+ *                import resumed from this progress starts after it
+ * @param created cells inserted
+ * @param updated existing cells overwritten
+ * @param errors rows or cells that could not be imported
+ */
+public record ImportProgress(int batches, int rowsRead, int lastRow, int created, int updated, int errors) {
+}
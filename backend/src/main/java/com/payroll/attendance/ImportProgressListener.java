@@ -0,0 +1,23 @@
+package com.payroll.attendance;
+
+/**
+ * Follows an attendance import as it runs. Both callbacks are made on the importing thread.
+ */
+public interface ImportProgressListener {
+
+    ImportProgressListener NONE = new ImportProgressListener() {
+    };
+
+    /**
+     * Called after each batch has been committed.
+     */
+    default void batchWritten(ImportProgress progress) {
+    }
+
+    /**
+     * Called for every rejected row or cell, including those beyond the ones kept in the
+     * import result.
+     */
+    default void rowFailed(ImportError error) {
+    }
+}
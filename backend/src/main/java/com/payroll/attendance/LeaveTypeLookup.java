@@ -0,0 +1,61 @@
+package com.payroll.attendance;
+
+import com.payroll.entity.LeaveType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Resolves attendance cell values to a tenant's active leave types by name or code: an
+ * exact match first, then a partial one (the value contains the name or code, or the other
+ * way round). Partial matches are tried from the longest name or code down, so the most
+ * specific one wins. Each distinct value is resolved once and remembered, because a sheet
+ * repeats the same few values in every column.
+ */
+final class LeaveTypeLookup {
+
+    private final Map<String, LeaveType> byNameOrCode = new HashMap<>();
+    private final List<Map.Entry<String, LeaveType>> longestFirst;
+    private final Map<String, Optional<LeaveType>> partialMatches = new HashMap<>();
+
+    LeaveTypeLookup(List<LeaveType> leaveTypes) {
+        for (LeaveType lt : leaveTypes) {
+            // Only include active leave types
+            if (lt.getIsActive() != null && lt.getIsActive()) {
+                byNameOrCode.put(lt.getName().toUpperCase(Locale.ROOT), lt);
+                if (lt.getCode() != null && !lt.getCode().isEmpty()) {
+                    byNameOrCode.put(lt.getCode().toUpperCase(Locale.ROOT), lt);
+                }
+            }
+        }
+        longestFirst = new ArrayList<>(byNameOrCode.entrySet());
+        longestFirst.sort(Comparator.comparing((Map.Entry<String, LeaveType> e) -> e.getKey().length()).reversed()
+                .thenComparing(Map.Entry::getKey));
+    }
+
+    /**
+     * @param value upper-cased, trimmed cell value
+     * @return the matching leave type, or null
+     */
+    LeaveType find(String value) {
+        LeaveType exact = byNameOrCode.get(value);
+        if (exact != null) {
+            return exact;
+        }
+        return partialMatches.computeIfAbsent(value, this::partialMatch).orElse(null);
+    }
+
+    private Optional<LeaveType> partialMatch(String value) {
+        for (Map.Entry<String, LeaveType> entry : longestFirst) {
+            if (entry.getKey().contains(value) || value.contains(entry.getKey())) {
+                return Optional.of(entry.getValue());
+            }
+        }
+        return Optional.empty();
+    }
+}
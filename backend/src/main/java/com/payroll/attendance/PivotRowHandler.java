@@ -0,0 +1,18 @@
+package com.payroll.attendance;
+
+import java.util.List;
+
+/**
+ * Receives a pivot-style attendance sheet (date rows, employee columns) one row at a time.
+ */
+@FunctionalInterface
+public interface PivotRowHandler {
+
+    /**
+     * Handle one row. The list holds the cell values by column index, with null for empty
+     * cells; it is reused for the next row, so implementations must not keep it.
+     *
+     * @param rowIndex zero-based row index in the sheet; rows with no cells are skipped
+     */
+    void row(int rowIndex, List<String> cells);
+}
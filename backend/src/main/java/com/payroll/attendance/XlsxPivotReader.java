@@ -0,0 +1,118 @@
+package com.payroll.attendance;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Streams the first sheet of an .xlsx workbook row by row with POI's SAX event API. Only
+ * the current row and the shared strings table are held in memory, so heap use does not
+ * grow with the number of rows.
+ *
+ * Cell values are reported as the DOM import read them: text as is, date-formatted numbers
+ * as ISO dates (yyyy-MM-dd), other numbers as whole numbers, booleans as TRUE or FALSE and
+ * formulas as their cached result.
+ */
+public final class XlsxPivotReader {
+
+    private XlsxPivotReader() {
+    }
+
+    public static void read(Path file, PivotRowHandler handler) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+            XSSFReader reader = new XSSFReader(pkg);
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                throw new RuntimeException("Excel file has no sheets");
+            }
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(), strings,
+                        new RowCollector(handler), new ValueFormatter(), false));
+                parser.parse(new InputSource(sheet));
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Cannot read Excel file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gathers one row's cells by column and hands the row over when it ends.
+     */
+    private static final class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final PivotRowHandler handler;
+        private final List<String> cells = new ArrayList<>();
+
+        private RowCollector(PivotRowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells.clear();
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            handler.row(rowNum, cells);
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? column(cellReference) : cells.size();
+            while (cells.size() <= column) {
+                cells.add(null);
+            }
+            cells.set(column, formattedValue);
+        }
+
+        /**
+         * Zero-based column of a reference such as "AB12".
+         */
+        private static int column(String cellReference) {
+            int column = 0;
+            for (int i = 0; i < cellReference.length(); i++) {
+                char c = cellReference.charAt(i);
+                if (c < 'A' || c > 'Z') {
+                    break;
+                }
+                column = column * 26 + (c - 'A' + 1);
+            }
+            return column - 1;
+        }
+    }
+
+    /**
+     * Formats numeric cells the way the DOM import did instead of by their display format.
+     */
+    private static final class ValueFormatter extends DataFormatter {
+
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+            if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+                return DateUtil.getLocalDateTime(value, use1904Windowing).toLocalDate().toString();
+            }
+            return String.valueOf((long) value);
+        }
+    }
+}
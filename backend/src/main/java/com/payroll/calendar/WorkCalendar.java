@@ -0,0 +1,211 @@
+package com.payroll.calendar;
+
+import com.payroll.entity.Holiday;
+import com.payroll.entity.OrganizationSettings;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.List;
+
+/**
+ * One organization's working days, weekends and holidays for a calendar year, held as
+ * bitsets indexed by day of year. Lookups and working-day counts are bit operations with
+ * no repository access.
+ *
+ * Weekends follow {@link OrganizationSettings#getSaturdayRule()} and
+ * {@link OrganizationSettings#getSundayOff()}; holidays are the organization's active
+ * holidays. A day that is both is reported as a holiday and a weekend, and is not a
+ * working day.
+ *
+ * Instances are immutable and shared between threads; see {@link WorkCalendarCache}.
+ */
+public final class WorkCalendar {
+
+    private final Long organizationId;
+    private final int year;
+    private final int length;
+    private final long[] weekends;
+    private final long[] holidays;
+    private final long[] working;
+    private final Long[] holidayIds;
+    /** Working days in each month, indexed 1 to 12. */
+    private final int[] workingDaysByMonth = new int[13];
+
+    private WorkCalendar(Long organizationId, int year) {
+        this.organizationId = organizationId;
+        this.year = year;
+        this.length = Year.of(year).length();
+        int words = (length + 63) / 64;
+        this.weekends = new long[words];
+        this.holidays = new long[words];
+        this.working = new long[words];
+        this.holidayIds = new Long[length];
+    }
+
+    /**
+     * Build the calendar for a year.
+     *
+     * @param settings the organization's settings; defaults apply to unset fields
+     * @param holidays active holidays; dates outside the year are ignored
+     */
+    public static WorkCalendar build(Long organizationId, int year, OrganizationSettings settings,
+                                     List<Holiday> holidays) {
+        WorkCalendar calendar = new WorkCalendar(organizationId, year);
+        String saturdayRule = settings.getSaturdayRule();
+        boolean sundayOff = settings.getSundayOff() == null || settings.getSundayOff();
+
+        LocalDate date = LocalDate.of(year, 1, 1);
+        for (int day = 0; day < calendar.length; day++, date = date.plusDays(1)) {
+            DayOfWeek dayOfWeek = date.getDayOfWeek();
+            if ((dayOfWeek == DayOfWeek.SUNDAY && sundayOff)
+                    || (dayOfWeek == DayOfWeek.SATURDAY && isSaturdayOff(saturdayRule, date))) {
+                set(calendar.weekends, day);
+            }
+        }
+
+        for (Holiday holiday : holidays) {
+            LocalDate holidayDate = holiday.getHolidayDate();
+            if (holidayDate == null || holidayDate.getYear() != year) {
+                continue;
+            }
+            int day = holidayDate.getDayOfYear() - 1;
+            set(calendar.holidays, day);
+            if (calendar.holidayIds[day] == null) {
+                calendar.holidayIds[day] = holiday.getId();
+            }
+        }
+
+        for (int word = 0; word < calendar.working.length; word++) {
+            calendar.working[word] = ~(calendar.weekends[word] | calendar.holidays[word]);
+        }
+        // Clear the bits past the last day of the year
+        int tail = calendar.length % 64;
+        if (tail != 0) {
+            calendar.working[calendar.working.length - 1] &= (1L << tail) - 1;
+        }
+
+        for (int month = 1; month <= 12; month++) {
+            LocalDate start = LocalDate.of(year, month, 1);
+            calendar.workingDaysByMonth[month] = count(calendar.working, start.getDayOfYear() - 1,
+                    start.getDayOfYear() - 1 + start.lengthOfMonth());
+        }
+        return calendar;
+    }
+
+    /**
+     * Whether a Saturday is off under a saturday rule. Rules name the Saturdays of the
+     * month that are off; an unknown or missing rule means every Saturday is off.
+     */
+    public static boolean isSaturdayOff(String saturdayRule, LocalDate date) {
+        if (date.getDayOfWeek() != DayOfWeek.SATURDAY) {
+            return false;
+        }
+        if (saturdayRule == null) {
+            return true;
+        }
+
+        // Which Saturday of the month this is
+        int saturdayNumber = (date.getDayOfMonth() - 1) / 7 + 1;
+
+        switch (saturdayRule) {
+            case "NO_SATURDAY_OFF":
+                return false;
+            case "SECOND_FOURTH_SATURDAY":
+            case "ALTERNATE_SATURDAYS":
+                return saturdayNumber == 2 || saturdayNumber == 4;
+            case "FIRST_THIRD_SATURDAY":
+                return saturdayNumber == 1 || saturdayNumber == 3;
+            case "SECOND_SATURDAY_ONLY":
+                return saturdayNumber == 2;
+            case "FOURTH_SATURDAY_ONLY":
+                return saturdayNumber == 4;
+            default:
+                return true;
+        }
+    }
+
+    public Long getOrganizationId() {
+        return organizationId;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public boolean isWeekend(LocalDate date) {
+        return get(weekends, index(date));
+    }
+
+    public boolean isHoliday(LocalDate date) {
+        return get(holidays, index(date));
+    }
+
+    public boolean isWorkingDay(LocalDate date) {
+        return get(working, index(date));
+    }
+
+    /**
+     * Id of the holiday on a date, or null if the date is not a holiday.
+     */
+    public Long getHolidayId(LocalDate date) {
+        return holidayIds[index(date)];
+    }
+
+    /**
+     * Working days in a month of this calendar's year.
+     */
+    public int workingDays(int month) {
+        if (month < 1 || month > 12) {
+            throw new IllegalArgumentException("Invalid month: " + month);
+        }
+        return workingDaysByMonth[month];
+    }
+
+    /**
+     * Working days from one date to another, both inclusive and within this calendar's year.
+     */
+    public int workingDays(LocalDate from, LocalDate to) {
+        int start = index(from);
+        int end = index(to);
+        return end < start ? 0 : count(working, start, end + 1);
+    }
+
+    private int index(LocalDate date) {
+        if (date.getYear() != year) {
+            throw new IllegalArgumentException("Date " + date + " is outside the " + year + " calendar");
+        }
+        return date.getDayOfYear() - 1;
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    private static boolean get(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Set bits from {@code from} (inclusive) to {@code to} (exclusive).
+     */
+    private static int count(long[] bits, int from, int to) {
+        int firstWord = from >>> 6;
+        int lastWord = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (firstWord == lastWord) {
+            return Long.bitCount(bits[firstWord] & firstMask & lastMask);
+        }
+        int count = Long.bitCount(bits[firstWord] & firstMask);
+        for (int word = firstWord + 1; word < lastWord; word++) {
+            count += Long.bitCount(bits[word]);
+        }
+        return count + Long.bitCount(bits[lastWord] & lastMask);
+    }
+
+    @Override
+    public String toString() {
+        return "WorkCalendar[organization=" + organizationId + ", year=" + year + "]";
+    }
+}
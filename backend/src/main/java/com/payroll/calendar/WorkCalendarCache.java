@@ -0,0 +1,64 @@
+package com.payroll.calendar;
+
+import com.payroll.entity.OrganizationSettings;
+import com.payroll.repository.HolidayRepository;
+import com.payroll.repository.OrganizationSettingsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Work calendars by organization and year. A calendar is built on first use from the
+ * organization's settings and holidays and reused until OrganizationSettingsService
+ * changes either.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WorkCalendarCache {
+
+    private final OrganizationSettingsRepository settingsRepository;
+    private final HolidayRepository holidayRepository;
+
+    private final Map<Long, Map<Integer, WorkCalendar>> calendars = new ConcurrentHashMap<>();
+
+    /**
+     * The calendar for an organization and year. Organizations without saved settings get
+     * the defaults; nothing is written.
+     */
+    public WorkCalendar getCalendar(Long organizationId, int year) {
+        Map<Integer, WorkCalendar> years = calendars.computeIfAbsent(organizationId, id -> new ConcurrentHashMap<>());
+        WorkCalendar cached = years.get(year);
+        if (cached != null) {
+            return cached;
+        }
+        OrganizationSettings settings = settingsRepository.findByOrganizationId(organizationId)
+                .orElseGet(OrganizationSettings::new);
+        WorkCalendar built = WorkCalendar.build(organizationId, year, settings,
+                holidayRepository.findByOrganizationIdAndYear(organizationId, year));
+        log.debug("Built {}", built);
+        WorkCalendar existing = years.putIfAbsent(year, built);
+        return existing != null ? existing : built;
+    }
+
+    /**
+     * Drop every calendar of the organization. Inside a transaction the eviction happens
+     * again after commit, so a concurrent reader cannot rebuild and cache the old settings.
+     */
+    public void invalidate(Long organizationId) {
+        calendars.remove(organizationId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    calendars.remove(organizationId);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.payroll.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Bounded worker pools for CPU-heavy batch work. Each pool is sized independently so a
+ * long pay run calculation cannot starve other background work or the connection pool.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Runs Spring MVC async work: every StreamingResponseBody download and export. Declaring
+     * the pools below switches off Spring Boot's own applicationTaskExecutor, after which
+     * MVC would start a new thread per request; this bean takes its name and place. When
+     * the queue is full, further downloads are rejected rather than given new threads.
+     */
+    @Bean(name = "applicationTaskExecutor")
+    public ThreadPoolTaskExecutor applicationTaskExecutor(
+            @Value("${app.web.async.threads:16}") int threads,
+            @Value("${app.web.async.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("web-async-");
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor payRunCalculationExecutor(
+            @Value("${app.payroll.calculation.threads:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("payrun-calc-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor payRunJobExecutor(
+            @Value("${app.payroll.jobs.threads:2}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("payrun-job-");
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor attendanceImportExecutor(
+            @Value("${app.attendance.import.threads:2}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("attendance-import-");
+        return executor;
+    }
+
+    /**
+     * Renders payslip PDFs. A thread count of 0 uses one thread per available core.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor payslipRenderExecutor(
+            @Value("${app.payslips.render.threads:0}") int threads) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        executor.setThreadNamePrefix("payslip-render-");
+        return executor;
+    }
+
+    /**
+     * Sends payslip emails; each thread holds one SMTP connection while it sends a batch.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor payslipEmailExecutor(
+            @Value("${app.payslips.email.threads:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("payslip-email-");
+        return executor;
+    }
+
+    /**
+     * Drains the payslip email outbox. A single thread, so only one dispatch runs at a time.
+     */
+    @Bean
+    public ThreadPoolTaskScheduler payslipEmailScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("payslip-email-dispatch-");
+        return scheduler;
+    }
+
+    /**
+     * Runs bulk Form 16 jobs, each reading the ledger and writing its archive on one thread.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor form16JobExecutor(
+            @Value("${app.form16.jobs.threads:1}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("form16-job-");
+        return executor;
+    }
+
+    /**
+     * Renders Form 16 PDFs for bulk jobs. A thread count of 0 uses one thread per available core.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor form16RenderExecutor(
+            @Value("${app.form16.render.threads:0}") int threads) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        executor.setThreadNamePrefix("form16-render-");
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskScheduler jobProgressScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(2);
+        scheduler.setThreadNamePrefix("job-progress-");
+        return scheduler;
+    }
+}
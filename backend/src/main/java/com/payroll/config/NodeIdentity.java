@@ -0,0 +1,46 @@
+package com.payroll.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * This instance's id, recorded on the jobs and outbox rows it owns. On startup each
+ * instance resumes or requeues the rows carrying its own id, so two running instances
+ * must never share one.
+ *
+ * The id is app.node-id when set, otherwise the machine's host name. Instances sharing a
+ * host must set app.node-id. Startup fails when neither gives a usable id, rather than
+ * letting every instance fall back to the same name.
+ */
+@Component
+@Slf4j
+public class NodeIdentity {
+
+    private final String id;
+
+    public NodeIdentity(@Value("${app.node-id:}") String configured) {
+        this.id = configured.isBlank() ? hostName() : configured.trim();
+        log.info("Running as node {}", id);
+    }
+
+    public String id() {
+        return id;
+    }
+
+    private static String hostName() {
+        String name;
+        try {
+            name = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("Cannot resolve this machine's host name for the node id; set app.node-id", e);
+        }
+        if (name == null || name.isBlank() || name.equalsIgnoreCase("localhost")) {
+            throw new IllegalStateException("Host name '" + name + "' does not identify this node; set app.node-id");
+        }
+        return name;
+    }
+}
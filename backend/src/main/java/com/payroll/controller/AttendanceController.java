@@ -1,6 +1,8 @@
 package com.payroll.controller;
 
+import com.payroll.dto.AttendanceImportJobDTO;
 import com.payroll.entity.Attendance;
+import com.payroll.service.AttendanceImportJobService;
 import com.payroll.service.AttendanceService;
 import com.payroll.service.AttendanceImportService;
 import lombok.extern.slf4j.Slf4j;
@@ -11,6 +13,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -28,6 +31,9 @@ public class AttendanceController {
     @Autowired
     private AttendanceImportService attendanceImportService;
 
+    @Autowired
+    private AttendanceImportJobService attendanceImportJobService;
+
     @GetMapping("/employee/{employeeId}")
     public ResponseEntity<List<Attendance>> getEmployeeAttendance(
             @PathVariable Long employeeId,
@@ -109,8 +115,8 @@ public class AttendanceController {
             @RequestHeader("X-Tenant-ID") Long tenantId,
             @RequestParam int month,
             @RequestParam int year) {
-        attendanceService.initializeMonthAttendance(tenantId, month, year);
-        return ResponseEntity.ok("Month attendance initialized");
+        Map<String, Integer> created = attendanceService.initializeMonthAttendance(tenantId, month, year);
+        return ResponseEntity.ok("Month attendance initialized: " + created);
     }
 
     @GetMapping("/lop/{employeeId}")
@@ -122,15 +128,17 @@ public class AttendanceController {
     }
 
     @PostMapping("/bulk/mark-all-present")
-    public ResponseEntity<Map<String, String>> markAllEmployeesPresent(
+    public ResponseEntity<Map<String, Object>> markAllEmployeesPresent(
             @RequestHeader("X-Tenant-ID") Long tenantId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
-        attendanceService.markAllEmployeesPresent(tenantId, date);
-        return ResponseEntity.ok(Map.of("message", "All employees marked present for " + date));
+        Map<String, Integer> created = attendanceService.markAllEmployeesPresent(tenantId, date);
+        return ResponseEntity.ok(Map.of(
+            "message", "All employees marked present for " + date,
+            "created", created));
     }
 
     @PostMapping("/bulk/mark-month")
-    public ResponseEntity<Map<String, String>> markEmployeeForMonth(
+    public ResponseEntity<Map<String, Object>> markEmployeeForMonth(
             @RequestHeader("X-Tenant-ID") Long tenantId,
             @RequestBody Map<String, Object> request) {
         Long employeeId = Long.valueOf(request.get("employeeId").toString());
@@ -138,32 +146,37 @@ public class AttendanceController {
         int year = Integer.parseInt(request.get("year").toString());
         String status = request.get("status").toString();
         
-        attendanceService.markEmployeeForMonth(employeeId, tenantId, month, year, status);
-        return ResponseEntity.ok(Map.of("message", "Employee attendance marked for entire month"));
+        Map<String, Integer> created = attendanceService.markEmployeeForMonth(employeeId, tenantId, month, year, status);
+        return ResponseEntity.ok(Map.of(
+            "message", "Employee attendance marked for entire month",
+            "created", created));
     }
 
     @PostMapping("/bulk/mark-all-month")
-    public ResponseEntity<Map<String, String>> markAllEmployeesForMonth(
+    public ResponseEntity<Map<String, Object>> markAllEmployeesForMonth(
             @RequestHeader("X-Tenant-ID") Long tenantId,
             @RequestParam int month,
             @RequestParam int year,
             @RequestParam String status) {
-        attendanceService.markAllEmployeesForMonth(tenantId, month, year, status);
-        return ResponseEntity.ok(Map.of("message", "All employees marked " + status + " for month"));
+        Map<String, Integer> created = attendanceService.markAllEmployeesForMonth(tenantId, month, year, status);
+        return ResponseEntity.ok(Map.of(
+            "message", "All employees marked " + status + " for month",
+            "created", created));
     }
 
     @PostMapping("/auto-initialize")
-    public ResponseEntity<Map<String, String>> autoInitializeAttendance(
+    public ResponseEntity<Map<String, Object>> autoInitializeAttendance(
             @RequestHeader("X-Tenant-ID") Long tenantId,
             @RequestParam int month,
             @RequestParam int year) {
         System.out.println("=== AUTO-INITIALIZE CALLED ===");
         System.out.println("Tenant ID: " + tenantId + ", Month: " + month + ", Year: " + year);
-        attendanceService.autoInitializeAttendanceForMonth(tenantId, month, year);
+        Map<String, Integer> created = attendanceService.autoInitializeAttendanceForMonth(tenantId, month, year);
         System.out.println("=== AUTO-INITIALIZE COMPLETED ===");
         return ResponseEntity.ok(Map.of(
             "message", "Attendance auto-initialized for " + month + "/" + year,
-            "details", "Government holidays, weekends, and working days marked automatically"
+            "details", "Government holidays, weekends, and working days marked automatically",
+            "created", created
         ));
     }
 
@@ -180,9 +193,10 @@ public class AttendanceController {
     }
 
     @PostMapping("/import")
-    public ResponseEntity<Map<String, Object>> importAttendance(
+    public ResponseEntity<?> importAttendance(
             @RequestHeader("X-Tenant-ID") Long tenantId,
-            @RequestParam("file") MultipartFile file) {
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = "false") boolean async) {
         try {
             if (file.isEmpty()) {
                 return ResponseEntity.badRequest().body(Map.of(
@@ -199,6 +213,11 @@ public class AttendanceController {
                 ));
             }
 
+            if (async) {
+                AttendanceImportJobDTO job = attendanceImportJobService.submit(file, tenantId);
+                return ResponseEntity.accepted().body(job);
+            }
+
             // Use pivot-style import (Date rows, Employee columns)
             Map<String, Object> result;
             if (filename.endsWith(".csv")) {
@@ -218,6 +237,28 @@ public class AttendanceController {
         }
     }
 
+    @GetMapping("/import/jobs/{jobId}")
+    public ResponseEntity<AttendanceImportJobDTO> getImportJob(
+            @PathVariable Long jobId,
+            @RequestHeader("X-Tenant-ID") Long tenantId) {
+        return ResponseEntity.ok(attendanceImportJobService.getJob(jobId, tenantId));
+    }
+
+    @GetMapping("/import/jobs/{jobId}/errors")
+    public ResponseEntity<StreamingResponseBody> downloadImportErrors(
+            @PathVariable Long jobId,
+            @RequestHeader("X-Tenant-ID") Long tenantId) {
+        // Look the job up before streaming so an unknown job fails before the response starts
+        attendanceImportJobService.getJob(jobId, tenantId);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("text/csv"));
+        headers.setContentDispositionFormData("attachment", "attendance_import_" + jobId + "_errors.csv");
+
+        StreamingResponseBody body = out -> attendanceImportJobService.writeErrorReport(jobId, tenantId, out);
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+
     @GetMapping("/import/template")
     public ResponseEntity<byte[]> downloadImportTemplate() {
         try {
@@ -1,5 +1,7 @@
 package com.payroll.controller;
 
+import com.payroll.dto.Form16JobDTO;
+import com.payroll.service.Form16JobService;
 import com.payroll.service.Form16Service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -7,7 +9,11 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
 
 @RestController
@@ -18,6 +24,7 @@ import java.util.Map;
 public class Form16Controller {
 
     private final Form16Service form16Service;
+    private final Form16JobService form16JobService;
 
     @GetMapping("/data/{employeeId}")
     public ResponseEntity<Map<String, Object>> getForm16Data(
@@ -49,4 +56,38 @@ public class Form16Controller {
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    /**
+     * Generate Form 16 for every employee paid in the financial year as a background job.
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<Form16JobDTO> startBulkGeneration(
+            @RequestHeader("X-Tenant-ID") Long tenantId,
+            @RequestParam String financialYear) {
+        log.info("Starting bulk Form 16 generation for tenant: {}, FY: {}", tenantId, financialYear);
+        return ResponseEntity.accepted().body(form16JobService.start(tenantId, financialYear));
+    }
+
+    @GetMapping("/bulk/{jobId}")
+    public ResponseEntity<Form16JobDTO> getBulkJob(
+            @RequestHeader("X-Tenant-ID") Long tenantId,
+            @PathVariable Long jobId) {
+        return ResponseEntity.ok(form16JobService.getJob(jobId, tenantId));
+    }
+
+    @GetMapping("/bulk/{jobId}/download")
+    public ResponseEntity<StreamingResponseBody> downloadBulkArchive(
+            @RequestHeader("X-Tenant-ID") Long tenantId,
+            @PathVariable Long jobId) throws IOException {
+        log.info("Downloading Form 16 archive of job: {}", jobId);
+        Path archive = form16JobService.getArchive(jobId, tenantId);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/zip"));
+        headers.setContentDispositionFormData("attachment", archive.getFileName().toString());
+        headers.setContentLength(Files.size(archive));
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(out -> Files.copy(archive, out));
+    }
 }
@@ -2,11 +2,16 @@ package com.payroll.controller;
 
 import com.payroll.dto.PayRunDTO;
 import com.payroll.dto.PayRunEmployeeDTO;
+import com.payroll.dto.PayRunJobDTO;
+import com.payroll.service.PayRunCalculationEngine;
+import com.payroll.service.PayRunJobService;
 import com.payroll.service.PayRunService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
@@ -19,6 +24,7 @@ import java.util.Map;
 public class PayRunController {
 
     private final PayRunService payRunService;
+    private final PayRunJobService payRunJobService;
 
     @PostMapping
     public ResponseEntity<PayRunDTO> createPayRun(
@@ -57,14 +63,36 @@ public class PayRunController {
     }
 
     @PostMapping("/{id}/calculate")
-    public ResponseEntity<PayRunDTO> calculatePayRun(
+    public ResponseEntity<?> calculatePayRun(
             @PathVariable Long id,
-            @RequestHeader("X-Tenant-ID") Long tenantId) {
-        log.info("Calculating pay run: {} for tenant: {}", id, tenantId);
-        PayRunDTO payRun = payRunService.calculatePayRun(id, tenantId);
+            @RequestHeader("X-Tenant-ID") Long tenantId,
+            @RequestParam(defaultValue = "false") boolean async,
+            @RequestParam(defaultValue = "false") boolean full) {
+        log.info("Calculating pay run: {} for tenant: {} (async: {}, full: {})", id, tenantId, async, full);
+        if (async) {
+            PayRunJobDTO job = payRunJobService.startCalculation(id, tenantId, full);
+            return ResponseEntity.accepted().body(job);
+        }
+        PayRunDTO payRun = payRunService.calculatePayRun(id, tenantId, full,
+                PayRunCalculationEngine.ProgressListener.NONE);
         return ResponseEntity.ok(payRun);
     }
 
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<PayRunJobDTO> getJob(
+            @PathVariable Long jobId,
+            @RequestHeader("X-Tenant-ID") Long tenantId) {
+        return ResponseEntity.ok(payRunJobService.getJob(jobId, tenantId));
+    }
+
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamJobProgress(
+            @PathVariable Long jobId,
+            @RequestHeader("X-Tenant-ID") Long tenantId) {
+        log.info("Streaming progress of job: {} for tenant: {}", jobId, tenantId);
+        return payRunJobService.streamProgress(jobId, tenantId);
+    }
+
     @PostMapping("/{id}/approve")
     public ResponseEntity<PayRunDTO> approvePayRun(
             @PathVariable Long id,
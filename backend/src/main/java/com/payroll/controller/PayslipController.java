@@ -1,13 +1,18 @@
 package com.payroll.controller;
 
 import com.payroll.dto.PayslipDTO;
+import com.payroll.payslip.PayslipPdf;
+import com.payroll.service.PayslipEmailService;
 import com.payroll.service.PayslipService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -20,6 +25,7 @@ import java.util.Map;
 public class PayslipController {
 
     private final PayslipService payslipService;
+    private final PayslipEmailService payslipEmailService;
 
     @PostMapping("/generate/{payRunId}")
     public ResponseEntity<List<PayslipDTO>> generatePayslips(
@@ -39,6 +45,25 @@ public class PayslipController {
         return ResponseEntity.ok(payslips);
     }
 
+    /**
+     * Stream the pay run's payslip PDFs as one ZIP archive, optionally for one department.
+     */
+    @GetMapping("/pay-run/{payRunId}/archive")
+    public ResponseEntity<StreamingResponseBody> downloadPayRunArchive(
+            @PathVariable Long payRunId,
+            @RequestParam(required = false) String department,
+            @RequestHeader("X-Tenant-ID") Long tenantId) {
+        log.info("Downloading payslip archive for pay run: {} department: {}", payRunId, department);
+        String filename = payslipService.getPayRunArchiveName(payRunId, tenantId, department);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/zip"));
+        headers.setContentDispositionFormData("attachment", filename);
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(out -> payslipService.writePayRunArchive(payRunId, tenantId, department, out));
+    }
+
     @GetMapping("/employee/{employeeId}")
     public ResponseEntity<List<PayslipDTO>> getEmployeePayslips(
             @PathVariable Long employeeId) {
@@ -57,20 +82,68 @@ public class PayslipController {
         return ResponseEntity.ok(payslips);
     }
 
+    /**
+     * Stream the payslip PDF. Supports a single byte range ({@code Range}, honouring
+     * {@code If-Range}) and, for content-addressed PDFs, {@code If-None-Match}.
+     */
     @GetMapping("/{payslipId}/download")
-    public ResponseEntity<byte[]> downloadPayslip(
+    public ResponseEntity<StreamingResponseBody> downloadPayslip(
             @PathVariable Long payslipId,
-            @RequestHeader("X-Employee-ID") Long employeeId) {
+            @RequestHeader("X-Employee-ID") Long employeeId,
+            @RequestHeader HttpHeaders requestHeaders) {
         log.info("Downloading payslip: {} for employee: {}", payslipId, employeeId);
-        byte[] pdfBytes = payslipService.getPayslipPdf(payslipId, employeeId);
-        
+        PayslipPdf pdf = payslipService.getPayslipPdf(payslipId, employeeId);
+        long size = pdf.size();
+        String etag = pdf.etag();
+
         HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (etag != null) {
+            headers.setETag(etag);
+            if (requestHeaders.getIfNoneMatch().contains(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+            }
+        }
         headers.setContentType(MediaType.APPLICATION_PDF);
         headers.setContentDispositionFormData("attachment", "payslip.pdf");
-        
-        return ResponseEntity.ok()
+
+        List<HttpRange> ranges;
+        try {
+            ranges = requestHeaders.getRange();
+        } catch (IllegalArgumentException e) {
+            ranges = List.of();
+        }
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        // Several ranges, or a range against a different version, get the whole file
+        if (ranges.size() != 1 || (ifRange != null && !ifRange.equals(etag))) {
+            headers.setContentLength(size);
+            return ResponseEntity.ok()
+                    .headers(headers)
+                    .body(out -> payslipService.transferPayslipPdf(pdf, 0, size, out));
+        }
+
+        HttpRange range = ranges.get(0);
+        long start;
+        long end;
+        try {
+            start = range.getRangeStart(size);
+            end = range.getRangeEnd(size);
+        } catch (IllegalArgumentException e) {
+            start = size;
+            end = size - 1;
+        }
+        if (start >= size || start > end) {
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
+        }
+
+        long first = start;
+        long length = end - start + 1;
+        headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        headers.setContentLength(length);
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
                 .headers(headers)
-                .body(pdfBytes);
+                .body(out -> payslipService.transferPayslipPdf(pdf, first, length, out));
     }
 
     @PostMapping("/{payslipId}/send-email")
@@ -78,8 +151,21 @@ public class PayslipController {
             @PathVariable Long payslipId,
             @RequestHeader("X-Tenant-ID") Long tenantId) {
         log.info("Sending payslip email: {}", payslipId);
-        payslipService.sendPayslipEmail(payslipId, tenantId);
-        return ResponseEntity.ok(Map.of("message", "Payslip email sent successfully"));
+        payslipEmailService.queuePayslipEmail(payslipId, tenantId);
+        return ResponseEntity.accepted().body(Map.of("message", "Payslip email queued"));
+    }
+
+    /**
+     * Queue emails for every payslip of the pay run that has not been emailed yet. Delivery
+     * is recorded on each payslip's emailSent flag.
+     */
+    @PostMapping("/pay-run/{payRunId}/send-emails")
+    public ResponseEntity<Map<String, Object>> sendPayRunEmails(
+            @PathVariable Long payRunId,
+            @RequestHeader("X-Tenant-ID") Long tenantId) {
+        log.info("Sending payslip emails for pay run: {}", payRunId);
+        int queued = payslipEmailService.queuePayRunEmails(payRunId, tenantId);
+        return ResponseEntity.accepted().body(Map.of("message", "Payslip emails queued", "queued", queued));
     }
 
     @ExceptionHandler(RuntimeException.class)
@@ -7,6 +7,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -84,44 +85,35 @@ public class ReportController {
     // ==================== EXCEL EXPORTS ====================
 
     @GetMapping("/export/payroll")
-    public ResponseEntity<byte[]> exportPayrollToExcel(
+    public ResponseEntity<StreamingResponseBody> exportPayrollToExcel(
             @RequestHeader("X-Tenant-ID") Long tenantId,
             @RequestParam int month,
             @RequestParam int year) {
-        try {
-            log.info("Exporting payroll report to Excel for tenant: {}, {}/{}", tenantId, month, year);
-            byte[] excelData = reportService.exportPayrollToExcel(tenantId, month, year);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", 
-                String.format("payroll_report_%d_%d.xlsx", month, year));
-            
-            return ResponseEntity.ok().headers(headers).body(excelData);
-        } catch (Exception e) {
-            log.error("Error exporting payroll to Excel", e);
-            return ResponseEntity.internalServerError().build();
-        }
+        log.info("Exporting payroll report to Excel for tenant: {}, {}/{}", tenantId, month, year);
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        headers.setContentDispositionFormData("attachment", 
+            String.format("payroll_report_%d_%d.xlsx", month, year));
+        
+        // Written straight to the response; the workbook is never held in memory as a whole
+        return ResponseEntity.ok().headers(headers)
+            .body(out -> reportService.writePayrollExcel(tenantId, month, year, out));
     }
 
     @GetMapping("/export/attendance")
-    public ResponseEntity<byte[]> exportAttendanceToExcel(
+    public ResponseEntity<StreamingResponseBody> exportAttendanceToExcel(
             @RequestHeader("X-Tenant-ID") Long tenantId,
             @RequestParam int month,
             @RequestParam int year) {
-        try {
-            log.info("Exporting attendance report to Excel for tenant: {}, {}/{}", tenantId, month, year);
-            byte[] excelData = reportService.exportAttendanceToExcel(tenantId, month, year);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", 
-                String.format("attendance_report_%d_%d.xlsx", month, year));
-            
-            return ResponseEntity.ok().headers(headers).body(excelData);
-        } catch (Exception e) {
-            log.error("Error exporting attendance to Excel", e);
-            return ResponseEntity.internalServerError().build();
-        }
+        log.info("Exporting attendance report to Excel for tenant: {}, {}/{}", tenantId, month, year);
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        headers.setContentDispositionFormData("attachment", 
+            String.format("attendance_report_%d_%d.xlsx", month, year));
+        
+        return ResponseEntity.ok().headers(headers)
+            .body(out -> reportService.writeAttendanceExcel(tenantId, month, year, out));
     }
 }
@@ -0,0 +1,28 @@
+package com.payroll.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceImportJobDTO {
+
+    private Long id;
+    private String fileName;
+    private String fileType;
+    private String status;
+    private Integer rowsRead;
+    private Integer lastCommittedRow;
+    private Integer batchCount;
+    private Integer createdCount;
+    private Integer updatedCount;
+    private Integer errorCount;
+    private Double rowsPerSecond; // null until the first batch is written
+    private String errorMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
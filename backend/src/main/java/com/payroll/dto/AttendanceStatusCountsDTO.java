@@ -0,0 +1,24 @@
+package com.payroll.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An employee's attendance records in a date range counted by status, with hours summed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceStatusCountsDTO {
+    private Long employeeId;
+    private Long totalDays;
+    private Long present;
+    private Long absent;
+    private Long halfDay;
+    private Long leave;
+    private Long holiday;
+    private Long weekend;
+    private Double workHours;     // null when no record has hours
+    private Double overtimeHours; // null when no record has overtime
+}
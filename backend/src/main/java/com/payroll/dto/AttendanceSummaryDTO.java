@@ -0,0 +1,18 @@
+package com.payroll.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per-employee attendance figures for one month, as used when drafting a pay run.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceSummaryDTO {
+    private Long employeeId;
+    private int workingDays;
+    private double daysWorked;
+    private double lopDays;
+}
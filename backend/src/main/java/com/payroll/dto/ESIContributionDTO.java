@@ -0,0 +1,23 @@
+package com.payroll.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * One employee's ESI contribution in a pay run, without loading the employee.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ESIContributionDTO {
+    private String employeeId;
+    private String firstName;
+    private String lastName;
+    private String esiNumber;
+    private BigDecimal grossWages;
+    private BigDecimal employeeShare;
+    private BigDecimal employerShare;
+}
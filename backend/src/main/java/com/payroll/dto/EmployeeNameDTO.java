@@ -0,0 +1,19 @@
+package com.payroll.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An employee's id, code and name parts, for matching names without loading employees.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeNameDTO {
+    private Long id;
+    private String employeeId;
+    private String firstName;
+    private String middleName;
+    private String lastName;
+}
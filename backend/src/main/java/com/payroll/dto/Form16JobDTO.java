@@ -0,0 +1,24 @@
+package com.payroll.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Form16JobDTO {
+
+    private Long id;
+    private String financialYear;
+    private String status;
+    private Integer totalCount;
+    private Integer processedCount;
+    private Double certificatesPerSecond;
+    private Long etaSeconds; // null until throughput is known
+    private String errorMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
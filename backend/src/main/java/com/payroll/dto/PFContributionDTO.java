@@ -0,0 +1,24 @@
+package com.payroll.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * One employee's PF contribution in a pay run, without loading the employee.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PFContributionDTO {
+    private String employeeId;
+    private String firstName;
+    private String lastName;
+    private String uan;
+    private String pfNumber;
+    private BigDecimal basicWages;
+    private BigDecimal employeeShare;
+    private BigDecimal employerShare;
+}
@@ -0,0 +1,25 @@
+package com.payroll.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayRunJobDTO {
+
+    private Long id;
+    private Long payRunId;
+    private String jobType;
+    private String status;
+    private Integer totalCount;
+    private Integer processedCount;
+    private Double employeesPerSecond;
+    private Long etaSeconds; // null until throughput is known
+    private String errorMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,25 @@
+package com.payroll.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * A pay run's employee count and salary totals, summed by the database.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayRunTotalsDTO {
+    private Long payRunId;
+    private Long employeeCount;
+    private BigDecimal grossSalary;
+    private BigDecimal totalDeductions;
+    private BigDecimal netSalary;
+    private BigDecimal pfEmployee;
+    private BigDecimal esiEmployee;
+    private BigDecimal professionalTax;
+    private BigDecimal tds;
+}
@@ -0,0 +1,37 @@
+package com.payroll.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * One employee's line of a pay run, as written to the payroll Excel export.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayrollExportRowDTO {
+    private String payRunNumber;
+    private String employeeId;
+    private String firstName;
+    private String lastName;
+    private String department;
+    private String designation;
+    private Integer workingDays;
+    private Integer lopDays;
+    private BigDecimal basicSalary;
+    private BigDecimal hra;
+    private BigDecimal conveyanceAllowance;
+    private BigDecimal fixedAllowance;
+    private BigDecimal otherEarnings;
+    private BigDecimal grossSalary;
+    private BigDecimal pfEmployee;
+    private BigDecimal esiEmployee;
+    private BigDecimal professionalTax;
+    private BigDecimal tds;
+    private BigDecimal otherDeductions;
+    private BigDecimal totalDeductions;
+    private BigDecimal netSalary;
+}
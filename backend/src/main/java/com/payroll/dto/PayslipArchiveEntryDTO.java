@@ -0,0 +1,23 @@
+package com.payroll.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * What a pay run archive needs to name and copy one payslip PDF, without loading the payslip.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayslipArchiveEntryDTO {
+    private Long id;
+    private String payslipNumber;
+    private String employeeNumber;
+    private String firstName;
+    private String lastName;
+    private String pdfPath;
+    private LocalDateTime pdfGeneratedAt;
+}
@@ -36,5 +36,6 @@ public class SalaryBreakdownDTO {
         private BigDecimal calculatedAmount;
         private Boolean isTaxable;
         private Boolean isStatutory;
+        private String error; // Why the amount could not be calculated; the amount is then zero
     }
 }
@@ -0,0 +1,22 @@
+package com.payroll.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * An employee's gross salary and TDS for a financial year, summed from the payroll ledger.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaxLedgerTotalsDTO {
+    private String employeeId;
+    private String firstName;
+    private String lastName;
+    private String panNumber;
+    private BigDecimal totalGross;
+    private BigDecimal totalTax;
+}
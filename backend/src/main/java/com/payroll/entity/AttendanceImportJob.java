@@ -0,0 +1,102 @@
+package com.payroll.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "attendance_import_jobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceImportJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+
+    @Column(name = "file_name")
+    private String fileName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "file_type", nullable = false)
+    private FileType fileType;
+
+    // Uploaded file on the owner node's disk, deleted once the job finishes
+    @Column(name = "storage_path", nullable = false)
+    private String storagePath;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private JobStatus status = JobStatus.QUEUED;
+
+    @Column(name = "rows_read")
+    private Integer rowsRead = 0;
+
+    // Checkpoint: every row up to this one (1-based, header is row 1) is committed
+    @Column(name = "last_committed_row")
+    private Integer lastCommittedRow = 0;
+
+    @Column(name = "batch_count")
+    private Integer batchCount = 0;
+
+    @Column(name = "created_count")
+    private Integer createdCount = 0;
+
+    @Column(name = "updated_count")
+    private Integer updatedCount = 0;
+
+    @Column(name = "error_count")
+    private Integer errorCount = 0;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    // Node that holds the file and runs the job, used to resume jobs interrupted by a restart
+    @Column(name = "owner_node")
+    private String ownerNode;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public boolean isFinished() {
+        return status == JobStatus.COMPLETED || status == JobStatus.FAILED;
+    }
+
+    public enum FileType {
+        CSV,
+        EXCEL
+    }
+
+    public enum JobStatus {
+        QUEUED,     // Accepted, waiting for a worker
+        RUNNING,    // Worker is importing rows
+        COMPLETED,  // Whole file processed; rejected rows are in the error report
+        FAILED      // Stopped with an error
+    }
+}
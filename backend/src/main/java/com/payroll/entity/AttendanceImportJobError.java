@@ -0,0 +1,34 @@
+package com.payroll.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * A row, or one employee's cell in a row, rejected by an attendance import job.
+ */
+@Entity
+@Table(name = "attendance_import_job_errors")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceImportJobError {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    @Column(name = "source_row", nullable = false)
+    private Integer sourceRow;
+
+    // Null when the whole row was rejected
+    @Column(name = "employee_code")
+    private String employeeCode;
+
+    @Column(name = "message", nullable = false, columnDefinition = "TEXT")
+    private String message;
+}
@@ -0,0 +1,81 @@
+package com.payroll.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "form16_jobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Form16Job {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+
+    // As written by the user, e.g. "2025-26"
+    @Column(name = "financial_year", nullable = false)
+    private String financialYear;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private JobStatus status = JobStatus.QUEUED;
+
+    @Column(name = "total_count")
+    private Integer totalCount = 0;
+
+    @Column(name = "processed_count")
+    private Integer processedCount = 0;
+
+    // ZIP archive of the certificates, set once the job completes
+    @Column(name = "storage_path", length = 500)
+    private String storagePath;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    // Node that runs the job and holds the archive
+    @Column(name = "owner_node")
+    private String ownerNode;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public boolean isFinished() {
+        return status == JobStatus.COMPLETED || status == JobStatus.FAILED;
+    }
+
+    public enum JobStatus {
+        QUEUED,     // Accepted, waiting for a worker
+        RUNNING,    // Rendering certificates
+        COMPLETED,  // Archive ready for download
+        FAILED      // Finished with an error
+    }
+}
@@ -110,6 +110,10 @@ public class PayRunEmployee {
     @Column(name = "notes", columnDefinition = "TEXT")
     private String notes;
 
+    // Set when an input to the calculation changes; cleared once the row is recalculated
+    @Column(name = "needs_recalculation")
+    private Boolean needsRecalculation = true;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -0,0 +1,89 @@
+package com.payroll.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "pay_run_jobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayRunJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "pay_run_id", nullable = false)
+    private Long payRunId;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "job_type", nullable = false)
+    private JobType jobType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private JobStatus status = JobStatus.QUEUED;
+
+    // Pay run status before the calculation, restored if the job is interrupted
+    @Enumerated(EnumType.STRING)
+    @Column(name = "previous_status")
+    private PayRun.PayRunStatus previousStatus;
+
+    @Column(name = "total_count")
+    private Integer totalCount = 0;
+
+    @Column(name = "processed_count")
+    private Integer processedCount = 0;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    // Node that runs the job, used to recover jobs interrupted by a restart
+    @Column(name = "owner_node")
+    private String ownerNode;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public boolean isFinished() {
+        return status == JobStatus.COMPLETED || status == JobStatus.FAILED;
+    }
+
+    public enum JobType {
+        CALCULATE
+    }
+
+    public enum JobStatus {
+        QUEUED,     // Accepted, waiting for a worker
+        RUNNING,    // Worker is processing employees
+        COMPLETED,  // Finished successfully
+        FAILED      // Finished with an error
+    }
+}
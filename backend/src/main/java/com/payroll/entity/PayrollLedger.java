@@ -0,0 +1,98 @@
+package com.payroll.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One employee's completed payroll for one month, summed over the month's completed pay runs.
+ * Rows are maintained by {@link com.payroll.repository.PayrollLedgerRepository}.
+ */
+@Entity
+@Table(name = "payroll_ledger")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayrollLedger {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+
+    @Column(name = "employee_id", nullable = false)
+    private Long employeeId;
+
+    // April start year, 2025 for FY 2025-26
+    @Column(name = "financial_year", nullable = false)
+    private Integer financialYear;
+
+    // First day of the pay period's month
+    @Column(name = "period_month", nullable = false)
+    private LocalDate periodMonth;
+
+    @Column(name = "pay_run_count", nullable = false)
+    private Integer payRunCount = 0;
+
+    @Column(name = "basic_salary", precision = 15, scale = 2)
+    private BigDecimal basicSalary = BigDecimal.ZERO;
+
+    @Column(name = "hra", precision = 15, scale = 2)
+    private BigDecimal hra = BigDecimal.ZERO;
+
+    @Column(name = "conveyance_allowance", precision = 15, scale = 2)
+    private BigDecimal conveyanceAllowance = BigDecimal.ZERO;
+
+    @Column(name = "fixed_allowance", precision = 15, scale = 2)
+    private BigDecimal fixedAllowance = BigDecimal.ZERO;
+
+    @Column(name = "gross_salary", precision = 15, scale = 2)
+    private BigDecimal grossSalary = BigDecimal.ZERO;
+
+    @Column(name = "lop_days")
+    private Integer lopDays = 0;
+
+    @Column(name = "lop_deduction", precision = 15, scale = 2)
+    private BigDecimal lopDeduction = BigDecimal.ZERO;
+
+    @Column(name = "pf_employee", precision = 15, scale = 2)
+    private BigDecimal pfEmployee = BigDecimal.ZERO;
+
+    @Column(name = "esi_employee", precision = 15, scale = 2)
+    private BigDecimal esiEmployee = BigDecimal.ZERO;
+
+    @Column(name = "professional_tax", precision = 15, scale = 2)
+    private BigDecimal professionalTax = BigDecimal.ZERO;
+
+    @Column(name = "tds", precision = 15, scale = 2)
+    private BigDecimal tds = BigDecimal.ZERO;
+
+    @Column(name = "total_deductions", precision = 15, scale = 2)
+    private BigDecimal totalDeductions = BigDecimal.ZERO;
+
+    @Column(name = "net_salary", precision = 15, scale = 2)
+    private BigDecimal netSalary = BigDecimal.ZERO;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    /**
+     * Financial year a pay period falls in, as its April start year.
+     */
+    public static int financialYearOf(LocalDate date) {
+        return date.getMonthValue() < 4 ? date.getYear() - 1 : date.getYear();
+    }
+
+    /**
+     * Start year of a financial year written as "2025-26".
+     */
+    public static int parseFinancialYear(String financialYear) {
+        return Integer.parseInt(financialYear.split("-")[0]);
+    }
+}
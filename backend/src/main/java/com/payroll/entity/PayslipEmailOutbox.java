@@ -0,0 +1,73 @@
+package com.payroll.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "payslip_email_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayslipEmailOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "payslip_id", nullable = false)
+    private Long payslipId;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    // Node sending the email, used to requeue sends interrupted by a restart
+    @Column(name = "owner_node")
+    private String ownerNode;
+
+    // When the row was last claimed; a SENDING row older than the claim lease is queued again
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public enum OutboxStatus {
+        PENDING,    // Waiting until next_attempt_at
+        SENDING,    // Claimed by a node
+        SENT,       // Accepted by the mail server
+        FAILED      // Gave up after the configured attempts
+    }
+}
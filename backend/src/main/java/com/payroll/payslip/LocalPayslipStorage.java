@@ -0,0 +1,142 @@
+package com.payroll.payslip;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Payslip storage on this node's disk. Content goes under the storage path in a directory
+ * tree sharded by the first two bytes of its hash ({@code 3f/a2/3fa2...e1.pdf}), so no
+ * directory grows past a few hundred entries. A PDF is written to a temporary file in the
+ * same tree while it is hashed and then renamed into place.
+ *
+ * Keys that are not content hashes are file paths written before payslips were stored by
+ * content; they are read and deleted as they are.
+ */
+@Component
+@Slf4j
+public class LocalPayslipStorage implements PayslipStorage {
+
+    private final Path root;
+
+    // Keys stored but not yet released, with how many callers hold each
+    private final Map<String, Integer> held = new HashMap<>();
+
+    public LocalPayslipStorage(@Value("${payslip.storage.path:./payslips}") String storagePath) {
+        this.root = Paths.get(storagePath);
+    }
+
+    @Override
+    public String store(ContentWriter content) throws IOException {
+        Files.createDirectories(root);
+        Path pending = Files.createTempFile(root, ".pending-", ".pdf");
+        try {
+            MessageDigest sha256 = sha256();
+            try (OutputStream out = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(pending)), sha256)) {
+                content.writeTo(out);
+            }
+            String key = HexFormat.of().formatHex(sha256.digest());
+            Path target = path(key);
+            Files.createDirectories(target.getParent());
+
+            synchronized (held) {
+                if (!Files.exists(target)) {
+                    try {
+                        Files.move(pending, target, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (FileAlreadyExistsException e) {
+                        // Stored meanwhile by another process sharing the directory; same content
+                    }
+                }
+                held.merge(key, 1, Integer::sum);
+            }
+            return key;
+        } finally {
+            Files.deleteIfExists(pending);
+        }
+    }
+
+    @Override
+    public void release(String key) {
+        synchronized (held) {
+            held.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(path(key));
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        return Files.size(path(key));
+    }
+
+    @Override
+    public void transferTo(String key, long position, long count, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(path(key), StandardOpenOption.READ)) {
+            long end = position + count;
+            while (position < end) {
+                long sent = channel.transferTo(position, end - position, target);
+                if (sent <= 0) {
+                    break; // file is shorter than asked for
+                }
+                position += sent;
+            }
+        }
+    }
+
+    @Override
+    public InputStream newInputStream(String key) throws IOException {
+        return Files.newInputStream(path(key));
+    }
+
+    @Override
+    public boolean deleteIfUnreferenced(String key, Predicate<String> referenced) throws IOException {
+        synchronized (held) {
+            if (held.containsKey(key) || referenced.test(key)) {
+                return false;
+            }
+            boolean deleted = Files.deleteIfExists(path(key));
+            if (deleted) {
+                log.debug("Deleted superseded payslip PDF {}", key);
+            }
+            return deleted;
+        }
+    }
+
+    private Path path(String key) {
+        if (!PayslipStorage.isContentKey(key)) {
+            return Paths.get(key);
+        }
+        return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key + ".pdf");
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.payroll.payslip;
+
+/**
+ * A stored payslip PDF, as a download needs it.
+ */
+public record PayslipPdf(String key, long size) {
+
+    /**
+     * A strong ETag for content-addressed PDFs, or null for files stored before them.
+     */
+    public String etag() {
+        return PayslipStorage.isContentKey(key) ? "\"" + key + "\"" : null;
+    }
+}
@@ -0,0 +1,70 @@
+package com.payroll.payslip;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+import java.util.function.Predicate;
+
+/**
+ * Where payslip PDFs are kept. Content is addressed by the hex SHA-256 of its bytes: storing
+ * a PDF that is already there writes nothing new, and the key doubles as a strong ETag.
+ *
+ * A key returned by {@link #store} is held until {@link #release} so that garbage collection
+ * cannot remove a file whose new reference has not been committed yet.
+ */
+public interface PayslipStorage {
+
+    /**
+     * Store the content written by the callback and hold its key.
+     *
+     * @return the content key
+     */
+    String store(ContentWriter content) throws IOException;
+
+    /**
+     * Let garbage collection consider the key again once the reference to it is committed.
+     */
+    void release(String key);
+
+    boolean exists(String key);
+
+    long size(String key) throws IOException;
+
+    /**
+     * Copy {@code count} bytes starting at {@code position} to the target.
+     */
+    void transferTo(String key, long position, long count, WritableByteChannel target) throws IOException;
+
+    InputStream newInputStream(String key) throws IOException;
+
+    /**
+     * Delete the content unless it is held or {@code referenced} says something still points
+     * at it. The check and the delete happen under the same lock as {@link #store}.
+     *
+     * @return whether the content was deleted
+     */
+    boolean deleteIfUnreferenced(String key, Predicate<String> referenced) throws IOException;
+
+    /**
+     * Whether the key addresses content by hash, rather than being the path of a file
+     * written before payslips were content-addressed.
+     */
+    static boolean isContentKey(String key) {
+        if (key == null || key.length() != 64) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @FunctionalInterface
+    interface ContentWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,493 @@
+package com.payroll.payslip;
+
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.colors.Color;
+import com.itextpdf.kernel.colors.ColorConstants;
+import com.itextpdf.kernel.colors.DeviceRgb;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfString;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.WriterProperties;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvasConstants;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.borders.Border;
+import com.itextpdf.layout.borders.SolidBorder;
+import com.itextpdf.layout.element.Cell;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.properties.TextAlignment;
+import com.itextpdf.layout.properties.UnitValue;
+import com.itextpdf.layout.renderer.DrawContext;
+import com.itextpdf.layout.renderer.IRenderer;
+import com.itextpdf.layout.renderer.ParagraphRenderer;
+import com.payroll.entity.Employee;
+import com.payroll.entity.Payslip;
+import com.payroll.organization.Organization;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The payslip page of one organization, laid out once. Everything that is the same on all
+ * of its payslips (company header, titles, labels, table rules and shading) is rendered into
+ * a static page, and the layout records where each variable field landed. Rendering a
+ * payslip copies that page and writes the field values at the recorded positions, without
+ * another layout pass.
+ *
+ * A template is immutable and may render on several threads at once.
+ */
+public final class PayslipTemplate {
+
+    private static final DeviceRgb PRIMARY_COLOR = new DeviceRgb(236, 72, 153); // Pink-500
+    private static final DeviceRgb HEADER_BG = new DeviceRgb(248, 250, 252); // Slate-50
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("dd MMM yyyy");
+    private static final String PLACEHOLDER = "\u00A0";
+
+    // Bold text is simulated by stroking the outline, as the layout does for setBold()
+    private static final float BOLD_STROKE = 1 / 30f;
+
+    private enum Align { LEFT, CENTER, RIGHT }
+
+    /**
+     * The variable fields of a payslip and how each is written.
+     */
+    enum Field {
+        PERIOD(11, false, Align.CENTER),
+        EMPLOYEE_NAME(10, true, Align.LEFT),
+        EMPLOYEE_ID(10, true, Align.LEFT),
+        DESIGNATION(10, true, Align.LEFT),
+        DEPARTMENT(10, true, Align.LEFT),
+        PAN(10, true, Align.LEFT),
+        BANK_ACCOUNT(10, true, Align.LEFT),
+        WORKING_DAYS(10, true, Align.LEFT),
+        DAYS_WORKED(10, true, Align.LEFT),
+        BASIC_SALARY(10, false, Align.RIGHT),
+        HRA(10, false, Align.RIGHT),
+        CONVEYANCE_ALLOWANCE(10, false, Align.RIGHT),
+        FIXED_ALLOWANCE(10, false, Align.RIGHT),
+        OTHER_EARNINGS(10, false, Align.RIGHT),
+        PF_EMPLOYEE(10, false, Align.RIGHT),
+        ESI_EMPLOYEE(10, false, Align.RIGHT),
+        PROFESSIONAL_TAX(10, false, Align.RIGHT),
+        TDS(10, false, Align.RIGHT),
+        LOP_DEDUCTION(10, false, Align.RIGHT),
+        OTHER_DEDUCTIONS(10, false, Align.RIGHT),
+        GROSS_SALARY(10, true, Align.RIGHT),
+        TOTAL_DEDUCTIONS(10, true, Align.RIGHT),
+        NET_SALARY(14, true, Align.RIGHT);
+
+        private final float fontSize;
+        private final boolean bold;
+        private final Align align;
+
+        Field(float fontSize, boolean bold, Align align) {
+            this.fontSize = fontSize;
+            this.bold = bold;
+            this.align = align;
+        }
+    }
+
+    /**
+     * Where a field goes: the horizontal extent of its paragraph and its first baseline.
+     */
+    private record Slot(float left, float right, float baseline) {
+    }
+
+    private final String companyName;
+    private final String companyAddress;
+    private final byte[] page;
+    private final Map<Field, Slot> slots;
+    private final PdfString documentId;
+    private final FontProgram fontProgram;
+
+    private PayslipTemplate(String companyName, String companyAddress, byte[] page, Map<Field, Slot> slots,
+                            PdfString documentId, FontProgram fontProgram) {
+        this.companyName = companyName;
+        this.companyAddress = companyAddress;
+        this.page = page;
+        this.slots = slots;
+        this.documentId = documentId;
+        this.fontProgram = fontProgram;
+    }
+
+    /**
+     * Lay out the organization's static payslip page.
+     */
+    public static PayslipTemplate compile(Organization organization) {
+        String address = companyAddress(organization);
+        Map<Field, Slot> slots = new EnumMap<>(Field.class);
+        ByteArrayOutputStream page = new ByteArrayOutputStream();
+        PdfString documentId = documentId(organization.getCompanyName() + "\n" + address);
+
+        try (PdfDocument pdf = new PdfDocument(new PdfWriter(page, new WriterProperties()
+                .setInitialDocumentId(documentId)
+                .setModifiedDocumentId(documentId)));
+             Document document = new Document(pdf, PageSize.A4)) {
+
+            removeDates(pdf);
+            document.setMargins(30, 30, 30, 30);
+
+            // Header with company name
+            document.add(new Paragraph(organization.getCompanyName())
+                    .setFontSize(20)
+                    .setBold()
+                    .setFontColor(PRIMARY_COLOR)
+                    .setTextAlignment(TextAlignment.CENTER));
+
+            // Company address
+            if (!address.isEmpty()) {
+                document.add(new Paragraph(address)
+                        .setFontSize(10)
+                        .setTextAlignment(TextAlignment.CENTER)
+                        .setFontColor(ColorConstants.GRAY));
+            }
+
+            document.add(new Paragraph("\n"));
+
+            // Payslip title
+            document.add(new Paragraph("PAYSLIP")
+                    .setFontSize(16)
+                    .setBold()
+                    .setTextAlignment(TextAlignment.CENTER)
+                    .setBackgroundColor(HEADER_BG)
+                    .setPadding(10));
+
+            // Pay period
+            document.add(slot(Field.PERIOD, slots).setMarginBottom(20));
+
+            // Employee details table
+            Table empTable = new Table(UnitValue.createPercentArray(new float[]{1, 2, 1, 2}))
+                    .useAllAvailableWidth()
+                    .setMarginBottom(20);
+
+            addEmployeeDetailCell(empTable, "Employee Name", Field.EMPLOYEE_NAME, slots);
+            addEmployeeDetailCell(empTable, "Employee ID", Field.EMPLOYEE_ID, slots);
+            addEmployeeDetailCell(empTable, "Designation", Field.DESIGNATION, slots);
+            addEmployeeDetailCell(empTable, "Department", Field.DEPARTMENT, slots);
+            addEmployeeDetailCell(empTable, "PAN", Field.PAN, slots);
+            addEmployeeDetailCell(empTable, "Bank Account", Field.BANK_ACCOUNT, slots);
+            addEmployeeDetailCell(empTable, "Working Days", Field.WORKING_DAYS, slots);
+            addEmployeeDetailCell(empTable, "Days Worked", Field.DAYS_WORKED, slots);
+
+            document.add(empTable);
+
+            // Earnings and Deductions
+            Table salaryTable = new Table(UnitValue.createPercentArray(new float[]{3, 2, 3, 2}))
+                    .useAllAvailableWidth()
+                    .setMarginTop(10);
+
+            salaryTable.addHeaderCell(createHeaderCell("EARNINGS"));
+            salaryTable.addHeaderCell(createHeaderCell("AMOUNT (₹)"));
+            salaryTable.addHeaderCell(createHeaderCell("DEDUCTIONS"));
+            salaryTable.addHeaderCell(createHeaderCell("AMOUNT (₹)"));
+
+            addSalaryRow(salaryTable, "Basic Salary", Field.BASIC_SALARY, "Provident Fund", Field.PF_EMPLOYEE, slots);
+            addSalaryRow(salaryTable, "House Rent Allowance", Field.HRA, "ESI", Field.ESI_EMPLOYEE, slots);
+            addSalaryRow(salaryTable, "Conveyance Allowance", Field.CONVEYANCE_ALLOWANCE, "Professional Tax", Field.PROFESSIONAL_TAX, slots);
+            addSalaryRow(salaryTable, "Fixed Allowance", Field.FIXED_ALLOWANCE, "TDS", Field.TDS, slots);
+            addSalaryRow(salaryTable, "Other Earnings", Field.OTHER_EARNINGS, "LOP Deduction", Field.LOP_DEDUCTION, slots);
+            addSalaryRow(salaryTable, "", null, "Other Deductions", Field.OTHER_DEDUCTIONS, slots);
+
+            // Totals
+            salaryTable.addCell(createTotalCell(new Paragraph("GROSS EARNINGS").setBold().setFontSize(10)));
+            salaryTable.addCell(createTotalCell(slot(Field.GROSS_SALARY, slots)));
+            salaryTable.addCell(createTotalCell(new Paragraph("TOTAL DEDUCTIONS").setBold().setFontSize(10)));
+            salaryTable.addCell(createTotalCell(slot(Field.TOTAL_DEDUCTIONS, slots)));
+
+            document.add(salaryTable);
+
+            // Net Pay
+            document.add(new Paragraph("\n"));
+            Table netPayTable = new Table(UnitValue.createPercentArray(new float[]{3, 1}))
+                    .useAllAvailableWidth();
+            netPayTable.addCell(new Cell()
+                    .add(new Paragraph("NET PAY").setBold().setFontSize(14))
+                    .setBackgroundColor(PRIMARY_COLOR)
+                    .setFontColor(ColorConstants.WHITE)
+                    .setPadding(10)
+                    .setBorder(Border.NO_BORDER));
+            netPayTable.addCell(new Cell()
+                    .add(slot(Field.NET_SALARY, slots))
+                    .setBackgroundColor(PRIMARY_COLOR)
+                    .setFontColor(ColorConstants.WHITE)
+                    .setPadding(10)
+                    .setBorder(Border.NO_BORDER));
+            document.add(netPayTable);
+        }
+
+        if (slots.size() != Field.values().length) {
+            throw new IllegalStateException("Payslip template did not place every field: " + slots.keySet());
+        }
+        try {
+            return new PayslipTemplate(organization.getCompanyName(), address, page.toByteArray(), slots,
+                    documentId, FontProgramFactory.createFont(StandardFonts.HELVETICA));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Whether the template still shows the organization as it is now.
+     */
+    public boolean matches(Organization organization) {
+        return Objects.equals(companyName, organization.getCompanyName())
+                && companyAddress.equals(companyAddress(organization));
+    }
+
+    /**
+     * Write the payslip's PDF to the stream; the caller closes it. The output depends only on
+     * the template and the payslip, so rendering an unchanged payslip gives the same bytes.
+     */
+    public void render(Payslip payslip, OutputStream out) throws IOException {
+        PdfWriter writer = new PdfWriter(out, new WriterProperties().setModifiedDocumentId(documentId));
+        writer.setCloseStream(false);
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(new ByteArrayInputStream(page)), writer)) {
+            removeDates(pdf);
+            PdfFont font = PdfFontFactory.createFont(fontProgram, PdfEncodings.WINANSI);
+            PdfCanvas canvas = new PdfCanvas(pdf.getFirstPage());
+            Employee employee = payslip.getEmployee();
+
+            write(canvas, font, Field.PERIOD, String.format("Pay Period: %s to %s",
+                    payslip.getPayPeriodStart().format(DAY), payslip.getPayPeriodEnd().format(DAY)));
+
+            write(canvas, font, Field.EMPLOYEE_NAME, employee.getFirstName() + " " + employee.getLastName());
+            write(canvas, font, Field.EMPLOYEE_ID, employee.getEmployeeId());
+            write(canvas, font, Field.DESIGNATION, employee.getDesignation());
+            write(canvas, font, Field.DEPARTMENT, employee.getDepartment());
+            write(canvas, font, Field.PAN, employee.getPanNumber() != null ? employee.getPanNumber() : "-");
+            write(canvas, font, Field.BANK_ACCOUNT, maskAccountNumber(employee.getAccountNumber()));
+            write(canvas, font, Field.WORKING_DAYS, String.valueOf(payslip.getWorkingDays()));
+            write(canvas, font, Field.DAYS_WORKED, String.valueOf(payslip.getDaysWorked()));
+
+            write(canvas, font, Field.BASIC_SALARY, formatOptional(payslip.getBasicSalary()));
+            write(canvas, font, Field.HRA, formatOptional(payslip.getHra()));
+            write(canvas, font, Field.CONVEYANCE_ALLOWANCE, formatOptional(payslip.getConveyanceAllowance()));
+            write(canvas, font, Field.FIXED_ALLOWANCE, formatOptional(payslip.getFixedAllowance()));
+            write(canvas, font, Field.OTHER_EARNINGS, formatOptional(payslip.getOtherEarnings()));
+            write(canvas, font, Field.PF_EMPLOYEE, formatOptional(payslip.getPfEmployee()));
+            write(canvas, font, Field.ESI_EMPLOYEE, formatOptional(payslip.getEsiEmployee()));
+            write(canvas, font, Field.PROFESSIONAL_TAX, formatOptional(payslip.getProfessionalTax()));
+            write(canvas, font, Field.TDS, formatOptional(payslip.getTds()));
+            write(canvas, font, Field.LOP_DEDUCTION, formatOptional(payslip.getLopDeduction()));
+            write(canvas, font, Field.OTHER_DEDUCTIONS, formatOptional(payslip.getOtherDeductions()));
+
+            write(canvas, font, Field.GROSS_SALARY, formatAmount(payslip.getGrossSalary()));
+            write(canvas, font, Field.TOTAL_DEDUCTIONS, formatAmount(payslip.getTotalDeductions()));
+            write(canvas, font, Field.NET_SALARY, "₹ " + formatAmount(payslip.getNetSalary()));
+        }
+    }
+
+    private void write(PdfCanvas canvas, PdfFont font, Field field, String value) {
+        String text = encodable(font, value != null ? value : "-");
+        Slot slot = slots.get(field);
+        float available = slot.right() - slot.left();
+        float size = field.fontSize;
+        float stroke = field.bold ? size * BOLD_STROKE : 0;
+        float width = font.getWidth(text, size) + stroke;
+        if (width > available) {
+            // A value wider than its cell shrinks to fit rather than running into the next one
+            size *= available / width;
+            stroke *= available / width;
+            width = available;
+        }
+
+        float x = switch (field.align) {
+            case LEFT -> slot.left();
+            case CENTER -> slot.left() + (available - width) / 2;
+            case RIGHT -> slot.right() - width;
+        };
+        Color color = field == Field.NET_SALARY ? ColorConstants.WHITE : ColorConstants.BLACK;
+
+        canvas.saveState()
+                .setFillColor(color)
+                .beginText()
+                .setFontAndSize(font, size);
+        if (field.bold) {
+            canvas.setStrokeColor(color)
+                    .setLineWidth(stroke)
+                    .setTextRenderingMode(PdfCanvasConstants.TextRenderingMode.FILL_STROKE);
+        }
+        canvas.moveText(x, slot.baseline())
+                .showText(text)
+                .endText()
+                .restoreState();
+    }
+
+    /**
+     * Drop the creation and modification dates iText stamps on every document it opens for
+     * writing; they would make each rendering of the same payslip differ.
+     */
+    private static void removeDates(PdfDocument pdf) {
+        pdf.getDocumentInfo().setMoreInfo(PdfName.CreationDate.getValue(), null);
+        pdf.getDocumentInfo().setMoreInfo(PdfName.ModDate.getValue(), null);
+    }
+
+    private static PdfString documentId(String fingerprint) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(fingerprint.getBytes(StandardCharsets.UTF_8));
+            return new PdfString(digest).setHexWriting(true);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The text without characters the font has no glyph for, trimmed, as the layout shows
+     * it; Helvetica has no rupee sign.
+     */
+    private static String encodable(PdfFont font, String text) {
+        StringBuilder kept = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!font.containsGlyph(c)) {
+                if (kept == null) {
+                    kept = new StringBuilder(text.length()).append(text, 0, i);
+                }
+            } else if (kept != null) {
+                kept.append(c);
+            }
+        }
+        return kept != null ? kept.toString().strip() : text;
+    }
+
+    /**
+     * A blank paragraph standing in for a field; when the page is drawn, it records its
+     * position instead of drawing itself.
+     */
+    private static Paragraph slot(Field field, Map<Field, Slot> slots) {
+        Paragraph paragraph = new Paragraph(PLACEHOLDER).setFontSize(field.fontSize);
+        if (field.bold) {
+            paragraph.setBold();
+        }
+        paragraph.setNextRenderer(new SlotRenderer(paragraph, field, slots));
+        return paragraph;
+    }
+
+    private static final class SlotRenderer extends ParagraphRenderer {
+
+        private final Field field;
+        private final Map<Field, Slot> slots;
+
+        private SlotRenderer(Paragraph paragraph, Field field, Map<Field, Slot> slots) {
+            super(paragraph);
+            this.field = field;
+            this.slots = slots;
+        }
+
+        @Override
+        public IRenderer getNextRenderer() {
+            return new SlotRenderer((Paragraph) modelElement, field, slots);
+        }
+
+        @Override
+        public void draw(DrawContext drawContext) {
+            Rectangle area = getInnerAreaBBox();
+            slots.put(field, new Slot(area.getLeft(), area.getRight(), getFirstYLineRecursively()));
+        }
+    }
+
+    private static void addEmployeeDetailCell(Table table, String label, Field field, Map<Field, Slot> slots) {
+        table.addCell(new Cell()
+                .add(new Paragraph(label).setFontSize(9).setFontColor(ColorConstants.GRAY))
+                .setBorder(Border.NO_BORDER)
+                .setPadding(5));
+        table.addCell(new Cell()
+                .add(slot(field, slots))
+                .setBorder(Border.NO_BORDER)
+                .setPadding(5));
+    }
+
+    private static Cell createHeaderCell(String text) {
+        return new Cell()
+                .add(new Paragraph(text).setBold().setFontSize(10))
+                .setBackgroundColor(HEADER_BG)
+                .setPadding(8)
+                .setTextAlignment(TextAlignment.CENTER);
+    }
+
+    private static void addSalaryRow(Table table, String earning, Field earningAmt, String deduction, Field deductionAmt,
+                                     Map<Field, Slot> slots) {
+        table.addCell(salaryCell(new Paragraph(earning).setFontSize(10)));
+        table.addCell(salaryCell(earningAmt != null ? slot(earningAmt, slots) : new Paragraph("").setFontSize(10)));
+        table.addCell(salaryCell(new Paragraph(deduction).setFontSize(10)));
+        table.addCell(salaryCell(slot(deductionAmt, slots)));
+    }
+
+    private static Cell salaryCell(Paragraph content) {
+        return new Cell().add(content).setPadding(8)
+                .setBorderTop(new SolidBorder(ColorConstants.LIGHT_GRAY, 0.5f))
+                .setBorderBottom(Border.NO_BORDER)
+                .setBorderLeft(Border.NO_BORDER)
+                .setBorderRight(Border.NO_BORDER);
+    }
+
+    private static Cell createTotalCell(Paragraph content) {
+        return new Cell()
+                .add(content)
+                .setBackgroundColor(HEADER_BG)
+                .setPadding(8)
+                .setTextAlignment(TextAlignment.RIGHT);
+    }
+
+    private static String formatOptional(BigDecimal amount) {
+        return amount != null ? formatAmount(amount) : "";
+    }
+
+    private static String formatAmount(BigDecimal amount) {
+        if (amount == null) return "0.00";
+        return String.format("%,.2f", amount);
+    }
+
+    private static String maskAccountNumber(String accountNumber) {
+        if (accountNumber == null || accountNumber.length() < 4) return "-";
+        return "XXXX" + accountNumber.substring(accountNumber.length() - 4);
+    }
+
+    /**
+     * The organization's address on one line, as printed under the company name.
+     */
+    public static String companyAddress(Organization organization) {
+        StringBuilder sb = new StringBuilder();
+        if (organization.getAddressLine1() != null) {
+            sb.append(organization.getAddressLine1());
+        }
+        if (organization.getAddressLine2() != null && !organization.getAddressLine2().isEmpty()) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(organization.getAddressLine2());
+        }
+        if (organization.getCity() != null) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(organization.getCity());
+        }
+        if (organization.getState() != null) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(organization.getState());
+        }
+        if (organization.getPinCode() != null) {
+            if (sb.length() > 0) sb.append(" - ");
+            sb.append(organization.getPinCode());
+        }
+        return sb.toString();
+    }
+}
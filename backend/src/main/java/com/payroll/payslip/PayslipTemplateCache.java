@@ -0,0 +1,35 @@
+package com.payroll.payslip;
+
+import com.payroll.organization.Organization;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Payslip templates by organization. A template is laid out on first use and reused for
+ * as long as it matches the organization it is asked for; once the company name or address
+ * changes, however it was changed, the next payslip lays out a new one.
+ */
+@Service
+@Slf4j
+public class PayslipTemplateCache {
+
+    private final Map<Long, PayslipTemplate> templates = new ConcurrentHashMap<>();
+
+    public PayslipTemplate getTemplate(Organization organization) {
+        PayslipTemplate cached = templates.get(organization.getId());
+        if (cached != null && cached.matches(organization)) {
+            return cached;
+        }
+        // compute holds the entry, so render workers starting together lay it out only once
+        return templates.compute(organization.getId(), (id, current) -> {
+            if (current != null && current.matches(organization)) {
+                return current;
+            }
+            log.debug("Laying out payslip template for organization {}", id);
+            return PayslipTemplate.compile(organization);
+        });
+    }
+}
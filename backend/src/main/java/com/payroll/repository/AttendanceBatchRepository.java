@@ -0,0 +1,166 @@
+package com.payroll.repository;
+
+import com.payroll.entity.Attendance;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Set-based attendance writes for month initialization and imports, used where checking and
+ * saving each (employee, date) cell would cost two round trips per cell.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AttendanceBatchRepository {
+
+    /** Employees per statement; each statement inserts employees × days rows. */
+    private static final int EMPLOYEES_PER_STATEMENT = 1000;
+
+    /*
+     * Cross joins the employee ids with the day templates and inserts every cell that does
+     * not exist yet; unique_employee_date turns existing cells into no-ops.
+     */
+    private static final String INSERT_MISSING_SQL =
+            "WITH inserted AS (" +
+            "  INSERT INTO attendance (employee_id, organization_id, date, status, holiday_id, " +
+            "    check_in_time, check_out_time, work_hours, created_at, updated_at) " +
+            "  SELECT e.id, ?, d.date, d.status, d.holiday_id, d.check_in, d.check_out, d.work_hours, NOW(), NOW() " +
+            "  FROM unnest(?::bigint[]) AS e(id) " +
+            "  CROSS JOIN unnest(?::date[], ?::varchar[], ?::bigint[], ?::time[], ?::time[], ?::float8[]) " +
+            "    AS d(date, status, holiday_id, check_in, check_out, work_hours) " +
+            "  ON CONFLICT (employee_id, date) DO NOTHING " +
+            "  RETURNING status" +
+            ") SELECT status, COUNT(*) FROM inserted GROUP BY status";
+
+    /*
+     * Inserts each cell or overwrites the status, leave type and holiday of the existing one;
+     * the other columns of an existing cell are left as they are. xmax is 0 only for rows this
+     * statement inserted.
+     */
+    private static final String UPSERT_SQL =
+            "WITH upserted AS (" +
+            "  INSERT INTO attendance (employee_id, organization_id, date, status, leave_type_id, holiday_id, created_at, updated_at) " +
+            "  SELECT c.employee_id, c.organization_id, c.date, c.status, c.leave_type_id, c.holiday_id, NOW(), NOW() " +
+            "  FROM unnest(?::bigint[], ?::bigint[], ?::date[], ?::varchar[], ?::bigint[], ?::bigint[]) " +
+            "    AS c(employee_id, organization_id, date, status, leave_type_id, holiday_id) " +
+            "  ON CONFLICT (employee_id, date) DO UPDATE SET " +
+            "    organization_id = EXCLUDED.organization_id, status = EXCLUDED.status, " +
+            "    leave_type_id = EXCLUDED.leave_type_id, holiday_id = EXCLUDED.holiday_id, updated_at = NOW() " +
+            "  RETURNING (xmax = 0) AS inserted" +
+            ") SELECT COUNT(*) FILTER (WHERE inserted), COUNT(*) FILTER (WHERE NOT inserted) FROM upserted";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Rows created and updated by an upsert.
+     */
+    public record UpsertResult(int created, int updated) {
+    }
+
+    /**
+     * Create the attendance rows that do not exist yet for every employee on every day.
+     * Each day is given as a template attendance with date, status, holiday id, check in and
+     * out times and work hours set; the employee and organization are filled in here.
+     *
+     * @return number of rows created by status
+     */
+    public Map<String, Integer> insertMissing(Long organizationId, List<Long> employeeIds, Collection<Attendance> days) {
+        Map<String, Integer> created = new TreeMap<>();
+        if (employeeIds.isEmpty() || days.isEmpty()) {
+            return created;
+        }
+
+        int n = days.size();
+        Object[] dates = new Object[n];
+        Object[] statuses = new Object[n];
+        Object[] holidayIds = new Object[n];
+        Object[] checkIns = new Object[n];
+        Object[] checkOuts = new Object[n];
+        Object[] workHours = new Object[n];
+        int i = 0;
+        for (Attendance day : days) {
+            dates[i] = Date.valueOf(day.getDate());
+            statuses[i] = day.getStatus();
+            holidayIds[i] = day.getHolidayId();
+            checkIns[i] = day.getCheckInTime() != null ? day.getCheckInTime().toString() : null;
+            checkOuts[i] = day.getCheckOutTime() != null ? day.getCheckOutTime().toString() : null;
+            workHours[i] = day.getWorkHours();
+            i++;
+        }
+
+        for (int from = 0; from < employeeIds.size(); from += EMPLOYEES_PER_STATEMENT) {
+            List<Long> chunk = employeeIds.subList(from, Math.min(from + EMPLOYEES_PER_STATEMENT, employeeIds.size()));
+            jdbcTemplate.execute((Connection connection) -> {
+                try (PreparedStatement ps = connection.prepareStatement(INSERT_MISSING_SQL)) {
+                    ps.setLong(1, organizationId);
+                    ps.setArray(2, connection.createArrayOf("bigint", chunk.toArray()));
+                    ps.setArray(3, connection.createArrayOf("date", dates));
+                    ps.setArray(4, connection.createArrayOf("varchar", statuses));
+                    ps.setArray(5, connection.createArrayOf("bigint", holidayIds));
+                    ps.setArray(6, connection.createArrayOf("varchar", checkIns));
+                    ps.setArray(7, connection.createArrayOf("varchar", checkOuts));
+                    ps.setArray(8, connection.createArrayOf("float8", workHours));
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            created.merge(rs.getString(1), rs.getInt(2), Integer::sum);
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+        return created;
+    }
+
+    /**
+     * Create or update the given cells in one statement. Each cell needs employee id,
+     * organization id, date and status; leave type id and holiday id may be null. The cells must not repeat
+     * an (employee, date) pair, since a single statement cannot update the same row twice.
+     */
+    public UpsertResult upsert(List<Attendance> cells) {
+        if (cells.isEmpty()) {
+            return new UpsertResult(0, 0);
+        }
+
+        int n = cells.size();
+        Object[] employeeIds = new Object[n];
+        Object[] organizationIds = new Object[n];
+        Object[] dates = new Object[n];
+        Object[] statuses = new Object[n];
+        Object[] leaveTypeIds = new Object[n];
+        Object[] holidayIds = new Object[n];
+        for (int i = 0; i < n; i++) {
+            Attendance cell = cells.get(i);
+            employeeIds[i] = cell.getEmployeeId();
+            organizationIds[i] = cell.getOrganizationId();
+            dates[i] = Date.valueOf(cell.getDate());
+            statuses[i] = cell.getStatus();
+            leaveTypeIds[i] = cell.getLeaveTypeId();
+            holidayIds[i] = cell.getHolidayId();
+        }
+
+        return jdbcTemplate.execute((Connection connection) -> {
+            try (PreparedStatement ps = connection.prepareStatement(UPSERT_SQL)) {
+                ps.setArray(1, connection.createArrayOf("bigint", employeeIds));
+                ps.setArray(2, connection.createArrayOf("bigint", organizationIds));
+                ps.setArray(3, connection.createArrayOf("date", dates));
+                ps.setArray(4, connection.createArrayOf("varchar", statuses));
+                ps.setArray(5, connection.createArrayOf("bigint", leaveTypeIds));
+                ps.setArray(6, connection.createArrayOf("bigint", holidayIds));
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    return new UpsertResult(rs.getInt(1), rs.getInt(2));
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,14 @@
+package com.payroll.repository;
+
+import com.payroll.entity.AttendanceImportJobError;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AttendanceImportJobErrorRepository extends JpaRepository<AttendanceImportJobError, Long> {
+
+    // Keyset page of a job's errors in the order they were found
+    List<AttendanceImportJobError> findTop1000ByJobIdAndIdGreaterThanOrderByIdAsc(Long jobId, Long afterId);
+}
@@ -0,0 +1,18 @@
+package com.payroll.repository;
+
+import com.payroll.entity.AttendanceImportJob;
+import com.payroll.entity.AttendanceImportJob.JobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AttendanceImportJobRepository extends JpaRepository<AttendanceImportJob, Long> {
+
+    Optional<AttendanceImportJob> findByIdAndTenantId(Long id, Long tenantId);
+
+    List<AttendanceImportJob> findByOwnerNodeAndStatusIn(String ownerNode, Collection<JobStatus> statuses);
+}
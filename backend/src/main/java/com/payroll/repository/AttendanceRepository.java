@@ -1,12 +1,17 @@
 package com.payroll.repository;
 
+import com.payroll.dto.AttendanceStatusCountsDTO;
 import com.payroll.entity.Attendance;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,11 +33,47 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
     Long countByEmployeeIdAndStatusAndDateBetween(@Param("empId") Long employeeId, @Param("status") String status, 
                                                    @Param("start") LocalDate start, @Param("end") LocalDate end);
 
-    @Query("SELECT a FROM Attendance a WHERE a.organizationId = :orgId AND MONTH(a.date) = :month AND YEAR(a.date) = :year")
-    List<Attendance> findByOrganizationIdAndMonthYear(@Param("orgId") Long organizationId, 
-                                                       @Param("month") int month, @Param("year") int year);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT a FROM Attendance a WHERE a.organizationId = :orgId AND a.date BETWEEN :start AND :end")
+    List<Attendance> findReadOnlyByOrganizationIdAndDateBetween(@Param("orgId") Long organizationId,
+                                                                @Param("start") LocalDate start, @Param("end") LocalDate end);
 
-    @Query("SELECT a FROM Attendance a WHERE a.employeeId = :empId AND MONTH(a.date) = :month AND YEAR(a.date) = :year")
-    List<Attendance> findByEmployeeIdAndMonthYear(@Param("empId") Long employeeId, 
-                                                   @Param("month") int month, @Param("year") int year);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT a FROM Attendance a WHERE a.organizationId = :orgId AND a.status = 'LEAVE' " +
+           "AND a.leaveTypeId IS NOT NULL AND a.date BETWEEN :start AND :end")
+    List<Attendance> findLeavesByOrganizationIdAndDateBetween(@Param("orgId") Long organizationId,
+                                                              @Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    default List<Attendance> findByOrganizationIdAndMonthYear(Long organizationId, int month, int year) {
+        YearMonth period = YearMonth.of(year, month);
+        return findByOrganizationIdAndDateBetween(organizationId, period.atDay(1), period.atEndOfMonth());
+    }
+
+    default List<Attendance> findByEmployeeIdAndMonthYear(Long employeeId, int month, int year) {
+        YearMonth period = YearMonth.of(year, month);
+        return findByEmployeeIdAndDateBetween(employeeId, period.atDay(1), period.atEndOfMonth());
+    }
+
+    // Record counts by status plus summed hours, in AttendanceStatusCountsDTO constructor order
+    String STATUS_COUNTS =
+            "SUM(CASE WHEN a.status = 'PRESENT' THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN a.status = 'ABSENT' THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN a.status = 'HALF_DAY' THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN a.status = 'LEAVE' THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN a.status = 'HOLIDAY' THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN a.status = 'WEEKEND' THEN 1 ELSE 0 END), " +
+            "SUM(a.workHours), SUM(a.overtimeHours)";
+
+    // Status counts per employee for the whole organization, one row per employee with records
+    @Query("SELECT new com.payroll.dto.AttendanceStatusCountsDTO(a.employeeId, COUNT(a), " + STATUS_COUNTS + ") " +
+           "FROM Attendance a WHERE a.organizationId = :orgId AND a.date BETWEEN :start AND :end GROUP BY a.employeeId")
+    List<AttendanceStatusCountsDTO> countStatusesByOrganizationIdAndDateBetween(@Param("orgId") Long organizationId,
+                                                                                @Param("start") LocalDate start,
+                                                                                @Param("end") LocalDate end);
+
+    @Query("SELECT new com.payroll.dto.AttendanceStatusCountsDTO(a.employeeId, COUNT(a), " + STATUS_COUNTS + ") " +
+           "FROM Attendance a WHERE a.employeeId = :empId AND a.date BETWEEN :start AND :end GROUP BY a.employeeId")
+    Optional<AttendanceStatusCountsDTO> countStatusesByEmployeeIdAndDateBetween(@Param("empId") Long employeeId,
+                                                                               @Param("start") LocalDate start,
+                                                                               @Param("end") LocalDate end);
 }
@@ -1,5 +1,6 @@
 package com.payroll.repository;
 
+import com.payroll.dto.EmployeeNameDTO;
 import com.payroll.entity.Employee;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -33,6 +34,18 @@ public interface EmployeeRepository extends JpaRepository<Employee, Long> {
     // Find employees by status
     List<Employee> findByStatusAndOrganizationId(String status, Long organizationId);
 
+    // Ids only, for bulk operations that do not need the employees themselves
+    @Query("SELECT e.id FROM Employee e WHERE e.organization.id = :organizationId ORDER BY e.id")
+    List<Long> findIdsByOrganizationId(@Param("organizationId") Long organizationId);
+
+    @Query("SELECT e.id FROM Employee e WHERE e.organization.id = :organizationId AND e.status = :status ORDER BY e.id")
+    List<Long> findIdsByStatusAndOrganizationId(@Param("status") String status, @Param("organizationId") Long organizationId);
+
+    // Names only, for resolving many names at once in memory
+    @Query("SELECT new com.payroll.dto.EmployeeNameDTO(e.id, e.employeeId, e.firstName, e.middleName, e.lastName) " +
+           "FROM Employee e WHERE e.organization.id = :organizationId ORDER BY e.id")
+    List<EmployeeNameDTO> findNamesByOrganizationId(@Param("organizationId") Long organizationId);
+
     // Check if employee ID exists in organization
     boolean existsByEmployeeIdAndOrganizationId(String employeeId, Long organizationId);
 
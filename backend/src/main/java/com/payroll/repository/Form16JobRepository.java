@@ -0,0 +1,28 @@
+package com.payroll.repository;
+
+import com.payroll.entity.Form16Job;
+import com.payroll.entity.Form16Job.JobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface Form16JobRepository extends JpaRepository<Form16Job, Long> {
+
+    Optional<Form16Job> findByIdAndTenantId(Long id, Long tenantId);
+
+    List<Form16Job> findByOwnerNodeAndStatusIn(String ownerNode, Collection<JobStatus> statuses);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Form16Job j SET j.processedCount = j.processedCount + :delta, j.updatedAt = :now WHERE j.id = :id")
+    int incrementProcessedCount(@Param("id") Long id, @Param("delta") int delta, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,50 @@
+package com.payroll.repository;
+
+import com.payroll.entity.PayRunEmployee;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * JDBC batch writes for pay run employee rows, used where saving entities one by one
+ * would cost a round trip per employee.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PayRunEmployeeBatchRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO pay_run_employees (pay_run_id, employee_id, basic_salary, hra, conveyance_allowance, " +
+            "fixed_allowance, working_days, days_worked, lop_days, status, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insert new pay run employee rows in batches. The entities are not attached to the
+     * persistence context and their ids are not populated.
+     */
+    public void insertAll(List<PayRunEmployee> rows) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, BATCH_SIZE, (ps, pre) -> {
+            ps.setLong(1, pre.getPayRun().getId());
+            ps.setLong(2, pre.getEmployee().getId());
+            ps.setBigDecimal(3, pre.getBasicSalary());
+            ps.setBigDecimal(4, pre.getHra());
+            ps.setBigDecimal(5, pre.getConveyanceAllowance());
+            ps.setBigDecimal(6, pre.getFixedAllowance());
+            ps.setInt(7, pre.getWorkingDays());
+            ps.setInt(8, pre.getDaysWorked());
+            ps.setInt(9, pre.getLopDays());
+            ps.setString(10, pre.getStatus().name());
+            ps.setTimestamp(11, now);
+            ps.setTimestamp(12, now);
+        });
+    }
+}
@@ -1,14 +1,24 @@
 package com.payroll.repository;
 
+import com.payroll.dto.ESIContributionDTO;
+import com.payroll.dto.PFContributionDTO;
+import com.payroll.dto.PayRunTotalsDTO;
+import com.payroll.dto.PayrollExportRowDTO;
 import com.payroll.entity.PayRunEmployee;
 import com.payroll.entity.PayRunEmployee.PayRunEmployeeStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PayRunEmployeeRepository extends JpaRepository<PayRunEmployee, Long> {
@@ -22,9 +32,52 @@ public interface PayRunEmployeeRepository extends JpaRepository<PayRunEmployee,
     @Query("SELECT pre FROM PayRunEmployee pre WHERE pre.payRun.id = :payRunId ORDER BY pre.employee.firstName")
     List<PayRunEmployee> findByPayRunIdOrderByEmployeeName(@Param("payRunId") Long payRunId);
 
+    @Query("SELECT pre.id FROM PayRunEmployee pre WHERE pre.payRun.id = :payRunId ORDER BY pre.id")
+    List<Long> findIdsByPayRunId(@Param("payRunId") Long payRunId);
+
+    @Query("SELECT pre.id FROM PayRunEmployee pre WHERE pre.payRun.id = :payRunId AND pre.needsRecalculation = true ORDER BY pre.id")
+    List<Long> findIdsNeedingRecalculationByPayRunId(@Param("payRunId") Long payRunId);
+
+    @Query("SELECT pre FROM PayRunEmployee pre JOIN FETCH pre.employee WHERE pre.id IN :ids")
+    List<PayRunEmployee> findByIdInWithEmployee(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT pre FROM PayRunEmployee pre JOIN FETCH pre.employee WHERE pre.payRun.id = :payRunId ORDER BY pre.id")
+    List<PayRunEmployee> findByPayRunIdWithEmployee(@Param("payRunId") Long payRunId);
+
     @Query("SELECT COUNT(pre) FROM PayRunEmployee pre WHERE pre.payRun.id = :payRunId AND pre.status = :status")
     Long countByPayRunIdAndStatus(@Param("payRunId") Long payRunId, @Param("status") PayRunEmployeeStatus status);
 
     @Query("SELECT SUM(pre.netSalary) FROM PayRunEmployee pre WHERE pre.payRun.id = :payRunId")
     java.math.BigDecimal sumNetSalaryByPayRunId(@Param("payRunId") Long payRunId);
+
+    // Totals per pay run, summed in the database for reports
+    @Query("SELECT new com.payroll.dto.PayRunTotalsDTO(pre.payRun.id, COUNT(pre), SUM(pre.grossSalary), " +
+           "SUM(pre.totalDeductions), SUM(pre.netSalary), SUM(pre.pfEmployee), SUM(pre.esiEmployee), " +
+           "SUM(pre.professionalTax), SUM(pre.tds)) " +
+           "FROM PayRunEmployee pre WHERE pre.payRun.id IN :payRunIds GROUP BY pre.payRun.id")
+    List<PayRunTotalsDTO> sumTotalsByPayRunIds(@Param("payRunIds") Collection<Long> payRunIds);
+
+    @Query("SELECT new com.payroll.dto.PFContributionDTO(e.employeeId, e.firstName, e.lastName, e.uan, e.pfNumber, " +
+           "pre.basicSalary, pre.pfEmployee, pre.pfEmployer) " +
+           "FROM PayRunEmployee pre JOIN pre.employee e WHERE pre.payRun.id IN :payRunIds ORDER BY pre.payRun.id, pre.id")
+    List<PFContributionDTO> findPFContributionsByPayRunIds(@Param("payRunIds") Collection<Long> payRunIds);
+
+    // Only employees who paid ESI
+    @Query("SELECT new com.payroll.dto.ESIContributionDTO(e.employeeId, e.firstName, e.lastName, e.esiNumber, " +
+           "pre.grossSalary, pre.esiEmployee, pre.esiEmployer) " +
+           "FROM PayRunEmployee pre JOIN pre.employee e WHERE pre.payRun.id IN :payRunIds AND pre.esiEmployee > 0 " +
+           "ORDER BY pre.payRun.id, pre.id")
+    List<ESIContributionDTO> findESIContributionsByPayRunIds(@Param("payRunIds") Collection<Long> payRunIds);
+
+    // Export lines of the tenant's pay runs in the period, read from a cursor; consume inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.payroll.dto.PayrollExportRowDTO(pr.payRunNumber, e.employeeId, e.firstName, e.lastName, " +
+           "e.department, e.designation, pre.workingDays, pre.lopDays, pre.basicSalary, pre.hra, pre.conveyanceAllowance, " +
+           "pre.fixedAllowance, pre.otherEarnings, pre.grossSalary, pre.pfEmployee, pre.esiEmployee, pre.professionalTax, " +
+           "pre.tds, pre.otherDeductions, pre.totalDeductions, pre.netSalary) " +
+           "FROM PayRunEmployee pre JOIN pre.payRun pr JOIN pre.employee e " +
+           "WHERE pr.tenantId = :tenantId AND pr.payPeriodStart BETWEEN :start AND :end ORDER BY pr.id, pre.id")
+    Stream<PayrollExportRowDTO> streamPayrollExportRows(@Param("tenantId") Long tenantId,
+                                                        @Param("start") LocalDate start,
+                                                        @Param("end") LocalDate end);
 }
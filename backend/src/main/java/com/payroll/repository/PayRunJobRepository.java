@@ -0,0 +1,29 @@
+package com.payroll.repository;
+
+import com.payroll.entity.PayRunJob;
+import com.payroll.entity.PayRunJob.JobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PayRunJobRepository extends JpaRepository<PayRunJob, Long> {
+
+    Optional<PayRunJob> findByIdAndTenantId(Long id, Long tenantId);
+
+    List<PayRunJob> findByOwnerNodeAndStatusIn(String ownerNode, Collection<JobStatus> statuses);
+
+    // Atomic increment so concurrent workers never lose each other's progress
+    @Modifying
+    @Transactional
+    @Query("UPDATE PayRunJob j SET j.processedCount = j.processedCount + :delta, j.updatedAt = :now WHERE j.id = :id")
+    int incrementProcessedCount(@Param("id") Long id, @Param("delta") int delta, @Param("now") LocalDateTime now);
+}
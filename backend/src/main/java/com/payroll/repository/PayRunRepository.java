@@ -3,9 +3,11 @@ package com.payroll.repository;
 import com.payroll.entity.PayRun;
 import com.payroll.entity.PayRun.PayRunStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -38,4 +40,16 @@ public interface PayRunRepository extends JpaRepository<PayRun, Long> {
     List<PayRun> findByTenantIdAndPayPeriodStartBetween(@Param("tenantId") Long tenantId, 
                                                          @Param("startDate") LocalDate startDate, 
                                                          @Param("endDate") LocalDate endDate);
+
+    // Recompute the run totals from its employee rows, e.g. after a calculation was cut short
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE pay_runs pr SET total_gross_pay = s.gross, total_deductions = s.deductions, " +
+                   "total_net_pay = s.net, total_employer_contributions = s.employer, updated_at = CURRENT_TIMESTAMP " +
+                   "FROM (SELECT COALESCE(SUM(gross_salary), 0) AS gross, COALESCE(SUM(total_deductions), 0) AS deductions, " +
+                   "COALESCE(SUM(net_salary), 0) AS net, COALESCE(SUM(total_employer_contribution), 0) AS employer " +
+                   "FROM pay_run_employees WHERE pay_run_id = :payRunId) s " +
+                   "WHERE pr.id = :payRunId",
+           nativeQuery = true)
+    int reaggregateTotals(@Param("payRunId") Long payRunId);
 }
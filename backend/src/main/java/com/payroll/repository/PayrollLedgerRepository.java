@@ -0,0 +1,110 @@
+package com.payroll.repository;
+
+import com.payroll.dto.TaxLedgerTotalsDTO;
+import com.payroll.entity.PayrollLedger;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PayrollLedgerRepository extends JpaRepository<PayrollLedger, Long> {
+
+    // Add a completed pay run's employees to their month; call once per pay run
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO payroll_ledger (tenant_id, employee_id, financial_year, period_month, pay_run_count, " +
+                   "basic_salary, hra, conveyance_allowance, fixed_allowance, gross_salary, lop_days, lop_deduction, " +
+                   "pf_employee, esi_employee, professional_tax, tds, total_deductions, net_salary, updated_at) " +
+                   "SELECT pr.tenant_id, pre.employee_id, :financialYear, :periodMonth, 1, " +
+                   "COALESCE(pre.basic_salary, 0), COALESCE(pre.hra, 0), COALESCE(pre.conveyance_allowance, 0), " +
+                   "COALESCE(pre.fixed_allowance, 0), COALESCE(pre.gross_salary, 0), COALESCE(pre.lop_days, 0), " +
+                   "COALESCE(pre.lop_deduction, 0), COALESCE(pre.pf_employee, 0), COALESCE(pre.esi_employee, 0), " +
+                   "COALESCE(pre.professional_tax, 0), COALESCE(pre.tds, 0), COALESCE(pre.total_deductions, 0), " +
+                   "COALESCE(pre.net_salary, 0), :now " +
+                   "FROM pay_run_employees pre JOIN pay_runs pr ON pr.id = pre.pay_run_id WHERE pre.pay_run_id = :payRunId " +
+                   "ON CONFLICT (tenant_id, employee_id, period_month) DO UPDATE SET " +
+                   "pay_run_count = payroll_ledger.pay_run_count + EXCLUDED.pay_run_count, " +
+                   "basic_salary = payroll_ledger.basic_salary + EXCLUDED.basic_salary, " +
+                   "hra = payroll_ledger.hra + EXCLUDED.hra, " +
+                   "conveyance_allowance = payroll_ledger.conveyance_allowance + EXCLUDED.conveyance_allowance, " +
+                   "fixed_allowance = payroll_ledger.fixed_allowance + EXCLUDED.fixed_allowance, " +
+                   "gross_salary = payroll_ledger.gross_salary + EXCLUDED.gross_salary, " +
+                   "lop_days = payroll_ledger.lop_days + EXCLUDED.lop_days, " +
+                   "lop_deduction = payroll_ledger.lop_deduction + EXCLUDED.lop_deduction, " +
+                   "pf_employee = payroll_ledger.pf_employee + EXCLUDED.pf_employee, " +
+                   "esi_employee = payroll_ledger.esi_employee + EXCLUDED.esi_employee, " +
+                   "professional_tax = payroll_ledger.professional_tax + EXCLUDED.professional_tax, " +
+                   "tds = payroll_ledger.tds + EXCLUDED.tds, " +
+                   "total_deductions = payroll_ledger.total_deductions + EXCLUDED.total_deductions, " +
+                   "net_salary = payroll_ledger.net_salary + EXCLUDED.net_salary, " +
+                   "updated_at = EXCLUDED.updated_at",
+           nativeQuery = true)
+    int addPayRun(@Param("payRunId") Long payRunId,
+                  @Param("financialYear") int financialYear,
+                  @Param("periodMonth") LocalDate periodMonth,
+                  @Param("now") LocalDateTime now);
+
+    // Take a completed pay run's employees back out of their month; follow with deleteEmptyMonths
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE payroll_ledger l SET pay_run_count = l.pay_run_count - 1, " +
+                   "basic_salary = l.basic_salary - COALESCE(pre.basic_salary, 0), " +
+                   "hra = l.hra - COALESCE(pre.hra, 0), " +
+                   "conveyance_allowance = l.conveyance_allowance - COALESCE(pre.conveyance_allowance, 0), " +
+                   "fixed_allowance = l.fixed_allowance - COALESCE(pre.fixed_allowance, 0), " +
+                   "gross_salary = l.gross_salary - COALESCE(pre.gross_salary, 0), " +
+                   "lop_days = l.lop_days - COALESCE(pre.lop_days, 0), " +
+                   "lop_deduction = l.lop_deduction - COALESCE(pre.lop_deduction, 0), " +
+                   "pf_employee = l.pf_employee - COALESCE(pre.pf_employee, 0), " +
+                   "esi_employee = l.esi_employee - COALESCE(pre.esi_employee, 0), " +
+                   "professional_tax = l.professional_tax - COALESCE(pre.professional_tax, 0), " +
+                   "tds = l.tds - COALESCE(pre.tds, 0), " +
+                   "total_deductions = l.total_deductions - COALESCE(pre.total_deductions, 0), " +
+                   "net_salary = l.net_salary - COALESCE(pre.net_salary, 0), " +
+                   "updated_at = :now " +
+                   "FROM pay_run_employees pre JOIN pay_runs pr ON pr.id = pre.pay_run_id " +
+                   "WHERE pre.pay_run_id = :payRunId AND l.tenant_id = pr.tenant_id " +
+                   "AND l.employee_id = pre.employee_id AND l.period_month = :periodMonth",
+           nativeQuery = true)
+    int subtractPayRun(@Param("payRunId") Long payRunId,
+                       @Param("periodMonth") LocalDate periodMonth,
+                       @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PayrollLedger l WHERE l.tenantId = :tenantId AND l.periodMonth = :periodMonth AND l.payRunCount <= 0")
+    int deleteEmptyMonths(@Param("tenantId") Long tenantId, @Param("periodMonth") LocalDate periodMonth);
+
+    List<PayrollLedger> findByTenantIdAndEmployeeIdAndFinancialYearOrderByPeriodMonth(
+            Long tenantId, Long employeeId, Integer financialYear);
+
+    List<PayrollLedger> findByTenantIdAndEmployeeIdAndPeriodMonthBetweenOrderByPeriodMonth(
+            Long tenantId, Long employeeId, LocalDate from, LocalDate to);
+
+    // Everyone with completed payroll in the year, in the order bulk Form 16 renders them
+    @Query("SELECT DISTINCT l.employeeId FROM PayrollLedger l " +
+           "WHERE l.tenantId = :tenantId AND l.financialYear = :financialYear ORDER BY l.employeeId")
+    List<Long> findEmployeeIdsByFinancialYear(@Param("tenantId") Long tenantId,
+                                              @Param("financialYear") Integer financialYear);
+
+    List<PayrollLedger> findByTenantIdAndFinancialYearAndEmployeeIdInOrderByEmployeeIdAscPeriodMonthAsc(
+            Long tenantId, Integer financialYear, Collection<Long> employeeIds);
+
+    // Employees with gross salary in the year, with their TDS
+    @Query("SELECT new com.payroll.dto.TaxLedgerTotalsDTO(e.employeeId, e.firstName, e.lastName, e.panNumber, " +
+           "SUM(l.grossSalary), SUM(l.tds)) " +
+           "FROM PayrollLedger l JOIN Employee e ON e.id = l.employeeId " +
+           "WHERE l.tenantId = :tenantId AND l.financialYear = :financialYear " +
+           "GROUP BY l.employeeId, e.employeeId, e.firstName, e.lastName, e.panNumber " +
+           "HAVING SUM(l.grossSalary) > 0 ORDER BY l.employeeId")
+    List<TaxLedgerTotalsDTO> sumTaxByFinancialYear(@Param("tenantId") Long tenantId,
+                                                   @Param("financialYear") Integer financialYear);
+}
@@ -0,0 +1,62 @@
+package com.payroll.repository;
+
+import com.payroll.entity.PayslipEmailOutbox;
+import com.payroll.entity.PayslipEmailOutbox.OutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PayslipEmailOutboxRepository extends JpaRepository<PayslipEmailOutbox, Long> {
+
+    // Queue the pay run's rendered payslips that have not been emailed; already queued ones are left as they are
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO payslip_email_outbox (payslip_id, tenant_id, status, attempts, next_attempt_at, created_at, updated_at) " +
+                   "SELECT p.id, p.tenant_id, 'PENDING', 0, :now, :now, :now FROM payslips p " +
+                   "JOIN pay_run_employees pre ON pre.id = p.pay_run_employee_id " +
+                   "WHERE pre.pay_run_id = :payRunId AND p.tenant_id = :tenantId AND p.pdf_path IS NOT NULL " +
+                   "AND (p.email_sent IS NULL OR p.email_sent = false) " +
+                   "ON CONFLICT (payslip_id) WHERE status IN ('PENDING', 'SENDING') DO NOTHING",
+           nativeQuery = true)
+    int enqueuePayRun(@Param("payRunId") Long payRunId, @Param("tenantId") Long tenantId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO payslip_email_outbox (payslip_id, tenant_id, status, attempts, next_attempt_at, created_at, updated_at) " +
+                   "VALUES (:payslipId, :tenantId, 'PENDING', 0, :now, :now, :now) " +
+                   "ON CONFLICT (payslip_id) WHERE status IN ('PENDING', 'SENDING') DO NOTHING",
+           nativeQuery = true)
+    int enqueue(@Param("payslipId") Long payslipId, @Param("tenantId") Long tenantId, @Param("now") LocalDateTime now);
+
+    // Due rows not locked by another node; call inside the transaction that claims them
+    @Query(value = "SELECT id FROM payslip_email_outbox WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+                   "ORDER BY next_attempt_at, id LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Long> lockDueIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE PayslipEmailOutbox o SET o.status = :requeued, o.updatedAt = :now " +
+           "WHERE o.ownerNode = :ownerNode AND o.status = :claimed")
+    int requeueClaimed(@Param("ownerNode") String ownerNode,
+                       @Param("claimed") OutboxStatus claimed,
+                       @Param("requeued") OutboxStatus requeued,
+                       @Param("now") LocalDateTime now);
+
+    // Rows still being sent after the lease, whichever node claimed them
+    @Modifying
+    @Transactional
+    @Query("UPDATE PayslipEmailOutbox o SET o.status = :requeued, o.updatedAt = :now " +
+           "WHERE o.status = :claimed AND o.claimedAt < :claimedBefore")
+    int requeueExpired(@Param("claimedBefore") LocalDateTime claimedBefore,
+                       @Param("claimed") OutboxStatus claimed,
+                       @Param("requeued") OutboxStatus requeued,
+                       @Param("now") LocalDateTime now);
+}
@@ -1,12 +1,18 @@
 package com.payroll.repository;
 
+import com.payroll.dto.PayslipArchiveEntryDTO;
 import com.payroll.entity.Payslip;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,9 +29,21 @@ public interface PayslipRepository extends JpaRepository<Payslip, Long> {
 
     Optional<Payslip> findByPayRunEmployeeId(Long payRunEmployeeId);
 
+    boolean existsByPdfPath(String pdfPath);
+
     @Query("SELECT p FROM Payslip p WHERE p.payRunEmployee.payRun.id = :payRunId ORDER BY p.employee.id")
     List<Payslip> findByPayRunIdOrderByEmployeeIdAsc(@Param("payRunId") Long payRunId);
 
+    // Archive entries of the pay run's rendered payslips after the given id, a batch at a time
+    @Query("SELECT new com.payroll.dto.PayslipArchiveEntryDTO(p.id, p.payslipNumber, e.employeeId, e.firstName, e.lastName, p.pdfPath, p.pdfGeneratedAt) " +
+           "FROM Payslip p JOIN p.employee e WHERE p.payRunEmployee.payRun.id = :payRunId AND p.tenantId = :tenantId " +
+           "AND p.pdfPath IS NOT NULL AND (:department IS NULL OR e.department = :department) AND p.id > :afterId ORDER BY p.id")
+    List<PayslipArchiveEntryDTO> findArchiveEntries(@Param("payRunId") Long payRunId,
+                                                    @Param("tenantId") Long tenantId,
+                                                    @Param("department") String department,
+                                                    @Param("afterId") Long afterId,
+                                                    Limit limit);
+
     @Query("SELECT p FROM Payslip p WHERE p.employee.id = :employeeId AND YEAR(p.payPeriodStart) = :year ORDER BY p.payPeriodStart")
     List<Payslip> findByEmployeeIdAndYear(@Param("employeeId") Long employeeId, @Param("year") int year);
 
@@ -34,6 +52,16 @@ public interface PayslipRepository extends JpaRepository<Payslip, Long> {
                                            @Param("start") LocalDate start, 
                                            @Param("end") LocalDate end);
 
+    @Query("SELECT p FROM Payslip p JOIN FETCH p.employee WHERE p.id IN :ids")
+    List<Payslip> findByIdInWithEmployee(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Payslip p SET p.emailSent = true, p.emailSentAt = :sentAt, p.status = :status, p.updatedAt = :sentAt WHERE p.id IN :ids")
+    int markEmailSent(@Param("ids") Collection<Long> ids,
+                      @Param("status") Payslip.PayslipStatus status,
+                      @Param("sentAt") LocalDateTime sentAt);
+
     @Query("SELECT COUNT(p) FROM Payslip p WHERE p.tenantId = :tenantId AND p.emailSent = false")
     Long countPendingEmailsByTenantId(@Param("tenantId") Long tenantId);
 }
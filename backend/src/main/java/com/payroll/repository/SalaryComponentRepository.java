@@ -11,6 +11,9 @@ import java.util.Optional;
 @Repository
 public interface SalaryComponentRepository extends JpaRepository<SalaryComponent, Long> {
 
+    // Find all components for an organization, including inactive ones
+    List<SalaryComponent> findByOrganizationId(Long organizationId);
+
     // Find all components for an organization
     List<SalaryComponent> findByOrganizationIdAndIsActiveTrue(Long organizationId);
 
@@ -0,0 +1,294 @@
+package com.payroll.salary;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Expression tree for a FORMULA salary component, e.g. {@code MAX(BASIC * 12 / 100, 1800)}.
+ *
+ * Supported syntax: numbers, + - * /, parentheses, unary minus, component codes
+ * (case-insensitive), MONTHLY_CTC, ANNUAL_CTC, VALUE (the value assigned to the employee)
+ * and the functions MIN(a, b), MAX(a, b) and ROUND(x). A formula is parsed once; its
+ * component codes are then bound to evaluation slots when the salary structure is compiled.
+ */
+public final class SalaryFormula {
+
+    static final String MONTHLY_CTC = "MONTHLY_CTC";
+    static final String ANNUAL_CTC = "ANNUAL_CTC";
+    static final String VALUE = "VALUE";
+
+    private static final MathContext DIVISION_CONTEXT = MathContext.DECIMAL64;
+
+    private final String source;
+    private final Node root;
+
+    private SalaryFormula(String source, Node root) {
+        this.source = source;
+        this.root = root;
+    }
+
+    /**
+     * Parse a formula expression.
+     *
+     * @throws IllegalArgumentException if the expression is not valid
+     */
+    public static SalaryFormula parse(String source) {
+        if (source == null || source.isBlank()) {
+            throw new IllegalArgumentException("Formula is empty");
+        }
+        Parser parser = new Parser(source);
+        Node root = parser.parseExpression();
+        parser.expectEnd();
+        return new SalaryFormula(source, root);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Component codes referenced by the formula, upper-cased, excluding built-in variables.
+     */
+    public Set<String> references() {
+        Set<String> refs = new LinkedHashSet<>();
+        collectReferences(root, refs);
+        return Collections.unmodifiableSet(refs);
+    }
+
+    /**
+     * Replace component codes with evaluation slots. Codes missing from the map evaluate to zero.
+     */
+    SalaryFormula bind(Map<String, Integer> slotsByCode) {
+        return new SalaryFormula(source, bind(root, slotsByCode));
+    }
+
+    /**
+     * Evaluate a bound formula against already computed component amounts.
+     */
+    BigDecimal evaluate(BigDecimal[] amounts, BigDecimal monthlyCtc, BigDecimal annualCtc, BigDecimal value) {
+        return eval(root, amounts, monthlyCtc, annualCtc, value);
+    }
+
+    // ---- Tree ----
+
+    private sealed interface Node permits Constant, Reference, Slot, Builtin, Negate, Binary, Call { }
+
+    private record Constant(BigDecimal value) implements Node { }
+
+    private record Reference(String code) implements Node { }
+
+    private record Slot(int index) implements Node { }
+
+    private record Builtin(String name) implements Node { }
+
+    private record Negate(Node operand) implements Node { }
+
+    private record Binary(char op, Node left, Node right) implements Node { }
+
+    private record Call(String function, List<Node> args) implements Node { }
+
+    private static void collectReferences(Node node, Set<String> refs) {
+        if (node instanceof Reference r) {
+            refs.add(r.code());
+        } else if (node instanceof Negate n) {
+            collectReferences(n.operand(), refs);
+        } else if (node instanceof Binary b) {
+            collectReferences(b.left(), refs);
+            collectReferences(b.right(), refs);
+        } else if (node instanceof Call c) {
+            c.args().forEach(arg -> collectReferences(arg, refs));
+        }
+    }
+
+    private static Node bind(Node node, Map<String, Integer> slotsByCode) {
+        if (node instanceof Reference r) {
+            Integer slot = slotsByCode.get(r.code());
+            return slot != null ? new Slot(slot) : new Constant(BigDecimal.ZERO);
+        } else if (node instanceof Negate n) {
+            return new Negate(bind(n.operand(), slotsByCode));
+        } else if (node instanceof Binary b) {
+            return new Binary(b.op(), bind(b.left(), slotsByCode), bind(b.right(), slotsByCode));
+        } else if (node instanceof Call c) {
+            List<Node> args = new ArrayList<>(c.args().size());
+            c.args().forEach(arg -> args.add(bind(arg, slotsByCode)));
+            return new Call(c.function(), List.copyOf(args));
+        }
+        return node;
+    }
+
+    private static BigDecimal eval(Node node, BigDecimal[] amounts, BigDecimal monthlyCtc, BigDecimal annualCtc,
+                                   BigDecimal value) {
+        if (node instanceof Constant c) {
+            return c.value();
+        } else if (node instanceof Slot s) {
+            BigDecimal amount = amounts[s.index()];
+            return amount != null ? amount : BigDecimal.ZERO;
+        } else if (node instanceof Builtin b) {
+            BigDecimal v = switch (b.name()) {
+                case MONTHLY_CTC -> monthlyCtc;
+                case ANNUAL_CTC -> annualCtc;
+                default -> value;
+            };
+            return v != null ? v : BigDecimal.ZERO;
+        } else if (node instanceof Negate n) {
+            return eval(n.operand(), amounts, monthlyCtc, annualCtc, value).negate();
+        } else if (node instanceof Binary b) {
+            BigDecimal left = eval(b.left(), amounts, monthlyCtc, annualCtc, value);
+            BigDecimal right = eval(b.right(), amounts, monthlyCtc, annualCtc, value);
+            return switch (b.op()) {
+                case '+' -> left.add(right);
+                case '-' -> left.subtract(right);
+                case '*' -> left.multiply(right);
+                default -> right.signum() == 0 ? BigDecimal.ZERO : left.divide(right, DIVISION_CONTEXT);
+            };
+        } else if (node instanceof Call c) {
+            BigDecimal first = eval(c.args().get(0), amounts, monthlyCtc, annualCtc, value);
+            return switch (c.function()) {
+                case "MIN" -> first.min(eval(c.args().get(1), amounts, monthlyCtc, annualCtc, value));
+                case "MAX" -> first.max(eval(c.args().get(1), amounts, monthlyCtc, annualCtc, value));
+                default -> first.setScale(0, RoundingMode.HALF_UP);
+            };
+        }
+        // Unbound reference: the structure compiler always binds before evaluating
+        return BigDecimal.ZERO;
+    }
+
+    // ---- Parser ----
+
+    private static final class Parser {
+
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Node parseExpression() {
+            Node node = parseTerm();
+            while (true) {
+                char c = peek();
+                if (c == '+' || c == '-') {
+                    pos++;
+                    node = new Binary(c, node, parseTerm());
+                } else {
+                    return node;
+                }
+            }
+        }
+
+        private Node parseTerm() {
+            Node node = parseUnary();
+            while (true) {
+                char c = peek();
+                if (c == '*' || c == '/') {
+                    pos++;
+                    node = new Binary(c, node, parseUnary());
+                } else {
+                    return node;
+                }
+            }
+        }
+
+        private Node parseUnary() {
+            if (peek() == '-') {
+                pos++;
+                return new Negate(parseUnary());
+            }
+            if (peek() == '+') {
+                pos++;
+                return parseUnary();
+            }
+            return parsePrimary();
+        }
+
+        private Node parsePrimary() {
+            char c = peek();
+            if (c == '(') {
+                pos++;
+                Node node = parseExpression();
+                expect(')');
+                return node;
+            }
+            if (Character.isDigit(c) || c == '.') {
+                int start = pos;
+                while (pos < text.length() && (Character.isDigit(text.charAt(pos)) || text.charAt(pos) == '.')) {
+                    pos++;
+                }
+                try {
+                    return new Constant(new BigDecimal(text.substring(start, pos)));
+                } catch (NumberFormatException e) {
+                    throw error("Invalid number '" + text.substring(start, pos) + "'");
+                }
+            }
+            if (Character.isLetter(c) || c == '_') {
+                int start = pos;
+                while (pos < text.length()
+                        && (Character.isLetterOrDigit(text.charAt(pos)) || text.charAt(pos) == '_')) {
+                    pos++;
+                }
+                String name = text.substring(start, pos).toUpperCase(Locale.ROOT);
+                if (peek() == '(') {
+                    pos++;
+                    return parseCall(name);
+                }
+                if (name.equals(MONTHLY_CTC) || name.equals(ANNUAL_CTC) || name.equals(VALUE)) {
+                    return new Builtin(name);
+                }
+                return new Reference(name);
+            }
+            throw error(c == 0 ? "Unexpected end of formula" : "Unexpected '" + c + "'");
+        }
+
+        private Node parseCall(String function) {
+            int arity = switch (function) {
+                case "MIN", "MAX" -> 2;
+                case "ROUND" -> 1;
+                default -> throw error("Unknown function " + function);
+            };
+            List<Node> args = new ArrayList<>(arity);
+            args.add(parseExpression());
+            while (peek() == ',') {
+                pos++;
+                args.add(parseExpression());
+            }
+            expect(')');
+            if (args.size() != arity) {
+                throw error(function + " expects " + arity + " argument(s)");
+            }
+            return new Call(function, List.copyOf(args));
+        }
+
+        void expectEnd() {
+            if (peek() != 0) {
+                throw error("Unexpected '" + peek() + "'");
+            }
+        }
+
+        private void expect(char expected) {
+            if (peek() != expected) {
+                throw error("Expected '" + expected + "'");
+            }
+            pos++;
+        }
+
+        private char peek() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+            return pos < text.length() ? text.charAt(pos) : 0;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + (pos + 1) + " in formula: " + text);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.payroll.salary;
+
+import com.payroll.entity.SalaryComponent;
+import com.payroll.enums.CalculationType;
+import com.payroll.enums.ComponentType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * An organization's salary components compiled for evaluation. Components are held in
+ * dependency order (a PERCENTAGE component after its base component, a FORMULA component
+ * after every component it references), so evaluating an employee is a single pass over
+ * arrays with no parsing, map lookups or repository access.
+ *
+ * A component whose stored formula does not parse, or which is part of a circular
+ * dependency, is compiled with an error instead of failing the whole structure. Evaluating
+ * it, or a component that depends on it, yields no amount and reports the error.
+ *
+ * Instances are immutable and shared between threads; see {@link SalaryStructureCache}.
+ */
+public final class SalaryStructure {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    /**
+     * Compile-time view of one component.
+     *
+     * @param baseSlot slot of the base component for PERCENTAGE, or -1 to use monthly CTC
+     * @param inputSlots slots this component's amount is computed from
+     * @param error why the component cannot be evaluated, or null
+     */
+    public record ComponentSlot(Long componentId, String code, String name, ComponentType type,
+                                CalculationType calculationType, int baseSlot, SalaryFormula formula,
+                                int[] inputSlots, Boolean isTaxable, Boolean isStatutory, int displayOrder,
+                                String error) {
+    }
+
+    /**
+     * Result of evaluating one employee; arrays are indexed by slot. Slots for components
+     * not assigned to the employee hold null, as do the amounts of components that could
+     * not be evaluated; those have an error instead.
+     */
+    public record Evaluation(BigDecimal[] amounts, BigDecimal[] baseAmounts, String[] errors) {
+
+        public BigDecimal amount(int slot) {
+            return amounts[slot];
+        }
+
+        public BigDecimal baseAmount(int slot) {
+            return baseAmounts[slot];
+        }
+
+        public String error(int slot) {
+            return errors[slot];
+        }
+    }
+
+    private final Long organizationId;
+    private final ComponentSlot[] slots;
+    private final int[] displaySlots;
+    private final Map<Long, Integer> slotByComponentId;
+
+    private SalaryStructure(Long organizationId, ComponentSlot[] slots, int[] displaySlots,
+                            Map<Long, Integer> slotByComponentId) {
+        this.organizationId = organizationId;
+        this.slots = slots;
+        this.displaySlots = displaySlots;
+        this.slotByComponentId = slotByComponentId;
+    }
+
+    /**
+     * Compile an organization's components. Components that cannot be evaluated carry an
+     * error; see {@link #requireValid(Long)}.
+     */
+    public static SalaryStructure compile(Long organizationId, List<SalaryComponent> components) {
+        int n = components.size();
+        Map<Long, Integer> indexById = new HashMap<>();
+        Map<String, Integer> indexByCode = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            SalaryComponent c = components.get(i);
+            indexById.put(c.getId(), i);
+            if (c.getCode() != null) {
+                indexByCode.put(c.getCode().toUpperCase(Locale.ROOT), i);
+            }
+        }
+
+        // Dependencies by source index
+        SalaryFormula[] formulas = new SalaryFormula[n];
+        String[] errors = new String[n];
+        int[] baseIndex = new int[n];
+        List<List<Integer>> dependents = new ArrayList<>(n);
+        int[] pending = new int[n];
+        for (int i = 0; i < n; i++) {
+            dependents.add(new ArrayList<>());
+        }
+        for (int i = 0; i < n; i++) {
+            SalaryComponent c = components.get(i);
+            baseIndex[i] = -1;
+            if (c.getCalculationType() == CalculationType.PERCENTAGE && c.getBaseComponent() != null) {
+                Integer base = indexById.get(c.getBaseComponent().getId());
+                if (base != null) {
+                    baseIndex[i] = base;
+                    dependents.get(base).add(i);
+                    pending[i]++;
+                }
+            } else if (c.getCalculationType() == CalculationType.FORMULA) {
+                try {
+                    formulas[i] = SalaryFormula.parse(c.getFormula());
+                } catch (IllegalArgumentException e) {
+                    errors[i] = "Invalid formula for component " + c.getCode() + ": " + e.getMessage();
+                    continue;
+                }
+                for (String ref : formulas[i].references()) {
+                    Integer dep = indexByCode.get(ref);
+                    if (dep != null) {
+                        dependents.get(dep).add(i);
+                        pending[i]++;
+                    }
+                }
+            }
+        }
+
+        // Kahn's algorithm; source order breaks ties so the result is stable
+        int[] order = new int[n];
+        int[] slotOf = new int[n];
+        Deque<Integer> ready = new ArrayDeque<>();
+        for (int i = 0; i < n; i++) {
+            if (pending[i] == 0) {
+                ready.add(i);
+            }
+        }
+        int count = 0;
+        while (!ready.isEmpty()) {
+            int i = ready.poll();
+            slotOf[i] = count;
+            order[count++] = i;
+            for (int dependent : dependents.get(i)) {
+                if (--pending[dependent] == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        if (count < n) {
+            // Components left over are in a cycle or depend on one; they go last, unevaluated
+            String cycle = IntStream.range(0, n)
+                    .filter(i -> pending[i] > 0)
+                    .mapToObj(i -> components.get(i).getCode())
+                    .collect(Collectors.joining(", "));
+            for (int i = 0; i < n; i++) {
+                if (pending[i] > 0) {
+                    errors[i] = "Salary components have a circular dependency: " + cycle;
+                    slotOf[i] = count;
+                    order[count++] = i;
+                }
+            }
+        }
+
+        Map<String, Integer> slotByCode = new HashMap<>();
+        indexByCode.forEach((code, i) -> slotByCode.put(code, slotOf[i]));
+
+        ComponentSlot[] slots = new ComponentSlot[n];
+        Map<Long, Integer> slotByComponentId = new HashMap<>();
+        for (int s = 0; s < n; s++) {
+            int i = order[s];
+            SalaryComponent c = components.get(i);
+            int baseSlot = baseIndex[i] >= 0 ? slotOf[baseIndex[i]] : -1;
+            int[] inputSlots = baseSlot >= 0 ? new int[]{baseSlot}
+                    : formulas[i] != null ? formulas[i].references().stream()
+                            .map(slotByCode::get).filter(Objects::nonNull).mapToInt(Integer::intValue).toArray()
+                    : new int[0];
+            slots[s] = new ComponentSlot(c.getId(), c.getCode(), c.getName(), c.getType(), c.getCalculationType(),
+                    baseSlot, formulas[i] != null && errors[i] == null ? formulas[i].bind(slotByCode) : null,
+                    inputSlots, c.getIsTaxable(), c.getIsStatutory(),
+                    c.getDisplayOrder() != null ? c.getDisplayOrder() : 0, errors[i]);
+            slotByComponentId.put(c.getId(), s);
+        }
+
+        int[] displaySlots = IntStream.range(0, n).boxed()
+                .sorted(Comparator.<Integer>comparingInt(s -> slots[s].displayOrder())
+                        .thenComparing(s -> slots[s].componentId(), Comparator.nullsLast(Comparator.naturalOrder())))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        return new SalaryStructure(organizationId, slots, displaySlots, Map.copyOf(slotByComponentId));
+    }
+
+    /**
+     * @throws RuntimeException with the component's error if it cannot be evaluated
+     */
+    public SalaryStructure requireValid(Long componentId) {
+        int slot = slotOf(componentId);
+        if (slot >= 0 && slots[slot].error() != null) {
+            throw new RuntimeException(slots[slot].error());
+        }
+        return this;
+    }
+
+    public Long getOrganizationId() {
+        return organizationId;
+    }
+
+    public int size() {
+        return slots.length;
+    }
+
+    public ComponentSlot slot(int slot) {
+        return slots[slot];
+    }
+
+    /**
+     * Slots in display order (display_order, then id).
+     */
+    public int[] displayOrder() {
+        return displaySlots.clone();
+    }
+
+    /**
+     * @return the slot for a component, or -1 if the component does not belong to this structure
+     */
+    public int slotOf(Long componentId) {
+        Integer slot = slotByComponentId.get(componentId);
+        return slot != null ? slot : -1;
+    }
+
+    /**
+     * A fresh value array for one employee, to be filled with assigned values by slot.
+     */
+    public BigDecimal[] newValues() {
+        return new BigDecimal[slots.length];
+    }
+
+    /**
+     * Evaluate one employee. {@code values[slot]} holds the value assigned to the employee
+     * (amount, percentage or formula input) or null if the component is not assigned.
+     */
+    public Evaluation evaluate(BigDecimal[] values, BigDecimal annualCtc, BigDecimal monthlyCtc) {
+        BigDecimal[] amounts = new BigDecimal[slots.length];
+        BigDecimal[] bases = new BigDecimal[slots.length];
+        String[] errors = new String[slots.length];
+        for (int s = 0; s < slots.length; s++) {
+            BigDecimal value = values[s];
+            if (value == null) {
+                continue;
+            }
+            ComponentSlot slot = slots[s];
+            errors[s] = inputError(slot, errors);
+            if (errors[s] != null) {
+                continue;
+            }
+            try {
+                evaluateSlot(s, slot, value, amounts, bases, annualCtc, monthlyCtc);
+            } catch (ArithmeticException e) {
+                amounts[s] = null;
+                bases[s] = null;
+                errors[s] = "Cannot calculate component " + slot.code() + ": " + e.getMessage();
+            }
+        }
+        return new Evaluation(amounts, bases, errors);
+    }
+
+    private String inputError(ComponentSlot slot, String[] errors) {
+        if (slot.error() != null) {
+            return slot.error();
+        }
+        for (int input : slot.inputSlots()) {
+            if (errors[input] != null) {
+                return "Component " + slot.code() + " depends on " + slots[input].code() + ", which cannot be calculated";
+            }
+        }
+        return null;
+    }
+
+    private static void evaluateSlot(int s, ComponentSlot slot, BigDecimal value, BigDecimal[] amounts,
+                                     BigDecimal[] bases, BigDecimal annualCtc, BigDecimal monthlyCtc) {
+        switch (slot.calculationType()) {
+            case PERCENTAGE -> {
+                BigDecimal base = slot.baseSlot() < 0 ? monthlyCtc
+                        : amounts[slot.baseSlot()] != null ? amounts[slot.baseSlot()] : BigDecimal.ZERO;
+                bases[s] = base;
+                amounts[s] = base.multiply(value).divide(HUNDRED, 2, RoundingMode.HALF_UP);
+            }
+            case FORMULA -> {
+                amounts[s] = slot.formula().evaluate(amounts, monthlyCtc, annualCtc, value)
+                        .setScale(2, RoundingMode.HALF_UP);
+                bases[s] = amounts[s];
+            }
+            default -> {
+                amounts[s] = value;
+                bases[s] = value;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SalaryStructure{organizationId=" + organizationId + ", components="
+                + Arrays.stream(slots).map(ComponentSlot::code).collect(Collectors.joining(",")) + "}";
+    }
+}
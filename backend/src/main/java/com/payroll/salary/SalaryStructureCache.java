@@ -0,0 +1,57 @@
+package com.payroll.salary;
+
+import com.payroll.repository.SalaryComponentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled salary structures by organization. A structure is compiled on first use and
+ * reused until SalaryComponentService changes one of the organization's components.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SalaryStructureCache {
+
+    private final SalaryComponentRepository salaryComponentRepository;
+
+    private final Map<Long, SalaryStructure> structures = new ConcurrentHashMap<>();
+
+    /**
+     * The compiled structure for an organization. Inactive components are included so that
+     * employees still assigned to them are evaluated as before.
+     */
+    public SalaryStructure getStructure(Long organizationId) {
+        SalaryStructure cached = structures.get(organizationId);
+        if (cached != null) {
+            return cached;
+        }
+        SalaryStructure compiled = SalaryStructure.compile(organizationId,
+                salaryComponentRepository.findByOrganizationId(organizationId));
+        log.debug("Compiled {}", compiled);
+        SalaryStructure existing = structures.putIfAbsent(organizationId, compiled);
+        return existing != null ? existing : compiled;
+    }
+
+    /**
+     * Drop the organization's structure. Inside a transaction the eviction happens after
+     * commit, so a concurrent reader cannot recompile and cache the old components.
+     */
+    public void invalidate(Long organizationId) {
+        structures.remove(organizationId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    structures.remove(organizationId);
+                }
+            });
+        }
+    }
+}
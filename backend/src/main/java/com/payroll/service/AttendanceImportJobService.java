@@ -0,0 +1,301 @@
+package com.payroll.service;
+
+import com.payroll.attendance.AttendanceImportPipeline;
+import com.payroll.attendance.CsvPivotReader;
+import com.payroll.attendance.ImportError;
+import com.payroll.attendance.ImportProgress;
+import com.payroll.attendance.ImportProgressListener;
+import com.payroll.attendance.XlsxPivotReader;
+import com.payroll.dto.AttendanceImportJobDTO;
+import com.payroll.entity.AttendanceImportJob;
+import com.payroll.entity.AttendanceImportJob.FileType;
+import com.payroll.entity.AttendanceImportJob.JobStatus;
+import com.payroll.entity.AttendanceImportJobError;
+import com.payroll.repository.AttendanceImportJobErrorRepository;
+import com.payroll.repository.AttendanceImportJobRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Runs attendance imports in the background. The upload is stored on this node's disk and
+ * imported through the {@link AttendanceImportPipeline}; after every committed batch the
+ * job records the last committed row and the rows rejected so far. A job interrupted by a
+ * restart resumes after its last committed row when the node comes back.
+ */
+@Service
+@Slf4j
+public class AttendanceImportJobService {
+
+    private static final List<JobStatus> ACTIVE_STATUSES = List.of(JobStatus.QUEUED, JobStatus.RUNNING);
+
+    private final AttendanceImportJobRepository jobRepository;
+    private final AttendanceImportJobErrorRepository errorRepository;
+    private final AttendanceImportPipeline importPipeline;
+    private final TransactionTemplate transactionTemplate;
+    private final AsyncTaskExecutor importExecutor;
+
+    @Value("#{@nodeIdentity.id()}")
+    private String nodeId;
+
+    @Value("${app.attendance.import.storage-path:./imports}")
+    private String storagePath;
+
+    public AttendanceImportJobService(AttendanceImportJobRepository jobRepository,
+                                      AttendanceImportJobErrorRepository errorRepository,
+                                      AttendanceImportPipeline importPipeline,
+                                      TransactionTemplate transactionTemplate,
+                                      @Qualifier("attendanceImportExecutor") AsyncTaskExecutor importExecutor) {
+        this.jobRepository = jobRepository;
+        this.errorRepository = errorRepository;
+        this.importPipeline = importPipeline;
+        this.transactionTemplate = transactionTemplate;
+        this.importExecutor = importExecutor;
+    }
+
+    /**
+     * Store the upload and queue its import, returning the job immediately.
+     */
+    public AttendanceImportJobDTO submit(MultipartFile file, Long tenantId) throws IOException {
+        String filename = file.getOriginalFilename();
+        FileType fileType;
+        if (filename != null && filename.endsWith(".csv")) {
+            fileType = FileType.CSV;
+        } else if (filename != null && filename.endsWith(".xlsx")) {
+            fileType = FileType.EXCEL;
+        } else {
+            throw new RuntimeException("Background imports accept .xlsx and .csv files");
+        }
+
+        Path directory = Paths.get(storagePath, String.valueOf(tenantId));
+        Files.createDirectories(directory);
+        Path upload = directory.resolve(UUID.randomUUID() + (fileType == FileType.CSV ? ".csv" : ".xlsx"));
+        try (InputStream in = file.getInputStream()) {
+            Files.copy(in, upload, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        AttendanceImportJob job = new AttendanceImportJob();
+        job.setTenantId(tenantId);
+        job.setFileName(filename);
+        job.setFileType(fileType);
+        job.setStoragePath(upload.toString());
+        job.setStatus(JobStatus.QUEUED);
+        job.setOwnerNode(nodeId);
+        job = jobRepository.save(job);
+
+        Long jobId = job.getId();
+        importExecutor.execute(() -> runImport(jobId));
+
+        log.info("Queued attendance import job {} for tenant {} ({}, {} bytes)", jobId, tenantId, filename, file.getSize());
+        return convertToDTO(job);
+    }
+
+    public AttendanceImportJobDTO getJob(Long jobId, Long tenantId) {
+        return jobRepository.findByIdAndTenantId(jobId, tenantId)
+                .map(this::convertToDTO)
+                .orElseThrow(() -> new RuntimeException("Job not found"));
+    }
+
+    /**
+     * Write the job's rejected rows as CSV (Row, Employee, Message), a page at a time.
+     */
+    public void writeErrorReport(Long jobId, Long tenantId, OutputStream out) throws IOException {
+        jobRepository.findByIdAndTenantId(jobId, tenantId)
+                .orElseThrow(() -> new RuntimeException("Job not found"));
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("Row,Employee,Message\n");
+        long afterId = 0;
+        List<AttendanceImportJobError> page;
+        do {
+            page = errorRepository.findTop1000ByJobIdAndIdGreaterThanOrderByIdAsc(jobId, afterId);
+            for (AttendanceImportJobError error : page) {
+                writer.write(error.getSourceRow() + "," + csv(error.getEmployeeCode()) + "," + csv(error.getMessage()) + "\n");
+                afterId = error.getId();
+            }
+        } while (!page.isEmpty());
+        writer.flush();
+    }
+
+    /**
+     * Jobs this node was running when it stopped still have their file on disk. Queue them
+     * again; they continue after their last committed row.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        for (AttendanceImportJob job : jobRepository.findByOwnerNodeAndStatusIn(nodeId, ACTIVE_STATUSES)) {
+            if (!Files.exists(Paths.get(job.getStoragePath()))) {
+                log.warn("Attendance import job {} was interrupted and its file is gone", job.getId());
+                job.setStatus(JobStatus.FAILED);
+                job.setErrorMessage("Interrupted by server restart and the uploaded file is no longer available; please upload again");
+                job.setFinishedAt(LocalDateTime.now());
+                jobRepository.save(job);
+                continue;
+            }
+            log.info("Resuming attendance import job {} after row {}", job.getId(), job.getLastCommittedRow());
+            Long jobId = job.getId();
+            importExecutor.execute(() -> runImport(jobId));
+        }
+    }
+
+    private void runImport(Long jobId) {
+        AttendanceImportJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null || job.isFinished()) {
+            return;
+        }
+        updateJob(jobId, j -> {
+            j.setStatus(JobStatus.RUNNING);
+            if (j.getStartedAt() == null) {
+                j.setStartedAt(LocalDateTime.now());
+            }
+        });
+
+        Path upload = Paths.get(job.getStoragePath());
+        String fileType = job.getFileType() == FileType.CSV ? "CSV" : "Excel";
+        Checkpoint checkpoint = new Checkpoint(jobId);
+        try {
+            AttendanceImportPipeline.Run run = job.getLastCommittedRow() > 0
+                    ? importPipeline.resume(job.getTenantId(), fileType, checkpoint, toProgress(job))
+                    : importPipeline.start(job.getTenantId(), fileType, checkpoint);
+            if (job.getFileType() == FileType.CSV) {
+                CsvPivotReader.read(upload, run);
+            } else {
+                XlsxPivotReader.read(upload, run);
+            }
+            run.finish();
+
+            checkpoint.save(run.progress(), j -> {
+                j.setStatus(JobStatus.COMPLETED);
+                j.setFinishedAt(LocalDateTime.now());
+            });
+            log.info("Attendance import job {} completed: {}", jobId, run.progress());
+        } catch (IOException | RuntimeException e) {
+            log.error("Attendance import job {} failed", jobId, e);
+            updateJob(jobId, j -> {
+                j.setStatus(JobStatus.FAILED);
+                j.setErrorMessage(e.getMessage());
+                j.setFinishedAt(LocalDateTime.now());
+            });
+        }
+
+        try {
+            Files.deleteIfExists(upload);
+        } catch (IOException e) {
+            log.warn("Could not delete imported file {}: {}", upload, e.getMessage());
+        }
+    }
+
+    /**
+     * Records progress and rejected rows after each committed batch, in one transaction, so
+     * the error report always matches the checkpoint a resumed job starts from.
+     */
+    private class Checkpoint implements ImportProgressListener {
+
+        private final Long jobId;
+        private final List<AttendanceImportJobError> pendingErrors = new ArrayList<>();
+
+        private Checkpoint(Long jobId) {
+            this.jobId = jobId;
+        }
+
+        @Override
+        public void rowFailed(ImportError error) {
+            pendingErrors.add(new AttendanceImportJobError(null, jobId, error.row(), error.employee(), error.message()));
+        }
+
+        @Override
+        public void batchWritten(ImportProgress progress) {
+            save(progress, j -> {
+            });
+        }
+
+        private void save(ImportProgress progress, Consumer<AttendanceImportJob> change) {
+            transactionTemplate.executeWithoutResult(tx -> {
+                errorRepository.saveAll(pendingErrors);
+                jobRepository.findById(jobId).ifPresent(job -> {
+                    job.setRowsRead(progress.rowsRead());
+                    job.setLastCommittedRow(progress.lastRow());
+                    job.setBatchCount(progress.batches());
+                    job.setCreatedCount(progress.created());
+                    job.setUpdatedCount(progress.updated());
+                    job.setErrorCount(progress.errors());
+                    change.accept(job);
+                    jobRepository.save(job);
+                });
+            });
+            pendingErrors.clear();
+        }
+    }
+
+    private static ImportProgress toProgress(AttendanceImportJob job) {
+        return new ImportProgress(job.getBatchCount(), job.getRowsRead(), job.getLastCommittedRow(),
+                job.getCreatedCount(), job.getUpdatedCount(), job.getErrorCount());
+    }
+
+    private void updateJob(Long jobId, Consumer<AttendanceImportJob> change) {
+        jobRepository.findById(jobId).ifPresent(job -> {
+            change.accept(job);
+            jobRepository.save(job);
+        });
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    private AttendanceImportJobDTO convertToDTO(AttendanceImportJob job) {
+        AttendanceImportJobDTO dto = new AttendanceImportJobDTO();
+        dto.setId(job.getId());
+        dto.setFileName(job.getFileName());
+        dto.setFileType(job.getFileType().name());
+        dto.setStatus(job.getStatus().name());
+        dto.setRowsRead(job.getRowsRead());
+        dto.setLastCommittedRow(job.getLastCommittedRow());
+        dto.setBatchCount(job.getBatchCount());
+        dto.setCreatedCount(job.getCreatedCount());
+        dto.setUpdatedCount(job.getUpdatedCount());
+        dto.setErrorCount(job.getErrorCount());
+        dto.setErrorMessage(job.getErrorMessage());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setStartedAt(job.getStartedAt());
+        dto.setFinishedAt(job.getFinishedAt());
+
+        // Throughput from elapsed time since the worker picked the job up
+        if (job.getStartedAt() != null && job.getRowsRead() != null && job.getRowsRead() > 0) {
+            LocalDateTime end = job.getFinishedAt() != null ? job.getFinishedAt() : LocalDateTime.now();
+            double seconds = Math.max(Duration.between(job.getStartedAt(), end).toMillis() / 1000.0, 0.001);
+            dto.setRowsPerSecond(Math.round(job.getRowsRead() / seconds * 100.0) / 100.0);
+        }
+        return dto;
+    }
+}
@@ -1,93 +1,28 @@
 package com.payroll.service;
 
-import com.payroll.entity.Attendance;
-import com.payroll.entity.Employee;
-import com.payroll.entity.LeaveType;
-import com.payroll.repository.AttendanceRepository;
-import com.payroll.repository.EmployeeRepository;
-import com.payroll.repository.LeaveTypeRepository;
+import com.payroll.attendance.AttendanceImportPipeline;
+import com.payroll.attendance.CsvPivotReader;
+import com.payroll.attendance.XlsxPivotReader;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
-import java.util.*;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
 
 @Service
 @Slf4j
 public class AttendanceImportService {
 
     @Autowired
-    private AttendanceRepository attendanceRepository;
-
-    @Autowired
-    private EmployeeRepository employeeRepository;
-
-    @Autowired
-    private LeaveTypeRepository leaveTypeRepository;
-
-    private String getCellValueAsString(Cell cell) {
-        if (cell == null) {
-            return null;
-        }
-
-        switch (cell.getCellType()) {
-            case STRING:
-                return cell.getStringCellValue();
-            case NUMERIC:
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    return cell.getLocalDateTimeCellValue().toLocalDate().toString();
-                }
-                return String.valueOf((long) cell.getNumericCellValue());
-            case BOOLEAN:
-                return String.valueOf(cell.getBooleanCellValue());
-            case FORMULA:
-                return cell.getCellFormula();
-            default:
-                return null;
-        }
-    }
-
-    private LocalDate parseDate(String dateStr) {
-        if (dateStr == null || dateStr.trim().isEmpty()) {
-            return null;
-        }
-
-        dateStr = dateStr.trim();
-
-        // Try different date formats including DD-MMM-YY format
-        String[] formats = {
-                "yyyy-MM-dd",
-                "dd/MM/yyyy",
-                "dd-MM-yyyy",
-                "MM/dd/yyyy",
-                "yyyy/MM/dd",
-                "dd-MMM-yy",
-                "dd-MMM-yyyy"
-        };
-
-        for (String format : formats) {
-            try {
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern(format);
-                return LocalDate.parse(dateStr, formatter);
-            } catch (DateTimeParseException e) {
-                // Try next format
-            }
-        }
-
-        return null;
-    }
-
-    private boolean isValidStatus(String status) {
-        return Arrays.asList("PRESENT", "ABSENT", "LEAVE", "HALF_DAY", "HOLIDAY", "WEEKEND").contains(status);
-    }
+    private AttendanceImportPipeline importPipeline;
 
     public byte[] generateTemplate() throws IOException {
         try (Workbook workbook = new XSSFWorkbook()) {
@@ -181,348 +116,37 @@ public class AttendanceImportService {
     }
 
     /**
-     * Import attendance from pivot-style Excel (Date rows, Employee columns)
+     * Import attendance from pivot-style Excel (Date rows, Employee columns).
+     * The upload is copied to a temporary file and streamed one row at a time through the
+     * import pipeline, which writes and commits in batches.
      */
-    @Transactional
     public Map<String, Object> importAttendanceFromPivotExcel(MultipartFile file, Long tenantId) throws IOException {
         log.info("Starting pivot-style attendance import for tenant: {}", tenantId);
 
-        List<String> errors = new ArrayList<>();
-        List<String> warnings = new ArrayList<>();
-        int successCount = 0;
-        int errorCount = 0;
-        int updatedCount = 0;
-
-        try (Workbook workbook = new XSSFWorkbook(file.getInputStream())) {
-            Sheet sheet = workbook.getSheetAt(0);
-
-            // Validate header row
-            Row headerRow = sheet.getRow(0);
-            if (headerRow == null) {
-                throw new RuntimeException("Excel file is empty or missing header row");
-            }
-
-            // Get leave types for mapping
-            List<LeaveType> leaveTypes = leaveTypeRepository.findByOrganizationId(tenantId);
-            Map<String, LeaveType> leaveTypeMap = new HashMap<>();
-            for (LeaveType lt : leaveTypes) {
-                // Only include active leave types
-                if (lt.getIsActive() != null && lt.getIsActive()) {
-                    leaveTypeMap.put(lt.getName().toUpperCase(), lt);
-                    if (lt.getCode() != null && !lt.getCode().isEmpty()) {
-                        leaveTypeMap.put(lt.getCode().toUpperCase(), lt);
-                    }
-                }
-            }
-
-            // Parse employee names from header (columns D onwards, index 3+)
-            List<String> employeeNames = new ArrayList<>();
-            Map<Integer, Employee> columnToEmployee = new HashMap<>();
-
-            for (int col = 3; col <= headerRow.getLastCellNum(); col++) {
-                Cell cell = headerRow.getCell(col);
-                String employeeName = getCellValueAsString(cell);
-                if (employeeName != null && !employeeName.trim().isEmpty()) {
-                    // Try to find employee by name (case-insensitive)
-                    Employee employee = employeeRepository.findByNameIgnoreCaseAndOrganizationId(employeeName.trim(), tenantId)
-                            .orElse(null);
-                    if (employee != null) {
-                        columnToEmployee.put(col, employee);
-                        employeeNames.add(employeeName);
-                    } else {
-                        warnings.add("Employee not found in header: " + employeeName);
-                    }
-                }
-            }
-
-            if (columnToEmployee.isEmpty()) {
-                String headerEmployeeNames = String.join(", ", employeeNames);
-                throw new RuntimeException("No valid employees found in header row. " +
-                        "Header contained: [" + headerEmployeeNames + "]. " +
-                        "Please ensure these employee names exist in your system. " +
-                        "Use actual employee names from your employee list in columns D onwards.");
+        Path upload = Files.createTempFile("attendance-import-", ".xlsx");
+        try {
+            try (InputStream in = file.getInputStream()) {
+                Files.copy(in, upload, StandardCopyOption.REPLACE_EXISTING);
             }
 
-            // Process data rows (skip header)
-            for (int rowNum = 1; rowNum <= sheet.getLastRowNum(); rowNum++) {
-                Row row = sheet.getRow(rowNum);
-                if (row == null) continue;
-
-                // Parse date from column A
-                String dateStr = getCellValueAsString(row.getCell(0));
-                if (dateStr == null || dateStr.trim().isEmpty()) continue;
-
-                LocalDate date = parseDate(dateStr);
-                if (date == null) {
-                    errors.add("Row " + (rowNum + 1) + ": Invalid date format: " + dateStr);
-                    errorCount++;
-                    continue;
-                }
-
-                // Determine if weekend
-                boolean isWeekend = date.getDayOfWeek().getValue() >= 6;
-
-                // Process each employee column
-                for (Map.Entry<Integer, Employee> entry : columnToEmployee.entrySet()) {
-                    int col = entry.getKey();
-                    Employee employee = entry.getValue();
-
-                    String cellValue = getCellValueAsString(row.getCell(col));
-                    String status;
-                    Long leaveTypeId = null;
-
-                    if (cellValue == null || cellValue.trim().isEmpty()) {
-                        // Empty cell = PRESENT or WEEKEND
-                        status = isWeekend ? "WEEKEND" : "PRESENT";
-                    } else {
-                        cellValue = cellValue.trim().toUpperCase();
-                        
-                        // Check if it's a direct status
-                        if (isValidStatus(cellValue)) {
-                            status = cellValue;
-                        } else {
-                            // Assume it's a leave type name
-                            LeaveType leaveType = leaveTypeMap.get(cellValue);
-                            if (leaveType != null) {
-                                status = "LEAVE";
-                                leaveTypeId = leaveType.getId();
-                            } else {
-                                // Try partial match
-                                LeaveType matchedType = null;
-                                for (Map.Entry<String, LeaveType> ltEntry : leaveTypeMap.entrySet()) {
-                                    if (ltEntry.getKey().contains(cellValue) || cellValue.contains(ltEntry.getKey())) {
-                                        matchedType = ltEntry.getValue();
-                                        break;
-                                    }
-                                }
-                                if (matchedType != null) {
-                                    status = "LEAVE";
-                                    leaveTypeId = matchedType.getId();
-                                } else {
-                                    warnings.add("Row " + (rowNum + 1) + ", Employee " + employee.getEmployeeId() + ": Unknown value '" + cellValue + "', marking as ABSENT");
-                                    status = "ABSENT";
-                                }
-                            }
-                        }
-                    }
-
-                    // Create or update attendance
-                    try {
-                        Attendance attendance = attendanceRepository.findByEmployeeIdAndDate(employee.getId(), date)
-                                .orElse(new Attendance());
-
-                        boolean isNew = attendance.getId() == null;
-
-                        attendance.setEmployeeId(employee.getId());
-                        attendance.setOrganizationId(tenantId);
-                        attendance.setDate(date);
-                        attendance.setStatus(status);
-                        attendance.setLeaveTypeId(leaveTypeId);
-
-                        attendanceRepository.save(attendance);
-
-                        if (isNew) {
-                            successCount++;
-                        } else {
-                            updatedCount++;
-                        }
-                    } catch (Exception e) {
-                        errors.add("Row " + (rowNum + 1) + ", Employee " + employee.getEmployeeId() + ": " + e.getMessage());
-                        errorCount++;
-                    }
-                }
-            }
+            AttendanceImportPipeline.Run run = importPipeline.start(tenantId, "Excel");
+            XlsxPivotReader.read(upload, run);
+            return run.finish();
+        } finally {
+            Files.deleteIfExists(upload);
         }
-
-        Map<String, Object> result = new HashMap<>();
-        result.put("success", errors.isEmpty());
-        result.put("successCount", successCount);
-        result.put("updatedCount", updatedCount);
-        result.put("errorCount", errorCount);
-        result.put("errors", errors.size() > 20 ? errors.subList(0, 20) : errors);
-        result.put("warnings", warnings.size() > 20 ? warnings.subList(0, 20) : warnings);
-        result.put("totalProcessed", successCount + updatedCount + errorCount);
-
-        log.info("Pivot import completed: {} created, {} updated, {} errors", successCount, updatedCount, errorCount);
-
-        return result;
     }
 
     /**
      * Import attendance from pivot-style CSV (Date rows, Employee columns)
      */
-    @Transactional
     public Map<String, Object> importAttendanceFromPivotCsv(MultipartFile file, Long tenantId) throws IOException {
         log.info("Starting pivot-style CSV attendance import for tenant: {}", tenantId);
 
-        List<String> errors = new ArrayList<>();
-        List<String> warnings = new ArrayList<>();
-        int successCount = 0;
-        int errorCount = 0;
-        int updatedCount = 0;
-
-        try (java.io.BufferedReader reader = new java.io.BufferedReader(
-                new java.io.InputStreamReader(file.getInputStream()))) {
-
-            // Get leave types for mapping
-            List<LeaveType> leaveTypes = leaveTypeRepository.findByOrganizationId(tenantId);
-            Map<String, LeaveType> leaveTypeMap = new HashMap<>();
-            for (LeaveType lt : leaveTypes) {
-                if (lt.getIsActive() != null && lt.getIsActive()) {
-                    leaveTypeMap.put(lt.getName().toUpperCase(), lt);
-                    if (lt.getCode() != null && !lt.getCode().isEmpty()) {
-                        leaveTypeMap.put(lt.getCode().toUpperCase(), lt);
-                    }
-                }
-            }
-
-            // Read header row
-            String headerLine = reader.readLine();
-            if (headerLine == null || headerLine.trim().isEmpty()) {
-                throw new RuntimeException("CSV file is empty or missing header row");
-            }
-
-            String[] headers = headerLine.split(",");
-            if (headers.length < 4) {
-                throw new RuntimeException("Invalid CSV format. Expected: Date, Sprint, Day, Employee1, Employee2, ...");
-            }
-
-            // Parse employee names from header (columns 3+, index 3+)
-            Map<Integer, Employee> columnToEmployee = new HashMap<>();
-            for (int col = 3; col < headers.length; col++) {
-                String employeeName = headers[col].trim();
-                if (!employeeName.isEmpty()) {
-                    // Try to find employee by name (case-insensitive)
-                    Employee employee = employeeRepository.findByNameIgnoreCaseAndOrganizationId(employeeName, tenantId)
-                            .orElse(null);
-                    if (employee != null) {
-                        columnToEmployee.put(col, employee);
-                    } else {
-                        warnings.add("Employee not found in header: " + employeeName);
-                    }
-                }
-            }
-
-            if (columnToEmployee.isEmpty()) {
-                List<String> attemptedNames = new ArrayList<>();
-                for (int col = 3; col < headers.length; col++) {
-                    String employeeName = headers[col].trim();
-                    if (!employeeName.isEmpty()) {
-                        attemptedNames.add(employeeName);
-                    }
-                }
-                String headerEmployeeNames = String.join(", ", attemptedNames);
-                throw new RuntimeException("No valid employees found in header row. " +
-                        "Header contained: [" + headerEmployeeNames + "]. " +
-                        "Please ensure these employee names exist in your system. " +
-                        "Use actual employee names from your employee list in columns after Date, Sprint, Day.");
-            }
-
-            // Process data rows
-            String line;
-            int rowNum = 1;
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().isEmpty()) continue;
-
-                String[] values = line.split(",", -1); // -1 to keep empty trailing fields
-                if (values.length < 1) continue;
-
-                // Parse date from column 0
-                String dateStr = values[0].trim();
-                if (dateStr.isEmpty()) continue;
-
-                LocalDate date = parseDate(dateStr);
-                if (date == null) {
-                    errors.add("Row " + (rowNum + 1) + ": Invalid date format: " + dateStr);
-                    errorCount++;
-                    rowNum++;
-                    continue;
-                }
-
-                // Determine if weekend
-                boolean isWeekend = date.getDayOfWeek().getValue() >= 6;
-
-                // Process each employee column
-                for (Map.Entry<Integer, Employee> entry : columnToEmployee.entrySet()) {
-                    int col = entry.getKey();
-                    Employee employee = entry.getValue();
-
-                    String cellValue = col < values.length ? values[col].trim() : "";
-                    String status;
-                    Long leaveTypeId = null;
-
-                    if (cellValue.isEmpty()) {
-                        status = isWeekend ? "WEEKEND" : "PRESENT";
-                    } else {
-                        String upperValue = cellValue.toUpperCase();
-                        
-                        if (isValidStatus(upperValue)) {
-                            status = upperValue;
-                        } else {
-                            LeaveType leaveType = leaveTypeMap.get(upperValue);
-                            if (leaveType != null) {
-                                status = "LEAVE";
-                                leaveTypeId = leaveType.getId();
-                            } else {
-                                // Try partial match
-                                LeaveType matchedType = null;
-                                for (Map.Entry<String, LeaveType> ltEntry : leaveTypeMap.entrySet()) {
-                                    if (ltEntry.getKey().contains(upperValue) || upperValue.contains(ltEntry.getKey())) {
-                                        matchedType = ltEntry.getValue();
-                                        break;
-                                    }
-                                }
-                                if (matchedType != null) {
-                                    status = "LEAVE";
-                                    leaveTypeId = matchedType.getId();
-                                } else {
-                                    warnings.add("Row " + (rowNum + 1) + ", Employee " + employee.getEmployeeId() + ": Unknown value '" + cellValue + "', marking as ABSENT");
-                                    status = "ABSENT";
-                                }
-                            }
-                        }
-                    }
-
-                    // Create or update attendance
-                    try {
-                        Attendance attendance = attendanceRepository.findByEmployeeIdAndDate(employee.getId(), date)
-                                .orElse(new Attendance());
-
-                        boolean isNew = attendance.getId() == null;
-
-                        attendance.setEmployeeId(employee.getId());
-                        attendance.setOrganizationId(tenantId);
-                        attendance.setDate(date);
-                        attendance.setStatus(status);
-                        attendance.setLeaveTypeId(leaveTypeId);
-
-                        attendanceRepository.save(attendance);
-
-                        if (isNew) {
-                            successCount++;
-                        } else {
-                            updatedCount++;
-                        }
-                    } catch (Exception e) {
-                        errors.add("Row " + (rowNum + 1) + ", Employee " + employee.getEmployeeId() + ": " + e.getMessage());
-                        errorCount++;
-                    }
-                }
-                rowNum++;
-            }
+        AttendanceImportPipeline.Run run = importPipeline.start(tenantId, "CSV");
+        try (InputStream in = file.getInputStream()) {
+            CsvPivotReader.read(in, run);
         }
-
-        Map<String, Object> result = new HashMap<>();
-        result.put("success", errors.isEmpty());
-        result.put("successCount", successCount);
-        result.put("updatedCount", updatedCount);
-        result.put("errorCount", errorCount);
-        result.put("errors", errors.size() > 20 ? errors.subList(0, 20) : errors);
-        result.put("warnings", warnings.size() > 20 ? warnings.subList(0, 20) : warnings);
-        result.put("totalProcessed", successCount + updatedCount + errorCount);
-
-        log.info("CSV import completed: {} created, {} updated, {} errors", successCount, updatedCount, errorCount);
-
-        return result;
+        return run.finish();
     }
 }
@@ -1,9 +1,14 @@
 package com.payroll.service;
 
+import com.payroll.calendar.WorkCalendar;
+import com.payroll.calendar.WorkCalendarCache;
+import com.payroll.dto.AttendanceStatusCountsDTO;
+import com.payroll.dto.AttendanceSummaryDTO;
 import com.payroll.entity.Attendance;
 import com.payroll.entity.Employee;
 import com.payroll.entity.LeaveBalance;
 import com.payroll.entity.LeaveType;
+import com.payroll.repository.AttendanceBatchRepository;
 import com.payroll.repository.AttendanceRepository;
 import com.payroll.repository.EmployeeRepository;
 import com.payroll.repository.LeaveBalanceRepository;
@@ -13,11 +18,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.YearMonth;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,6 +33,9 @@ public class AttendanceService {
     @Autowired
     private AttendanceRepository attendanceRepository;
 
+    @Autowired
+    private AttendanceBatchRepository attendanceBatchRepository;
+
     @Autowired
     private EmployeeRepository employeeRepository;
 
@@ -39,6 +48,9 @@ public class AttendanceService {
     @Autowired
     private OrganizationSettingsService settingsService;
 
+    @Autowired
+    private WorkCalendarCache workCalendarCache;
+
     public List<Attendance> getAttendanceByEmployee(Long employeeId, Long organizationId) {
         return attendanceRepository.findByEmployeeIdAndOrganizationId(employeeId, organizationId);
     }
@@ -173,27 +185,25 @@ public class AttendanceService {
     }
 
     public Map<String, Object> getAttendanceSummary(Long employeeId, int month, int year) {
-        List<Attendance> attendanceList = attendanceRepository.findByEmployeeIdAndMonthYear(employeeId, month, year);
+        YearMonth period = YearMonth.of(year, month);
+        // Counted by the database over the employee's (employee_id, date) range
+        AttendanceStatusCountsDTO counts = attendanceRepository
+            .countStatusesByEmployeeIdAndDateBetween(employeeId, period.atDay(1), period.atEndOfMonth())
+            .orElse(new AttendanceStatusCountsDTO(employeeId, 0L, 0L, 0L, 0L, 0L, 0L, 0L, null, null));
         
         Map<String, Object> summary = new HashMap<>();
-        summary.put("totalDays", attendanceList.size());
-        summary.put("present", attendanceList.stream().filter(a -> "PRESENT".equals(a.getStatus())).count());
-        summary.put("absent", attendanceList.stream().filter(a -> "ABSENT".equals(a.getStatus())).count());
-        summary.put("halfDay", attendanceList.stream().filter(a -> "HALF_DAY".equals(a.getStatus())).count());
-        summary.put("leave", attendanceList.stream().filter(a -> "LEAVE".equals(a.getStatus())).count());
-        summary.put("holiday", attendanceList.stream().filter(a -> "HOLIDAY".equals(a.getStatus())).count());
-        summary.put("weekend", attendanceList.stream().filter(a -> "WEEKEND".equals(a.getStatus())).count());
-        
-        double totalWorkHours = attendanceList.stream()
-            .filter(a -> a.getWorkHours() != null)
-            .mapToDouble(Attendance::getWorkHours)
-            .sum();
+        summary.put("totalDays", counts.getTotalDays().intValue());
+        summary.put("present", counts.getPresent());
+        summary.put("absent", counts.getAbsent());
+        summary.put("halfDay", counts.getHalfDay());
+        summary.put("leave", counts.getLeave());
+        summary.put("holiday", counts.getHoliday());
+        summary.put("weekend", counts.getWeekend());
+        
+        double totalWorkHours = counts.getWorkHours() != null ? counts.getWorkHours() : 0.0;
         summary.put("totalWorkHours", Math.round(totalWorkHours * 100.0) / 100.0);
         
-        double totalOvertime = attendanceList.stream()
-            .filter(a -> a.getOvertimeHours() != null)
-            .mapToDouble(Attendance::getOvertimeHours)
-            .sum();
+        double totalOvertime = counts.getOvertimeHours() != null ? counts.getOvertimeHours() : 0.0;
         summary.put("totalOvertimeHours", Math.round(totalOvertime * 100.0) / 100.0);
         
         return summary;
@@ -213,32 +223,19 @@ public class AttendanceService {
         return summary;
     }
 
+    /**
+     * Create the month's missing attendance for active employees: WEEKEND on weekends and
+     * ABSENT on every other day.
+     *
+     * @return number of records created by status
+     */
     @Transactional
-    public void initializeMonthAttendance(Long organizationId, int month, int year) {
-        List<Employee> employees = employeeRepository.findByStatusAndOrganizationId("Active", organizationId);
-        LocalDate startDate = LocalDate.of(year, month, 1);
-        LocalDate endDate = startDate.withDayOfMonth(startDate.lengthOfMonth());
+    public Map<String, Integer> initializeMonthAttendance(Long organizationId, int month, int year) {
+        List<Long> employeeIds = employeeRepository.findIdsByStatusAndOrganizationId("Active", organizationId);
+        WorkCalendar calendar = workCalendarCache.getCalendar(organizationId, year);
         
-        for (Employee employee : employees) {
-            for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
-                Optional<Attendance> existing = attendanceRepository.findByEmployeeIdAndDate(employee.getId(), date);
-                if (existing.isEmpty()) {
-                    Attendance attendance = new Attendance();
-                    attendance.setEmployeeId(employee.getId());
-                    attendance.setOrganizationId(organizationId);
-                    attendance.setDate(date);
-                    
-                    DayOfWeek dayOfWeek = date.getDayOfWeek();
-                    if (dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY) {
-                        attendance.setStatus("WEEKEND");
-                    } else {
-                        attendance.setStatus("ABSENT");
-                    }
-                    
-                    attendanceRepository.save(attendance);
-                }
-            }
-        }
+        return createMissingAttendance(organizationId, employeeIds, monthDates(month, year), calendar,
+            date -> calendar.isWeekend(date) ? "WEEKEND" : "ABSENT");
     }
 
     /**
@@ -258,6 +255,10 @@ public class AttendanceService {
         
         List<Attendance> attendanceList = attendanceRepository.findByEmployeeIdAndMonthYear(employeeId, month, year);
         log.info("Found {} attendance records for month {}/{}", attendanceList.size(), month, year);
+        if (attendanceList.isEmpty()) {
+            return 0.0;
+        }
+        WorkCalendar calendar = workCalendarCache.getCalendar(attendanceList.get(0).getOrganizationId(), year);
         
         // Log all attendance records with LEAVE status
         for (Attendance att : attendanceList) {
@@ -275,40 +276,131 @@ public class AttendanceService {
             .findByEmployeeIdAndDateBetween(employeeId, yearStart, monthStart.minusDays(1));
         
         // Calculate cumulative leave usage by type for previous months only
-        Map<Long, Double> previousMonthsUsageByType = new HashMap<>();
-        for (Attendance a : previousMonthsAttendance) {
+        Map<Long, Double> previousMonthsUsageByType = countLeaveUsageByType(previousMonthsAttendance, calendar);
+        
+        log.info("Employee {}: Previous months usage: {}", employeeId, previousMonthsUsageByType);
+        
+        Set<Long> leaveTypeIds = attendanceList.stream()
+            .filter(a -> "LEAVE".equals(a.getStatus()) && a.getLeaveTypeId() != null)
+            .map(Attendance::getLeaveTypeId)
+            .collect(Collectors.toSet());
+        Map<Long, LeaveType> leaveTypes = leaveTypeRepository.findAllById(leaveTypeIds).stream()
+            .collect(Collectors.toMap(LeaveType::getId, lt -> lt));
+        
+        double lopDays = computeLopDays(employeeId, attendanceList, previousMonthsUsageByType, leaveTypes, calendar);
+        
+        log.info("Employee {}: Month {}/{} - Total LOP Days: {}", employeeId, month, year, lopDays);
+        return lopDays;
+    }
+
+    /**
+     * Summarise attendance for many employees of a tenant in one pass.
+     * The month's attendance, the year-to-date leave days and the leave types are each
+     * loaded with a single query; working days, days worked and LOP are then derived in
+     * memory from the organization's work calendar with the same rules as
+     * calculateWorkingDaysInMonth, calculateDaysWorked and calculateLopDays.
+     *
+     * @return summary per employee id; employees without attendance get zero days worked and zero LOP
+     */
+    public Map<Long, AttendanceSummaryDTO> calculateMonthlySummaries(Long organizationId, Collection<Long> employeeIds,
+                                                                     int month, int year) {
+        LocalDate monthStart = LocalDate.of(year, month, 1);
+        LocalDate monthEnd = monthStart.withDayOfMonth(monthStart.lengthOfMonth());
+        Set<Long> wanted = new HashSet<>(employeeIds);
+
+        Map<Long, List<Attendance>> monthByEmployee = new HashMap<>();
+        for (Attendance a : attendanceRepository.findReadOnlyByOrganizationIdAndDateBetween(
+                organizationId, monthStart, monthEnd)) {
+            if (wanted.contains(a.getEmployeeId())) {
+                monthByEmployee.computeIfAbsent(a.getEmployeeId(), id -> new ArrayList<>()).add(a);
+            }
+        }
+
+        Map<Long, List<Attendance>> previousLeavesByEmployee = new HashMap<>();
+        if (month > 1) {
+            for (Attendance a : attendanceRepository.findLeavesByOrganizationIdAndDateBetween(
+                    organizationId, monthStart.withDayOfYear(1), monthStart.minusDays(1))) {
+                if (wanted.contains(a.getEmployeeId())) {
+                    previousLeavesByEmployee.computeIfAbsent(a.getEmployeeId(), id -> new ArrayList<>()).add(a);
+                }
+            }
+        }
+
+        Map<Long, LeaveType> leaveTypes = new HashMap<>();
+        for (LeaveType leaveType : leaveTypeRepository.findByOrganizationId(organizationId)) {
+            leaveTypes.put(leaveType.getId(), leaveType);
+        }
+        // Attendance may still reference leave types outside the tenant's list; resolve those together
+        Set<Long> unresolved = monthByEmployee.values().stream()
+            .flatMap(List::stream)
+            .map(Attendance::getLeaveTypeId)
+            .filter(id -> id != null && !leaveTypes.containsKey(id))
+            .collect(Collectors.toSet());
+        if (!unresolved.isEmpty()) {
+            leaveTypeRepository.findAllById(unresolved).forEach(lt -> leaveTypes.put(lt.getId(), lt));
+        }
+
+        WorkCalendar calendar = workCalendarCache.getCalendar(organizationId, year);
+        int workingDays = calendar.workingDays(month);
+
+        Map<Long, AttendanceSummaryDTO> summaries = new HashMap<>();
+        for (Long employeeId : wanted) {
+            List<Attendance> monthAttendance = monthByEmployee.getOrDefault(employeeId, Collections.emptyList());
+            Map<Long, Double> previousUsage = countLeaveUsageByType(
+                previousLeavesByEmployee.getOrDefault(employeeId, Collections.emptyList()), calendar);
+
+            double lopDays = computeLopDays(employeeId, monthAttendance, previousUsage, leaveTypes, calendar);
+            double daysWorked = computeDaysWorked(monthAttendance, calendar);
+            summaries.put(employeeId, new AttendanceSummaryDTO(employeeId, workingDays, daysWorked, lopDays));
+        }
+
+        log.info("Summarised attendance for {} employees in {}/{} from {} month records",
+                summaries.size(), month, year, monthByEmployee.values().stream().mapToInt(List::size).sum());
+        return summaries;
+    }
+
+    /**
+     * Count LEAVE days on working days per leave type.
+     */
+    private Map<Long, Double> countLeaveUsageByType(List<Attendance> attendanceList, WorkCalendar calendar) {
+        Map<Long, Double> usageByType = new HashMap<>();
+        for (Attendance a : attendanceList) {
             if ("LEAVE".equals(a.getStatus()) && a.getLeaveTypeId() != null) {
-                DayOfWeek dayOfWeek = a.getDate().getDayOfWeek();
-                // Skip weekends
-                if (dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY) {
+                // Skip weekends and holidays
+                if (!calendar.isWorkingDay(a.getDate())) {
                     continue;
                 }
-                double currentUsage = previousMonthsUsageByType.getOrDefault(a.getLeaveTypeId(), 0.0);
-                previousMonthsUsageByType.put(a.getLeaveTypeId(), currentUsage + 1.0);
+                usageByType.merge(a.getLeaveTypeId(), 1.0, Double::sum);
             }
         }
-        
-        log.info("Employee {}: Previous months usage: {}", employeeId, previousMonthsUsageByType);
-        
+        return usageByType;
+    }
+
+    /**
+     * Apply the LOP rules to one employee's month of attendance.
+     *
+     * @param previousMonthsUsageByType leave days already taken this year, by leave type
+     * @param leaveTypes leave types referenced by the attendance, by id
+     * @param calendar the organization's calendar for the attendance year
+     */
+    private double computeLopDays(Long employeeId, List<Attendance> attendanceList,
+                                  Map<Long, Double> previousMonthsUsageByType, Map<Long, LeaveType> leaveTypes,
+                                  WorkCalendar calendar) {
         // First pass: Count total leaves by type in current month (excluding unpaid leaves)
         Map<Long, Double> currentMonthUsageByType = new HashMap<>();
-        Map<Long, LeaveType> leaveTypeCache = new HashMap<>();
         
         for (Attendance a : attendanceList) {
-            DayOfWeek dayOfWeek = a.getDate().getDayOfWeek();
-            // Skip weekends
-            if (dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY) {
+            // Skip weekends and holidays
+            if (!calendar.isWorkingDay(a.getDate())) {
                 continue;
             }
             
             if ("LEAVE".equals(a.getStatus()) && a.getLeaveTypeId() != null) {
-                LeaveType leaveType = leaveTypeCache.computeIfAbsent(a.getLeaveTypeId(), 
-                    id -> leaveTypeRepository.findById(id).orElse(null));
+                LeaveType leaveType = leaveTypes.get(a.getLeaveTypeId());
                 
                 if (leaveType != null && (leaveType.getIsPaid() == null || leaveType.getIsPaid())) {
                     // Only count paid leaves for balance checking
-                    double currentUsage = currentMonthUsageByType.getOrDefault(a.getLeaveTypeId(), 0.0);
-                    currentMonthUsageByType.put(a.getLeaveTypeId(), currentUsage + 1.0);
+                    currentMonthUsageByType.merge(a.getLeaveTypeId(), 1.0, Double::sum);
                 }
             }
         }
@@ -321,17 +413,17 @@ public class AttendanceService {
             double previousUsage = previousMonthsUsageByType.getOrDefault(leaveTypeId, 0.0);
             double totalUsage = previousUsage + currentMonthUsage;
             
-            LeaveType leaveType = leaveTypeCache.get(leaveTypeId);
+            LeaveType leaveType = leaveTypes.get(leaveTypeId);
             if (leaveType != null && leaveType.getDaysPerYear() != null) {
                 double totalAllocation = leaveType.getDaysPerYear().doubleValue();
                 
-                log.info("Employee {}: Leave Type: {}, Previous: {}, Current: {}, Total: {}, Limit: {}", 
+                log.debug("Employee {}: Leave Type: {}, Previous: {}, Current: {}, Total: {}, Limit: {}", 
                     employeeId, leaveType.getName(), previousUsage, currentMonthUsage, totalUsage, totalAllocation);
                 
                 if (totalUsage > totalAllocation) {
                     double excess = totalUsage - totalAllocation;
                     excessLeavesByType.put(leaveTypeId, excess);
-                    log.info("Employee {}: Leave Type {} EXCEEDS allocation by {} days", 
+                    log.debug("Employee {}: Leave Type {} EXCEEDS allocation by {} days", 
                         employeeId, leaveType.getName(), excess);
                 }
             }
@@ -342,9 +434,8 @@ public class AttendanceService {
         Map<Long, Double> lopCountedByType = new HashMap<>();
         
         for (Attendance a : attendanceList) {
-            DayOfWeek dayOfWeek = a.getDate().getDayOfWeek();
-            // Skip weekends
-            if (dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY) {
+            // Skip weekends and holidays
+            if (!calendar.isWorkingDay(a.getDate())) {
                 continue;
             }
             
@@ -358,7 +449,7 @@ public class AttendanceService {
             }
             // LEAVE status - check if it's paid or unpaid
             else if ("LEAVE".equals(a.getStatus()) && a.getLeaveTypeId() != null) {
-                LeaveType leaveType = leaveTypeCache.get(a.getLeaveTypeId());
+                LeaveType leaveType = leaveTypes.get(a.getLeaveTypeId());
                 
                 if (leaveType != null) {
                     // If leave type is marked as unpaid, it's always LOP
@@ -375,7 +466,7 @@ public class AttendanceService {
                             // This leave counts as LOP (part of the excess)
                             lopDays += 1.0;
                             lopCountedByType.put(a.getLeaveTypeId(), alreadyCounted + 1.0);
-                            log.info("Employee {}: Leave on {} marked as LOP (excess leave)", 
+                            log.debug("Employee {}: Leave on {} marked as LOP (excess leave)", 
                                 employeeId, a.getDate());
                         }
                     }
@@ -386,25 +477,14 @@ public class AttendanceService {
             }
         }
         
-        log.info("Employee {}: Month {}/{} - Total LOP Days: {}", employeeId, month, year, lopDays);
         return lopDays;
     }
     
     /**
-     * Calculate total working days in a month (excluding weekends)
+     * Calculate total working days in a month (excluding the organization's weekends and holidays)
      */
-    public int calculateWorkingDaysInMonth(int month, int year) {
-        LocalDate startDate = LocalDate.of(year, month, 1);
-        LocalDate endDate = startDate.withDayOfMonth(startDate.lengthOfMonth());
-        
-        int workingDays = 0;
-        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
-            DayOfWeek dayOfWeek = date.getDayOfWeek();
-            if (dayOfWeek != DayOfWeek.SATURDAY && dayOfWeek != DayOfWeek.SUNDAY) {
-                workingDays++;
-            }
-        }
-        return workingDays;
+    public int calculateWorkingDaysInMonth(Long organizationId, int month, int year) {
+        return workCalendarCache.getCalendar(organizationId, year).workingDays(month);
     }
     
     /**
@@ -412,11 +492,17 @@ public class AttendanceService {
      */
     public double calculateDaysWorked(Long employeeId, int month, int year) {
         List<Attendance> attendanceList = attendanceRepository.findByEmployeeIdAndMonthYear(employeeId, month, year);
-        
+        if (attendanceList.isEmpty()) {
+            return 0.0;
+        }
+        return computeDaysWorked(attendanceList,
+            workCalendarCache.getCalendar(attendanceList.get(0).getOrganizationId(), year));
+    }
+
+    private double computeDaysWorked(List<Attendance> attendanceList, WorkCalendar calendar) {
         double daysWorked = 0.0;
         for (Attendance a : attendanceList) {
-            DayOfWeek dayOfWeek = a.getDate().getDayOfWeek();
-            if (dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY) {
+            if (!calendar.isWorkingDay(a.getDate())) {
                 continue;
             }
             
@@ -432,81 +518,46 @@ public class AttendanceService {
 
     /**
      * Mark all employees present for a specific date
+     *
+     * @return number of records created by status
      */
     @Transactional
-    public void markAllEmployeesPresent(Long tenantId, LocalDate date) {
+    public Map<String, Integer> markAllEmployeesPresent(Long tenantId, LocalDate date) {
         // Skip weekends
-        DayOfWeek dayOfWeek = date.getDayOfWeek();
-        if (dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY) {
+        WorkCalendar calendar = workCalendarCache.getCalendar(tenantId, date.getYear());
+        if (calendar.isWeekend(date)) {
             throw new RuntimeException("Cannot mark attendance for weekends");
         }
 
-        List<Employee> employees = employeeRepository.findByOrganizationId(tenantId);
-        
-        for (Employee employee : employees) {
-            // Check if attendance already exists
-            var existing = attendanceRepository.findByEmployeeIdAndDate(employee.getId(), date);
-            
-            if (existing.isEmpty()) {
-                Attendance attendance = new Attendance();
-                attendance.setEmployeeId(employee.getId());
-                attendance.setOrganizationId(tenantId);
-                attendance.setDate(date);
-                attendance.setStatus("PRESENT");
-                attendance.setCheckInTime(LocalTime.of(9, 0));
-                attendance.setCheckOutTime(LocalTime.of(18, 0));
-                attendance.setWorkHours(9.0);
-                attendanceRepository.save(attendance);
-            }
-        }
+        List<Long> employeeIds = employeeRepository.findIdsByOrganizationId(tenantId);
+        return createMissingAttendance(tenantId, employeeIds, List.of(date), calendar, d -> "PRESENT");
     }
 
     /**
      * Mark an employee's attendance for entire month
+     *
+     * @return number of records created by status
      */
     @Transactional
-    public void markEmployeeForMonth(Long employeeId, Long tenantId, int month, int year, String status) {
-        LocalDate startDate = LocalDate.of(year, month, 1);
-        LocalDate endDate = startDate.withDayOfMonth(startDate.lengthOfMonth());
-        
-        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
-            DayOfWeek dayOfWeek = date.getDayOfWeek();
-            // Skip weekends
-            if (dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY) {
-                continue;
-            }
-            
-            // Check if attendance already exists
-            var existing = attendanceRepository.findByEmployeeIdAndDate(employeeId, date);
-            
-            if (existing.isEmpty()) {
-                Attendance attendance = new Attendance();
-                attendance.setEmployeeId(employeeId);
-                attendance.setOrganizationId(tenantId);
-                attendance.setDate(date);
-                attendance.setStatus(status);
-                
-                if ("PRESENT".equals(status)) {
-                    attendance.setCheckInTime(LocalTime.of(9, 0));
-                    attendance.setCheckOutTime(LocalTime.of(18, 0));
-                    attendance.setWorkHours(9.0);
-                }
-                
-                attendanceRepository.save(attendance);
-            }
-        }
+    public Map<String, Integer> markEmployeeForMonth(Long employeeId, Long tenantId, int month, int year, String status) {
+        return markForMonth(tenantId, List.of(employeeId), month, year, status);
     }
 
     /**
      * Mark all employees' attendance for entire month
+     *
+     * @return number of records created by status
      */
     @Transactional
-    public void markAllEmployeesForMonth(Long tenantId, int month, int year, String status) {
-        List<Employee> employees = employeeRepository.findByOrganizationId(tenantId);
-        
-        for (Employee employee : employees) {
-            markEmployeeForMonth(employee.getId(), tenantId, month, year, status);
-        }
+    public Map<String, Integer> markAllEmployeesForMonth(Long tenantId, int month, int year, String status) {
+        return markForMonth(tenantId, employeeRepository.findIdsByOrganizationId(tenantId), month, year, status);
+    }
+
+    private Map<String, Integer> markForMonth(Long tenantId, List<Long> employeeIds, int month, int year, String status) {
+        WorkCalendar calendar = workCalendarCache.getCalendar(tenantId, year);
+        // Skip weekends
+        return createMissingAttendance(tenantId, employeeIds, monthDates(month, year), calendar,
+            date -> calendar.isWeekend(date) ? null : status);
     }
 
     /**
@@ -516,63 +567,73 @@ public class AttendanceService {
      * - Marks holidays based on organization holiday list
      * - Marks working days as PRESENT by default
      * - Only creates records that don't already exist
+     *
+     * @return number of records created by status
      */
     @Transactional
-    public void autoInitializeAttendanceForMonth(Long tenantId, int month, int year) {
+    public Map<String, Integer> autoInitializeAttendanceForMonth(Long tenantId, int month, int year) {
         // Auto-initialize holidays for the year if not already done
-        System.out.println("Initializing default holidays for year: " + year);
         settingsService.initializeDefaultHolidays(tenantId, year);
         
-        List<Employee> employees = employeeRepository.findByOrganizationId(tenantId);
-        System.out.println("Found " + employees.size() + " employees");
+        List<Long> employeeIds = employeeRepository.findIdsByOrganizationId(tenantId);
         
-        LocalDate startDate = LocalDate.of(year, month, 1);
-        LocalDate endDate = startDate.withDayOfMonth(startDate.lengthOfMonth());
-        
-        // Get holidays for this month
-        List<com.payroll.entity.Holiday> holidays = settingsService.getHolidaysForMonth(tenantId, month, year);
-        System.out.println("Found " + holidays.size() + " holidays for month " + month + "/" + year);
-        for (com.payroll.entity.Holiday h : holidays) {
-            System.out.println("  - " + h.getName() + " on " + h.getHolidayDate());
-        }
+        // Weekends and holidays for the month come from the organization's calendar
+        WorkCalendar calendar = workCalendarCache.getCalendar(tenantId, year);
         
-        Set<LocalDate> holidayDates = holidays.stream()
-            .map(com.payroll.entity.Holiday::getHolidayDate)
-            .collect(Collectors.toSet());
-        
-        for (Employee employee : employees) {
-            for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
-                // Check if attendance already exists
-                var existing = attendanceRepository.findByEmployeeIdAndDate(employee.getId(), date);
-                
-                if (existing.isEmpty()) {
-                    Attendance attendance = new Attendance();
-                    attendance.setEmployeeId(employee.getId());
-                    attendance.setOrganizationId(tenantId);
-                    attendance.setDate(date);
-                    
-                    // Check if it's a holiday first
-                    if (holidayDates.contains(date)) {
-                        attendance.setStatus("HOLIDAY");
-                        // Set holiday ID if available
-                        settingsService.getHolidayForDate(tenantId, date)
-                            .ifPresent(h -> attendance.setHolidayId(h.getId()));
-                    }
-                    // Check if it's a weekend based on organization settings
-                    else if (settingsService.isWeekend(tenantId, date)) {
-                        attendance.setStatus("WEEKEND");
-                    } else {
-                        // Mark working days as PRESENT by default
-                        attendance.setStatus("PRESENT");
-                        attendance.setCheckInTime(LocalTime.of(9, 0));
-                        attendance.setCheckOutTime(LocalTime.of(18, 0));
-                        attendance.setWorkHours(9.0);
-                    }
-                    
-                    attendanceRepository.save(attendance);
+        Map<String, Integer> created = createMissingAttendance(tenantId, employeeIds, monthDates(month, year), calendar,
+            date -> {
+                // Check if it's a holiday first
+                if (calendar.isHoliday(date)) {
+                    return "HOLIDAY";
                 }
+                // Check if it's a weekend based on organization settings
+                if (calendar.isWeekend(date)) {
+                    return "WEEKEND";
+                }
+                // Mark working days as PRESENT by default
+                return "PRESENT";
+            });
+        log.info("Auto-initialized attendance for tenant {} in {}/{}: {} employees, created {}",
+            tenantId, month, year, employeeIds.size(), created);
+        return created;
+    }
+
+    /**
+     * Insert every (employee, date) record that does not exist yet in one set-based
+     * statement per chunk of employees, instead of a lookup and a save per record.
+     * PRESENT records get the standard 09:00 to 18:00 day; HOLIDAY records reference the
+     * calendar's holiday.
+     *
+     * @param statusForDate status for each date, or null to leave the date alone
+     * @return number of records created by status
+     */
+    private Map<String, Integer> createMissingAttendance(Long organizationId, List<Long> employeeIds,
+                                                         List<LocalDate> dates, WorkCalendar calendar,
+                                                         Function<LocalDate, String> statusForDate) {
+        List<Attendance> days = new ArrayList<>(dates.size());
+        for (LocalDate date : dates) {
+            String status = statusForDate.apply(date);
+            if (status == null) {
+                continue;
+            }
+            Attendance day = new Attendance();
+            day.setDate(date);
+            day.setStatus(status);
+            if ("PRESENT".equals(status)) {
+                day.setCheckInTime(LocalTime.of(9, 0));
+                day.setCheckOutTime(LocalTime.of(18, 0));
+                day.setWorkHours(9.0);
+            } else if ("HOLIDAY".equals(status)) {
+                day.setHolidayId(calendar.getHolidayId(date));
             }
+            days.add(day);
         }
+        return attendanceBatchRepository.insertMissing(organizationId, employeeIds, days);
+    }
+
+    private static List<LocalDate> monthDates(int month, int year) {
+        LocalDate startDate = LocalDate.of(year, month, 1);
+        return startDate.datesUntil(startDate.plusMonths(1)).collect(Collectors.toList());
     }
 
     /**
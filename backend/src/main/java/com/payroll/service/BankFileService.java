@@ -34,7 +34,8 @@ public class BankFileService {
         PayRun payRun = payRunRepository.findByIdAndTenantId(payRunId, tenantId)
                 .orElseThrow(() -> new RuntimeException("Pay run not found"));
 
-        List<PayRunEmployee> employees = payRunEmployeeRepository.findByPayRunId(payRunId);
+        // Employees are fetched with their rows; the file is built outside of a session
+        List<PayRunEmployee> employees = payRunEmployeeRepository.findByPayRunIdWithEmployee(payRunId);
 
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         PrintWriter writer = new PrintWriter(baos);
@@ -10,6 +10,8 @@ import com.payroll.enums.ComponentType;
 import com.payroll.repository.EmployeeRepository;
 import com.payroll.repository.EmployeeSalaryComponentRepository;
 import com.payroll.repository.SalaryComponentRepository;
+import com.payroll.salary.SalaryStructure;
+import com.payroll.salary.SalaryStructureCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -31,6 +33,7 @@ public class EmployeeSalaryService {
     private final SalaryComponentRepository salaryComponentRepository;
     private final EmployeeRepository employeeRepository;
     private final ProfessionalTaxService professionalTaxService;
+    private final SalaryStructureCache salaryStructureCache;
 
     @Transactional(readOnly = true)
     public List<EmployeeSalaryComponentDTO> getEmployeeComponents(Long employeeId) {
@@ -117,40 +120,38 @@ public class EmployeeSalaryService {
                 ? employee.getAnnualCtc().divide(BigDecimal.valueOf(12), 2, RoundingMode.HALF_UP)
                 : BigDecimal.ZERO);
 
-        // Calculate components
-        Map<Long, BigDecimal> calculatedAmounts = new HashMap<>();
-        List<SalaryBreakdownDTO.ComponentBreakdown> earnings = new ArrayList<>();
-        List<SalaryBreakdownDTO.ComponentBreakdown> deductions = new ArrayList<>();
-
-        // First pass: Calculate FIXED components
+        // Evaluate against the organization's compiled structure
+        SalaryStructure structure = salaryStructureCache.getStructure(employee.getOrganization().getId());
+        BigDecimal[] values = structure.newValues();
+        Map<Integer, EmployeeSalaryComponent> assignedBySlot = new HashMap<>();
         for (EmployeeSalaryComponent empComp : components) {
-            if (empComp.getComponent().getCalculationType() == CalculationType.FIXED) {
-                BigDecimal amount = empComp.getValue();
-                calculatedAmounts.put(empComp.getComponent().getId(), amount);
-
-                SalaryBreakdownDTO.ComponentBreakdown cb = createComponentBreakdown(empComp, amount, amount);
-                if (empComp.getComponent().getType() == ComponentType.EARNING) {
-                    earnings.add(cb);
-                } else {
-                    deductions.add(cb);
-                }
+            int slot = structure.slotOf(empComp.getComponent().getId());
+            if (slot >= 0 && empComp.getValue() != null) {
+                values[slot] = empComp.getValue();
+                assignedBySlot.put(slot, empComp);
             }
         }
+        SalaryStructure.Evaluation evaluation = structure.evaluate(values, employee.getAnnualCtc(),
+                breakdown.getMonthlyCtc());
 
-        // Second pass: Calculate PERCENTAGE components
-        for (EmployeeSalaryComponent empComp : components) {
-            if (empComp.getComponent().getCalculationType() == CalculationType.PERCENTAGE) {
-                BigDecimal baseAmount = getBaseAmount(empComp, calculatedAmounts, breakdown.getMonthlyCtc());
-                BigDecimal amount = baseAmount.multiply(empComp.getValue()).divide(BigDecimal.valueOf(100), 2,
-                        RoundingMode.HALF_UP);
-                calculatedAmounts.put(empComp.getComponent().getId(), amount);
-
-                SalaryBreakdownDTO.ComponentBreakdown cb = createComponentBreakdown(empComp, baseAmount, amount);
-                if (empComp.getComponent().getType() == ComponentType.EARNING) {
-                    earnings.add(cb);
-                } else {
-                    deductions.add(cb);
-                }
+        List<SalaryBreakdownDTO.ComponentBreakdown> earnings = new ArrayList<>();
+        List<SalaryBreakdownDTO.ComponentBreakdown> deductions = new ArrayList<>();
+        for (int slot : structure.displayOrder()) {
+            EmployeeSalaryComponent empComp = assignedBySlot.get(slot);
+            if (empComp == null) {
+                continue;
+            }
+            SalaryBreakdownDTO.ComponentBreakdown cb = createComponentBreakdown(empComp,
+                    evaluation.baseAmount(slot), evaluation.amount(slot));
+            if (evaluation.error(slot) != null) {
+                // One broken component is reported on its own line instead of failing the breakdown
+                cb.setCalculatedAmount(BigDecimal.ZERO);
+                cb.setError(evaluation.error(slot));
+            }
+            if (structure.slot(slot).type() == ComponentType.EARNING) {
+                earnings.add(cb);
+            } else {
+                deductions.add(cb);
             }
         }
 
@@ -217,16 +218,6 @@ public class EmployeeSalaryService {
         return breakdown;
     }
 
-    private BigDecimal getBaseAmount(EmployeeSalaryComponent empComp, Map<Long, BigDecimal> calculatedAmounts,
-            BigDecimal monthlyCtc) {
-        if (empComp.getComponent().getBaseComponent() != null) {
-            Long baseComponentId = empComp.getComponent().getBaseComponent().getId();
-            return calculatedAmounts.getOrDefault(baseComponentId, BigDecimal.ZERO);
-        }
-        // If no base component, use monthly CTC
-        return monthlyCtc;
-    }
-
     private SalaryBreakdownDTO.ComponentBreakdown createComponentBreakdown(
             EmployeeSalaryComponent empComp, BigDecimal baseAmount, BigDecimal calculatedAmount) {
         SalaryBreakdownDTO.ComponentBreakdown cb = new SalaryBreakdownDTO.ComponentBreakdown();
@@ -342,6 +333,7 @@ public class EmployeeSalaryService {
                 newPt.setIsStatutory(true);
                 newPt.setIsActive(true);
                 newPt = salaryComponentRepository.save(newPt);
+                salaryStructureCache.invalidate(employee.getOrganization().getId());
                 ptMasterOpt = java.util.Optional.of(newPt);
             }
 
@@ -0,0 +1,280 @@
+package com.payroll.service;
+
+import com.payroll.dto.Form16JobDTO;
+import com.payroll.entity.Employee;
+import com.payroll.entity.Form16Job;
+import com.payroll.entity.Form16Job.JobStatus;
+import com.payroll.entity.PayrollLedger;
+import com.payroll.repository.EmployeeRepository;
+import com.payroll.repository.Form16JobRepository;
+import com.payroll.repository.PayrollLedgerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Generates Form 16 for every employee with completed payroll in a financial year. The
+ * job walks the year's payroll ledger in batches of employees: each batch is two queries,
+ * its certificates are rendered on the Form 16 render pool and written to a ZIP archive in
+ * employee order. Progress is recorded in form16_jobs after every batch.
+ *
+ * The archive stays on the disk of the node that ran the job. A job interrupted by a
+ * restart is run again from the start when that node comes back.
+ */
+@Service
+@Slf4j
+public class Form16JobService {
+
+    private static final List<JobStatus> ACTIVE_STATUSES = List.of(JobStatus.QUEUED, JobStatus.RUNNING);
+
+    private final Form16JobRepository jobRepository;
+    private final PayrollLedgerRepository payrollLedgerRepository;
+    private final EmployeeRepository employeeRepository;
+    private final Form16Service form16Service;
+    private final AsyncTaskExecutor jobExecutor;
+    private final AsyncTaskExecutor renderExecutor;
+
+    @Value("#{@nodeIdentity.id()}")
+    private String nodeId;
+
+    @Value("${app.form16.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.form16.storage-path:./form16}")
+    private String storagePath;
+
+    public Form16JobService(Form16JobRepository jobRepository,
+                            PayrollLedgerRepository payrollLedgerRepository,
+                            EmployeeRepository employeeRepository,
+                            Form16Service form16Service,
+                            @Qualifier("form16JobExecutor") AsyncTaskExecutor jobExecutor,
+                            @Qualifier("form16RenderExecutor") AsyncTaskExecutor renderExecutor) {
+        this.jobRepository = jobRepository;
+        this.payrollLedgerRepository = payrollLedgerRepository;
+        this.employeeRepository = employeeRepository;
+        this.form16Service = form16Service;
+        this.jobExecutor = jobExecutor;
+        this.renderExecutor = renderExecutor;
+    }
+
+    /**
+     * Queue Form 16 generation for the tenant's financial year (e.g. "2025-26") and return
+     * the job immediately.
+     */
+    public Form16JobDTO start(Long tenantId, String financialYear) {
+        if (financialYear == null || !financialYear.matches("\\d{4}-\\d{2}")) {
+            throw new RuntimeException("Financial year must be written like 2025-26");
+        }
+        Form16Job job = new Form16Job();
+        job.setTenantId(tenantId);
+        job.setFinancialYear(financialYear);
+        job.setStatus(JobStatus.QUEUED);
+        job.setOwnerNode(nodeId);
+        try {
+            // uk_form16_jobs_active allows one queued or running job per tenant and year
+            job = jobRepository.save(job);
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("Form 16 generation is already in progress for " + financialYear);
+        }
+
+        Long jobId = job.getId();
+        jobExecutor.execute(() -> runJob(jobId));
+
+        log.info("Queued Form 16 job {} for tenant {}, FY {}", jobId, tenantId, financialYear);
+        return convertToDTO(job);
+    }
+
+    public Form16JobDTO getJob(Long jobId, Long tenantId) {
+        return jobRepository.findByIdAndTenantId(jobId, tenantId)
+                .map(this::convertToDTO)
+                .orElseThrow(() -> new RuntimeException("Job not found"));
+    }
+
+    /**
+     * The completed job's archive. Checked before a download starts streaming.
+     */
+    public Path getArchive(Long jobId, Long tenantId) {
+        Form16Job job = jobRepository.findByIdAndTenantId(jobId, tenantId)
+                .orElseThrow(() -> new RuntimeException("Job not found"));
+        if (job.getStatus() != JobStatus.COMPLETED) {
+            throw new RuntimeException("Form 16 archive is not ready; job is " + job.getStatus());
+        }
+        Path archive = Paths.get(job.getStoragePath());
+        if (!Files.exists(archive)) {
+            throw new RuntimeException("Form 16 archive is not available on this server");
+        }
+        return archive;
+    }
+
+    /**
+     * Jobs this node was running when it stopped are run again from the start; the
+     * partly written archive is replaced.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        for (Form16Job job : jobRepository.findByOwnerNodeAndStatusIn(nodeId, ACTIVE_STATUSES)) {
+            log.info("Restarting Form 16 job {} for tenant {}, FY {}", job.getId(), job.getTenantId(), job.getFinancialYear());
+            Long jobId = job.getId();
+            jobExecutor.execute(() -> runJob(jobId));
+        }
+    }
+
+    private void runJob(Long jobId) {
+        Form16Job job = jobRepository.findById(jobId).orElse(null);
+        if (job == null || job.isFinished()) {
+            return;
+        }
+        Long tenantId = job.getTenantId();
+        String financialYear = job.getFinancialYear();
+        int year = PayrollLedger.parseFinancialYear(financialYear);
+
+        Path directory = Paths.get(storagePath, String.valueOf(tenantId));
+        Path archive = directory.resolve(archiveName("form16-" + financialYear + "-" + jobId) + ".zip");
+        Path pending = directory.resolve(archive.getFileName() + ".pending");
+        try {
+            List<Long> employeeIds = payrollLedgerRepository.findEmployeeIdsByFinancialYear(tenantId, year);
+            updateJob(jobId, j -> {
+                j.setStatus(JobStatus.RUNNING);
+                j.setTotalCount(employeeIds.size());
+                j.setProcessedCount(0);
+                j.setStartedAt(LocalDateTime.now());
+            });
+
+            Files.createDirectories(directory);
+            try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(pending)))) {
+                for (int from = 0; from < employeeIds.size(); from += batchSize) {
+                    List<Long> batch = employeeIds.subList(from, Math.min(from + batchSize, employeeIds.size()));
+                    writeBatch(zip, tenantId, financialYear, year, batch);
+                    jobRepository.incrementProcessedCount(jobId, batch.size(), LocalDateTime.now());
+                }
+            }
+            Files.move(pending, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            updateJob(jobId, j -> {
+                j.setStatus(JobStatus.COMPLETED);
+                j.setStoragePath(archive.toString());
+                j.setFinishedAt(LocalDateTime.now());
+            });
+            log.info("Form 16 job {} wrote {} certificates to {}", jobId, employeeIds.size(), archive);
+        } catch (IOException | RuntimeException e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            log.error("Form 16 job {} failed", jobId, cause);
+            updateJob(jobId, j -> {
+                j.setStatus(JobStatus.FAILED);
+                j.setErrorMessage(cause.getMessage());
+                j.setFinishedAt(LocalDateTime.now());
+            });
+            try {
+                Files.deleteIfExists(pending);
+            } catch (IOException ex) {
+                log.warn("Could not delete partial Form 16 archive {}: {}", pending, ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Load a batch of employees and their ledger months, render their certificates in
+     * parallel and append them to the archive in employee order.
+     */
+    private void writeBatch(ZipOutputStream zip, Long tenantId, String financialYear, int year,
+                            List<Long> employeeIds) throws IOException {
+        Map<Long, Employee> employees = employeeRepository.findAllById(employeeIds).stream()
+                .collect(Collectors.toMap(Employee::getId, Function.identity()));
+        Map<Long, List<PayrollLedger>> months = payrollLedgerRepository
+                .findByTenantIdAndFinancialYearAndEmployeeIdInOrderByEmployeeIdAscPeriodMonthAsc(tenantId, year, employeeIds)
+                .stream()
+                .collect(Collectors.groupingBy(PayrollLedger::getEmployeeId));
+
+        List<Employee> rendered = new ArrayList<>();
+        List<CompletableFuture<byte[]>> pdfs = new ArrayList<>();
+        for (Long employeeId : employeeIds) {
+            Employee employee = employees.get(employeeId);
+            if (employee == null) {
+                continue; // deleted since the ids were read
+            }
+            List<PayrollLedger> employeeMonths = months.getOrDefault(employeeId, List.of());
+            rendered.add(employee);
+            pdfs.add(CompletableFuture.supplyAsync(
+                    () -> form16Service.renderForm16(employee, financialYear, employeeMonths), renderExecutor));
+        }
+
+        for (int i = 0; i < pdfs.size(); i++) {
+            Employee employee = rendered.get(i);
+            byte[] pdf = pdfs.get(i).join();
+
+            // PDFs are already compressed, so entries are STORED
+            CRC32 crc = new CRC32();
+            crc.update(pdf);
+            ZipEntry entry = new ZipEntry(archiveName(employee.getEmployeeId() + "_" + employee.getFullName()
+                    + "_Form16_" + financialYear) + ".pdf");
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(pdf.length);
+            entry.setCompressedSize(pdf.length);
+            entry.setCrc(crc.getValue());
+            zip.putNextEntry(entry);
+            zip.write(pdf);
+            zip.closeEntry();
+        }
+    }
+
+    private void updateJob(Long jobId, Consumer<Form16Job> change) {
+        jobRepository.findById(jobId).ifPresent(job -> {
+            change.accept(job);
+            jobRepository.save(job);
+        });
+    }
+
+    private static String archiveName(String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]+", "_");
+    }
+
+    private Form16JobDTO convertToDTO(Form16Job job) {
+        Form16JobDTO dto = new Form16JobDTO();
+        dto.setId(job.getId());
+        dto.setFinancialYear(job.getFinancialYear());
+        dto.setStatus(job.getStatus().name());
+        dto.setTotalCount(job.getTotalCount());
+        dto.setProcessedCount(job.getProcessedCount());
+        dto.setErrorMessage(job.getErrorMessage());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setStartedAt(job.getStartedAt());
+        dto.setFinishedAt(job.getFinishedAt());
+
+        // Throughput and ETA from elapsed time since the worker picked the job up
+        if (job.getStartedAt() != null && job.getProcessedCount() != null && job.getProcessedCount() > 0) {
+            LocalDateTime end = job.getFinishedAt() != null ? job.getFinishedAt() : LocalDateTime.now();
+            double seconds = Math.max(Duration.between(job.getStartedAt(), end).toMillis() / 1000.0, 0.001);
+            double rate = job.getProcessedCount() / seconds;
+            dto.setCertificatesPerSecond(Math.round(rate * 100.0) / 100.0);
+
+            int remaining = Math.max(job.getTotalCount() - job.getProcessedCount(), 0);
+            dto.setEtaSeconds(job.isFinished() ? 0L : (long) Math.ceil(remaining / rate));
+        }
+        return dto;
+    }
+}
@@ -18,7 +18,6 @@ import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
-import java.time.LocalDate;
 import java.util.*;
 
 @Service
@@ -27,8 +26,7 @@ import java.util.*;
 public class Form16Service {
 
     private final EmployeeRepository employeeRepository;
-    private final PayRunRepository payRunRepository;
-    private final PayRunEmployeeRepository payRunEmployeeRepository;
+    private final PayrollLedgerRepository payrollLedgerRepository;
 
     /**
      * Generate Form 16 PDF for an employee for a financial year
@@ -39,16 +37,19 @@ public class Form16Service {
         Employee employee = employeeRepository.findById(employeeId)
                 .orElseThrow(() -> new RuntimeException("Employee not found"));
 
-        // Parse financial year
-        String[] years = financialYear.split("-");
-        int startYear = Integer.parseInt(years[0]);
-        LocalDate fyStart = LocalDate.of(startYear, 4, 1);
-        LocalDate fyEnd = LocalDate.of(startYear + 1, 3, 31);
+        // Completed payroll for the FY, one ledger row per month
+        List<PayrollLedger> months = payrollLedgerRepository
+                .findByTenantIdAndEmployeeIdAndFinancialYearOrderByPeriodMonth(
+                        tenantId, employeeId, PayrollLedger.parseFinancialYear(financialYear));
 
-        // Get all pay runs for this employee in the FY
-        List<PayRun> payRuns = payRunRepository.findByTenantIdAndPayPeriodStartBetween(
-                tenantId, fyStart, fyEnd);
+        return renderForm16(employee, financialYear, months);
+    }
 
+    /**
+     * Render an employee's Form 16 PDF from their ledger months for the financial year.
+     * Safe to call from several threads at once.
+     */
+    public byte[] renderForm16(Employee employee, String financialYear, List<PayrollLedger> months) {
         BigDecimal totalGross = BigDecimal.ZERO;
         BigDecimal totalPF = BigDecimal.ZERO;
         BigDecimal totalPT = BigDecimal.ZERO;
@@ -57,27 +58,21 @@ public class Form16Service {
 
         List<Map<String, Object>> monthlyBreakdown = new ArrayList<>();
 
-        for (PayRun payRun : payRuns) {
-            Optional<PayRunEmployee> preOpt = payRunEmployeeRepository
-                    .findByPayRunIdAndEmployeeId(payRun.getId(), employeeId);
-
-            if (preOpt.isPresent()) {
-                PayRunEmployee pre = preOpt.get();
-                totalGross = totalGross.add(pre.getGrossSalary() != null ? pre.getGrossSalary() : BigDecimal.ZERO);
-                totalPF = totalPF.add(pre.getPfEmployee() != null ? pre.getPfEmployee() : BigDecimal.ZERO);
-                totalPT = totalPT.add(pre.getProfessionalTax() != null ? pre.getProfessionalTax() : BigDecimal.ZERO);
-                totalTDS = totalTDS.add(pre.getTds() != null ? pre.getTds() : BigDecimal.ZERO);
-                totalNet = totalNet.add(pre.getNetSalary() != null ? pre.getNetSalary() : BigDecimal.ZERO);
-
-                Map<String, Object> monthData = new HashMap<>();
-                monthData.put("month", payRun.getPayPeriodStart().getMonth().toString());
-                monthData.put("gross", pre.getGrossSalary());
-                monthData.put("pf", pre.getPfEmployee());
-                monthData.put("pt", pre.getProfessionalTax());
-                monthData.put("tds", pre.getTds());
-                monthData.put("net", pre.getNetSalary());
-                monthlyBreakdown.add(monthData);
-            }
+        for (PayrollLedger ledger : months) {
+            totalGross = totalGross.add(ledger.getGrossSalary());
+            totalPF = totalPF.add(ledger.getPfEmployee());
+            totalPT = totalPT.add(ledger.getProfessionalTax());
+            totalTDS = totalTDS.add(ledger.getTds());
+            totalNet = totalNet.add(ledger.getNetSalary());
+
+            Map<String, Object> monthData = new HashMap<>();
+            monthData.put("month", ledger.getPeriodMonth().getMonth().toString());
+            monthData.put("gross", ledger.getGrossSalary());
+            monthData.put("pf", ledger.getPfEmployee());
+            monthData.put("pt", ledger.getProfessionalTax());
+            monthData.put("tds", ledger.getTds());
+            monthData.put("net", ledger.getNetSalary());
+            monthlyBreakdown.add(monthData);
         }
 
         try {
@@ -266,13 +261,9 @@ public class Form16Service {
         Employee employee = employeeRepository.findById(employeeId)
                 .orElseThrow(() -> new RuntimeException("Employee not found"));
 
-        String[] years = financialYear.split("-");
-        int startYear = Integer.parseInt(years[0]);
-        LocalDate fyStart = LocalDate.of(startYear, 4, 1);
-        LocalDate fyEnd = LocalDate.of(startYear + 1, 3, 31);
-
-        List<PayRun> payRuns = payRunRepository.findByTenantIdAndPayPeriodStartBetween(
-                tenantId, fyStart, fyEnd);
+        List<PayrollLedger> months = payrollLedgerRepository
+                .findByTenantIdAndEmployeeIdAndFinancialYearOrderByPeriodMonth(
+                        tenantId, employeeId, PayrollLedger.parseFinancialYear(financialYear));
 
         BigDecimal totalGross = BigDecimal.ZERO;
         BigDecimal totalBasic = BigDecimal.ZERO;
@@ -281,19 +272,13 @@ public class Form16Service {
         BigDecimal totalPT = BigDecimal.ZERO;
         BigDecimal totalTDS = BigDecimal.ZERO;
 
-        for (PayRun payRun : payRuns) {
-            Optional<PayRunEmployee> preOpt = payRunEmployeeRepository
-                    .findByPayRunIdAndEmployeeId(payRun.getId(), employeeId);
-
-            if (preOpt.isPresent()) {
-                PayRunEmployee pre = preOpt.get();
-                totalGross = totalGross.add(pre.getGrossSalary() != null ? pre.getGrossSalary() : BigDecimal.ZERO);
-                totalBasic = totalBasic.add(pre.getBasicSalary() != null ? pre.getBasicSalary() : BigDecimal.ZERO);
-                totalHRA = totalHRA.add(pre.getHra() != null ? pre.getHra() : BigDecimal.ZERO);
-                totalPF = totalPF.add(pre.getPfEmployee() != null ? pre.getPfEmployee() : BigDecimal.ZERO);
-                totalPT = totalPT.add(pre.getProfessionalTax() != null ? pre.getProfessionalTax() : BigDecimal.ZERO);
-                totalTDS = totalTDS.add(pre.getTds() != null ? pre.getTds() : BigDecimal.ZERO);
-            }
+        for (PayrollLedger ledger : months) {
+            totalGross = totalGross.add(ledger.getGrossSalary());
+            totalBasic = totalBasic.add(ledger.getBasicSalary());
+            totalHRA = totalHRA.add(ledger.getHra());
+            totalPF = totalPF.add(ledger.getPfEmployee());
+            totalPT = totalPT.add(ledger.getProfessionalTax());
+            totalTDS = totalTDS.add(ledger.getTds());
         }
 
         Map<String, Object> data = new HashMap<>();
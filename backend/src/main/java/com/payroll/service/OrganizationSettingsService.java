@@ -1,5 +1,6 @@
 package com.payroll.service;
 
+import com.payroll.calendar.WorkCalendarCache;
 import com.payroll.entity.OrganizationSettings;
 import com.payroll.entity.Holiday;
 import com.payroll.repository.OrganizationSettingsRepository;
@@ -23,6 +24,9 @@ public class OrganizationSettingsService {
     @Autowired
     private HolidayRepository holidayRepository;
 
+    @Autowired
+    private WorkCalendarCache workCalendarCache;
+
     public OrganizationSettings getOrCreateSettings(Long organizationId) {
         return settingsRepository.findByOrganizationId(organizationId)
             .orElseGet(() -> {
@@ -57,45 +61,17 @@ public class OrganizationSettingsService {
             settings.setStateCode(updatedSettings.getStateCode());
         }
         
-        return settingsRepository.save(settings);
+        OrganizationSettings saved = settingsRepository.save(settings);
+        workCalendarCache.invalidate(organizationId);
+        return saved;
     }
 
     /**
      * Check if a given Saturday should be off based on organization settings
      */
     public boolean isSaturdayOff(Long organizationId, LocalDate date) {
-        if (date.getDayOfWeek() != DayOfWeek.SATURDAY) {
-            return false;
-        }
-
-        OrganizationSettings settings = getOrCreateSettings(organizationId);
-        String saturdayRule = settings.getSaturdayRule();
-
-        if (saturdayRule == null || saturdayRule.equals("ALL_SATURDAYS_OFF")) {
-            return true;
-        }
-
-        if (saturdayRule.equals("NO_SATURDAY_OFF")) {
-            return false;
-        }
-
-        // Calculate which Saturday of the month this is
-        int dayOfMonth = date.getDayOfMonth();
-        int saturdayNumber = (dayOfMonth - 1) / 7 + 1;
-
-        switch (saturdayRule) {
-            case "SECOND_FOURTH_SATURDAY":
-            case "ALTERNATE_SATURDAYS":
-                return saturdayNumber == 2 || saturdayNumber == 4;
-            case "FIRST_THIRD_SATURDAY":
-                return saturdayNumber == 1 || saturdayNumber == 3;
-            case "SECOND_SATURDAY_ONLY":
-                return saturdayNumber == 2;
-            case "FOURTH_SATURDAY_ONLY":
-                return saturdayNumber == 4;
-            default:
-                return true;
-        }
+        return date.getDayOfWeek() == DayOfWeek.SATURDAY
+            && workCalendarCache.getCalendar(organizationId, date.getYear()).isWeekend(date);
     }
 
     /**
@@ -110,17 +86,7 @@ public class OrganizationSettingsService {
      * Check if a date is a weekend (Saturday/Sunday) based on org settings
      */
     public boolean isWeekend(Long organizationId, LocalDate date) {
-        DayOfWeek dayOfWeek = date.getDayOfWeek();
-        
-        if (dayOfWeek == DayOfWeek.SUNDAY) {
-            return isSundayOff(organizationId);
-        }
-        
-        if (dayOfWeek == DayOfWeek.SATURDAY) {
-            return isSaturdayOff(organizationId, date);
-        }
-        
-        return false;
+        return workCalendarCache.getCalendar(organizationId, date.getYear()).isWeekend(date);
     }
 
     // Holiday Management
@@ -140,15 +106,19 @@ public class OrganizationSettingsService {
     }
 
     public Holiday addHoliday(Holiday holiday) {
-        return holidayRepository.save(holiday);
+        Holiday saved = holidayRepository.save(holiday);
+        workCalendarCache.invalidate(saved.getOrganizationId());
+        return saved;
     }
 
     public void deleteHoliday(Long holidayId) {
+        holidayRepository.findById(holidayId)
+            .ifPresent(holiday -> workCalendarCache.invalidate(holiday.getOrganizationId()));
         holidayRepository.deleteById(holidayId);
     }
 
     public boolean isHoliday(Long organizationId, LocalDate date) {
-        return holidayRepository.existsByOrganizationIdAndHolidayDate(organizationId, date);
+        return workCalendarCache.getCalendar(organizationId, date.getYear()).isHoliday(date);
     }
 
     public Optional<Holiday> getHolidayForDate(Long organizationId, LocalDate date) {
@@ -186,6 +156,8 @@ public class OrganizationSettingsService {
         addDefaultHoliday(organizationId, "Thiruvalluvar Day", LocalDate.of(year, 1, 15), "STATE");
         addDefaultHoliday(organizationId, "Uzhavar Thirunal", LocalDate.of(year, 1, 16), "STATE");
         addDefaultHoliday(organizationId, "Tamil New Year", LocalDate.of(year, 4, 14), "STATE");
+
+        workCalendarCache.invalidate(organizationId);
     }
 
     private void addDefaultHoliday(Long organizationId, String name, LocalDate date, String type) {
@@ -0,0 +1,241 @@
+package com.payroll.service;
+
+import com.payroll.entity.PayRun;
+import com.payroll.entity.PayRunEmployee;
+import com.payroll.repository.PayRunEmployeeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Calculates the employees of a pay run in fixed-size chunks on a bounded worker pool.
+ * Every chunk loads, calculates and updates its rows in its own transaction, so a large
+ * run never holds one connection for its whole duration. A failed chunk is retried on
+ * its own; chunks that already committed are not recomputed. Once a chunk has failed for
+ * good, chunks that have not started are skipped and the calculation returns only after
+ * the running ones have finished.
+ */
+@Service
+@Slf4j
+public class PayRunCalculationEngine {
+
+    private final PayRunEmployeeRepository payRunEmployeeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AsyncTaskExecutor executor;
+
+    @Value("${app.payroll.calculation.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.payroll.calculation.max-attempts:3}")
+    private int maxAttempts;
+
+    public PayRunCalculationEngine(PayRunEmployeeRepository payRunEmployeeRepository,
+                                   TransactionTemplate transactionTemplate,
+                                   @Qualifier("payRunCalculationExecutor") AsyncTaskExecutor executor) {
+        this.payRunEmployeeRepository = payRunEmployeeRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+    }
+
+    /**
+     * Run the calculator over the given pay run employees and return their summed totals
+     * from before and after the calculation. Each row's recalculation flag is cleared as
+     * part of its chunk. The listener is called from worker threads; this method must be
+     * called outside of a transaction.
+     *
+     * @throws CalculationFailedException if a chunk still fails after the configured attempts
+     */
+    public Result calculate(Long payRunId, List<Long> ids, Consumer<PayRunEmployee> calculator,
+                            ProgressListener listener) {
+        List<List<Long>> chunks = partition(ids, chunkSize);
+        log.info("Pay run {}: calculating {} employees in {} chunks", payRunId, ids.size(), chunks.size());
+        listener.onStart(ids.size());
+
+        // Set by the first chunk that fails; chunks that have not started yet are skipped
+        AtomicBoolean aborted = new AtomicBoolean();
+        List<CompletableFuture<Result>> futures = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            int chunkNo = i;
+            List<Long> chunk = chunks.get(i);
+            futures.add(executor.submitCompletable(() -> {
+                if (aborted.get()) {
+                    return null;
+                }
+                Result result;
+                try {
+                    result = calculateChunk(payRunId, chunkNo, chunk, calculator);
+                } catch (RuntimeException e) {
+                    aborted.set(true);
+                    throw e;
+                }
+                reportProgress(payRunId, listener, chunk.size());
+                return result;
+            }));
+        }
+
+        // Wait for every chunk, failed or not, so no chunk is still committing rows when
+        // this method returns
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).handle((done, e) -> null).join();
+
+        // Each chunk returns its own immutable sums, so combining them needs no shared state
+        Result committed = Result.EMPTY;
+        Throwable failure = null;
+        for (CompletableFuture<Result> future : futures) {
+            try {
+                Result result = future.join();
+                if (result != null) {
+                    committed = committed.plus(result);
+                }
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause() != null ? e.getCause() : e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw new CalculationFailedException(failure, committed);
+        }
+        return committed;
+    }
+
+    private static void reportProgress(Long payRunId, ProgressListener listener, int employees) {
+        try {
+            listener.onChunkCompleted(employees);
+        } catch (RuntimeException e) {
+            // The chunk is committed; a lost progress update must not fail the calculation
+            log.warn("Pay run {}: could not report progress: {}", payRunId, e.getMessage());
+        }
+    }
+
+    private Result calculateChunk(Long payRunId, int chunkNo, List<Long> ids, Consumer<PayRunEmployee> calculator) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(tx -> {
+                    Totals before = Totals.ZERO;
+                    Totals after = Totals.ZERO;
+                    // Rows stay managed, so the updates are flushed as one JDBC batch on commit
+                    for (PayRunEmployee pre : payRunEmployeeRepository.findByIdInWithEmployee(ids)) {
+                        before = before.plus(Totals.of(pre));
+                        calculator.accept(pre);
+                        pre.setNeedsRecalculation(false);
+                        after = after.plus(Totals.of(pre));
+                    }
+                    return new Result(before, after);
+                });
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts) {
+                    log.error("Pay run {}: chunk {} failed after {} attempts", payRunId, chunkNo, attempt, e);
+                    throw e;
+                }
+                log.warn("Pay run {}: chunk {} failed on attempt {}, retrying: {}",
+                        payRunId, chunkNo, attempt, e.getMessage());
+                backoff(attempt);
+            }
+        }
+    }
+
+    private static void backoff(int attempt) {
+        try {
+            Thread.sleep(200L * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while retrying pay run chunk", e);
+        }
+    }
+
+    private static List<List<Long>> partition(List<Long> ids, int size) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += size) {
+            chunks.add(ids.subList(from, Math.min(from + size, ids.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * Receives progress of a running calculation.
+     */
+    public interface ProgressListener {
+
+        ProgressListener NONE = new ProgressListener() { };
+
+        default void onStart(int totalEmployees) { }
+
+        default void onChunkCompleted(int employees) { }
+    }
+
+    /**
+     * A chunk failed after the configured attempts. The chunks that committed have updated
+     * their rows and cleared their recalculation flags; {@link #committed()} holds their sums.
+     */
+    public static class CalculationFailedException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Result committed;
+
+        public CalculationFailedException(Throwable cause, Result committed) {
+            super("Pay run calculation failed: " + cause.getMessage(), cause);
+            this.committed = committed;
+        }
+
+        public Result committed() {
+            return committed;
+        }
+    }
+
+    /**
+     * Sums of the processed rows as they were before and after the calculation.
+     */
+    public record Result(Totals before, Totals after) {
+
+        public static final Result EMPTY = new Result(Totals.ZERO, Totals.ZERO);
+
+        public Result plus(Result other) {
+            return new Result(before.plus(other.before), after.plus(other.after));
+        }
+    }
+
+    /**
+     * Pay run level sums of the calculated employee rows.
+     */
+    public record Totals(BigDecimal grossPay, BigDecimal deductions, BigDecimal netPay,
+                         BigDecimal employerContributions, int employees) {
+
+        public static final Totals ZERO =
+                new Totals(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, 0);
+
+        public static Totals of(PayRunEmployee pre) {
+            return new Totals(pre.getGrossSalary(), pre.getTotalDeductions(), pre.getNetSalary(),
+                    pre.getTotalEmployerContribution(), 1);
+        }
+
+        public static Totals of(PayRun payRun) {
+            return new Totals(payRun.getTotalGrossPay(), payRun.getTotalDeductions(), payRun.getTotalNetPay(),
+                    payRun.getTotalEmployerContributions(),
+                    payRun.getEmployeeCount() != null ? payRun.getEmployeeCount() : 0);
+        }
+
+        public Totals plus(Totals other) {
+            return new Totals(grossPay.add(other.grossPay), deductions.add(other.deductions),
+                    netPay.add(other.netPay), employerContributions.add(other.employerContributions),
+                    employees + other.employees);
+        }
+
+        public Totals minus(Totals other) {
+            return new Totals(grossPay.subtract(other.grossPay), deductions.subtract(other.deductions),
+                    netPay.subtract(other.netPay), employerContributions.subtract(other.employerContributions),
+                    employees - other.employees);
+        }
+    }
+}
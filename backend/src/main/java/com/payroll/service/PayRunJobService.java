@@ -0,0 +1,250 @@
+package com.payroll.service;
+
+import com.payroll.dto.PayRunJobDTO;
+import com.payroll.entity.PayRun;
+import com.payroll.entity.PayRun.PayRunStatus;
+import com.payroll.entity.PayRunJob;
+import com.payroll.entity.PayRunJob.JobStatus;
+import com.payroll.entity.PayRunJob.JobType;
+import com.payroll.repository.PayRunJobRepository;
+import com.payroll.repository.PayRunRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Runs pay run calculations in the background. Job state and progress live in the
+ * pay_run_jobs table, so any node can report on a job and progress is not lost when the
+ * node that runs it restarts.
+ */
+@Service
+@Slf4j
+public class PayRunJobService {
+
+    private static final List<JobStatus> ACTIVE_STATUSES = List.of(JobStatus.QUEUED, JobStatus.RUNNING);
+    private static final long SSE_TIMEOUT_MS = 30 * 60 * 1000L;
+    private static final Duration SSE_POLL_INTERVAL = Duration.ofSeconds(1);
+
+    private final PayRunJobRepository jobRepository;
+    private final PayRunRepository payRunRepository;
+    private final PayRunService payRunService;
+    private final AsyncTaskExecutor jobExecutor;
+    private final TaskScheduler progressScheduler;
+
+    @Value("#{@nodeIdentity.id()}")
+    private String nodeId;
+
+    public PayRunJobService(PayRunJobRepository jobRepository,
+                            PayRunRepository payRunRepository,
+                            PayRunService payRunService,
+                            @Qualifier("payRunJobExecutor") AsyncTaskExecutor jobExecutor,
+                            @Qualifier("jobProgressScheduler") TaskScheduler progressScheduler) {
+        this.jobRepository = jobRepository;
+        this.payRunRepository = payRunRepository;
+        this.payRunService = payRunService;
+        this.jobExecutor = jobExecutor;
+        this.progressScheduler = progressScheduler;
+    }
+
+    /**
+     * Queue a calculation of the pay run and return the job immediately.
+     *
+     * @param fullRecalculation recompute every employee rather than only changed ones
+     */
+    public PayRunJobDTO startCalculation(Long payRunId, Long tenantId, boolean fullRecalculation) {
+        PayRun payRun = payRunRepository.findByIdAndTenantId(payRunId, tenantId)
+                .orElseThrow(() -> new RuntimeException("Pay run not found"));
+
+        if (payRun.getStatus() != PayRunStatus.DRAFT && payRun.getStatus() != PayRunStatus.PENDING_APPROVAL) {
+            throw new RuntimeException("Pay run cannot be calculated in current status: " + payRun.getStatus());
+        }
+
+        PayRunJob job = new PayRunJob();
+        job.setPayRunId(payRunId);
+        job.setTenantId(tenantId);
+        job.setJobType(JobType.CALCULATE);
+        job.setStatus(JobStatus.QUEUED);
+        job.setPreviousStatus(payRun.getStatus());
+        job.setTotalCount(payRun.getEmployeeCount());
+        job.setOwnerNode(nodeId);
+        try {
+            // uk_pay_run_jobs_active allows one queued or running job per pay run
+            job = jobRepository.save(job);
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("A calculation is already in progress for this pay run");
+        }
+
+        Long jobId = job.getId();
+        jobExecutor.execute(() -> runCalculation(jobId, payRunId, tenantId, fullRecalculation));
+
+        log.info("Queued calculation job {} for pay run {}", jobId, payRunId);
+        return convertToDTO(job);
+    }
+
+    public PayRunJobDTO getJob(Long jobId, Long tenantId) {
+        return jobRepository.findByIdAndTenantId(jobId, tenantId)
+                .map(this::convertToDTO)
+                .orElseThrow(() -> new RuntimeException("Job not found"));
+    }
+
+    /**
+     * Stream job progress as Server-Sent Events until the job finishes. Progress is read
+     * from the database, so the stream works on any node.
+     */
+    public SseEmitter streamProgress(Long jobId, Long tenantId) {
+        jobRepository.findByIdAndTenantId(jobId, tenantId)
+                .orElseThrow(() -> new RuntimeException("Job not found"));
+
+        SseEmitter emitter = new SseEmitter(SSE_TIMEOUT_MS);
+        AtomicReference<ScheduledFuture<?>> poll = new AtomicReference<>();
+
+        poll.set(progressScheduler.scheduleAtFixedRate(() -> {
+            try {
+                PayRunJob job = jobRepository.findById(jobId).orElse(null);
+                if (job == null) {
+                    emitter.complete();
+                    cancel(poll);
+                    return;
+                }
+                emitter.send(SseEmitter.event().name("progress").id(String.valueOf(job.getProcessedCount()))
+                        .data(convertToDTO(job)));
+                if (job.isFinished()) {
+                    emitter.complete();
+                    cancel(poll);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away or the emitter is already closed
+                cancel(poll);
+            } catch (RuntimeException e) {
+                log.warn("Failed to publish progress for job {}: {}", jobId, e.getMessage());
+                emitter.completeWithError(e);
+                cancel(poll);
+            }
+        }, SSE_POLL_INTERVAL));
+
+        emitter.onCompletion(() -> cancel(poll));
+        emitter.onTimeout(() -> cancel(poll));
+        emitter.onError(e -> cancel(poll));
+        return emitter;
+    }
+
+    /**
+     * Jobs this node owned when it stopped can no longer finish. Fail them and give their
+     * pay runs back the status they had before the calculation. Chunks that committed before
+     * the restart are no longer flagged for recalculation, so a calculated run has its
+     * totals re-aggregated from its rows.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverInterruptedJobs() {
+        for (PayRunJob job : jobRepository.findByOwnerNodeAndStatusIn(nodeId, ACTIVE_STATUSES)) {
+            log.warn("Job {} for pay run {} was interrupted by a restart", job.getId(), job.getPayRunId());
+            job.setStatus(JobStatus.FAILED);
+            job.setErrorMessage("Interrupted by server restart; please recalculate");
+            job.setFinishedAt(LocalDateTime.now());
+            jobRepository.save(job);
+
+            payRunRepository.findById(job.getPayRunId())
+                    .filter(pr -> pr.getStatus() == PayRunStatus.CALCULATING)
+                    .ifPresent(pr -> {
+                        PayRunStatus previous = job.getPreviousStatus() != null
+                                ? job.getPreviousStatus() : PayRunStatus.DRAFT;
+                        if (previous == PayRunStatus.PENDING_APPROVAL) {
+                            payRunRepository.reaggregateTotals(pr.getId());
+                            pr = payRunRepository.findById(pr.getId()).orElse(pr);
+                        }
+                        pr.setStatus(previous);
+                        payRunRepository.save(pr);
+                    });
+        }
+    }
+
+    private void runCalculation(Long jobId, Long payRunId, Long tenantId, boolean fullRecalculation) {
+        updateJob(jobId, job -> {
+            job.setStatus(JobStatus.RUNNING);
+            job.setStartedAt(LocalDateTime.now());
+        });
+
+        try {
+            payRunService.calculatePayRun(payRunId, tenantId, fullRecalculation,
+                    new PayRunCalculationEngine.ProgressListener() {
+                        @Override
+                        public void onStart(int totalEmployees) {
+                            updateJob(jobId, job -> job.setTotalCount(totalEmployees));
+                        }
+
+                        @Override
+                        public void onChunkCompleted(int employees) {
+                            jobRepository.incrementProcessedCount(jobId, employees, LocalDateTime.now());
+                        }
+                    });
+
+            updateJob(jobId, job -> {
+                job.setStatus(JobStatus.COMPLETED);
+                job.setFinishedAt(LocalDateTime.now());
+            });
+            log.info("Calculation job {} for pay run {} completed", jobId, payRunId);
+        } catch (RuntimeException e) {
+            log.error("Calculation job {} for pay run {} failed", jobId, payRunId, e);
+            updateJob(jobId, job -> {
+                job.setStatus(JobStatus.FAILED);
+                job.setErrorMessage(e.getMessage());
+                job.setFinishedAt(LocalDateTime.now());
+            });
+        }
+    }
+
+    private void updateJob(Long jobId, Consumer<PayRunJob> change) {
+        jobRepository.findById(jobId).ifPresent(job -> {
+            change.accept(job);
+            jobRepository.save(job);
+        });
+    }
+
+    private static void cancel(AtomicReference<ScheduledFuture<?>> poll) {
+        ScheduledFuture<?> future = poll.get();
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    private PayRunJobDTO convertToDTO(PayRunJob job) {
+        PayRunJobDTO dto = new PayRunJobDTO();
+        dto.setId(job.getId());
+        dto.setPayRunId(job.getPayRunId());
+        dto.setJobType(job.getJobType().name());
+        dto.setStatus(job.getStatus().name());
+        dto.setTotalCount(job.getTotalCount());
+        dto.setProcessedCount(job.getProcessedCount());
+        dto.setErrorMessage(job.getErrorMessage());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setStartedAt(job.getStartedAt());
+        dto.setFinishedAt(job.getFinishedAt());
+
+        // Throughput and ETA from elapsed time since the worker picked the job up
+        if (job.getStartedAt() != null && job.getProcessedCount() != null && job.getProcessedCount() > 0) {
+            LocalDateTime end = job.getFinishedAt() != null ? job.getFinishedAt() : LocalDateTime.now();
+            double seconds = Math.max(Duration.between(job.getStartedAt(), end).toMillis() / 1000.0, 0.001);
+            double rate = job.getProcessedCount() / seconds;
+            dto.setEmployeesPerSecond(Math.round(rate * 100.0) / 100.0);
+
+            int remaining = Math.max(job.getTotalCount() - job.getProcessedCount(), 0);
+            dto.setEtaSeconds(job.isFinished() ? 0L : (long) Math.ceil(remaining / rate));
+        }
+        return dto;
+    }
+}
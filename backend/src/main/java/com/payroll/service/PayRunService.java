@@ -1,15 +1,18 @@
 package com.payroll.service;
 
+import com.payroll.dto.AttendanceSummaryDTO;
 import com.payroll.dto.PayRunDTO;
 import com.payroll.dto.PayRunEmployeeDTO;
 import com.payroll.entity.*;
 import com.payroll.entity.PayRun.PayRunStatus;
 import com.payroll.entity.PayRunEmployee.PayRunEmployeeStatus;
 import com.payroll.repository.*;
+import com.payroll.util.Paise;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -18,6 +21,7 @@ import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,15 +31,25 @@ public class PayRunService {
 
     private final PayRunRepository payRunRepository;
     private final PayRunEmployeeRepository payRunEmployeeRepository;
+    private final PayRunEmployeeBatchRepository payRunEmployeeBatchRepository;
     private final EmployeeRepository employeeRepository;
     private final PayslipRepository payslipRepository;
+    private final PayrollLedgerRepository payrollLedgerRepository;
     private final AttendanceService attendanceService;
+    private final PayRunCalculationEngine calculationEngine;
+    private final TransactionTemplate transactionTemplate;
 
     // Statutory rates (can be made configurable)
-    private static final BigDecimal PF_RATE = new BigDecimal("0.12"); // 12%
-    private static final BigDecimal ESI_EMPLOYEE_RATE = new BigDecimal("0.0075"); // 0.75%
-    private static final BigDecimal ESI_EMPLOYER_RATE = new BigDecimal("0.0325"); // 3.25%
-    private static final BigDecimal ESI_LIMIT = new BigDecimal("21000"); // ESI applicable if gross <= 21000
+    private static final Paise.Rate PF_RATE = Paise.Rate.of(new BigDecimal("0.12")); // 12%
+    private static final Paise.Rate ESI_EMPLOYEE_RATE = Paise.Rate.of(new BigDecimal("0.0075")); // 0.75%
+    private static final Paise.Rate ESI_EMPLOYER_RATE = Paise.Rate.of(new BigDecimal("0.0325")); // 3.25%
+    private static final long ESI_LIMIT = Paise.ofRupees(21000); // ESI applicable if gross <= 21000
+
+    // Karnataka PT slabs, in paise
+    private static final long PT_EXEMPT_LIMIT = Paise.ofRupees(15000);
+    private static final long PT_LOWER_SLAB_LIMIT = Paise.ofRupees(25000);
+    private static final BigDecimal PT_LOWER_SLAB = new BigDecimal("150");
+    private static final BigDecimal PT_UPPER_SLAB = new BigDecimal("200");
 
     @Transactional
     public PayRunDTO createPayRun(Long tenantId, PayRunDTO.CreatePayRunRequest request, Long userId) {
@@ -73,7 +87,14 @@ public class PayRunService {
             employees = employeeRepository.findByStatusAndOrganizationId("Active", tenantId);
         }
 
+        // Summarise attendance for every employee at once instead of querying per employee
+        int month = request.getPayPeriodStart().getMonthValue();
+        int year = request.getPayPeriodStart().getYear();
+        Map<Long, AttendanceSummaryDTO> attendance = attendanceService.calculateMonthlySummaries(
+                tenantId, employees.stream().map(Employee::getId).collect(Collectors.toList()), month, year);
+
         // Create pay run employees
+        List<PayRunEmployee> payRunEmployees = new ArrayList<>(employees.size());
         for (Employee employee : employees) {
             PayRunEmployee pre = new PayRunEmployee();
             pre.setPayRun(payRun);
@@ -89,120 +110,153 @@ public class PayRunService {
             pre.setFixedAllowance(employee.getFixedAllowanceMonthly() != null ? employee.getFixedAllowanceMonthly()
                     : BigDecimal.ZERO);
 
-            // Calculate working days and LOP from attendance
-            int month = request.getPayPeriodStart().getMonthValue();
-            int year = request.getPayPeriodStart().getYear();
-
-            log.info("=== PAY RUN: Calculating for Employee {} (ID: {}) - Month: {}, Year: {} ===", 
-                    employee.getEmployeeId(), employee.getId(), month, year);
-
-            int workingDays = attendanceService.calculateWorkingDaysInMonth(month, year);
-            double lopDays = attendanceService.calculateLopDays(employee.getId(), month, year);
-            double daysWorked = attendanceService.calculateDaysWorked(employee.getId(), month, year);
-
-            log.info("=== PAY RUN: Employee {} - Raw LOP Days returned: {} ===", 
-                    employee.getEmployeeId(), lopDays);
+            // Working days and LOP from attendance
+            AttendanceSummaryDTO summary = attendance.get(employee.getId());
+            pre.setWorkingDays(summary.getWorkingDays());
+            pre.setDaysWorked((int) Math.round(summary.getDaysWorked()));
+            pre.setLopDays((int) Math.ceil(summary.getLopDays())); // Round up LOP days
 
-            pre.setWorkingDays(workingDays);
-            pre.setDaysWorked((int) Math.round(daysWorked));
-            pre.setLopDays((int) Math.ceil(lopDays)); // Round up LOP days
+            log.debug("Pay run {}: Employee {} - Working Days={}, Days Worked={}, LOP Days={}",
+                    payRunNumber, employee.getEmployeeId(), summary.getWorkingDays(), summary.getDaysWorked(),
+                    pre.getLopDays());
 
-            log.info("=== PAY RUN: Employee {} - Final values: Working Days={}, Days Worked={}, LOP Days={} ===",
-                    employee.getEmployeeId(), workingDays, daysWorked, pre.getLopDays());
-
-            payRunEmployeeRepository.save(pre);
+            payRunEmployees.add(pre);
         }
 
+        payRunEmployeeBatchRepository.insertAll(payRunEmployees);
+        log.info("Pay run {}: created {} employee rows for {}/{}", payRunNumber, payRunEmployees.size(), month, year);
+
         payRun.setEmployeeCount(employees.size());
         payRun = payRunRepository.save(payRun);
 
         return convertToDTO(payRun);
     }
 
-    @Transactional
+    /**
+     * Calculate the pay run. The status change, the per-chunk calculation and the final
+     * totals each commit in their own transaction, so this method must not run inside an
+     * outer transaction.
+     */
     public PayRunDTO calculatePayRun(Long payRunId, Long tenantId) {
-        log.info("Calculating pay run: {}", payRunId);
-
-        PayRun payRun = payRunRepository.findByIdAndTenantId(payRunId, tenantId)
-                .orElseThrow(() -> new RuntimeException("Pay run not found"));
-
-        if (payRun.getStatus() != PayRunStatus.DRAFT && payRun.getStatus() != PayRunStatus.PENDING_APPROVAL) {
-            throw new RuntimeException("Pay run cannot be calculated in current status: " + payRun.getStatus());
-        }
-
-        payRun.setStatus(PayRunStatus.CALCULATING);
-        payRunRepository.save(payRun);
-
-        BigDecimal totalGross = BigDecimal.ZERO;
-        BigDecimal totalDeductions = BigDecimal.ZERO;
-        BigDecimal totalNet = BigDecimal.ZERO;
-        BigDecimal totalEmployerContrib = BigDecimal.ZERO;
-
-        List<PayRunEmployee> employees = payRunEmployeeRepository.findByPayRunId(payRunId);
-
-        for (PayRunEmployee pre : employees) {
-            calculateEmployeeSalary(pre);
-            payRunEmployeeRepository.save(pre);
+        return calculatePayRun(payRunId, tenantId, false, PayRunCalculationEngine.ProgressListener.NONE);
+    }
 
-            totalGross = totalGross.add(pre.getGrossSalary());
-            totalDeductions = totalDeductions.add(pre.getTotalDeductions());
-            totalNet = totalNet.add(pre.getNetSalary());
-            totalEmployerContrib = totalEmployerContrib.add(pre.getTotalEmployerContribution());
+    /**
+     * Calculate the pay run. A draft run is calculated in full. Once a run has been
+     * calculated, only employees changed since then are recomputed and the run totals
+     * are adjusted by the before/after difference of those rows; pass fullRecalculation
+     * to recompute every employee and re-aggregate the totals instead.
+     */
+    public PayRunDTO calculatePayRun(Long payRunId, Long tenantId, boolean fullRecalculation,
+                                     PayRunCalculationEngine.ProgressListener listener) {
+        log.info("Calculating pay run: {} (full: {})", payRunId, fullRecalculation);
+
+        PayRunStatus previousStatus = transactionTemplate.execute(tx -> {
+            PayRun payRun = payRunRepository.findByIdAndTenantId(payRunId, tenantId)
+                    .orElseThrow(() -> new RuntimeException("Pay run not found"));
+
+            if (payRun.getStatus() != PayRunStatus.DRAFT && payRun.getStatus() != PayRunStatus.PENDING_APPROVAL) {
+                throw new RuntimeException("Pay run cannot be calculated in current status: " + payRun.getStatus());
+            }
+
+            PayRunStatus current = payRun.getStatus();
+            payRun.setStatus(PayRunStatus.CALCULATING);
+            payRunRepository.save(payRun);
+            return current;
+        });
+
+        boolean delta = !fullRecalculation && previousStatus == PayRunStatus.PENDING_APPROVAL;
+        List<Long> ids = delta
+                ? payRunEmployeeRepository.findIdsNeedingRecalculationByPayRunId(payRunId)
+                : payRunEmployeeRepository.findIdsByPayRunId(payRunId);
+
+        PayRunCalculationEngine.Result result;
+        try {
+            result = calculationEngine.calculate(payRunId, ids, this::calculateEmployeeSalary, listener);
+        } catch (RuntimeException e) {
+            // Release the run so it can be recalculated. Chunks that committed are no longer
+            // flagged, so a calculated run takes their difference into its totals now; a
+            // draft run is re-aggregated in full by its next calculation anyway.
+            PayRunCalculationEngine.Result committed = e instanceof PayRunCalculationEngine.CalculationFailedException failed
+                    ? failed.committed()
+                    : PayRunCalculationEngine.Result.EMPTY;
+            transactionTemplate.executeWithoutResult(tx -> payRunRepository.findById(payRunId).ifPresent(pr -> {
+                if (previousStatus == PayRunStatus.PENDING_APPROVAL) {
+                    setTotals(pr, PayRunCalculationEngine.Totals.of(pr).plus(committed.after()).minus(committed.before()));
+                }
+                pr.setStatus(previousStatus);
+                payRunRepository.save(pr);
+            }));
+            throw e;
         }
 
-        payRun.setTotalGrossPay(totalGross);
-        payRun.setTotalDeductions(totalDeductions);
-        payRun.setTotalNetPay(totalNet);
-        payRun.setTotalEmployerContributions(totalEmployerContrib);
-        payRun.setStatus(PayRunStatus.PENDING_APPROVAL);
-        payRun.setProcessedAt(LocalDateTime.now());
-
-        payRun = payRunRepository.save(payRun);
-
+        PayRun payRun = transactionTemplate.execute(tx -> {
+            PayRun pr = payRunRepository.findByIdAndTenantId(payRunId, tenantId)
+                    .orElseThrow(() -> new RuntimeException("Pay run not found"));
+            setTotals(pr, delta
+                    ? PayRunCalculationEngine.Totals.of(pr).plus(result.after()).minus(result.before())
+                    : result.after());
+            pr.setStatus(PayRunStatus.PENDING_APPROVAL);
+            pr.setProcessedAt(LocalDateTime.now());
+            return payRunRepository.save(pr);
+        });
+
+        log.info("Pay run {} calculated: {} employees recomputed ({}), net pay {}", payRunId, ids.size(),
+                delta ? "changed only" : "full", payRun.getTotalNetPay());
         return convertToDTO(payRun);
     }
 
-    private void calculateEmployeeSalary(PayRunEmployee pre) {
+    private static void setTotals(PayRun payRun, PayRunCalculationEngine.Totals totals) {
+        payRun.setTotalGrossPay(totals.grossPay());
+        payRun.setTotalDeductions(totals.deductions());
+        payRun.setTotalNetPay(totals.netPay());
+        payRun.setTotalEmployerContributions(totals.employerContributions());
+    }
+
+    void calculateEmployeeSalary(PayRunEmployee pre) {
         Employee employee = pre.getEmployee();
 
-        // Calculate gross salary
-        BigDecimal gross = pre.getBasicSalary()
-                .add(pre.getHra())
-                .add(pre.getConveyanceAllowance())
-                .add(pre.getFixedAllowance())
-                .add(pre.getOtherEarnings() != null ? pre.getOtherEarnings() : BigDecimal.ZERO);
+        // Work in paise; amounts go back to BigDecimal only when set on the entity
+        long basic = Paise.of(pre.getBasicSalary());
+        long earnings = basic
+                + Paise.of(pre.getHra())
+                + Paise.of(pre.getConveyanceAllowance())
+                + Paise.of(pre.getFixedAllowance())
+                + Paise.ofNullable(pre.getOtherEarnings());
 
         // Apply LOP deduction (Loss of Pay for absent days)
+        long gross = earnings;
+        long lopDeduction = 0;
         if (pre.getLopDays() != null && pre.getLopDays() > 0 && pre.getWorkingDays() > 0) {
             // Calculate per-day salary rate
-            BigDecimal dailyRate = gross.divide(BigDecimal.valueOf(pre.getWorkingDays()), 2, RoundingMode.HALF_UP);
-            BigDecimal lopDeduction = dailyRate.multiply(BigDecimal.valueOf(pre.getLopDays()));
-            pre.setLopDeduction(lopDeduction);
-            gross = gross.subtract(lopDeduction);
+            long dailyRate = Paise.divide(earnings, pre.getWorkingDays(), RoundingMode.HALF_UP);
+            lopDeduction = Math.multiplyExact(dailyRate, (long) pre.getLopDays());
+            pre.setLopDeduction(Paise.toBigDecimal(lopDeduction));
+            gross -= lopDeduction;
 
-            log.info("Employee {}: Daily Rate={}, LOP Days={}, LOP Deduction={}",
+            log.debug("Employee {}: Daily Rate={}, LOP Days={}, LOP Deduction={}",
                     employee.getEmployeeId(), dailyRate, pre.getLopDays(), lopDeduction);
         } else {
             pre.setLopDeduction(BigDecimal.ZERO);
         }
 
-        pre.setGrossSalary(gross);
-
         // Calculate PF (on basic salary)
-        BigDecimal pfEmployee = pre.getBasicSalary().multiply(PF_RATE).setScale(0, RoundingMode.HALF_UP);
-        BigDecimal pfEmployer = pre.getBasicSalary().multiply(PF_RATE).setScale(0, RoundingMode.HALF_UP);
-        pre.setPfEmployee(pfEmployee);
-        pre.setPfEmployer(pfEmployer);
+        long pf = Paise.multiply(basic, PF_RATE, 0, RoundingMode.HALF_UP);
+        pre.setPfEmployee(Paise.toBigDecimal(pf, 0));
+        pre.setPfEmployer(Paise.toBigDecimal(pf, 0));
 
         // Calculate ESI (if gross <= 21000)
-        BigDecimal esiEmployee = BigDecimal.ZERO;
-        BigDecimal esiEmployer = BigDecimal.ZERO;
-        if (gross.compareTo(ESI_LIMIT) <= 0) {
-            esiEmployee = gross.multiply(ESI_EMPLOYEE_RATE).setScale(0, RoundingMode.HALF_UP);
-            esiEmployer = gross.multiply(ESI_EMPLOYER_RATE).setScale(0, RoundingMode.HALF_UP);
+        long esiEmployee = 0;
+        long esiEmployer = 0;
+        if (gross <= ESI_LIMIT) {
+            esiEmployee = Paise.multiply(gross, ESI_EMPLOYEE_RATE, 0, RoundingMode.HALF_UP);
+            esiEmployer = Paise.multiply(gross, ESI_EMPLOYER_RATE, 0, RoundingMode.HALF_UP);
+            pre.setEsiEmployee(Paise.toBigDecimal(esiEmployee, 0));
+            pre.setEsiEmployer(Paise.toBigDecimal(esiEmployer, 0));
+        } else {
+            pre.setEsiEmployee(BigDecimal.ZERO);
+            pre.setEsiEmployer(BigDecimal.ZERO);
         }
-        pre.setEsiEmployee(esiEmployee);
-        pre.setEsiEmployer(esiEmployer);
 
         // Calculate Professional Tax (based on state, simplified)
         BigDecimal pt = calculateProfessionalTax(gross, employee);
@@ -211,23 +265,28 @@ public class PayRunService {
         // TDS calculation (simplified - actual would need full tax calculation)
         pre.setTds(BigDecimal.ZERO); // Placeholder for TDS calculation
 
-        // Calculate totals
-        pre.calculateTotals();
+        // Totals, as PayRunEmployee.calculateTotals() computes them
+        long totalDeductions = lopDeduction + pf + esiEmployee + Paise.of(pt)
+                + Paise.ofNullable(pre.getOtherDeductions());
+        pre.setGrossSalary(Paise.toBigDecimal(earnings));
+        pre.setTotalDeductions(Paise.toBigDecimal(totalDeductions));
+        pre.setTotalEmployerContribution(Paise.toBigDecimal(pf + esiEmployer, 0));
+        pre.setNetSalary(Paise.toBigDecimal(earnings - totalDeductions));
         pre.setStatus(PayRunEmployeeStatus.CALCULATED);
     }
 
-    private BigDecimal calculateProfessionalTax(BigDecimal grossSalary, Employee employee) {
+    private BigDecimal calculateProfessionalTax(long grossPaise, Employee employee) {
         // Simplified PT calculation for Karnataka (can be made state-specific)
         if (employee.getProfessionalTax() == null || !employee.getProfessionalTax()) {
             return BigDecimal.ZERO;
         }
 
-        if (grossSalary.compareTo(new BigDecimal("15000")) <= 0) {
+        if (grossPaise <= PT_EXEMPT_LIMIT) {
             return BigDecimal.ZERO;
-        } else if (grossSalary.compareTo(new BigDecimal("25000")) <= 0) {
-            return new BigDecimal("150");
+        } else if (grossPaise <= PT_LOWER_SLAB_LIMIT) {
+            return PT_LOWER_SLAB;
         } else {
-            return new BigDecimal("200");
+            return PT_UPPER_SLAB;
         }
     }
 
@@ -278,6 +337,11 @@ public class PayRunService {
         payRun.setStatus(PayRunStatus.COMPLETED);
         payRun = payRunRepository.save(payRun);
 
+        // Roll the completed pay run into the employees' ledger months for YTD and tax reports
+        LocalDate periodStart = payRun.getPayPeriodStart();
+        payrollLedgerRepository.addPayRun(payRunId, PayrollLedger.financialYearOf(periodStart),
+                periodStart.withDayOfMonth(1), LocalDateTime.now());
+
         return convertToDTO(payRun);
     }
 
@@ -311,6 +375,13 @@ public class PayRunService {
             throw new RuntimeException("Cannot delete pay runs in APPROVED or CALCULATING status. Cancel it first.");
         }
 
+        // A completed pay run is already in the ledger; take it out while its employees still exist
+        if (payRun.getStatus() == PayRunStatus.COMPLETED) {
+            LocalDate periodMonth = payRun.getPayPeriodStart().withDayOfMonth(1);
+            payrollLedgerRepository.subtractPayRun(payRunId, periodMonth, LocalDateTime.now());
+            payrollLedgerRepository.deleteEmptyMonths(tenantId, periodMonth);
+        }
+
         // Delete all pay run employees first
         List<PayRunEmployee> employees = payRunEmployeeRepository.findByPayRunId(payRunId);
         payRunEmployeeRepository.deleteAll(employees);
@@ -365,12 +436,15 @@ public class PayRunService {
         if (request.getLopDays() != null) {
             pre.setLopDays(request.getLopDays());
             pre.setDaysWorked(pre.getWorkingDays() - request.getLopDays());
+            pre.setNeedsRecalculation(true);
         }
         if (request.getOtherEarnings() != null) {
             pre.setOtherEarnings(request.getOtherEarnings());
+            pre.setNeedsRecalculation(true);
         }
         if (request.getOtherDeductions() != null) {
             pre.setOtherDeductions(request.getOtherDeductions());
+            pre.setNeedsRecalculation(true);
         }
         if (request.getNotes() != null) {
             pre.setNotes(request.getNotes());
@@ -0,0 +1,472 @@
+package com.payroll.service;
+
+import com.payroll.entity.Employee;
+import com.payroll.entity.PayRun;
+import com.payroll.entity.Payslip;
+import com.payroll.entity.PayslipEmailOutbox;
+import com.payroll.entity.PayslipEmailOutbox.OutboxStatus;
+import com.payroll.organization.Organization;
+import com.payroll.organization.OrganizationRepository;
+import com.payroll.payslip.PayslipStorage;
+import com.payroll.repository.PayRunRepository;
+import com.payroll.repository.PayslipEmailOutboxRepository;
+import com.payroll.repository.PayslipRepository;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sends payslip emails through the payslip_email_outbox table. Queuing an email only writes
+ * a row; a dispatcher on each node claims due rows, sends them on the payslip email pool in
+ * batches that share one SMTP connection, and records the outcome. Sending is paced by a
+ * per-second rate shared by all threads of the node. Failed sends are retried with
+ * exponential backoff until the configured number of attempts. Rows claimed longer ago than
+ * the claim lease are queued again by whichever node dispatches next, so emails claimed by
+ * a node that stopped are not lost even if that node never restarts.
+ *
+ * A batch holds its SMTP connection open while its messages wait for their turn, which is
+ * why this talks to the mail transport itself rather than through JavaMailSender.send: that
+ * sends a whole array back to back on one connection, or opens a connection per message.
+ */
+@Service
+@Slf4j
+public class PayslipEmailService {
+
+    private static final int MAX_BACKOFF_DOUBLINGS = 10;
+
+    private final PayslipEmailOutboxRepository outboxRepository;
+    private final PayslipRepository payslipRepository;
+    private final PayRunRepository payRunRepository;
+    private final OrganizationRepository organizationRepository;
+    private final PayslipStorage payslipStorage;
+    private final JavaMailSenderImpl mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final AsyncTaskExecutor sendExecutor;
+    private final TaskScheduler dispatchScheduler;
+    private final RateLimiter rateLimiter;
+
+    @Value("#{@nodeIdentity.id()}")
+    private String nodeId;
+
+    @Value("${spring.mail.username:noreply@payroll.com}")
+    private String fromEmail;
+
+    @Value("${app.payslips.email.threads:4}")
+    private int threads;
+
+    @Value("${app.payslips.email.batch-size:20}")
+    private int batchSize;
+
+    @Value("${app.payslips.email.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.payslips.email.retry-delay:1m}")
+    private Duration retryDelay;
+
+    @Value("${app.payslips.email.poll-interval:10s}")
+    private Duration pollInterval;
+
+    @Value("${app.payslips.email.claim-lease:15m}")
+    private Duration claimLease;
+
+    public PayslipEmailService(PayslipEmailOutboxRepository outboxRepository,
+                               PayslipRepository payslipRepository,
+                               PayRunRepository payRunRepository,
+                               OrganizationRepository organizationRepository,
+                               PayslipStorage payslipStorage,
+                               JavaMailSenderImpl mailSender,
+                               TransactionTemplate transactionTemplate,
+                               @Qualifier("payslipEmailExecutor") AsyncTaskExecutor sendExecutor,
+                               @Qualifier("payslipEmailScheduler") TaskScheduler dispatchScheduler,
+                               @Value("${app.payslips.email.rate-per-second:10}") double ratePerSecond) {
+        this.outboxRepository = outboxRepository;
+        this.payslipRepository = payslipRepository;
+        this.payRunRepository = payRunRepository;
+        this.organizationRepository = organizationRepository;
+        this.payslipStorage = payslipStorage;
+        this.mailSender = mailSender;
+        this.transactionTemplate = transactionTemplate;
+        this.sendExecutor = sendExecutor;
+        this.dispatchScheduler = dispatchScheduler;
+        this.rateLimiter = new RateLimiter(ratePerSecond);
+    }
+
+    /**
+     * Queue one payslip's email. The employee must have an email address; anything else that
+     * stops the email from being sent is recorded on the outbox row.
+     */
+    public void queuePayslipEmail(Long payslipId, Long tenantId) {
+        Payslip payslip = payslipRepository.findByIdInWithEmployee(List.of(payslipId)).stream()
+                .filter(p -> tenantId.equals(p.getTenantId()))
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("Payslip not found"));
+        if (recipient(payslip.getEmployee()) == null) {
+            throw new RuntimeException("No email address found for employee");
+        }
+
+        outboxRepository.enqueue(payslipId, tenantId, LocalDateTime.now());
+        log.info("Queued email for payslip {}", payslipId);
+        wakeUp();
+    }
+
+    /**
+     * Queue the emails of every rendered payslip of the pay run that has not been emailed yet.
+     *
+     * @return how many emails were queued; payslips already queued are not counted again
+     */
+    public int queuePayRunEmails(Long payRunId, Long tenantId) {
+        PayRun payRun = payRunRepository.findByIdAndTenantId(payRunId, tenantId)
+                .orElseThrow(() -> new RuntimeException("Pay run not found"));
+
+        int queued = outboxRepository.enqueuePayRun(payRun.getId(), tenantId, LocalDateTime.now());
+        log.info("Queued {} payslip emails for pay run {}", queued, payRunId);
+        wakeUp();
+        return queued;
+    }
+
+    /**
+     * Emails this node was sending when it stopped may or may not have gone out. Queue them
+     * again: a duplicate payslip email is better than a missing one.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startDispatcher() {
+        int requeued = outboxRepository.requeueClaimed(nodeId, OutboxStatus.SENDING, OutboxStatus.PENDING, LocalDateTime.now());
+        if (requeued > 0) {
+            log.warn("Requeued {} payslip emails interrupted by a restart", requeued);
+        }
+        dispatchScheduler.scheduleWithFixedDelay(this::dispatch, pollInterval);
+    }
+
+    private void wakeUp() {
+        // The scheduler has a single thread, so this waits for any dispatch already running
+        dispatchScheduler.schedule(this::dispatch, Instant.now());
+    }
+
+    /**
+     * Send due emails until none are left. Each round claims enough rows to give every
+     * thread one batch.
+     */
+    void dispatch() {
+        try {
+            requeueExpiredClaims();
+            List<PayslipEmailOutbox> claimed;
+            while (!(claimed = claim(threads * batchSize)).isEmpty()) {
+                send(claimed);
+            }
+        } catch (RuntimeException e) {
+            // Keep the scheduled dispatch alive; the rows are claimed again after a restart
+            log.error("Payslip email dispatch failed", e);
+        }
+    }
+
+    /**
+     * Emails claimed longer ago than the lease belong to a node that stopped or is stuck. Queue
+     * them again; if the node was only slow, its late result is ignored (see record).
+     */
+    private void requeueExpiredClaims() {
+        LocalDateTime now = LocalDateTime.now();
+        int requeued = outboxRepository.requeueExpired(now.minus(claimLease), OutboxStatus.SENDING, OutboxStatus.PENDING, now);
+        if (requeued > 0) {
+            log.warn("Requeued {} payslip emails claimed more than {} ago", requeued, claimLease);
+        }
+    }
+
+    private List<PayslipEmailOutbox> claim(int limit) {
+        return transactionTemplate.execute(tx -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> ids = outboxRepository.lockDueIds(now, limit);
+            if (ids.isEmpty()) {
+                return List.<PayslipEmailOutbox>of();
+            }
+            List<PayslipEmailOutbox> entries = outboxRepository.findAllById(ids);
+            for (PayslipEmailOutbox entry : entries) {
+                entry.setStatus(OutboxStatus.SENDING);
+                entry.setOwnerNode(nodeId);
+                entry.setClaimedAt(now);
+                entry.setAttempts(entry.getAttempts() + 1);
+            }
+            return entries;
+        });
+    }
+
+    private void send(List<PayslipEmailOutbox> claimed) {
+        Map<Long, Payslip> payslips = payslipRepository.findByIdInWithEmployee(
+                        claimed.stream().map(PayslipEmailOutbox::getPayslipId).toList())
+                .stream()
+                .collect(Collectors.toMap(Payslip::getId, Function.identity()));
+        Map<Long, Organization> organizations = new HashMap<>();
+        for (PayslipEmailOutbox entry : claimed) {
+            organizations.computeIfAbsent(entry.getTenantId(), id -> organizationRepository.findById(id).orElse(null));
+        }
+
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        for (int from = 0; from < claimed.size(); from += batchSize) {
+            List<PayslipEmailOutbox> batch = claimed.subList(from, Math.min(from + batchSize, claimed.size()));
+            batches.add(sendExecutor.submitCompletable(() -> sendBatch(batch, payslips, organizations)));
+        }
+        CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).join();
+    }
+
+    /**
+     * Send the batch over one SMTP connection, one rate slot per email, and record what
+     * happened to each email.
+     */
+    private void sendBatch(List<PayslipEmailOutbox> batch, Map<Long, Payslip> payslips,
+                           Map<Long, Organization> organizations) {
+        Map<Long, Failure> failures = new HashMap<>();
+        Map<Long, MimeMessage> messages = new LinkedHashMap<>();
+        for (PayslipEmailOutbox entry : batch) {
+            Payslip payslip = payslips.get(entry.getPayslipId());
+            Organization organization = organizations.get(entry.getTenantId());
+            String problem = payslip == null ? "Payslip not found"
+                    : organization == null ? "Organization not found"
+                    : recipient(payslip.getEmployee()) == null ? "No email address found for employee"
+                    : null;
+            if (problem != null) {
+                failures.put(entry.getId(), new Failure(problem, false));
+                continue;
+            }
+            try {
+                messages.put(entry.getId(), buildMessage(payslip, organization));
+            } catch (MessagingException | IOException | RuntimeException e) {
+                failures.put(entry.getId(), new Failure(e.getMessage(), true));
+            }
+        }
+
+        if (!messages.isEmpty()) {
+            sendPaced(messages, failures);
+        }
+
+        record(batch, failures);
+        log.debug("Sent {} of {} payslip emails in batch", batch.size() - failures.size(), batch.size());
+    }
+
+    /**
+     * Send the messages in order over one connection, each as soon as the rate allows. If the
+     * connection cannot be opened, or the thread is interrupted, the rest of the batch fails
+     * and is retried later.
+     */
+    private void sendPaced(Map<Long, MimeMessage> messages, Map<Long, Failure> failures) {
+        List<Long> ids = new ArrayList<>(messages.keySet());
+        Transport transport = null;
+        try {
+            for (int i = 0; i < ids.size(); i++) {
+                List<Long> unsent = ids.subList(i, ids.size());
+                if (transport == null || !transport.isConnected()) {
+                    try {
+                        transport = connect();
+                    } catch (MessagingException e) {
+                        String error = e.getMessage();
+                        unsent.forEach(id -> failures.put(id, new Failure(error, true)));
+                        return;
+                    }
+                }
+                // Wait once connected, so a slow connect cannot leave the slot in the past
+                try {
+                    rateLimiter.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    unsent.forEach(id -> failures.put(id, new Failure("Interrupted before sending", true)));
+                    return;
+                }
+
+                MimeMessage message = messages.get(ids.get(i));
+                try {
+                    message.setSentDate(new Date());
+                    message.saveChanges();
+                    transport.sendMessage(message, message.getAllRecipients());
+                } catch (MessagingException e) {
+                    failures.put(ids.get(i), new Failure(e.getMessage(), true));
+                }
+            }
+        } finally {
+            if (transport != null) {
+                try {
+                    transport.close();
+                } catch (MessagingException e) {
+                    log.debug("Could not close SMTP connection", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Open a connection with the mail sender's settings, the way JavaMailSenderImpl does.
+     */
+    private Transport connect() throws MessagingException {
+        String username = mailSender.getUsername();
+        String password = mailSender.getPassword();
+        if ("".equals(username)) {
+            username = null;
+            if ("".equals(password)) {
+                password = null;
+            }
+        }
+        Transport transport = mailSender.getSession()
+                .getTransport(Objects.requireNonNullElse(mailSender.getProtocol(), JavaMailSenderImpl.DEFAULT_PROTOCOL));
+        transport.connect(mailSender.getHost(), mailSender.getPort(), username, password);
+        return transport;
+    }
+
+    /**
+     * Record the outcome of each email. A row claimed again since this node claimed it (its
+     * lease ran out) now belongs to the new claim and is left alone.
+     */
+    private void record(List<PayslipEmailOutbox> batch, Map<Long, Failure> failures) {
+        Map<Long, Integer> claimedAttempts = batch.stream()
+                .collect(Collectors.toMap(PayslipEmailOutbox::getId, PayslipEmailOutbox::getAttempts));
+        transactionTemplate.executeWithoutResult(tx -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> sentPayslips = new ArrayList<>();
+            for (PayslipEmailOutbox entry : outboxRepository.findAllById(claimedAttempts.keySet())) {
+                if (!entry.getAttempts().equals(claimedAttempts.get(entry.getId()))) {
+                    log.warn("Email for payslip {} was claimed again before its result was recorded", entry.getPayslipId());
+                    continue;
+                }
+                Failure failure = failures.get(entry.getId());
+                if (failure == null) {
+                    entry.setStatus(OutboxStatus.SENT);
+                    entry.setSentAt(now);
+                    entry.setLastError(null);
+                    sentPayslips.add(entry.getPayslipId());
+                } else if (!failure.retryable() || entry.getAttempts() >= maxAttempts) {
+                    log.warn("Giving up on email for payslip {} after {} attempts: {}",
+                            entry.getPayslipId(), entry.getAttempts(), failure.message());
+                    entry.setStatus(OutboxStatus.FAILED);
+                    entry.setLastError(failure.message());
+                } else {
+                    entry.setStatus(OutboxStatus.PENDING);
+                    entry.setLastError(failure.message());
+                    entry.setNextAttemptAt(now.plus(backoff(entry.getAttempts())));
+                }
+            }
+            if (!sentPayslips.isEmpty()) {
+                payslipRepository.markEmailSent(sentPayslips, Payslip.PayslipStatus.SENT, now);
+            }
+        });
+    }
+
+    private Duration backoff(int attempts) {
+        return retryDelay.multipliedBy(1L << Math.min(attempts - 1, MAX_BACKOFF_DOUBLINGS));
+    }
+
+    private MimeMessage buildMessage(Payslip payslip, Organization organization) throws MessagingException, IOException {
+        Employee employee = payslip.getEmployee();
+        String recipientEmail = recipient(employee);
+
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true);
+
+        helper.setFrom(fromEmail);
+        helper.setTo(recipientEmail);
+        helper.setSubject(String.format("Payslip for %s %s - %s",
+                payslip.getPayPeriodStart().format(DateTimeFormatter.ofPattern("MMM")),
+                payslip.getPayPeriodStart().getYear(),
+                organization.getCompanyName()));
+
+        String body = String.format("""
+                Dear %s,
+
+                Please find attached your payslip for the period %s to %s.
+
+                Summary:
+                - Gross Salary: ₹%s
+                - Total Deductions: ₹%s
+                - Net Pay: ₹%s
+
+                You can also view your payslip in the employee portal.
+
+                Best regards,
+                %s HR Team
+                """,
+                employee.getFirstName(),
+                payslip.getPayPeriodStart().format(DateTimeFormatter.ofPattern("dd MMM yyyy")),
+                payslip.getPayPeriodEnd().format(DateTimeFormatter.ofPattern("dd MMM yyyy")),
+                formatAmount(payslip.getGrossSalary()),
+                formatAmount(payslip.getTotalDeductions()),
+                formatAmount(payslip.getNetSalary()),
+                organization.getCompanyName());
+
+        helper.setText(body);
+
+        // Attach PDF
+        String pdfPath = payslip.getPdfPath();
+        if (pdfPath != null && payslipStorage.exists(pdfPath)) {
+            helper.addAttachment("payslip.pdf", () -> payslipStorage.newInputStream(pdfPath));
+        }
+        return message;
+    }
+
+    private static String recipient(Employee employee) {
+        return employee.getPersonalEmail() != null ? employee.getPersonalEmail() : employee.getWorkEmail();
+    }
+
+    private String formatAmount(BigDecimal amount) {
+        if (amount == null) return "0.00";
+        return String.format("%,.2f", amount);
+    }
+
+    /**
+     * Why an email was not sent. Problems with the payslip itself are not retried; anything
+     * else may be temporary.
+     */
+    private record Failure(String message, boolean retryable) {
+    }
+
+    /**
+     * Spaces sends evenly at a fixed rate across all threads: each email waits for the next
+     * free slot, so batches on different threads interleave rather than burst.
+     */
+    private static final class RateLimiter {
+
+        private final long intervalNanos;
+        private long nextFree = System.nanoTime();
+
+        RateLimiter(double perSecond) {
+            this.intervalNanos = perSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / perSecond) : 0;
+        }
+
+        void acquire() throws InterruptedException {
+            if (intervalNanos == 0) {
+                return;
+            }
+            long wait;
+            synchronized (this) {
+                long now = System.nanoTime();
+                long start = Math.max(nextFree, now);
+                nextFree = start + intervalNanos;
+                wait = start - now;
+            }
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+}
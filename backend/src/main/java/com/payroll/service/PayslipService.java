@@ -1,67 +1,164 @@
 package com.payroll.service;
 
-import com.itextpdf.kernel.colors.ColorConstants;
-import com.itextpdf.kernel.colors.DeviceRgb;
-import com.itextpdf.kernel.geom.PageSize;
-import com.itextpdf.kernel.pdf.PdfDocument;
-import com.itextpdf.kernel.pdf.PdfWriter;
-import com.itextpdf.layout.Document;
-import com.itextpdf.layout.borders.Border;
-import com.itextpdf.layout.borders.SolidBorder;
-import com.itextpdf.layout.element.Cell;
-import com.itextpdf.layout.element.Paragraph;
-import com.itextpdf.layout.element.Table;
-import com.itextpdf.layout.properties.TextAlignment;
-import com.itextpdf.layout.properties.UnitValue;
+import com.payroll.dto.PayslipArchiveEntryDTO;
 import com.payroll.dto.PayslipDTO;
 import com.payroll.entity.*;
 import com.payroll.organization.Organization;
 import com.payroll.organization.OrganizationRepository;
+import com.payroll.payslip.PayslipPdf;
+import com.payroll.payslip.PayslipStorage;
+import com.payroll.payslip.PayslipTemplate;
+import com.payroll.payslip.PayslipTemplateCache;
 import com.payroll.repository.*;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
-import java.io.ByteArrayOutputStream;
-import java.io.File;
-import java.io.FileOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class PayslipService {
 
+    private static final int ARCHIVE_BATCH_SIZE = 500;
+    private static final int ARCHIVE_BUFFER_SIZE = 64 * 1024;
+
     private final PayslipRepository payslipRepository;
     private final PayRunRepository payRunRepository;
     private final PayRunEmployeeRepository payRunEmployeeRepository;
     private final OrganizationRepository organizationRepository;
-    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final AsyncTaskExecutor renderExecutor;
+    private final PayslipTemplateCache payslipTemplateCache;
+    private final PayslipStorage payslipStorage;
+
+    public PayslipService(PayslipRepository payslipRepository,
+                          PayRunRepository payRunRepository,
+                          PayRunEmployeeRepository payRunEmployeeRepository,
+                          OrganizationRepository organizationRepository,
+                          TransactionTemplate transactionTemplate,
+                          @Qualifier("payslipRenderExecutor") AsyncTaskExecutor renderExecutor,
+                          PayslipTemplateCache payslipTemplateCache,
+                          PayslipStorage payslipStorage) {
+        this.payslipRepository = payslipRepository;
+        this.payRunRepository = payRunRepository;
+        this.payRunEmployeeRepository = payRunEmployeeRepository;
+        this.organizationRepository = organizationRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.renderExecutor = renderExecutor;
+        this.payslipTemplateCache = payslipTemplateCache;
+        this.payslipStorage = payslipStorage;
+    }
 
-    @Value("${payslip.storage.path:./payslips}")
-    private String payslipStoragePath;
+    /**
+     * Generate the payslips of a pay run in three steps: the payslip rows are written in one
+     * transaction, their PDFs are rendered on the payslip render pool, and the rendered ones
+     * are marked GENERATED together in a final transaction. No connection is held while the
+     * PDFs render. Payslips that already exist are refreshed and rendered again, and the PDFs
+     * they had before are deleted once nothing refers to them.
+     *
+     * @throws RuntimeException if a PDF fails to render; the others are still marked generated
+     */
+    public List<PayslipDTO> generatePayslips(Long payRunId, Long tenantId) {
+        log.info("Generating payslips for pay run: {}", payRunId);
 
-    @Value("${spring.mail.username:noreply@payroll.com}")
-    private String fromEmail;
+        PreparedPayslips prepared = transactionTemplate.execute(tx -> preparePayslips(payRunId, tenantId));
+        List<Payslip> payslips = prepared.payslips();
+        Organization organization = prepared.organization();
 
-    private static final DeviceRgb PRIMARY_COLOR = new DeviceRgb(236, 72, 153); // Pink-500
-    private static final DeviceRgb HEADER_BG = new DeviceRgb(248, 250, 252); // Slate-50
+        // The payslips are detached with their employees loaded, so workers only read them
+        long started = System.currentTimeMillis();
+        List<CompletableFuture<String>> renders = new ArrayList<>(payslips.size());
+        for (Payslip payslip : payslips) {
+            renders.add(renderExecutor.submitCompletable(() -> generatePdf(payslip, organization)));
+        }
 
-    @Transactional
-    public List<PayslipDTO> generatePayslips(Long payRunId, Long tenantId) {
-        log.info("Generating payslips for pay run: {}", payRunId);
+        LocalDateTime generatedAt = LocalDateTime.now();
+        Map<Long, String> pdfPaths = new HashMap<>();
+        Throwable firstFailure = null;
+        for (int i = 0; i < payslips.size(); i++) {
+            Payslip payslip = payslips.get(i);
+            try {
+                String pdfPath = renders.get(i).join();
+                markGenerated(payslip, pdfPath, generatedAt);
+                pdfPaths.put(payslip.getId(), pdfPath);
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.error("Failed to generate PDF for payslip: {}", payslip.getId(), cause);
+                if (firstFailure == null) {
+                    firstFailure = cause;
+                }
+            }
+        }
+        log.info("Pay run {}: rendered {} of {} payslip PDFs in {} ms",
+                payRunId, pdfPaths.size(), payslips.size(), System.currentTimeMillis() - started);
+
+        Set<Long> renderedEmployees = payslips.stream()
+                .filter(payslip -> pdfPaths.containsKey(payslip.getId()))
+                .map(payslip -> payslip.getPayRunEmployee().getId())
+                .collect(Collectors.toSet());
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                // Rows stay managed, so the status updates are flushed as JDBC batches on commit
+                for (Payslip payslip : payslipRepository.findByPayRunIdOrderByEmployeeIdAsc(payRunId)) {
+                    String pdfPath = pdfPaths.get(payslip.getId());
+                    if (pdfPath != null) {
+                        markGenerated(payslip, pdfPath, generatedAt);
+                    }
+                }
+                for (PayRunEmployee payRunEmployee : payRunEmployeeRepository.findByPayRunId(payRunId)) {
+                    if (renderedEmployees.contains(payRunEmployee.getId())) {
+                        payRunEmployee.setPayslipGenerated(true);
+                    }
+                }
+            });
+        } finally {
+            renders.stream()
+                    .filter(render -> !render.isCompletedExceptionally())
+                    .forEach(render -> payslipStorage.release(render.join()));
+        }
+        prepared.previousPdfs().forEach((payslipId, previous) -> {
+            String current = pdfPaths.get(payslipId);
+            if (current != null && !current.equals(previous)) {
+                deleteSuperseded(previous);
+            }
+        });
+
+        if (firstFailure != null) {
+            throw new RuntimeException(String.format("Failed to generate PDF for %d of %d payslips: %s",
+                    payslips.size() - pdfPaths.size(), payslips.size(), firstFailure.getMessage()), firstFailure);
+        }
+
+        return payslips.stream()
+                .map(payslip -> convertToDTO(payslip, organization))
+                .collect(Collectors.toList());
+    }
 
+    private PreparedPayslips preparePayslips(Long payRunId, Long tenantId) {
         PayRun payRun = payRunRepository.findByIdAndTenantId(payRunId, tenantId)
                 .orElseThrow(() -> new RuntimeException("Pay run not found"));
 
@@ -73,58 +170,53 @@ public class PayslipService {
         Organization organization = organizationRepository.findById(tenantId)
                 .orElseThrow(() -> new RuntimeException("Organization not found"));
 
-        List<PayRunEmployee> employees = payRunEmployeeRepository.findByPayRunId(payRunId);
-        
-        return employees.stream()
-                .map(pre -> generatePayslip(pre, payRun, organization))
-                .collect(Collectors.toList());
+        List<PayRunEmployee> employees = payRunEmployeeRepository.findByPayRunIdWithEmployee(payRunId);
+        Map<Long, Payslip> existing = payslipRepository.findByPayRunIdOrderByEmployeeIdAsc(payRunId).stream()
+                .collect(Collectors.toMap(p -> p.getPayRunEmployee().getId(), p -> p));
+
+        List<Payslip> payslips = new ArrayList<>(employees.size());
+        Map<Long, String> previousPdfs = new HashMap<>();
+        for (PayRunEmployee payRunEmployee : employees) {
+            Payslip payslip = existing.get(payRunEmployee.getId());
+            if (payslip != null && payslip.getPdfPath() != null) {
+                previousPdfs.put(payslip.getId(), payslip.getPdfPath());
+            } else if (payslip == null) {
+                payslip = newPayslip(payRunEmployee, payRun);
+                // One per pay run employee; a timestamp repeats when many are inserted at once
+                payslip.setPayslipNumber(String.format("PS-%d-%d", payRunId, payRunEmployee.getId()));
+            }
+            copyPayRunEmployee(payslip, payRunEmployee, payRun);
+            payslips.add(payslip);
+        }
+        return new PreparedPayslips(payslipRepository.saveAll(payslips), organization, previousPdfs);
+    }
+
+    private record PreparedPayslips(List<Payslip> payslips, Organization organization, Map<Long, String> previousPdfs) {
     }
 
     @Transactional
     public PayslipDTO generatePayslip(PayRunEmployee payRunEmployee, PayRun payRun, Organization organization) {
         // Check if payslip already exists
-        Payslip existingPayslip = payslipRepository.findByPayRunEmployeeId(payRunEmployee.getId()).orElse(null);
-        
-        Payslip payslip;
-        if (existingPayslip != null) {
-            payslip = existingPayslip;
-        } else {
-            payslip = new Payslip();
-            payslip.setPayRunEmployee(payRunEmployee);
-            payslip.setEmployee(payRunEmployee.getEmployee());
-            payslip.setTenantId(payRun.getTenantId());
-        }
-
-        // Copy data from pay run employee
-        payslip.setPayPeriodStart(payRun.getPayPeriodStart());
-        payslip.setPayPeriodEnd(payRun.getPayPeriodEnd());
-        payslip.setPayDate(payRun.getPayDate());
-        payslip.setBasicSalary(payRunEmployee.getBasicSalary());
-        payslip.setHra(payRunEmployee.getHra());
-        payslip.setConveyanceAllowance(payRunEmployee.getConveyanceAllowance());
-        payslip.setFixedAllowance(payRunEmployee.getFixedAllowance());
-        payslip.setOtherEarnings(payRunEmployee.getOtherEarnings());
-        payslip.setGrossSalary(payRunEmployee.getGrossSalary());
-        payslip.setPfEmployee(payRunEmployee.getPfEmployee());
-        payslip.setEsiEmployee(payRunEmployee.getEsiEmployee());
-        payslip.setProfessionalTax(payRunEmployee.getProfessionalTax());
-        payslip.setTds(payRunEmployee.getTds());
-        payslip.setLopDeduction(payRunEmployee.getLopDeduction());
-        payslip.setOtherDeductions(payRunEmployee.getOtherDeductions());
-        payslip.setTotalDeductions(payRunEmployee.getTotalDeductions());
-        payslip.setNetSalary(payRunEmployee.getNetSalary());
-        payslip.setWorkingDays(payRunEmployee.getWorkingDays());
-        payslip.setDaysWorked(payRunEmployee.getDaysWorked());
-        payslip.setLopDays(payRunEmployee.getLopDays());
+        Payslip payslip = payslipRepository.findByPayRunEmployeeId(payRunEmployee.getId())
+                .orElseGet(() -> newPayslip(payRunEmployee, payRun));
+        copyPayRunEmployee(payslip, payRunEmployee, payRun);
 
         payslip = payslipRepository.save(payslip);
+        String previousPdf = payslip.getPdfPath();
 
         // Generate PDF
         try {
             String pdfPath = generatePdf(payslip, organization);
-            payslip.setPdfPath(pdfPath);
-            payslip.setPdfGeneratedAt(LocalDateTime.now());
-            payslip.setStatus(Payslip.PayslipStatus.GENERATED);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    payslipStorage.release(pdfPath);
+                    if (status == STATUS_COMMITTED && previousPdf != null && !previousPdf.equals(pdfPath)) {
+                        deleteSuperseded(previousPdf);
+                    }
+                }
+            });
+            markGenerated(payslip, pdfPath, LocalDateTime.now());
             payslip = payslipRepository.save(payslip);
 
             // Update pay run employee
@@ -139,200 +231,68 @@ public class PayslipService {
         return convertToDTO(payslip, organization);
     }
 
-    public String generatePdf(Payslip payslip, Organization organization) throws IOException {
-        Employee employee = payslip.getEmployee();
-        
-        // Create directory if not exists
-        File dir = new File(payslipStoragePath);
-        if (!dir.exists()) {
-            dir.mkdirs();
-        }
-
-        String fileName = String.format("payslip_%s_%s_%s.pdf",
-                employee.getEmployeeId(),
-                payslip.getPayPeriodStart().format(DateTimeFormatter.ofPattern("yyyyMM")),
-                System.currentTimeMillis());
-        String filePath = payslipStoragePath + File.separator + fileName;
-
-        try (FileOutputStream fos = new FileOutputStream(filePath);
-             PdfWriter writer = new PdfWriter(fos);
-             PdfDocument pdf = new PdfDocument(writer);
-             Document document = new Document(pdf, PageSize.A4)) {
-
-            document.setMargins(30, 30, 30, 30);
-
-            // Header with company name
-            Paragraph header = new Paragraph(organization.getCompanyName())
-                    .setFontSize(20)
-                    .setBold()
-                    .setFontColor(PRIMARY_COLOR)
-                    .setTextAlignment(TextAlignment.CENTER);
-            document.add(header);
-
-            // Company address
-            String companyAddress = buildAddress(organization);
-            if (companyAddress != null && !companyAddress.isEmpty()) {
-                document.add(new Paragraph(companyAddress)
-                        .setFontSize(10)
-                        .setTextAlignment(TextAlignment.CENTER)
-                        .setFontColor(ColorConstants.GRAY));
-            }
-
-            document.add(new Paragraph("\n"));
-
-            // Payslip title
-            document.add(new Paragraph("PAYSLIP")
-                    .setFontSize(16)
-                    .setBold()
-                    .setTextAlignment(TextAlignment.CENTER)
-                    .setBackgroundColor(HEADER_BG)
-                    .setPadding(10));
-
-            // Pay period
-            String period = String.format("Pay Period: %s to %s",
-                    payslip.getPayPeriodStart().format(DateTimeFormatter.ofPattern("dd MMM yyyy")),
-                    payslip.getPayPeriodEnd().format(DateTimeFormatter.ofPattern("dd MMM yyyy")));
-            document.add(new Paragraph(period)
-                    .setFontSize(11)
-                    .setTextAlignment(TextAlignment.CENTER)
-                    .setMarginBottom(20));
-
-            // Employee details table
-            Table empTable = new Table(UnitValue.createPercentArray(new float[]{1, 2, 1, 2}))
-                    .useAllAvailableWidth()
-                    .setMarginBottom(20);
-
-            addEmployeeDetailCell(empTable, "Employee Name", employee.getFirstName() + " " + employee.getLastName());
-            addEmployeeDetailCell(empTable, "Employee ID", employee.getEmployeeId());
-            addEmployeeDetailCell(empTable, "Designation", employee.getDesignation());
-            addEmployeeDetailCell(empTable, "Department", employee.getDepartment());
-            addEmployeeDetailCell(empTable, "PAN", employee.getPanNumber() != null ? employee.getPanNumber() : "-");
-            addEmployeeDetailCell(empTable, "Bank Account", maskAccountNumber(employee.getAccountNumber()));
-            addEmployeeDetailCell(empTable, "Working Days", String.valueOf(payslip.getWorkingDays()));
-            addEmployeeDetailCell(empTable, "Days Worked", String.valueOf(payslip.getDaysWorked()));
-
-            document.add(empTable);
-
-            // Earnings and Deductions
-            Table salaryTable = new Table(UnitValue.createPercentArray(new float[]{3, 2, 3, 2}))
-                    .useAllAvailableWidth()
-                    .setMarginTop(10);
-
-            // Headers
-            salaryTable.addHeaderCell(createHeaderCell("EARNINGS"));
-            salaryTable.addHeaderCell(createHeaderCell("AMOUNT (₹)"));
-            salaryTable.addHeaderCell(createHeaderCell("DEDUCTIONS"));
-            salaryTable.addHeaderCell(createHeaderCell("AMOUNT (₹)"));
-
-            // Data rows
-            addSalaryRow(salaryTable, "Basic Salary", payslip.getBasicSalary(), "Provident Fund", payslip.getPfEmployee());
-            addSalaryRow(salaryTable, "House Rent Allowance", payslip.getHra(), "ESI", payslip.getEsiEmployee());
-            addSalaryRow(salaryTable, "Conveyance Allowance", payslip.getConveyanceAllowance(), "Professional Tax", payslip.getProfessionalTax());
-            addSalaryRow(salaryTable, "Fixed Allowance", payslip.getFixedAllowance(), "TDS", payslip.getTds());
-            addSalaryRow(salaryTable, "Other Earnings", payslip.getOtherEarnings(), "LOP Deduction", payslip.getLopDeduction());
-            addSalaryRow(salaryTable, "", null, "Other Deductions", payslip.getOtherDeductions());
-
-            // Totals
-            salaryTable.addCell(createTotalCell("GROSS EARNINGS"));
-            salaryTable.addCell(createTotalCell(formatAmount(payslip.getGrossSalary())));
-            salaryTable.addCell(createTotalCell("TOTAL DEDUCTIONS"));
-            salaryTable.addCell(createTotalCell(formatAmount(payslip.getTotalDeductions())));
-
-            document.add(salaryTable);
-
-            // Net Pay
-            document.add(new Paragraph("\n"));
-            Table netPayTable = new Table(UnitValue.createPercentArray(new float[]{3, 1}))
-                    .useAllAvailableWidth();
-            
-            Cell netPayLabelCell = new Cell()
-                    .add(new Paragraph("NET PAY").setBold().setFontSize(14))
-                    .setBackgroundColor(PRIMARY_COLOR)
-                    .setFontColor(ColorConstants.WHITE)
-                    .setPadding(10)
-                    .setBorder(Border.NO_BORDER);
-            
-            Cell netPayValueCell = new Cell()
-                    .add(new Paragraph("₹ " + formatAmount(payslip.getNetSalary())).setBold().setFontSize(14))
-                    .setBackgroundColor(PRIMARY_COLOR)
-                    .setFontColor(ColorConstants.WHITE)
-                    .setPadding(10)
-                    .setTextAlignment(TextAlignment.RIGHT)
-                    .setBorder(Border.NO_BORDER);
-
-            netPayTable.addCell(netPayLabelCell);
-            netPayTable.addCell(netPayValueCell);
-            document.add(netPayTable);
-
-            // Footer - removed as per user request
-        }
-
-        return filePath;
-    }
-
-    private void addEmployeeDetailCell(Table table, String label, String value) {
-        table.addCell(new Cell()
-                .add(new Paragraph(label).setFontSize(9).setFontColor(ColorConstants.GRAY))
-                .setBorder(Border.NO_BORDER)
-                .setPadding(5));
-        table.addCell(new Cell()
-                .add(new Paragraph(value != null ? value : "-").setFontSize(10).setBold())
-                .setBorder(Border.NO_BORDER)
-                .setPadding(5));
+    private Payslip newPayslip(PayRunEmployee payRunEmployee, PayRun payRun) {
+        Payslip payslip = new Payslip();
+        payslip.setPayRunEmployee(payRunEmployee);
+        payslip.setEmployee(payRunEmployee.getEmployee());
+        payslip.setTenantId(payRun.getTenantId());
+        return payslip;
     }
 
-    private Cell createHeaderCell(String text) {
-        return new Cell()
-                .add(new Paragraph(text).setBold().setFontSize(10))
-                .setBackgroundColor(HEADER_BG)
-                .setPadding(8)
-                .setTextAlignment(TextAlignment.CENTER);
-    }
-
-    private void addSalaryRow(Table table, String earning, BigDecimal earningAmt, String deduction, BigDecimal deductionAmt) {
-        table.addCell(new Cell().add(new Paragraph(earning).setFontSize(10)).setPadding(8)
-                .setBorderTop(new SolidBorder(ColorConstants.LIGHT_GRAY, 0.5f))
-                .setBorderBottom(Border.NO_BORDER)
-                .setBorderLeft(Border.NO_BORDER)
-                .setBorderRight(Border.NO_BORDER));
-        table.addCell(new Cell().add(new Paragraph(earningAmt != null ? formatAmount(earningAmt) : "").setFontSize(10))
-                .setPadding(8).setTextAlignment(TextAlignment.RIGHT)
-                .setBorderTop(new SolidBorder(ColorConstants.LIGHT_GRAY, 0.5f))
-                .setBorderBottom(Border.NO_BORDER)
-                .setBorderLeft(Border.NO_BORDER)
-                .setBorderRight(Border.NO_BORDER));
-        table.addCell(new Cell().add(new Paragraph(deduction).setFontSize(10)).setPadding(8)
-                .setBorderTop(new SolidBorder(ColorConstants.LIGHT_GRAY, 0.5f))
-                .setBorderBottom(Border.NO_BORDER)
-                .setBorderLeft(Border.NO_BORDER)
-                .setBorderRight(Border.NO_BORDER));
-        table.addCell(new Cell().add(new Paragraph(deductionAmt != null ? formatAmount(deductionAmt) : "").setFontSize(10))
-                .setPadding(8).setTextAlignment(TextAlignment.RIGHT)
-                .setBorderTop(new SolidBorder(ColorConstants.LIGHT_GRAY, 0.5f))
-                .setBorderBottom(Border.NO_BORDER)
-                .setBorderLeft(Border.NO_BORDER)
-                .setBorderRight(Border.NO_BORDER));
+    private void copyPayRunEmployee(Payslip payslip, PayRunEmployee payRunEmployee, PayRun payRun) {
+        payslip.setPayPeriodStart(payRun.getPayPeriodStart());
+        payslip.setPayPeriodEnd(payRun.getPayPeriodEnd());
+        payslip.setPayDate(payRun.getPayDate());
+        payslip.setBasicSalary(payRunEmployee.getBasicSalary());
+        payslip.setHra(payRunEmployee.getHra());
+        payslip.setConveyanceAllowance(payRunEmployee.getConveyanceAllowance());
+        payslip.setFixedAllowance(payRunEmployee.getFixedAllowance());
+        payslip.setOtherEarnings(payRunEmployee.getOtherEarnings());
+        payslip.setGrossSalary(payRunEmployee.getGrossSalary());
+        payslip.setPfEmployee(payRunEmployee.getPfEmployee());
+        payslip.setEsiEmployee(payRunEmployee.getEsiEmployee());
+        payslip.setProfessionalTax(payRunEmployee.getProfessionalTax());
+        payslip.setTds(payRunEmployee.getTds());
+        payslip.setLopDeduction(payRunEmployee.getLopDeduction());
+        payslip.setOtherDeductions(payRunEmployee.getOtherDeductions());
+        payslip.setTotalDeductions(payRunEmployee.getTotalDeductions());
+        payslip.setNetSalary(payRunEmployee.getNetSalary());
+        payslip.setWorkingDays(payRunEmployee.getWorkingDays());
+        payslip.setDaysWorked(payRunEmployee.getDaysWorked());
+        payslip.setLopDays(payRunEmployee.getLopDays());
     }
 
-    private Cell createTotalCell(String text) {
-        return new Cell()
-                .add(new Paragraph(text).setBold().setFontSize(10))
-                .setBackgroundColor(HEADER_BG)
-                .setPadding(8)
-                .setTextAlignment(TextAlignment.RIGHT);
+    private static void markGenerated(Payslip payslip, String pdfPath, LocalDateTime generatedAt) {
+        payslip.setPdfPath(pdfPath);
+        payslip.setPdfGeneratedAt(generatedAt);
+        payslip.setStatus(Payslip.PayslipStatus.GENERATED);
     }
 
-    private String formatAmount(BigDecimal amount) {
-        if (amount == null) return "0.00";
-        return String.format("%,.2f", amount);
+    /**
+     * Render the payslip and store it, returning its storage key. The key is held until
+     * released with {@link PayslipStorage#release} after the payslip referring to it commits.
+     */
+    public String generatePdf(Payslip payslip, Organization organization) throws IOException {
+        PayslipTemplate template = payslipTemplateCache.getTemplate(organization);
+        return payslipStorage.store(out -> template.render(payslip, out));
     }
 
-    private String maskAccountNumber(String accountNumber) {
-        if (accountNumber == null || accountNumber.length() < 4) return "-";
-        return "XXXX" + accountNumber.substring(accountNumber.length() - 4);
+    /**
+     * Delete a PDF a regenerated payslip no longer points at, unless another payslip does.
+     */
+    private void deleteSuperseded(String pdfPath) {
+        try {
+            payslipStorage.deleteIfUnreferenced(pdfPath, payslipRepository::existsByPdfPath);
+        } catch (IOException e) {
+            log.warn("Could not delete superseded payslip PDF {}: {}", pdfPath, e.getMessage());
+        }
     }
 
-    public byte[] getPayslipPdf(Long payslipId, Long employeeId) {
+    /**
+     * Look up the employee's payslip PDF; the content is then streamed with
+     * {@link #transferPayslipPdf}.
+     */
+    public PayslipPdf getPayslipPdf(Long payslipId, Long employeeId) {
         Payslip payslip = payslipRepository.findByIdAndEmployeeId(payslipId, employeeId)
                 .orElseThrow(() -> new RuntimeException("Payslip not found"));
 
@@ -341,85 +301,97 @@ public class PayslipService {
         }
 
         try {
-            return java.nio.file.Files.readAllBytes(java.nio.file.Paths.get(payslip.getPdfPath()));
+            return new PayslipPdf(payslip.getPdfPath(), payslipStorage.size(payslip.getPdfPath()));
         } catch (IOException e) {
             throw new RuntimeException("Failed to read payslip PDF: " + e.getMessage());
         }
     }
 
-    @Transactional
-    public void sendPayslipEmail(Long payslipId, Long tenantId) {
-        Payslip payslip = payslipRepository.findById(payslipId)
-                .orElseThrow(() -> new RuntimeException("Payslip not found"));
-
-        Employee employee = payslip.getEmployee();
-        String recipientEmail = employee.getPersonalEmail() != null ? employee.getPersonalEmail() : employee.getWorkEmail();
+    /**
+     * Copy {@code count} bytes of the PDF from {@code position} to the stream, without
+     * buffering the file.
+     */
+    public void transferPayslipPdf(PayslipPdf pdf, long position, long count, OutputStream out) throws IOException {
+        payslipStorage.transferTo(pdf.key(), position, count, Channels.newChannel(out));
+    }
 
-        if (recipientEmail == null) {
-            throw new RuntimeException("No email address found for employee");
+    /**
+     * Name of the pay run's payslip archive. Also checks that the pay run belongs to the
+     * tenant, so a missing one is reported before any of the archive is streamed.
+     */
+    @Transactional(readOnly = true)
+    public String getPayRunArchiveName(Long payRunId, Long tenantId, String department) {
+        PayRun payRun = payRunRepository.findByIdAndTenantId(payRunId, tenantId)
+                .orElseThrow(() -> new RuntimeException("Pay run not found"));
+        String name = "payslips-" + payRun.getPayRunNumber();
+        if (department != null) {
+            name += "-" + department;
         }
+        return archiveName(name) + ".zip";
+    }
 
-        Organization organization = organizationRepository.findById(tenantId)
-                .orElseThrow(() -> new RuntimeException("Organization not found"));
-
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
-
-            helper.setFrom(fromEmail);
-            helper.setTo(recipientEmail);
-            helper.setSubject(String.format("Payslip for %s %s - %s",
-                    payslip.getPayPeriodStart().format(DateTimeFormatter.ofPattern("MMM")),
-                    payslip.getPayPeriodStart().getYear(),
-                    organization.getCompanyName()));
-
-            String body = String.format("""
-                    Dear %s,
-                    
-                    Please find attached your payslip for the period %s to %s.
-                    
-                    Summary:
-                    - Gross Salary: ₹%s
-                    - Total Deductions: ₹%s
-                    - Net Pay: ₹%s
-                    
-                    You can also view your payslip in the employee portal.
-                    
-                    Best regards,
-                    %s HR Team
-                    """,
-                    employee.getFirstName(),
-                    payslip.getPayPeriodStart().format(DateTimeFormatter.ofPattern("dd MMM yyyy")),
-                    payslip.getPayPeriodEnd().format(DateTimeFormatter.ofPattern("dd MMM yyyy")),
-                    formatAmount(payslip.getGrossSalary()),
-                    formatAmount(payslip.getTotalDeductions()),
-                    formatAmount(payslip.getNetSalary()),
-                    organization.getCompanyName());
-
-            helper.setText(body);
-
-            // Attach PDF
-            if (payslip.getPdfPath() != null) {
-                File pdfFile = new File(payslip.getPdfPath());
-                if (pdfFile.exists()) {
-                    helper.addAttachment("payslip.pdf", pdfFile);
+    /**
+     * Write the pay run's rendered payslips, optionally only one department's, to the stream
+     * as a ZIP archive. PDFs are already compressed, so entries are STORED: each file is read
+     * once for its CRC and then copied as it is. Payslips are fetched in batches by id, so
+     * memory use does not grow with the size of the pay run.
+     */
+    public void writePayRunArchive(Long payRunId, Long tenantId, String department, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out, ARCHIVE_BUFFER_SIZE));
+        WritableByteChannel channel = Channels.newChannel(zip);
+        byte[] buffer = new byte[ARCHIVE_BUFFER_SIZE];
+        int written = 0;
+
+        long afterId = 0;
+        List<PayslipArchiveEntryDTO> batch;
+        do {
+            batch = payslipRepository.findArchiveEntries(payRunId, tenantId, department, afterId, Limit.of(ARCHIVE_BATCH_SIZE));
+            for (PayslipArchiveEntryDTO payslip : batch) {
+                if (writeArchiveEntry(zip, channel, payslip, buffer)) {
+                    written++;
                 }
+                afterId = payslip.getId();
             }
+        } while (batch.size() == ARCHIVE_BATCH_SIZE);
 
-            mailSender.send(message);
-
-            // Update payslip status
-            payslip.setEmailSent(true);
-            payslip.setEmailSentAt(LocalDateTime.now());
-            payslip.setStatus(Payslip.PayslipStatus.SENT);
-            payslipRepository.save(payslip);
+        zip.finish();
+        zip.flush();
+        log.info("Wrote {} payslips of pay run {} to archive", written, payRunId);
+    }
 
-            log.info("Payslip email sent to: {}", recipientEmail);
+    private boolean writeArchiveEntry(ZipOutputStream zip, WritableByteChannel channel,
+                                      PayslipArchiveEntryDTO payslip, byte[] buffer) throws IOException {
+        String key = payslip.getPdfPath();
+        long size;
+        CRC32 crc = new CRC32();
+        try (InputStream in = payslipStorage.newInputStream(key)) {
+            size = 0;
+            for (int read; (read = in.read(buffer)) != -1; size += read) {
+                crc.update(buffer, 0, read);
+            }
+        } catch (NoSuchFileException e) {
+            // Skip it rather than cut the archive short
+            log.warn("Payslip {} PDF is missing from storage, leaving it out of the archive", payslip.getPayslipNumber());
+            return false;
+        }
 
-        } catch (MessagingException e) {
-            log.error("Failed to send payslip email: {}", e.getMessage());
-            throw new RuntimeException("Failed to send email: " + e.getMessage());
+        ZipEntry entry = new ZipEntry(archiveName(payslip.getEmployeeNumber() + "_" + payslip.getFirstName() + "_"
+                + payslip.getLastName() + "_" + payslip.getPayslipNumber()) + ".pdf");
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(size);
+        entry.setCompressedSize(size);
+        entry.setCrc(crc.getValue());
+        if (payslip.getPdfGeneratedAt() != null) {
+            entry.setTimeLocal(payslip.getPdfGeneratedAt());
         }
+        zip.putNextEntry(entry);
+        payslipStorage.transferTo(key, 0, size, channel);
+        zip.closeEntry();
+        return true;
+    }
+
+    private static String archiveName(String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]+", "_");
     }
 
     @Transactional(readOnly = true)
@@ -484,33 +456,9 @@ public class PayslipService {
 
         if (organization != null) {
             dto.setCompanyName(organization.getCompanyName());
-            dto.setCompanyAddress(buildAddress(organization));
+            dto.setCompanyAddress(PayslipTemplate.companyAddress(organization));
         }
 
         return dto;
     }
-
-    private String buildAddress(Organization organization) {
-        StringBuilder sb = new StringBuilder();
-        if (organization.getAddressLine1() != null) {
-            sb.append(organization.getAddressLine1());
-        }
-        if (organization.getAddressLine2() != null && !organization.getAddressLine2().isEmpty()) {
-            if (sb.length() > 0) sb.append(", ");
-            sb.append(organization.getAddressLine2());
-        }
-        if (organization.getCity() != null) {
-            if (sb.length() > 0) sb.append(", ");
-            sb.append(organization.getCity());
-        }
-        if (organization.getState() != null) {
-            if (sb.length() > 0) sb.append(", ");
-            sb.append(organization.getState());
-        }
-        if (organization.getPinCode() != null) {
-            if (sb.length() > 0) sb.append(" - ");
-            sb.append(organization.getPinCode());
-        }
-        return sb.toString();
-    }
 }
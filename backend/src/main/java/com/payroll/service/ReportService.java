@@ -6,27 +6,35 @@ import com.payroll.dto.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ReportService {
 
+    // Rows an Excel export keeps in memory; older rows are flushed to a temporary file
+    private static final int EXPORT_ROW_WINDOW = 100;
+
     private final EmployeeRepository employeeRepository;
     private final PayRunRepository payRunRepository;
     private final PayRunEmployeeRepository payRunEmployeeRepository;
+    private final PayrollLedgerRepository payrollLedgerRepository;
     private final AttendanceRepository attendanceRepository;
     private final LeaveRequestRepository leaveRequestRepository;
+    private final TransactionTemplate transactionTemplate;
 
     // ==================== PAYROLL REPORTS ====================
 
@@ -44,6 +52,12 @@ public class ReportService {
         report.put("year", year);
         report.put("generatedAt", LocalDate.now());
         
+        // One row of sums per pay run instead of every pay run employee
+        Map<Long, PayRunTotalsDTO> totalsByPayRun = payRunEmployeeRepository
+            .sumTotalsByPayRunIds(payRuns.stream().map(PayRun::getId).toList())
+            .stream()
+            .collect(Collectors.toMap(PayRunTotalsDTO::getPayRunId, t -> t));
+
         BigDecimal totalGross = BigDecimal.ZERO;
         BigDecimal totalDeductions = BigDecimal.ZERO;
         BigDecimal totalNet = BigDecimal.ZERO;
@@ -56,17 +70,18 @@ public class ReportService {
         List<Map<String, Object>> payRunDetails = new ArrayList<>();
         
         for (PayRun payRun : payRuns) {
-            List<PayRunEmployee> employees = payRunEmployeeRepository.findByPayRunId(payRun.getId());
-            
-            for (PayRunEmployee pre : employees) {
-                totalGross = totalGross.add(pre.getGrossSalary() != null ? pre.getGrossSalary() : BigDecimal.ZERO);
-                totalDeductions = totalDeductions.add(pre.getTotalDeductions() != null ? pre.getTotalDeductions() : BigDecimal.ZERO);
-                totalNet = totalNet.add(pre.getNetSalary() != null ? pre.getNetSalary() : BigDecimal.ZERO);
-                totalPF = totalPF.add(pre.getPfEmployee() != null ? pre.getPfEmployee() : BigDecimal.ZERO);
-                totalESI = totalESI.add(pre.getEsiEmployee() != null ? pre.getEsiEmployee() : BigDecimal.ZERO);
-                totalPT = totalPT.add(pre.getProfessionalTax() != null ? pre.getProfessionalTax() : BigDecimal.ZERO);
-                totalTDS = totalTDS.add(pre.getTds() != null ? pre.getTds() : BigDecimal.ZERO);
-                employeeCount++;
+            PayRunTotalsDTO totals = totalsByPayRun.get(payRun.getId());
+            int payRunEmployees = 0;
+            if (totals != null) {
+                totalGross = totalGross.add(orZero(totals.getGrossSalary()));
+                totalDeductions = totalDeductions.add(orZero(totals.getTotalDeductions()));
+                totalNet = totalNet.add(orZero(totals.getNetSalary()));
+                totalPF = totalPF.add(orZero(totals.getPfEmployee()));
+                totalESI = totalESI.add(orZero(totals.getEsiEmployee()));
+                totalPT = totalPT.add(orZero(totals.getProfessionalTax()));
+                totalTDS = totalTDS.add(orZero(totals.getTds()));
+                payRunEmployees = totals.getEmployeeCount().intValue();
+                employeeCount += payRunEmployees;
             }
             
             Map<String, Object> prDetail = new HashMap<>();
@@ -76,7 +91,7 @@ public class ReportService {
             prDetail.put("periodEnd", payRun.getPayPeriodEnd());
             prDetail.put("totalGross", payRun.getTotalGrossPay());
             prDetail.put("totalNet", payRun.getTotalNetPay());
-            prDetail.put("employeeCount", employees.size());
+            prDetail.put("employeeCount", payRunEmployees);
             payRunDetails.add(prDetail);
         }
         
@@ -99,42 +114,34 @@ public class ReportService {
     public List<Map<String, Object>> getEmployeePayrollReport(Long tenantId, Long employeeId, int year) {
         log.info("Generating employee payroll report for employee: {} in year: {}", employeeId, year);
         
+        // Completed payroll for the calendar year, one ledger row per month
+        List<PayrollLedger> months = payrollLedgerRepository
+            .findByTenantIdAndEmployeeIdAndPeriodMonthBetweenOrderByPeriodMonth(
+                tenantId, employeeId, LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 1));
+        
         List<Map<String, Object>> monthlyData = new ArrayList<>();
         
-        for (int month = 1; month <= 12; month++) {
-            LocalDate startDate = LocalDate.of(year, month, 1);
-            LocalDate endDate = startDate.withDayOfMonth(startDate.lengthOfMonth());
-            
-            List<PayRun> payRuns = payRunRepository.findByTenantIdAndPayPeriodStartBetween(
-                tenantId, startDate, endDate);
-            
-            for (PayRun payRun : payRuns) {
-                Optional<PayRunEmployee> preOpt = payRunEmployeeRepository
-                    .findByPayRunIdAndEmployeeId(payRun.getId(), employeeId);
-                
-                if (preOpt.isPresent()) {
-                    PayRunEmployee pre = preOpt.get();
-                    Map<String, Object> data = new HashMap<>();
-                    data.put("month", month);
-                    data.put("year", year);
-                    data.put("monthName", YearMonth.of(year, month).getMonth().toString());
-                    data.put("basicSalary", pre.getBasicSalary());
-                    data.put("hra", pre.getHra());
-                    data.put("conveyance", pre.getConveyanceAllowance());
-                    data.put("fixedAllowance", pre.getFixedAllowance());
-                    data.put("grossSalary", pre.getGrossSalary());
-                    data.put("pfEmployee", pre.getPfEmployee());
-                    data.put("esiEmployee", pre.getEsiEmployee());
-                    data.put("professionalTax", pre.getProfessionalTax());
-                    data.put("tds", pre.getTds());
-                    data.put("lopDays", pre.getLopDays());
-                    data.put("lopDeduction", pre.getLopDeduction());
-                    data.put("totalDeductions", pre.getTotalDeductions());
-                    data.put("netSalary", pre.getNetSalary());
-                    data.put("payRunStatus", payRun.getStatus());
-                    monthlyData.add(data);
-                }
-            }
+        for (PayrollLedger ledger : months) {
+            int month = ledger.getPeriodMonth().getMonthValue();
+            Map<String, Object> data = new HashMap<>();
+            data.put("month", month);
+            data.put("year", year);
+            data.put("monthName", YearMonth.of(year, month).getMonth().toString());
+            data.put("basicSalary", ledger.getBasicSalary());
+            data.put("hra", ledger.getHra());
+            data.put("conveyance", ledger.getConveyanceAllowance());
+            data.put("fixedAllowance", ledger.getFixedAllowance());
+            data.put("grossSalary", ledger.getGrossSalary());
+            data.put("pfEmployee", ledger.getPfEmployee());
+            data.put("esiEmployee", ledger.getEsiEmployee());
+            data.put("professionalTax", ledger.getProfessionalTax());
+            data.put("tds", ledger.getTds());
+            data.put("lopDays", ledger.getLopDays());
+            data.put("lopDeduction", ledger.getLopDeduction());
+            data.put("totalDeductions", ledger.getTotalDeductions());
+            data.put("netSalary", ledger.getNetSalary());
+            data.put("payRunStatus", PayRun.PayRunStatus.COMPLETED);
+            monthlyData.add(data);
         }
         
         return monthlyData;
@@ -145,48 +152,23 @@ public class ReportService {
     public Map<String, Object> getTaxSummaryReport(Long tenantId, String financialYear) {
         log.info("Generating tax summary report for tenant: {}, FY: {}", tenantId, financialYear);
         
-        // Parse financial year (e.g., "2025-26")
-        String[] years = financialYear.split("-");
-        int startYear = Integer.parseInt(years[0]);
+        // Financial year (e.g., "2025-26") summed per employee from the ledger
+        List<TaxLedgerTotalsDTO> totals = payrollLedgerRepository.sumTaxByFinancialYear(
+            tenantId, PayrollLedger.parseFinancialYear(financialYear));
         
-        LocalDate fyStart = LocalDate.of(startYear, 4, 1);
-        LocalDate fyEnd = LocalDate.of(startYear + 1, 3, 31);
-        
-        List<Employee> employees = employeeRepository.findByTenantId(tenantId);
         List<Map<String, Object>> employeeTaxData = new ArrayList<>();
-        
         BigDecimal totalTaxDeducted = BigDecimal.ZERO;
         
-        for (Employee emp : employees) {
-            BigDecimal empTotalTax = BigDecimal.ZERO;
-            BigDecimal empTotalGross = BigDecimal.ZERO;
-            
-            // Get all pay runs for this employee in the FY
-            List<PayRun> payRuns = payRunRepository.findByTenantIdAndPayPeriodStartBetween(
-                tenantId, fyStart, fyEnd);
-            
-            for (PayRun payRun : payRuns) {
-                Optional<PayRunEmployee> preOpt = payRunEmployeeRepository
-                    .findByPayRunIdAndEmployeeId(payRun.getId(), emp.getId());
-                
-                if (preOpt.isPresent()) {
-                    PayRunEmployee pre = preOpt.get();
-                    empTotalTax = empTotalTax.add(pre.getTds() != null ? pre.getTds() : BigDecimal.ZERO);
-                    empTotalGross = empTotalGross.add(pre.getGrossSalary() != null ? pre.getGrossSalary() : BigDecimal.ZERO);
-                }
-            }
+        for (TaxLedgerTotalsDTO emp : totals) {
+            Map<String, Object> empData = new HashMap<>();
+            empData.put("employeeId", emp.getEmployeeId());
+            empData.put("name", emp.getFirstName() + " " + emp.getLastName());
+            empData.put("pan", emp.getPanNumber());
+            empData.put("totalGross", emp.getTotalGross());
+            empData.put("totalTaxDeducted", emp.getTotalTax());
+            employeeTaxData.add(empData);
             
-            if (empTotalGross.compareTo(BigDecimal.ZERO) > 0) {
-                Map<String, Object> empData = new HashMap<>();
-                empData.put("employeeId", emp.getEmployeeId());
-                empData.put("name", emp.getFirstName() + " " + emp.getLastName());
-                empData.put("pan", emp.getPanNumber());
-                empData.put("totalGross", empTotalGross);
-                empData.put("totalTaxDeducted", empTotalTax);
-                employeeTaxData.add(empData);
-                
-                totalTaxDeducted = totalTaxDeducted.add(empTotalTax);
-            }
+            totalTaxDeducted = totalTaxDeducted.add(emp.getTotalTax());
         }
         
         Map<String, Object> report = new HashMap<>();
@@ -214,26 +196,21 @@ public class ReportService {
         BigDecimal totalEmployeePF = BigDecimal.ZERO;
         BigDecimal totalEmployerPF = BigDecimal.ZERO;
         
-        for (PayRun payRun : payRuns) {
-            List<PayRunEmployee> employees = payRunEmployeeRepository.findByPayRunId(payRun.getId());
+        for (PFContributionDTO pf : payRunEmployeeRepository.findPFContributionsByPayRunIds(
+                payRuns.stream().map(PayRun::getId).toList())) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("employeeId", pf.getEmployeeId());
+            data.put("name", pf.getFirstName() + " " + pf.getLastName());
+            data.put("uan", pf.getUan());
+            data.put("pfNumber", pf.getPfNumber());
+            data.put("basicWages", pf.getBasicWages());
+            data.put("employeeShare", pf.getEmployeeShare());
+            data.put("employerShare", pf.getEmployerShare());
+            data.put("total", orZero(pf.getEmployeeShare()).add(orZero(pf.getEmployerShare())));
+            pfData.add(data);
             
-            for (PayRunEmployee pre : employees) {
-                Employee emp = pre.getEmployee();
-                
-                Map<String, Object> data = new HashMap<>();
-                data.put("employeeId", emp.getEmployeeId());
-                data.put("name", emp.getFirstName() + " " + emp.getLastName());
-                data.put("uan", emp.getUan());
-                data.put("pfNumber", emp.getPfNumber());
-                data.put("basicWages", pre.getBasicSalary());
-                data.put("employeeShare", pre.getPfEmployee());
-                data.put("employerShare", pre.getPfEmployer());
-                data.put("total", pre.getPfEmployee().add(pre.getPfEmployer()));
-                pfData.add(data);
-                
-                totalEmployeePF = totalEmployeePF.add(pre.getPfEmployee() != null ? pre.getPfEmployee() : BigDecimal.ZERO);
-                totalEmployerPF = totalEmployerPF.add(pre.getPfEmployer() != null ? pre.getPfEmployer() : BigDecimal.ZERO);
-            }
+            totalEmployeePF = totalEmployeePF.add(orZero(pf.getEmployeeShare()));
+            totalEmployerPF = totalEmployerPF.add(orZero(pf.getEmployerShare()));
         }
         
         Map<String, Object> report = new HashMap<>();
@@ -262,27 +239,20 @@ public class ReportService {
         BigDecimal totalEmployeeESI = BigDecimal.ZERO;
         BigDecimal totalEmployerESI = BigDecimal.ZERO;
         
-        for (PayRun payRun : payRuns) {
-            List<PayRunEmployee> employees = payRunEmployeeRepository.findByPayRunId(payRun.getId());
+        for (ESIContributionDTO esi : payRunEmployeeRepository.findESIContributionsByPayRunIds(
+                payRuns.stream().map(PayRun::getId).toList())) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("employeeId", esi.getEmployeeId());
+            data.put("name", esi.getFirstName() + " " + esi.getLastName());
+            data.put("esiNumber", esi.getEsiNumber());
+            data.put("grossWages", esi.getGrossWages());
+            data.put("employeeShare", esi.getEmployeeShare());
+            data.put("employerShare", esi.getEmployerShare());
+            data.put("total", esi.getEmployeeShare().add(orZero(esi.getEmployerShare())));
+            esiData.add(data);
             
-            for (PayRunEmployee pre : employees) {
-                if (pre.getEsiEmployee() != null && pre.getEsiEmployee().compareTo(BigDecimal.ZERO) > 0) {
-                    Employee emp = pre.getEmployee();
-                    
-                    Map<String, Object> data = new HashMap<>();
-                    data.put("employeeId", emp.getEmployeeId());
-                    data.put("name", emp.getFirstName() + " " + emp.getLastName());
-                    data.put("esiNumber", emp.getEsiNumber());
-                    data.put("grossWages", pre.getGrossSalary());
-                    data.put("employeeShare", pre.getEsiEmployee());
-                    data.put("employerShare", pre.getEsiEmployer());
-                    data.put("total", pre.getEsiEmployee().add(pre.getEsiEmployer()));
-                    esiData.add(data);
-                    
-                    totalEmployeeESI = totalEmployeeESI.add(pre.getEsiEmployee());
-                    totalEmployerESI = totalEmployerESI.add(pre.getEsiEmployer() != null ? pre.getEsiEmployer() : BigDecimal.ZERO);
-                }
-            }
+            totalEmployeeESI = totalEmployeeESI.add(esi.getEmployeeShare());
+            totalEmployerESI = totalEmployerESI.add(orZero(esi.getEmployerShare()));
         }
         
         Map<String, Object> report = new HashMap<>();
@@ -304,30 +274,32 @@ public class ReportService {
     public Map<String, Object> getAttendanceReport(Long tenantId, int month, int year) {
         log.info("Generating attendance report for tenant: {}, month: {}/{}", tenantId, month, year);
         
+        LocalDate startDate = LocalDate.of(year, month, 1);
+        LocalDate endDate = startDate.withDayOfMonth(startDate.lengthOfMonth());
+        
         List<Employee> employees = employeeRepository.findByTenantId(tenantId);
         List<Map<String, Object>> attendanceData = new ArrayList<>();
         
+        // Every employee's month counted by status in one grouped query
+        Map<Long, AttendanceStatusCountsDTO> countsByEmployee = attendanceRepository
+            .countStatusesByOrganizationIdAndDateBetween(tenantId, startDate, endDate)
+            .stream()
+            .collect(Collectors.toMap(AttendanceStatusCountsDTO::getEmployeeId, c -> c));
+        
         int totalPresent = 0;
         int totalAbsent = 0;
         int totalLeave = 0;
         int totalHalfDay = 0;
         
         for (Employee emp : employees) {
-            List<Attendance> records = attendanceRepository.findByEmployeeIdAndMonthYear(
-                emp.getId(), month, year);
-            
-            int present = 0, absent = 0, leave = 0, halfDay = 0, holiday = 0, weekend = 0;
-            
-            for (Attendance att : records) {
-                switch (att.getStatus()) {
-                    case "PRESENT": present++; break;
-                    case "ABSENT": absent++; break;
-                    case "LEAVE": leave++; break;
-                    case "HALF_DAY": halfDay++; break;
-                    case "HOLIDAY": holiday++; break;
-                    case "WEEKEND": weekend++; break;
-                }
-            }
+            AttendanceStatusCountsDTO counts = countsByEmployee.get(emp.getId());
+            int records = counts != null ? counts.getTotalDays().intValue() : 0;
+            int present = counts != null ? counts.getPresent().intValue() : 0;
+            int absent = counts != null ? counts.getAbsent().intValue() : 0;
+            int leave = counts != null ? counts.getLeave().intValue() : 0;
+            int halfDay = counts != null ? counts.getHalfDay().intValue() : 0;
+            int holiday = counts != null ? counts.getHoliday().intValue() : 0;
+            int weekend = counts != null ? counts.getWeekend().intValue() : 0;
             
             Map<String, Object> data = new HashMap<>();
             data.put("employeeId", emp.getEmployeeId());
@@ -339,8 +311,8 @@ public class ReportService {
             data.put("halfDay", halfDay);
             data.put("holiday", holiday);
             data.put("weekend", weekend);
-            data.put("totalRecords", records.size());
-            data.put("attendanceRate", records.size() > 0 ? 
+            data.put("totalRecords", records);
+            data.put("attendanceRate", records > 0 ? 
                 Math.round((present + halfDay * 0.5) / (double)(present + absent + halfDay) * 100) : 0);
             attendanceData.add(data);
             
@@ -368,70 +340,115 @@ public class ReportService {
 
     // ==================== EXCEL EXPORT ====================
 
-    public byte[] exportPayrollToExcel(Long tenantId, int month, int year) throws Exception {
+    /**
+     * Write the payroll report for the month to the stream as an Excel workbook: the summary
+     * on the first sheet and one row per pay run employee on the second. Rows are read from a
+     * database cursor and written through a streaming workbook that keeps only the last
+     * {@value #EXPORT_ROW_WINDOW} rows in memory, so the export size is not bounded by the heap.
+     * The transaction covers only reading into the workbook; the connection is released before
+     * the workbook is sent to the client.
+     */
+    public void writePayrollExcel(Long tenantId, int month, int year, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXPORT_ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            Integer exported = transactionTemplate.execute(tx -> fillPayrollWorkbook(workbook, tenantId, month, year));
+            workbook.write(out);
+            log.info("Exported payroll for tenant {} {}/{}: {} employee rows", tenantId, month, year, exported);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    /**
+     * Build both payroll sheets and return the number of employee rows.
+     */
+    private int fillPayrollWorkbook(SXSSFWorkbook workbook, Long tenantId, int month, int year) {
         Map<String, Object> report = getPayrollSummaryReport(tenantId, month, year);
+        LocalDate startDate = LocalDate.of(year, month, 1);
+        LocalDate endDate = startDate.withDayOfMonth(startDate.lengthOfMonth());
+
+        CellStyle headerStyle = exportHeaderStyle(workbook);
+        headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+        headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        CellStyle amountStyle = workbook.createCellStyle();
+        amountStyle.setDataFormat(workbook.createDataFormat().getFormat("#,##0.00"));
+        
+        Sheet sheet = workbook.createSheet("Payroll Report");
+        sheet.setColumnWidth(0, 30 * 256);
+        sheet.setColumnWidth(1, 20 * 256);
+        
+        // Title row
+        Row titleRow = sheet.createRow(0);
+        Cell titleCell = titleRow.createCell(0);
+        titleCell.setCellValue("Payroll Report - " + month + "/" + year);
+        
+        // Summary section
+        Row summaryHeaderRow = sheet.createRow(2);
+        summaryHeaderRow.createCell(0).setCellValue("Summary");
+        
+        @SuppressWarnings("unchecked")
+        Map<String, Object> summary = (Map<String, Object>) report.get("summary");
+        
+        int rowNum = 3;
+        for (Map.Entry<String, Object> entry : summary.entrySet()) {
+            Row row = sheet.createRow(rowNum++);
+            row.createCell(0).setCellValue(entry.getKey());
+            row.createCell(1).setCellValue(entry.getValue().toString());
+        }
         
-        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("Payroll Report");
-            
-            // Header style
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerStyle.setFont(headerFont);
-            headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            
-            // Title row
-            Row titleRow = sheet.createRow(0);
-            Cell titleCell = titleRow.createCell(0);
-            titleCell.setCellValue("Payroll Report - " + month + "/" + year);
-            
-            // Summary section
-            Row summaryHeaderRow = sheet.createRow(2);
-            summaryHeaderRow.createCell(0).setCellValue("Summary");
-            
-            @SuppressWarnings("unchecked")
-            Map<String, Object> summary = (Map<String, Object>) report.get("summary");
-            
-            int rowNum = 3;
-            for (Map.Entry<String, Object> entry : summary.entrySet()) {
-                Row row = sheet.createRow(rowNum++);
-                row.createCell(0).setCellValue(entry.getKey());
-                row.createCell(1).setCellValue(entry.getValue().toString());
-            }
-            
-            // Auto-size columns
-            for (int i = 0; i < 10; i++) {
-                sheet.autoSizeColumn(i);
+        // Employee detail, widths fixed up front since streamed rows cannot be auto-sized
+        Sheet details = workbook.createSheet("Employees");
+        String[] headers = {"Pay Run", "Employee ID", "Name", "Department", "Designation", "Working Days", "LOP Days",
+            "Basic", "HRA", "Conveyance", "Fixed Allowance", "Other Earnings", "Gross Salary",
+            "PF", "ESI", "Professional Tax", "TDS", "Other Deductions", "Total Deductions", "Net Salary"};
+        int[] widths = {18, 14, 28, 20, 24, 13, 10, 14, 14, 14, 16, 15, 15, 12, 12, 16, 12, 17, 17, 15};
+        writeExportHeader(details, headers, widths, headerStyle);
+        details.createFreezePane(0, 1);
+        
+        int detailRow = 1;
+        try (Stream<PayrollExportRowDTO> rows = payRunEmployeeRepository.streamPayrollExportRows(tenantId, startDate, endDate)) {
+            for (PayrollExportRowDTO line : (Iterable<PayrollExportRowDTO>) rows::iterator) {
+                Row row = details.createRow(detailRow++);
+                row.createCell(0).setCellValue(line.getPayRunNumber());
+                row.createCell(1).setCellValue(line.getEmployeeId());
+                row.createCell(2).setCellValue(line.getFirstName() + " " + line.getLastName());
+                row.createCell(3).setCellValue(line.getDepartment() != null ? line.getDepartment() : "");
+                row.createCell(4).setCellValue(line.getDesignation() != null ? line.getDesignation() : "");
+                row.createCell(5).setCellValue(line.getWorkingDays() != null ? line.getWorkingDays() : 0);
+                row.createCell(6).setCellValue(line.getLopDays() != null ? line.getLopDays() : 0);
+                BigDecimal[] amounts = {line.getBasicSalary(), line.getHra(), line.getConveyanceAllowance(),
+                    line.getFixedAllowance(), line.getOtherEarnings(), line.getGrossSalary(), line.getPfEmployee(),
+                    line.getEsiEmployee(), line.getProfessionalTax(), line.getTds(), line.getOtherDeductions(),
+                    line.getTotalDeductions(), line.getNetSalary()};
+                for (int i = 0; i < amounts.length; i++) {
+                    Cell cell = row.createCell(7 + i);
+                    cell.setCellValue(orZero(amounts[i]).doubleValue());
+                    cell.setCellStyle(amountStyle);
+                }
             }
-            
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            workbook.write(out);
-            return out.toByteArray();
         }
+
+        return detailRow - 1;
     }
 
-    public byte[] exportAttendanceToExcel(Long tenantId, int month, int year) throws Exception {
+    /**
+     * Write the attendance report for the month to the stream as an Excel workbook, through
+     * a streaming workbook with fixed column widths.
+     */
+    public void writeAttendanceExcel(Long tenantId, int month, int year, OutputStream out) throws IOException {
         Map<String, Object> report = getAttendanceReport(tenantId, month, year);
         
-        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXPORT_ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
             Sheet sheet = workbook.createSheet("Attendance Report");
             
-            // Header style
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerStyle.setFont(headerFont);
-            
             // Headers
-            Row headerRow = sheet.createRow(0);
             String[] headers = {"Employee ID", "Name", "Department", "Present", "Absent", "Leave", "Half Day", "Attendance %"};
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-                cell.setCellStyle(headerStyle);
-            }
+            int[] widths = {14, 28, 20, 10, 10, 10, 10, 14};
+            writeExportHeader(sheet, headers, widths, exportHeaderStyle(workbook));
             
             // Data
             @SuppressWarnings("unchecked")
@@ -450,14 +467,33 @@ public class ReportService {
                 row.createCell(7).setCellValue(emp.get("attendanceRate") + "%");
             }
             
-            // Auto-size columns
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
-            }
-            
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
             workbook.write(out);
-            return out.toByteArray();
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private static CellStyle exportHeaderStyle(Workbook workbook) {
+        CellStyle headerStyle = workbook.createCellStyle();
+        Font headerFont = workbook.createFont();
+        headerFont.setBold(true);
+        headerStyle.setFont(headerFont);
+        return headerStyle;
+    }
+
+    // Widths are in characters
+    private static void writeExportHeader(Sheet sheet, String[] headers, int[] widths, CellStyle style) {
+        Row headerRow = sheet.createRow(0);
+        for (int i = 0; i < headers.length; i++) {
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(headers[i]);
+            cell.setCellStyle(style);
+            sheet.setColumnWidth(i, widths[i] * 256);
         }
     }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
 }
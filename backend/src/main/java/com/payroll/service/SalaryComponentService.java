@@ -2,10 +2,14 @@ package com.payroll.service;
 
 import com.payroll.dto.SalaryComponentDTO;
 import com.payroll.entity.SalaryComponent;
+import com.payroll.enums.CalculationType;
 import com.payroll.enums.ComponentType;
 import com.payroll.organization.Organization;
 import com.payroll.organization.OrganizationRepository;
 import com.payroll.repository.SalaryComponentRepository;
+import com.payroll.salary.SalaryFormula;
+import com.payroll.salary.SalaryStructure;
+import com.payroll.salary.SalaryStructureCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,6 +23,7 @@ public class SalaryComponentService {
 
     private final SalaryComponentRepository salaryComponentRepository;
     private final OrganizationRepository organizationRepository;
+    private final SalaryStructureCache salaryStructureCache;
 
     @Transactional(readOnly = true)
     public List<SalaryComponentDTO> getAllComponents(Long organizationId) {
@@ -50,6 +55,8 @@ public class SalaryComponentService {
             throw new RuntimeException("Component with code " + dto.getCode() + " already exists");
         }
 
+        validateFormula(dto);
+
         Organization organization = organizationRepository.findById(dto.getOrganizationId())
                 .orElseThrow(() -> new RuntimeException("Organization not found"));
 
@@ -74,6 +81,7 @@ public class SalaryComponentService {
         }
 
         SalaryComponent saved = salaryComponentRepository.save(component);
+        refreshStructure(organization.getId(), saved.getId());
         return convertToDTO(saved);
     }
 
@@ -88,6 +96,7 @@ public class SalaryComponentService {
                         dto.getCode())) {
             throw new RuntimeException("Component with code " + dto.getCode() + " already exists");
         }
+        validateFormula(dto);
 
         component.setName(dto.getName());
         component.setCode(dto.getCode());
@@ -110,6 +119,7 @@ public class SalaryComponentService {
         }
 
         SalaryComponent updated = salaryComponentRepository.save(component);
+        refreshStructure(component.getOrganization().getId(), updated.getId());
         return convertToDTO(updated);
     }
 
@@ -121,6 +131,26 @@ public class SalaryComponentService {
         // Soft delete
         component.setIsActive(false);
         salaryComponentRepository.save(component);
+        salaryStructureCache.invalidate(component.getOrganization().getId());
+    }
+
+    private void refreshStructure(Long organizationId, Long changedComponentId) {
+        // Reject a change that leaves the component uncalculable, e.g. in a circular
+        // reference, before it is committed
+        SalaryStructure.compile(organizationId, salaryComponentRepository.findByOrganizationId(organizationId))
+                .requireValid(changedComponentId);
+        salaryStructureCache.invalidate(organizationId);
+    }
+
+    private void validateFormula(SalaryComponentDTO dto) {
+        if (dto.getCalculationType() != CalculationType.FORMULA) {
+            return;
+        }
+        try {
+            SalaryFormula.parse(dto.getFormula());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid formula: " + e.getMessage());
+        }
     }
 
     private SalaryComponentDTO convertToDTO(SalaryComponent component) {
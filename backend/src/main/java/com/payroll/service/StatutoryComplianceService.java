@@ -4,6 +4,7 @@ import com.payroll.dto.EmployeeStatutoryInfoDTO;
 import com.payroll.dto.StatutorySettingsDTO;
 import com.payroll.entity.*;
 import com.payroll.repository.*;
+import com.payroll.util.Paise;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -25,6 +26,14 @@ public class StatutoryComplianceService {
     private final ProfessionalTaxSlabRepository professionalTaxSlabRepository;
     private final EmployeeRepository employeeRepository;
 
+    // Default (Tamil Nadu) PT slabs
+    private static final BigDecimal DEFAULT_PT_EXEMPT_BELOW = new BigDecimal("3500");
+    private static final BigDecimal DEFAULT_PT_SLAB_1_LIMIT = new BigDecimal("5000");
+    private static final BigDecimal DEFAULT_PT_SLAB_2_LIMIT = new BigDecimal("10000");
+    private static final BigDecimal DEFAULT_PT_SLAB_1 = new BigDecimal("22.50");
+    private static final BigDecimal DEFAULT_PT_SLAB_2 = new BigDecimal("52.50");
+    private static final BigDecimal DEFAULT_PT_SLAB_3 = new BigDecimal("208");
+
     // ==================== STATUTORY SETTINGS ====================
 
     @Transactional(readOnly = true)
@@ -140,6 +149,8 @@ public class StatutoryComplianceService {
     }
 
     // ==================== PF CALCULATIONS ====================
+    // PF and ESI are computed in whole paise: wages with finer fractions are rounded half up
+    // to the paisa first, as every stored salary amount already is.
 
     public BigDecimal calculatePFEmployee(BigDecimal basicSalary, Long tenantId) {
         StatutorySettings settings = statutorySettingsRepository.findByTenantId(tenantId)
@@ -154,8 +165,9 @@ public class StatutoryComplianceService {
             pfWage = settings.getPfWageCeiling();
         }
 
-        return pfWage.multiply(settings.getPfEmployeeRate().divide(BigDecimal.valueOf(100)))
-                .setScale(0, RoundingMode.HALF_UP);
+        long pf = Paise.multiply(toPaise(pfWage), Paise.Rate.ofPercent(settings.getPfEmployeeRate()), 0,
+                RoundingMode.HALF_UP);
+        return Paise.toBigDecimal(pf, 0);
     }
 
     public BigDecimal calculatePFEmployer(BigDecimal basicSalary, Long tenantId) {
@@ -171,8 +183,9 @@ public class StatutoryComplianceService {
             pfWage = settings.getPfWageCeiling();
         }
 
-        return pfWage.multiply(settings.getPfEmployerRate().divide(BigDecimal.valueOf(100)))
-                .setScale(0, RoundingMode.HALF_UP);
+        long pf = Paise.multiply(toPaise(pfWage), Paise.Rate.ofPercent(settings.getPfEmployerRate()), 0,
+                RoundingMode.HALF_UP);
+        return Paise.toBigDecimal(pf, 0);
     }
 
     // ==================== ESI CALCULATIONS ====================
@@ -189,8 +202,9 @@ public class StatutoryComplianceService {
             return BigDecimal.ZERO;
         }
 
-        return grossSalary.multiply(settings.getEsiEmployeeRate().divide(BigDecimal.valueOf(100)))
-                .setScale(0, RoundingMode.HALF_UP);
+        long esi = Paise.multiply(toPaise(grossSalary), Paise.Rate.ofPercent(settings.getEsiEmployeeRate()), 0,
+                RoundingMode.HALF_UP);
+        return Paise.toBigDecimal(esi, 0);
     }
 
     public BigDecimal calculateESIEmployer(BigDecimal grossSalary, Long tenantId) {
@@ -205,8 +219,9 @@ public class StatutoryComplianceService {
             return BigDecimal.ZERO;
         }
 
-        return grossSalary.multiply(settings.getEsiEmployerRate().divide(BigDecimal.valueOf(100)))
-                .setScale(0, RoundingMode.HALF_UP);
+        long esi = Paise.multiply(toPaise(grossSalary), Paise.Rate.ofPercent(settings.getEsiEmployerRate()), 0,
+                RoundingMode.HALF_UP);
+        return Paise.toBigDecimal(esi, 0);
     }
 
     // ==================== PROFESSIONAL TAX ====================
@@ -247,17 +262,21 @@ public class StatutoryComplianceService {
 
     private BigDecimal calculateDefaultPT(BigDecimal grossSalary) {
         // Tamil Nadu PT slabs
-        if (grossSalary.compareTo(new BigDecimal("3500")) < 0) {
+        if (grossSalary.compareTo(DEFAULT_PT_EXEMPT_BELOW) < 0) {
             return BigDecimal.ZERO;
-        } else if (grossSalary.compareTo(new BigDecimal("5000")) <= 0) {
-            return new BigDecimal("22.50");
-        } else if (grossSalary.compareTo(new BigDecimal("10000")) <= 0) {
-            return new BigDecimal("52.50");
+        } else if (grossSalary.compareTo(DEFAULT_PT_SLAB_1_LIMIT) <= 0) {
+            return DEFAULT_PT_SLAB_1;
+        } else if (grossSalary.compareTo(DEFAULT_PT_SLAB_2_LIMIT) <= 0) {
+            return DEFAULT_PT_SLAB_2;
         } else {
-            return new BigDecimal("208");
+            return DEFAULT_PT_SLAB_3;
         }
     }
 
+    private static long toPaise(BigDecimal amount) {
+        return Paise.of(amount.setScale(2, RoundingMode.HALF_UP));
+    }
+
     // ==================== PT SLABS MANAGEMENT ====================
 
     @Transactional(readOnly = true)
@@ -41,6 +41,50 @@ public class TDSCalculationService {
     private static final BigDecimal SECTION_80TTA_LIMIT = new BigDecimal("10000");
     private static final BigDecimal SECTION_24_LIMIT = new BigDecimal("200000");
     private static final BigDecimal CESS_RATE = new BigDecimal("0.04");
+    private static final BigDecimal STANDARD_DEDUCTION_NEW = new BigDecimal("75000");
+    private static final BigDecimal PROFESSIONAL_TAX_ANNUAL = new BigDecimal("2500");
+    private static final BigDecimal SECTION_80D_CHECKUP_LIMIT = new BigDecimal("5000");
+    private static final BigDecimal HRA_BASIC_SHARE = new BigDecimal("0.10");
+    private static final BigDecimal HRA_METRO_SHARE = new BigDecimal("0.50");
+    private static final BigDecimal HRA_NON_METRO_SHARE = new BigDecimal("0.40");
+
+    // Surcharge: rate on tax for taxable income above each threshold
+    private static final BigDecimal SURCHARGE_THRESHOLD_50L = new BigDecimal("5000000");
+    private static final BigDecimal SURCHARGE_THRESHOLD_1CR = new BigDecimal("10000000");
+    private static final BigDecimal SURCHARGE_THRESHOLD_2CR = new BigDecimal("20000000");
+    private static final BigDecimal SURCHARGE_THRESHOLD_5CR = new BigDecimal("50000000");
+    private static final BigDecimal SURCHARGE_RATE_50L = new BigDecimal("0.10");
+    private static final BigDecimal SURCHARGE_RATE_1CR = new BigDecimal("0.15");
+    private static final BigDecimal SURCHARGE_RATE_2CR = new BigDecimal("0.25");
+    private static final BigDecimal SURCHARGE_RATE_5CR = new BigDecimal("0.37");
+
+    private static final List<TaxSlab> OLD_REGIME_SLABS = List.of(
+            TaxSlab.of("0", "250000", "0"),
+            TaxSlab.of("250000", "500000", "5"),
+            TaxSlab.of("500000", "1000000", "20"),
+            TaxSlab.of("1000000", null, "30"));
+
+    // New regime slabs (FY 2024-25 onwards)
+    private static final List<TaxSlab> NEW_REGIME_SLABS = List.of(
+            TaxSlab.of("0", "300000", "0"),
+            TaxSlab.of("300000", "700000", "5"),
+            TaxSlab.of("700000", "1000000", "10"),
+            TaxSlab.of("1000000", "1200000", "15"),
+            TaxSlab.of("1200000", "1500000", "20"),
+            TaxSlab.of("1500000", null, "30"));
+
+    /**
+     * An income tax slab; the top slab has no upper limit.
+     */
+    private record TaxSlab(BigDecimal from, BigDecimal to, BigDecimal ratePercent, BigDecimal rate, BigDecimal width) {
+        static TaxSlab of(String from, String to, String ratePercent) {
+            BigDecimal lower = new BigDecimal(from);
+            BigDecimal upper = to != null ? new BigDecimal(to) : null;
+            BigDecimal percent = new BigDecimal(ratePercent);
+            return new TaxSlab(lower, upper, percent, percent.movePointLeft(2),
+                    upper != null ? upper.subtract(lower) : null);
+        }
+    }
 
     // ==================== TAX DECLARATION ====================
 
@@ -237,7 +281,7 @@ public class TDSCalculationService {
         // Professional Tax (annual)
         BigDecimal ptAnnual = BigDecimal.ZERO;
         if (employee.getProfessionalTax() != null && employee.getProfessionalTax()) {
-            ptAnnual = new BigDecimal("2500"); // Max annual PT
+            ptAnnual = PROFESSIONAL_TAX_ANNUAL; // Max annual PT
         }
         result.setProfessionalTax(ptAnnual);
 
@@ -318,7 +362,7 @@ public class TDSCalculationService {
         BigDecimal totalGross = result.getTotalGrossIncome();
 
         // Standard Deduction (75,000 in new regime from FY 2024-25)
-        BigDecimal standardDeduction = new BigDecimal("75000");
+        BigDecimal standardDeduction = STANDARD_DEDUCTION_NEW;
         result.setStandardDeduction(standardDeduction);
 
         // No HRA exemption in new regime
@@ -327,7 +371,7 @@ public class TDSCalculationService {
         // Professional Tax
         BigDecimal ptAnnual = BigDecimal.ZERO;
         if (employee.getProfessionalTax() != null && employee.getProfessionalTax()) {
-            ptAnnual = new BigDecimal("2500");
+            ptAnnual = PROFESSIONAL_TAX_ANNUAL;
         }
         result.setProfessionalTax(ptAnnual);
 
@@ -372,135 +416,34 @@ public class TDSCalculationService {
     }
 
     private BigDecimal calculateOldRegimeTaxSlabs(BigDecimal taxableIncome, TaxCalculationDTO result) {
-        List<TaxCalculationDTO.TaxSlabDetail> slabs = new ArrayList<>();
-        BigDecimal tax = BigDecimal.ZERO;
-        BigDecimal remaining = taxableIncome;
-
-        // Slab 1: 0 - 2.5L (0%)
-        BigDecimal slab1Limit = new BigDecimal("250000");
-        if (remaining.compareTo(slab1Limit) <= 0) {
-            slabs.add(createSlabDetail(BigDecimal.ZERO, slab1Limit, BigDecimal.ZERO, remaining, BigDecimal.ZERO));
-            result.setTaxSlabDetails(slabs);
-            return tax;
-        }
-        slabs.add(createSlabDetail(BigDecimal.ZERO, slab1Limit, BigDecimal.ZERO, slab1Limit, BigDecimal.ZERO));
-        remaining = remaining.subtract(slab1Limit);
-
-        // Slab 2: 2.5L - 5L (5%)
-        BigDecimal slab2Limit = new BigDecimal("250000");
-        BigDecimal slab2Rate = new BigDecimal("0.05");
-        if (remaining.compareTo(slab2Limit) <= 0) {
-            BigDecimal slabTax = remaining.multiply(slab2Rate).setScale(0, RoundingMode.HALF_UP);
-            slabs.add(createSlabDetail(slab1Limit, new BigDecimal("500000"), new BigDecimal("5"), remaining, slabTax));
-            result.setTaxSlabDetails(slabs);
-            return tax.add(slabTax);
-        }
-        BigDecimal slab2Tax = slab2Limit.multiply(slab2Rate).setScale(0, RoundingMode.HALF_UP);
-        slabs.add(createSlabDetail(slab1Limit, new BigDecimal("500000"), new BigDecimal("5"), slab2Limit, slab2Tax));
-        tax = tax.add(slab2Tax);
-        remaining = remaining.subtract(slab2Limit);
-
-        // Slab 3: 5L - 10L (20%)
-        BigDecimal slab3Limit = new BigDecimal("500000");
-        BigDecimal slab3Rate = new BigDecimal("0.20");
-        if (remaining.compareTo(slab3Limit) <= 0) {
-            BigDecimal slabTax = remaining.multiply(slab3Rate).setScale(0, RoundingMode.HALF_UP);
-            slabs.add(createSlabDetail(new BigDecimal("500000"), new BigDecimal("1000000"), new BigDecimal("20"), remaining, slabTax));
-            result.setTaxSlabDetails(slabs);
-            return tax.add(slabTax);
-        }
-        BigDecimal slab3Tax = slab3Limit.multiply(slab3Rate).setScale(0, RoundingMode.HALF_UP);
-        slabs.add(createSlabDetail(new BigDecimal("500000"), new BigDecimal("1000000"), new BigDecimal("20"), slab3Limit, slab3Tax));
-        tax = tax.add(slab3Tax);
-        remaining = remaining.subtract(slab3Limit);
-
-        // Slab 4: Above 10L (30%)
-        BigDecimal slab4Rate = new BigDecimal("0.30");
-        BigDecimal slab4Tax = remaining.multiply(slab4Rate).setScale(0, RoundingMode.HALF_UP);
-        slabs.add(createSlabDetail(new BigDecimal("1000000"), null, new BigDecimal("30"), remaining, slab4Tax));
-        tax = tax.add(slab4Tax);
-
-        result.setTaxSlabDetails(slabs);
-        return tax;
+        return applyTaxSlabs(OLD_REGIME_SLABS, taxableIncome, result);
     }
 
     private BigDecimal calculateNewRegimeTaxSlabs(BigDecimal taxableIncome, TaxCalculationDTO result) {
+        return applyTaxSlabs(NEW_REGIME_SLABS, taxableIncome, result);
+    }
+
+    /**
+     * Walk the slabs from the bottom, taxing each slab's share of the income and rounding
+     * each slab's tax to the rupee. Stops at the slab the income ends in.
+     */
+    private BigDecimal applyTaxSlabs(List<TaxSlab> taxSlabs, BigDecimal taxableIncome, TaxCalculationDTO result) {
         List<TaxCalculationDTO.TaxSlabDetail> slabs = new ArrayList<>();
         BigDecimal tax = BigDecimal.ZERO;
         BigDecimal remaining = taxableIncome;
 
-        // New regime slabs (FY 2024-25 onwards)
-        // 0 - 3L (0%)
-        BigDecimal slab1Limit = new BigDecimal("300000");
-        if (remaining.compareTo(slab1Limit) <= 0) {
-            slabs.add(createSlabDetail(BigDecimal.ZERO, slab1Limit, BigDecimal.ZERO, remaining, BigDecimal.ZERO));
-            result.setTaxSlabDetails(slabs);
-            return tax;
+        for (TaxSlab slab : taxSlabs) {
+            boolean endsHere = slab.width() == null || remaining.compareTo(slab.width()) <= 0;
+            BigDecimal amount = endsHere ? remaining : slab.width();
+            BigDecimal slabTax = slab.rate().signum() == 0 ? BigDecimal.ZERO
+                    : amount.multiply(slab.rate()).setScale(0, RoundingMode.HALF_UP);
+            slabs.add(createSlabDetail(slab.from(), slab.to(), slab.ratePercent(), amount, slabTax));
+            tax = tax.add(slabTax);
+            if (endsHere) {
+                break;
+            }
+            remaining = remaining.subtract(slab.width());
         }
-        slabs.add(createSlabDetail(BigDecimal.ZERO, slab1Limit, BigDecimal.ZERO, slab1Limit, BigDecimal.ZERO));
-        remaining = remaining.subtract(slab1Limit);
-
-        // 3L - 7L (5%)
-        BigDecimal slab2Limit = new BigDecimal("400000");
-        BigDecimal slab2Rate = new BigDecimal("0.05");
-        if (remaining.compareTo(slab2Limit) <= 0) {
-            BigDecimal slabTax = remaining.multiply(slab2Rate).setScale(0, RoundingMode.HALF_UP);
-            slabs.add(createSlabDetail(slab1Limit, new BigDecimal("700000"), new BigDecimal("5"), remaining, slabTax));
-            result.setTaxSlabDetails(slabs);
-            return tax.add(slabTax);
-        }
-        BigDecimal slab2Tax = slab2Limit.multiply(slab2Rate).setScale(0, RoundingMode.HALF_UP);
-        slabs.add(createSlabDetail(slab1Limit, new BigDecimal("700000"), new BigDecimal("5"), slab2Limit, slab2Tax));
-        tax = tax.add(slab2Tax);
-        remaining = remaining.subtract(slab2Limit);
-
-        // 7L - 10L (10%)
-        BigDecimal slab3Limit = new BigDecimal("300000");
-        BigDecimal slab3Rate = new BigDecimal("0.10");
-        if (remaining.compareTo(slab3Limit) <= 0) {
-            BigDecimal slabTax = remaining.multiply(slab3Rate).setScale(0, RoundingMode.HALF_UP);
-            slabs.add(createSlabDetail(new BigDecimal("700000"), new BigDecimal("1000000"), new BigDecimal("10"), remaining, slabTax));
-            result.setTaxSlabDetails(slabs);
-            return tax.add(slabTax);
-        }
-        BigDecimal slab3Tax = slab3Limit.multiply(slab3Rate).setScale(0, RoundingMode.HALF_UP);
-        slabs.add(createSlabDetail(new BigDecimal("700000"), new BigDecimal("1000000"), new BigDecimal("10"), slab3Limit, slab3Tax));
-        tax = tax.add(slab3Tax);
-        remaining = remaining.subtract(slab3Limit);
-
-        // 10L - 12L (15%)
-        BigDecimal slab4Limit = new BigDecimal("200000");
-        BigDecimal slab4Rate = new BigDecimal("0.15");
-        if (remaining.compareTo(slab4Limit) <= 0) {
-            BigDecimal slabTax = remaining.multiply(slab4Rate).setScale(0, RoundingMode.HALF_UP);
-            slabs.add(createSlabDetail(new BigDecimal("1000000"), new BigDecimal("1200000"), new BigDecimal("15"), remaining, slabTax));
-            result.setTaxSlabDetails(slabs);
-            return tax.add(slabTax);
-        }
-        BigDecimal slab4Tax = slab4Limit.multiply(slab4Rate).setScale(0, RoundingMode.HALF_UP);
-        slabs.add(createSlabDetail(new BigDecimal("1000000"), new BigDecimal("1200000"), new BigDecimal("15"), slab4Limit, slab4Tax));
-        tax = tax.add(slab4Tax);
-        remaining = remaining.subtract(slab4Limit);
-
-        // 12L - 15L (20%)
-        BigDecimal slab5Limit = new BigDecimal("300000");
-        BigDecimal slab5Rate = new BigDecimal("0.20");
-        if (remaining.compareTo(slab5Limit) <= 0) {
-            BigDecimal slabTax = remaining.multiply(slab5Rate).setScale(0, RoundingMode.HALF_UP);
-            slabs.add(createSlabDetail(new BigDecimal("1200000"), new BigDecimal("1500000"), new BigDecimal("20"), remaining, slabTax));
-            result.setTaxSlabDetails(slabs);
-            return tax.add(slabTax);
-        }
-        BigDecimal slab5Tax = slab5Limit.multiply(slab5Rate).setScale(0, RoundingMode.HALF_UP);
-        slabs.add(createSlabDetail(new BigDecimal("1200000"), new BigDecimal("1500000"), new BigDecimal("20"), slab5Limit, slab5Tax));
-        tax = tax.add(slab5Tax);
-        remaining = remaining.subtract(slab5Limit);
-
-        // Above 15L (30%)
-        BigDecimal slab6Rate = new BigDecimal("0.30");
-        BigDecimal slab6Tax = remaining.multiply(slab6Rate).setScale(0, RoundingMode.HALF_UP);
-        slabs.add(createSlabDetail(new BigDecimal("1500000"), null, new BigDecimal("30"), remaining, slab6Tax));
-        tax = tax.add(slab6Tax);
 
         result.setTaxSlabDetails(slabs);
         return tax;
@@ -524,12 +467,12 @@ public class TDSCalculationService {
 
         BigDecimal actualHra = annualHra;
         BigDecimal rentPaid = declaration.getRentPaidAnnual();
-        BigDecimal tenPercentBasic = annualBasic.multiply(new BigDecimal("0.10"));
+        BigDecimal tenPercentBasic = annualBasic.multiply(HRA_BASIC_SHARE);
         BigDecimal rentMinusBasic = rentPaid.subtract(tenPercentBasic);
         if (rentMinusBasic.compareTo(BigDecimal.ZERO) < 0) rentMinusBasic = BigDecimal.ZERO;
 
         BigDecimal fiftyOrFortyPercent = declaration.getIsMetroCity() != null && declaration.getIsMetroCity() ? 
-                annualBasic.multiply(new BigDecimal("0.50")) : annualBasic.multiply(new BigDecimal("0.40"));
+                annualBasic.multiply(HRA_METRO_SHARE) : annualBasic.multiply(HRA_NON_METRO_SHARE);
 
         return actualHra.min(rentMinusBasic).min(fiftyOrFortyPercent);
     }
@@ -546,22 +489,22 @@ public class TDSCalculationService {
         BigDecimal parents = declaration.getSection80dParents() != null ? 
                 declaration.getSection80dParents().min(SECTION_80D_PARENTS_LIMIT) : BigDecimal.ZERO;
         BigDecimal checkup = declaration.getSection80dPreventiveCheckup() != null ? 
-                declaration.getSection80dPreventiveCheckup().min(new BigDecimal("5000")) : BigDecimal.ZERO;
+                declaration.getSection80dPreventiveCheckup().min(SECTION_80D_CHECKUP_LIMIT) : BigDecimal.ZERO;
         
         return selfFamily.add(parents).add(checkup);
     }
 
     private BigDecimal calculateSurcharge(BigDecimal taxableIncome, BigDecimal tax) {
-        if (taxableIncome.compareTo(new BigDecimal("5000000")) <= 0) {
+        if (taxableIncome.compareTo(SURCHARGE_THRESHOLD_50L) <= 0) {
             return BigDecimal.ZERO;
-        } else if (taxableIncome.compareTo(new BigDecimal("10000000")) <= 0) {
-            return tax.multiply(new BigDecimal("0.10")).setScale(0, RoundingMode.HALF_UP);
-        } else if (taxableIncome.compareTo(new BigDecimal("20000000")) <= 0) {
-            return tax.multiply(new BigDecimal("0.15")).setScale(0, RoundingMode.HALF_UP);
-        } else if (taxableIncome.compareTo(new BigDecimal("50000000")) <= 0) {
-            return tax.multiply(new BigDecimal("0.25")).setScale(0, RoundingMode.HALF_UP);
+        } else if (taxableIncome.compareTo(SURCHARGE_THRESHOLD_1CR) <= 0) {
+            return tax.multiply(SURCHARGE_RATE_50L).setScale(0, RoundingMode.HALF_UP);
+        } else if (taxableIncome.compareTo(SURCHARGE_THRESHOLD_2CR) <= 0) {
+            return tax.multiply(SURCHARGE_RATE_1CR).setScale(0, RoundingMode.HALF_UP);
+        } else if (taxableIncome.compareTo(SURCHARGE_THRESHOLD_5CR) <= 0) {
+            return tax.multiply(SURCHARGE_RATE_2CR).setScale(0, RoundingMode.HALF_UP);
         } else {
-            return tax.multiply(new BigDecimal("0.37")).setScale(0, RoundingMode.HALF_UP);
+            return tax.multiply(SURCHARGE_RATE_5CR).setScale(0, RoundingMode.HALF_UP);
         }
     }
 
@@ -0,0 +1,155 @@
+package com.payroll.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money arithmetic on {@code long} paise for the payroll calculation loop. Amounts are
+ * converted from and to {@link BigDecimal} only where they are read from or written to
+ * entities; everything in between is primitive arithmetic with no allocation.
+ *
+ * Rounding matches {@link BigDecimal#setScale(int, RoundingMode)} and
+ * {@link BigDecimal#divide(BigDecimal, int, RoundingMode)} exactly for amounts with at
+ * most two decimal places, which is what every money column in the schema holds.
+ */
+public final class Paise {
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+            1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L
+    };
+
+    private Paise() {
+    }
+
+    /**
+     * A multiplier such as 0.12 or 0.0075, held as unscaled value and scale.
+     */
+    public record Rate(long unscaled, int scale) {
+
+        public static Rate of(BigDecimal rate) {
+            BigDecimal stripped = rate.stripTrailingZeros();
+            if (stripped.scale() < 0) {
+                stripped = stripped.setScale(0);
+            }
+            if (stripped.scale() > POWERS_OF_TEN.length - 3) {
+                throw new ArithmeticException("Rate has too many decimal places: " + rate);
+            }
+            return new Rate(stripped.unscaledValue().longValueExact(), stripped.scale());
+        }
+
+        /**
+         * A rate given in percent, e.g. 12 for 12%.
+         */
+        public static Rate ofPercent(BigDecimal percent) {
+            return of(percent.movePointLeft(2));
+        }
+    }
+
+    /**
+     * Paise in an amount.
+     *
+     * @throws ArithmeticException if the amount has fractions of a paisa or does not fit in a long
+     */
+    public static long of(BigDecimal amount) {
+        return amount.movePointRight(2).longValueExact();
+    }
+
+    /**
+     * Paise in an amount, treating null as zero.
+     */
+    public static long ofNullable(BigDecimal amount) {
+        return amount != null ? of(amount) : 0L;
+    }
+
+    /**
+     * Paise for a whole number of rupees.
+     */
+    public static long ofRupees(long rupees) {
+        return Math.multiplyExact(rupees, 100L);
+    }
+
+    /**
+     * The amount as a BigDecimal with two decimal places.
+     */
+    public static BigDecimal toBigDecimal(long paise) {
+        return BigDecimal.valueOf(paise, 2);
+    }
+
+    /**
+     * The amount as a BigDecimal with the given scale (0 to 2).
+     *
+     * @throws ArithmeticException if the amount cannot be represented exactly at that scale
+     */
+    public static BigDecimal toBigDecimal(long paise, int scale) {
+        checkScale(scale);
+        long divisor = POWERS_OF_TEN[2 - scale];
+        if (paise % divisor != 0) {
+            throw new ArithmeticException("Rounding necessary to represent " + paise + " paise at scale " + scale);
+        }
+        return BigDecimal.valueOf(paise / divisor, scale);
+    }
+
+    /**
+     * {@code paise / divisor} rounded to a whole paisa, as
+     * {@code amount.divide(BigDecimal.valueOf(divisor), 2, mode)}.
+     */
+    public static long divide(long paise, long divisor, RoundingMode mode) {
+        return roundedQuotient(paise, divisor, mode);
+    }
+
+    /**
+     * {@code paise * rate} rounded to {@code scale} decimal places (0 for whole rupees, 2 for
+     * paise), as {@code amount.multiply(rate).setScale(scale, mode)}. The result is in paise.
+     */
+    public static long multiply(long paise, Rate rate, int scale, RoundingMode mode) {
+        checkScale(scale);
+        // The exact product is in units of 10^-(2 + rate.scale) rupees
+        long product = Math.multiplyExact(paise, rate.unscaled());
+        int drop = 2 + rate.scale() - scale;
+        long rounded = drop > 0 ? roundedQuotient(product, POWERS_OF_TEN[drop], mode)
+                : Math.multiplyExact(product, POWERS_OF_TEN[-drop]);
+        return Math.multiplyExact(rounded, POWERS_OF_TEN[2 - scale]);
+    }
+
+    /**
+     * Round to {@code scale} decimal places, as {@code amount.setScale(scale, mode)}. The result is in paise.
+     */
+    public static long round(long paise, int scale, RoundingMode mode) {
+        checkScale(scale);
+        long unit = POWERS_OF_TEN[2 - scale];
+        return Math.multiplyExact(roundedQuotient(paise, unit, mode), unit);
+    }
+
+    private static long roundedQuotient(long dividend, long divisor, RoundingMode mode) {
+        if (divisor <= 0) {
+            throw new ArithmeticException("Divisor must be positive: " + divisor);
+        }
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+        int sign = dividend < 0 ? -1 : 1;
+        long absRemainder = Math.abs(remainder);
+        // Compare the remainder against half the divisor without overflowing
+        int half = Long.compare(absRemainder, divisor - absRemainder);
+        boolean awayFromZero = switch (mode) {
+            case UP -> true;
+            case DOWN -> false;
+            case CEILING -> sign > 0;
+            case FLOOR -> sign < 0;
+            case HALF_UP -> half >= 0;
+            case HALF_DOWN -> half > 0;
+            case HALF_EVEN -> half > 0 || (half == 0 && (quotient & 1) != 0);
+            case UNNECESSARY -> throw new ArithmeticException("Rounding necessary");
+        };
+        return awayFromZero ? quotient + sign : quotient;
+    }
+
+    private static void checkScale(int scale) {
+        if (scale < 0 || scale > 2) {
+            throw new IllegalArgumentException("Scale must be between 0 and 2: " + scale);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+-- Background pay run jobs (e.g. asynchronous calculation) with persisted progress
+CREATE TABLE pay_run_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    pay_run_id BIGINT NOT NULL,
+    tenant_id BIGINT NOT NULL,
+    job_type VARCHAR(30) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'QUEUED',
+    total_count INT DEFAULT 0,
+    processed_count INT DEFAULT 0,
+    error_message TEXT,
+    owner_node VARCHAR(100),
+    started_at TIMESTAMP,
+    finished_at TIMESTAMP,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (pay_run_id) REFERENCES pay_runs(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_pay_run_jobs_pay_run ON pay_run_jobs(pay_run_id, status);
+CREATE INDEX idx_pay_run_jobs_owner ON pay_run_jobs(owner_node, status);
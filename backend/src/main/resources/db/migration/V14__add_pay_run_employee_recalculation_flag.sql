@@ -0,0 +1,4 @@
+-- Rows changed since the last calculation; a recalculation only recomputes these
+ALTER TABLE pay_run_employees ADD COLUMN IF NOT EXISTS needs_recalculation BOOLEAN DEFAULT TRUE;
+
+CREATE INDEX idx_pre_needs_recalculation ON pay_run_employees(pay_run_id) WHERE needs_recalculation = TRUE;
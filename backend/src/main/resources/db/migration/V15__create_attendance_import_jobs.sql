@@ -0,0 +1,36 @@
+-- Background attendance imports. last_committed_row is the checkpoint an interrupted
+-- import resumes after; rejected rows are kept for the downloadable error report.
+CREATE TABLE attendance_import_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    tenant_id BIGINT NOT NULL,
+    file_name VARCHAR(255),
+    file_type VARCHAR(10) NOT NULL,
+    storage_path VARCHAR(500) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'QUEUED',
+    rows_read INT DEFAULT 0,
+    last_committed_row INT DEFAULT 0,
+    batch_count INT DEFAULT 0,
+    created_count INT DEFAULT 0,
+    updated_count INT DEFAULT 0,
+    error_count INT DEFAULT 0,
+    error_message TEXT,
+    owner_node VARCHAR(100),
+    started_at TIMESTAMP,
+    finished_at TIMESTAMP,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (tenant_id) REFERENCES organizations(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_attendance_import_jobs_owner ON attendance_import_jobs(owner_node, status);
+
+CREATE TABLE attendance_import_job_errors (
+    id BIGSERIAL PRIMARY KEY,
+    job_id BIGINT NOT NULL,
+    source_row INT NOT NULL,
+    employee_code VARCHAR(50),
+    message TEXT NOT NULL,
+    FOREIGN KEY (job_id) REFERENCES attendance_import_jobs(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_attendance_import_job_errors_job ON attendance_import_job_errors(job_id, id);
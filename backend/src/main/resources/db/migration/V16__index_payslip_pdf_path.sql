@@ -0,0 +1,3 @@
+-- pdf_path now holds the content hash of the stored PDF. Before a superseded PDF is deleted
+-- the storage checks that no other payslip still points at the same content.
+CREATE INDEX idx_payslips_pdf_path ON payslips(pdf_path);
@@ -0,0 +1,22 @@
+-- Payslip emails waiting to be sent. Due rows are claimed with FOR UPDATE SKIP LOCKED, so
+-- several nodes can drain the outbox without sending the same email twice.
+CREATE TABLE payslip_email_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    payslip_id BIGINT NOT NULL,
+    tenant_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error TEXT,
+    owner_node VARCHAR(100),
+    sent_at TIMESTAMP,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (payslip_id) REFERENCES payslips(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_payslip_email_outbox_due ON payslip_email_outbox(next_attempt_at, id) WHERE status = 'PENDING';
+CREATE INDEX idx_payslip_email_outbox_owner ON payslip_email_outbox(owner_node, status);
+
+-- At most one unsent email per payslip, however often it is queued
+CREATE UNIQUE INDEX uq_payslip_email_outbox_open ON payslip_email_outbox(payslip_id) WHERE status IN ('PENDING', 'SENDING');
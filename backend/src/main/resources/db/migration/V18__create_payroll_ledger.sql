@@ -0,0 +1,59 @@
+-- Completed payroll rolled up per employee per month. A pay run's amounts are added when it
+-- is completed and subtracted if it is deleted, so YTD, tax summary and Form 16 read one
+-- range of this table instead of every pay run employee in the year.
+CREATE TABLE payroll_ledger (
+    id BIGSERIAL PRIMARY KEY,
+    tenant_id BIGINT NOT NULL,
+    employee_id BIGINT NOT NULL,
+    financial_year INT NOT NULL,          -- April start year, 2025 for FY 2025-26
+    period_month DATE NOT NULL,           -- First day of the pay period's month
+    pay_run_count INT NOT NULL DEFAULT 0,
+    basic_salary DECIMAL(15,2) NOT NULL DEFAULT 0,
+    hra DECIMAL(15,2) NOT NULL DEFAULT 0,
+    conveyance_allowance DECIMAL(15,2) NOT NULL DEFAULT 0,
+    fixed_allowance DECIMAL(15,2) NOT NULL DEFAULT 0,
+    gross_salary DECIMAL(15,2) NOT NULL DEFAULT 0,
+    lop_days INT NOT NULL DEFAULT 0,
+    lop_deduction DECIMAL(15,2) NOT NULL DEFAULT 0,
+    pf_employee DECIMAL(15,2) NOT NULL DEFAULT 0,
+    esi_employee DECIMAL(15,2) NOT NULL DEFAULT 0,
+    professional_tax DECIMAL(15,2) NOT NULL DEFAULT 0,
+    tds DECIMAL(15,2) NOT NULL DEFAULT 0,
+    total_deductions DECIMAL(15,2) NOT NULL DEFAULT 0,
+    net_salary DECIMAL(15,2) NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (employee_id) REFERENCES employees(id) ON DELETE CASCADE,
+    CONSTRAINT uk_payroll_ledger_month UNIQUE (tenant_id, employee_id, period_month)
+);
+
+-- Tax summary (tenant, year) and Form 16 (tenant, year, employee) range scans
+CREATE INDEX idx_payroll_ledger_year ON payroll_ledger(tenant_id, financial_year, employee_id, period_month);
+
+-- Pay runs completed before the ledger existed
+INSERT INTO payroll_ledger (tenant_id, employee_id, financial_year, period_month, pay_run_count,
+                            basic_salary, hra, conveyance_allowance, fixed_allowance, gross_salary,
+                            lop_days, lop_deduction, pf_employee, esi_employee, professional_tax, tds,
+                            total_deductions, net_salary)
+SELECT pr.tenant_id,
+       pre.employee_id,
+       CAST(EXTRACT(YEAR FROM pr.pay_period_start) AS INT) - CASE WHEN EXTRACT(MONTH FROM pr.pay_period_start) < 4 THEN 1 ELSE 0 END,
+       CAST(date_trunc('month', pr.pay_period_start) AS DATE),
+       COUNT(*),
+       SUM(COALESCE(pre.basic_salary, 0)),
+       SUM(COALESCE(pre.hra, 0)),
+       SUM(COALESCE(pre.conveyance_allowance, 0)),
+       SUM(COALESCE(pre.fixed_allowance, 0)),
+       SUM(COALESCE(pre.gross_salary, 0)),
+       SUM(COALESCE(pre.lop_days, 0)),
+       SUM(COALESCE(pre.lop_deduction, 0)),
+       SUM(COALESCE(pre.pf_employee, 0)),
+       SUM(COALESCE(pre.esi_employee, 0)),
+       SUM(COALESCE(pre.professional_tax, 0)),
+       SUM(COALESCE(pre.tds, 0)),
+       SUM(COALESCE(pre.total_deductions, 0)),
+       SUM(COALESCE(pre.net_salary, 0))
+FROM pay_run_employees pre
+JOIN pay_runs pr ON pr.id = pre.pay_run_id
+WHERE pr.status = 'COMPLETED'
+GROUP BY pr.tenant_id, pre.employee_id, date_trunc('month', pr.pay_period_start),
+         EXTRACT(YEAR FROM pr.pay_period_start), EXTRACT(MONTH FROM pr.pay_period_start);
@@ -0,0 +1,21 @@
+-- Background Form 16 generation for every employee of a tenant in a financial year. The
+-- certificates are written to one ZIP archive on the owner node's disk.
+CREATE TABLE form16_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    tenant_id BIGINT NOT NULL,
+    financial_year VARCHAR(10) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'QUEUED',
+    total_count INT DEFAULT 0,
+    processed_count INT DEFAULT 0,
+    storage_path VARCHAR(500),
+    error_message TEXT,
+    owner_node VARCHAR(100),
+    started_at TIMESTAMP,
+    finished_at TIMESTAMP,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (tenant_id) REFERENCES organizations(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_form16_jobs_tenant ON form16_jobs(tenant_id, financial_year, status);
+CREATE INDEX idx_form16_jobs_owner ON form16_jobs(owner_node, status);
@@ -0,0 +1,4 @@
+-- Month reports read an organization's attendance by date range. The composite index
+-- serves them and every query the organization_id index did.
+CREATE INDEX idx_attendance_organization_date ON attendance(organization_id, date);
+DROP INDEX IF EXISTS idx_attendance_organization_id;
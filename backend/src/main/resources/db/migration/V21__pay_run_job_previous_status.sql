@@ -0,0 +1,11 @@
+-- Status the pay run had when its calculation was queued, restored if the job is interrupted
+ALTER TABLE pay_run_jobs ADD COLUMN previous_status VARCHAR(20);
+
+-- Only one queued or running job per pay run; keep the newest if older ones were left behind
+UPDATE pay_run_jobs j
+SET status = 'FAILED', error_message = 'Superseded by a newer job', finished_at = CURRENT_TIMESTAMP
+WHERE j.status IN ('QUEUED', 'RUNNING')
+  AND EXISTS (SELECT 1 FROM pay_run_jobs n
+              WHERE n.pay_run_id = j.pay_run_id AND n.status IN ('QUEUED', 'RUNNING') AND n.id > j.id);
+
+CREATE UNIQUE INDEX uk_pay_run_jobs_active ON pay_run_jobs(pay_run_id) WHERE status IN ('QUEUED', 'RUNNING');
@@ -0,0 +1,7 @@
+-- When a row was claimed for sending. Rows left in SENDING past the claim lease are queued
+-- again by any node, so a node that never comes back does not strand its emails.
+ALTER TABLE payslip_email_outbox ADD COLUMN claimed_at TIMESTAMP;
+
+UPDATE payslip_email_outbox SET claimed_at = COALESCE(updated_at, CURRENT_TIMESTAMP) WHERE status = 'SENDING';
+
+CREATE INDEX idx_payslip_email_outbox_claimed ON payslip_email_outbox(claimed_at) WHERE status = 'SENDING';
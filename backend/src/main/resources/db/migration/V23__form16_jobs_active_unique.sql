@@ -0,0 +1,10 @@
+-- Only one queued or running Form 16 job per tenant and financial year; keep the newest if
+-- older ones were left behind
+UPDATE form16_jobs j
+SET status = 'FAILED', error_message = 'Superseded by a newer job', finished_at = CURRENT_TIMESTAMP
+WHERE j.status IN ('QUEUED', 'RUNNING')
+  AND EXISTS (SELECT 1 FROM form16_jobs n
+              WHERE n.tenant_id = j.tenant_id AND n.financial_year = j.financial_year
+                AND n.status IN ('QUEUED', 'RUNNING') AND n.id > j.id);
+
+CREATE UNIQUE INDEX uk_form16_jobs_active ON form16_jobs(tenant_id, financial_year) WHERE status IN ('QUEUED', 'RUNNING');
@@ -0,0 +1,146 @@
+package com.payroll.attendance;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvPivotReaderTest {
+
+    @Test
+    void quotedFieldsKeepCommasAndDoubledQuotes() throws IOException {
+        List<Row> rows = read("Date,\"Doe, Jane\",\"Say \"\"hi\"\"\"\n2025-01-01,\" ABSENT \",\"\"\n");
+
+        assertThat(rows).containsExactly(
+                new Row(0, "Date", "Doe, Jane", "Say \"hi\""),
+                new Row(1, "2025-01-01", " ABSENT ", null));
+    }
+
+    @Test
+    void unquotedFieldsAreTrimmedAndEmptyOnesAreNull() throws IOException {
+        List<Row> rows = read("Date, E1 ,E2\n2025-01-01,\t,ABSENT,\n");
+
+        assertThat(rows).containsExactly(
+                new Row(0, "Date", "E1", "E2"),
+                new Row(1, "2025-01-01", null, "ABSENT", null));
+    }
+
+    @Test
+    void crlfEndsRecordsLikeLf() throws IOException {
+        List<Row> rows = read("Date,E1\r\n2025-01-01,ABSENT\r\n2025-01-02,\"SICK\"\r\n");
+
+        assertThat(rows).containsExactly(
+                new Row(0, "Date", "E1"),
+                new Row(1, "2025-01-01", "ABSENT"),
+                new Row(2, "2025-01-02", "SICK"));
+    }
+
+    @Test
+    void embeddedLineBreaksStayInTheFieldAndAdvanceTheRowIndex() throws IOException {
+        List<Row> rows = read("Date,E1\n2025-01-01,\"line one\nline two\"\n\n2025-01-02,ABSENT");
+
+        assertThat(rows).containsExactly(
+                new Row(0, "Date", "E1"),
+                new Row(1, "2025-01-01", "line one\nline two"),
+                new Row(4, "2025-01-02", "ABSENT"));
+    }
+
+    @Test
+    void unterminatedQuoteTakesTheRestOfTheInput() throws IOException {
+        List<Row> rows = read("Date,E1\n2025-01-01,\"ABSENT,\nmore");
+
+        assertThat(rows).containsExactly(
+                new Row(0, "Date", "E1"),
+                new Row(1, "2025-01-01", "ABSENT,\nmore"));
+    }
+
+    @Test
+    void byteOrderMarkIsSkippedEvenWhenItArrivesAcrossReads() throws IOException {
+        List<Row> rows = read("\uFEFFDate,E1\n2025-01-01,ABSENT\n");
+
+        assertThat(rows).containsExactly(
+                new Row(0, "Date", "E1"),
+                new Row(1, "2025-01-01", "ABSENT"));
+    }
+
+    @Test
+    void inputShorterThanAByteOrderMarkIsStillRead() throws IOException {
+        assertThat(read("D")).containsExactly(new Row(0, "D"));
+        assertThat(read("")).isEmpty();
+    }
+
+    @Test
+    void repeatedCellValuesAreSharedAfterTheHeader() throws IOException {
+        List<List<String>> cells = new ArrayList<>();
+        CsvPivotReader.read(new OneByteInputStream("Date,ABSENT\n2025-01-01,ABSENT\n2025-01-02,ABSENT\n"),
+                (rowIndex, row) -> cells.add(new ArrayList<>(row)));
+
+        assertThat(cells.get(1).get(1)).isEqualTo("ABSENT").isNotSameAs(cells.get(0).get(1));
+        assertThat(cells.get(2).get(1)).isSameAs(cells.get(1).get(1));
+    }
+
+    /**
+     * Read the input both in one go and one byte per read, which puts every record, quote
+     * and line break on a buffer boundary; both must give the same rows.
+     */
+    private static List<Row> read(String csv) throws IOException {
+        List<Row> whole = new ArrayList<>();
+        CsvPivotReader.read(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                (rowIndex, cells) -> whole.add(new Row(rowIndex, cells)));
+
+        List<Row> trickled = new ArrayList<>();
+        CsvPivotReader.read(new OneByteInputStream(csv),
+                (rowIndex, cells) -> trickled.add(new Row(rowIndex, cells)));
+
+        assertThat(trickled).isEqualTo(whole);
+        return trickled;
+    }
+
+    private record Row(int index, List<String> cells) {
+
+        Row(int index, String... cells) {
+            this(index, Arrays.asList(cells));
+        }
+
+        Row {
+            cells = new ArrayList<>(cells);
+        }
+    }
+
+    /**
+     * Hands back at most one byte per read, as a slow network stream may.
+     */
+    private static final class OneByteInputStream extends InputStream {
+
+        private final byte[] bytes;
+        private int position;
+
+        OneByteInputStream(String content) {
+            this.bytes = content.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public int read() {
+            return position < bytes.length ? bytes[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (position == bytes.length) {
+                return -1;
+            }
+            b[off] = bytes[position++];
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.payroll.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NodeIdentityTest {
+
+    @Test
+    void configuredIdWins() {
+        assertThat(new NodeIdentity(" node-7 ").id()).isEqualTo("node-7");
+    }
+
+    @Test
+    void unsetIdFallsBackToTheHostNameNotASharedLiteral() throws Exception {
+        assertThat(new NodeIdentity("").id())
+                .isEqualTo(InetAddress.getLocalHost().getHostName())
+                .isNotEqualTo("local");
+    }
+}
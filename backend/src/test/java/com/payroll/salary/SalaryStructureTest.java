@@ -0,0 +1,75 @@
+package com.payroll.salary;
+
+import com.payroll.entity.SalaryComponent;
+import com.payroll.enums.CalculationType;
+import com.payroll.enums.ComponentType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SalaryStructureTest {
+
+    private static final BigDecimal ANNUAL_CTC = new BigDecimal("600000");
+    private static final BigDecimal MONTHLY_CTC = new BigDecimal("50000.00");
+
+    @Test
+    void invalidStoredFormulaFailsOnlyItsOwnComponentAndDependents() {
+        SalaryComponent basic = component(1L, "BASIC", CalculationType.FIXED, null);
+        SalaryComponent broken = component(2L, "BONUS", CalculationType.FORMULA, "BASIC * (");
+        SalaryComponent onBroken = component(3L, "EXTRA", CalculationType.FORMULA, "BONUS + 100");
+        SalaryComponent special = component(4L, "SPECIAL", CalculationType.FORMULA, "BASIC / 2");
+
+        SalaryStructure structure = SalaryStructure.compile(1L, List.of(basic, broken, onBroken, special));
+        SalaryStructure.Evaluation evaluation = evaluate(structure, "20000", "0", "0", "0");
+
+        assertThat(evaluation.amount(structure.slotOf(1L))).isEqualByComparingTo("20000");
+        assertThat(evaluation.amount(structure.slotOf(4L))).isEqualByComparingTo("10000");
+        assertThat(evaluation.amount(structure.slotOf(2L))).isNull();
+        assertThat(evaluation.error(structure.slotOf(2L))).startsWith("Invalid formula for component BONUS");
+        assertThat(evaluation.error(structure.slotOf(3L))).contains("depends on BONUS");
+
+        assertThatThrownBy(() -> structure.requireValid(2L)).hasMessageStartingWith("Invalid formula");
+        assertThat(structure.requireValid(4L)).isSameAs(structure);
+    }
+
+    @Test
+    void circularComponentsAreReportedWithoutFailingTheOthers() {
+        SalaryComponent basic = component(1L, "BASIC", CalculationType.FIXED, null);
+        SalaryComponent a = component(2L, "A", CalculationType.FORMULA, "B + 1");
+        SalaryComponent b = component(3L, "B", CalculationType.FORMULA, "A + 1");
+
+        SalaryStructure structure = SalaryStructure.compile(1L, List.of(a, b, basic));
+        SalaryStructure.Evaluation evaluation = evaluate(structure, "20000", "0", "0");
+
+        assertThat(evaluation.amount(structure.slotOf(1L))).isEqualByComparingTo("20000");
+        assertThat(evaluation.error(structure.slotOf(2L))).contains("circular dependency");
+        assertThat(evaluation.error(structure.slotOf(3L))).contains("circular dependency");
+        assertThatThrownBy(() -> structure.requireValid(3L)).hasMessageContaining("A, B");
+    }
+
+    /**
+     * Evaluate with values given in component id order, starting at id 1.
+     */
+    private static SalaryStructure.Evaluation evaluate(SalaryStructure structure, String... values) {
+        BigDecimal[] bySlot = structure.newValues();
+        for (int i = 0; i < values.length; i++) {
+            bySlot[structure.slotOf((long) i + 1)] = new BigDecimal(values[i]);
+        }
+        return structure.evaluate(bySlot, ANNUAL_CTC, MONTHLY_CTC);
+    }
+
+    private static SalaryComponent component(Long id, String code, CalculationType calculationType, String formula) {
+        SalaryComponent component = new SalaryComponent();
+        component.setId(id);
+        component.setCode(code);
+        component.setName(code);
+        component.setType(ComponentType.EARNING);
+        component.setCalculationType(calculationType);
+        component.setFormula(formula);
+        return component;
+    }
+}
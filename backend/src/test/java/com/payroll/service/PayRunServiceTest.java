@@ -0,0 +1,126 @@
+package com.payroll.service;
+
+import com.payroll.entity.Employee;
+import com.payroll.entity.PayRun;
+import com.payroll.entity.PayRun.PayRunStatus;
+import com.payroll.entity.PayRunEmployee;
+import com.payroll.repository.PayRunEmployeeRepository;
+import com.payroll.repository.PayRunRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PayRunServiceTest {
+
+    private static final Long PAY_RUN_ID = 1L;
+    private static final Long TENANT_ID = 7L;
+
+    private PayRunRepository payRunRepository;
+    private PayRunEmployeeRepository payRunEmployeeRepository;
+    private PayRunService payRunService;
+    private PayRun payRun;
+
+    @BeforeEach
+    void setUp() {
+        payRunRepository = mock(PayRunRepository.class);
+        payRunEmployeeRepository = mock(PayRunEmployeeRepository.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+        // One employee per chunk, no retries, chunks run on the calling thread
+        PayRunCalculationEngine engine = new PayRunCalculationEngine(payRunEmployeeRepository, transactionTemplate,
+                new TaskExecutorAdapter(Runnable::run));
+        ReflectionTestUtils.setField(engine, "chunkSize", 1);
+        ReflectionTestUtils.setField(engine, "maxAttempts", 1);
+
+        payRunService = new PayRunService(payRunRepository, payRunEmployeeRepository, null, null, null, null, null,
+                engine, transactionTemplate);
+
+        // Calculated run of two employees on a basic of 18,000
+        payRun = new PayRun();
+        payRun.setId(PAY_RUN_ID);
+        payRun.setTenantId(TENANT_ID);
+        payRun.setStatus(PayRunStatus.PENDING_APPROVAL);
+        payRun.setEmployeeCount(2);
+        payRun.setTotalGrossPay(new BigDecimal("36000.00"));
+        payRun.setTotalDeductions(new BigDecimal("4590.00"));
+        payRun.setTotalNetPay(new BigDecimal("31410.00"));
+        payRun.setTotalEmployerContributions(new BigDecimal("5490.00"));
+
+        when(payRunRepository.findByIdAndTenantId(PAY_RUN_ID, TENANT_ID)).thenReturn(Optional.of(payRun));
+        when(payRunRepository.findById(PAY_RUN_ID)).thenReturn(Optional.of(payRun));
+        when(payRunRepository.save(any(PayRun.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void failedDeltaCalculationKeepsTotalsOfCommittedChunks() {
+        // Both employees were changed; the first one's basic went up to 20,000
+        PayRunEmployee raised = calculatedRow(10L, "20000.00");
+        when(payRunEmployeeRepository.findIdsNeedingRecalculationByPayRunId(PAY_RUN_ID)).thenReturn(List.of(10L, 20L));
+        when(payRunEmployeeRepository.findByIdInWithEmployee(List.of(10L))).thenReturn(List.of(raised));
+        when(payRunEmployeeRepository.findByIdInWithEmployee(List.of(20L)))
+                .thenThrow(new IllegalStateException("connection reset"));
+
+        assertThatThrownBy(() -> payRunService.calculatePayRun(PAY_RUN_ID, TENANT_ID))
+                .isInstanceOf(PayRunCalculationEngine.CalculationFailedException.class);
+
+        // The committed chunk is no longer flagged, so its difference must already be in the totals
+        assertThat(raised.getNeedsRecalculation()).isFalse();
+        assertThat(payRun.getStatus()).isEqualTo(PayRunStatus.PENDING_APPROVAL);
+        assertThat(payRun.getTotalGrossPay()).isEqualByComparingTo("38000.00");
+        assertThat(payRun.getTotalDeductions()).isEqualByComparingTo("4845.00");
+        assertThat(payRun.getTotalNetPay()).isEqualByComparingTo("33155.00");
+        assertThat(payRun.getTotalEmployerContributions()).isEqualByComparingTo("5795.00");
+    }
+
+    @Test
+    void failedDraftCalculationReleasesRunWithoutTotals() {
+        payRun.setStatus(PayRunStatus.DRAFT);
+        payRun.setTotalGrossPay(BigDecimal.ZERO);
+        when(payRunEmployeeRepository.findIdsByPayRunId(PAY_RUN_ID)).thenReturn(List.of(10L, 20L));
+        when(payRunEmployeeRepository.findByIdInWithEmployee(List.of(10L)))
+                .thenReturn(List.of(calculatedRow(10L, "20000.00")));
+        when(payRunEmployeeRepository.findByIdInWithEmployee(List.of(20L)))
+                .thenThrow(new IllegalStateException("connection reset"));
+
+        assertThatThrownBy(() -> payRunService.calculatePayRun(PAY_RUN_ID, TENANT_ID))
+                .isInstanceOf(PayRunCalculationEngine.CalculationFailedException.class);
+
+        // A draft is calculated in full next time, which re-aggregates every row
+        assertThat(payRun.getStatus()).isEqualTo(PayRunStatus.DRAFT);
+        assertThat(payRun.getTotalGrossPay()).isEqualByComparingTo("0");
+    }
+
+    /**
+     * A row last calculated on a basic of 18,000 whose basic is now the given amount.
+     */
+    private static PayRunEmployee calculatedRow(Long id, String basic) {
+        Employee employee = new Employee();
+        employee.setEmployeeId("EMP" + id);
+        employee.setProfessionalTax(false);
+
+        PayRunEmployee pre = new PayRunEmployee();
+        pre.setId(id);
+        pre.setEmployee(employee);
+        pre.setBasicSalary(new BigDecimal(basic));
+        pre.setWorkingDays(30);
+        pre.setNeedsRecalculation(true);
+        pre.setGrossSalary(new BigDecimal("18000.00"));
+        pre.setTotalDeductions(new BigDecimal("2295.00"));
+        pre.setNetSalary(new BigDecimal("15705.00"));
+        pre.setTotalEmployerContribution(new BigDecimal("2745.00"));
+        return pre;
+    }
+}
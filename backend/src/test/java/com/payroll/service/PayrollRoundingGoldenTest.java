@@ -0,0 +1,223 @@
+package com.payroll.service;
+
+import com.payroll.dto.TaxCalculationDTO;
+import com.payroll.entity.Employee;
+import com.payroll.entity.EmployeeStatutoryInfo;
+import com.payroll.entity.PayRunEmployee;
+import com.payroll.entity.StatutorySettings;
+import com.payroll.entity.TaxDeclaration;
+import com.payroll.repository.EmployeeRepository;
+import com.payroll.repository.EmployeeStatutoryInfoRepository;
+import com.payroll.repository.ProfessionalTaxSlabRepository;
+import com.payroll.repository.StatutorySettingsRepository;
+import com.payroll.repository.TaxDeclarationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Replays the golden fixtures in src/test/resources/golden, recorded from the BigDecimal
+ * implementation before pay calculation moved to paise. Inputs sit on the rounding
+ * boundaries: half-rupee PF/ESI products, the PF and ESI wage limits, the PT slab limits,
+ * LOP daily rates of exactly half a paisa and income on each tax slab limit. Every result
+ * must match to the last digit, scale included.
+ */
+class PayrollRoundingGoldenTest {
+
+    private static final Long TENANT_ID = 1L;
+
+    private StatutorySettingsRepository statutorySettingsRepository;
+    private StatutoryComplianceService statutoryComplianceService;
+
+    @BeforeEach
+    void setUp() {
+        statutorySettingsRepository = mock(StatutorySettingsRepository.class);
+        ProfessionalTaxSlabRepository slabRepository = mock(ProfessionalTaxSlabRepository.class);
+        when(slabRepository.findByStateAndIsActiveOrderByFromAmountAsc(anyString(), anyBoolean())).thenReturn(List.of());
+        statutoryComplianceService = new StatutoryComplianceService(statutorySettingsRepository, null, slabRepository, null);
+    }
+
+    @Test
+    void payRunSalariesMatchGolden() throws IOException {
+        // calculateEmployeeSalary touches no collaborators
+        PayRunService payRunService = new PayRunService(null, null, null, null, null, null, null, null, null);
+
+        for (String[] row : readGolden("pay-run-salaries.csv")) {
+            Employee employee = new Employee();
+            employee.setEmployeeId("GOLDEN");
+            employee.setProfessionalTax(Boolean.parseBoolean(row[8]));
+
+            PayRunEmployee pre = new PayRunEmployee();
+            pre.setEmployee(employee);
+            pre.setBasicSalary(new BigDecimal(row[0]));
+            pre.setHra(new BigDecimal(row[1]));
+            pre.setConveyanceAllowance(new BigDecimal(row[2]));
+            pre.setFixedAllowance(new BigDecimal(row[3]));
+            pre.setOtherEarnings(new BigDecimal(row[4]));
+            pre.setOtherDeductions(new BigDecimal(row[5]));
+            pre.setWorkingDays(Integer.parseInt(row[6]));
+            pre.setLopDays(Integer.parseInt(row[7]));
+
+            payRunService.calculateEmployeeSalary(pre);
+
+            assertThat(join(pre.getGrossSalary(), pre.getLopDeduction(), pre.getPfEmployee(), pre.getPfEmployer(),
+                    pre.getEsiEmployee(), pre.getEsiEmployer(), pre.getProfessionalTax(), pre.getTotalDeductions(),
+                    pre.getTotalEmployerContribution(), pre.getNetSalary()))
+                    .as("pay run row %s", String.join(",", row))
+                    .isEqualTo(expected(row, 9));
+        }
+    }
+
+    @Test
+    void statutoryContributionsMatchGolden() throws IOException {
+        for (String[] row : readGolden("statutory.csv")) {
+            BigDecimal amount = new BigDecimal(row[1]);
+            BigDecimal result = switch (row[0]) {
+                case "PF_EMPLOYEE" -> {
+                    withSettings(pfSettings(row));
+                    yield statutoryComplianceService.calculatePFEmployee(amount, TENANT_ID);
+                }
+                case "PF_EMPLOYER" -> {
+                    withSettings(pfSettings(row));
+                    yield statutoryComplianceService.calculatePFEmployer(amount, TENANT_ID);
+                }
+                case "ESI_EMPLOYEE" -> {
+                    withSettings(esiSettings(row));
+                    yield statutoryComplianceService.calculateESIEmployee(amount, TENANT_ID);
+                }
+                case "ESI_EMPLOYER" -> {
+                    withSettings(esiSettings(row));
+                    yield statutoryComplianceService.calculateESIEmployer(amount, TENANT_ID);
+                }
+                default -> statutoryComplianceService.calculateProfessionalTax(amount, "Nowhere", "M");
+            };
+
+            assertThat(result.toPlainString())
+                    .as("statutory row %s", String.join(",", row))
+                    .isEqualTo(row[4]);
+        }
+    }
+
+    @Test
+    void incomeTaxMatchesGolden() throws IOException {
+        TaxDeclarationRepository taxDeclarationRepository = mock(TaxDeclarationRepository.class);
+        EmployeeRepository employeeRepository = mock(EmployeeRepository.class);
+        EmployeeStatutoryInfoRepository employeeStatutoryInfoRepository = mock(EmployeeStatutoryInfoRepository.class);
+        TDSCalculationService tdsCalculationService = new TDSCalculationService(taxDeclarationRepository,
+                employeeRepository, employeeStatutoryInfoRepository, statutorySettingsRepository);
+
+        for (String[] row : readGolden("income-tax.csv")) {
+            Employee employee = new Employee();
+            employee.setId(1L);
+            employee.setBasicMonthly(new BigDecimal(row[1]));
+            employee.setHraMonthly(new BigDecimal(row[2]));
+            employee.setFixedAllowanceMonthly(new BigDecimal(row[3]));
+            employee.setProfessionalTax(Boolean.parseBoolean(row[4]));
+
+            TaxDeclaration declaration = new TaxDeclaration();
+            declaration.setRentPaidAnnual(new BigDecimal(row[5]));
+            declaration.setIsMetroCity(Boolean.parseBoolean(row[6]));
+            declaration.setSection80cPpf(new BigDecimal(row[7]));
+            declaration.setSection80dSelfFamily(new BigDecimal(row[8]));
+
+            EmployeeStatutoryInfo statutoryInfo = new EmployeeStatutoryInfo();
+            statutoryInfo.setTaxRegime(row[0]);
+
+            when(employeeRepository.findById(1L)).thenReturn(Optional.of(employee));
+            when(taxDeclarationRepository.findByEmployeeIdAndFinancialYear(1L, "2025-26")).thenReturn(Optional.of(declaration));
+            when(employeeStatutoryInfoRepository.findByEmployeeId(1L)).thenReturn(Optional.of(statutoryInfo));
+
+            TaxCalculationDTO tax = tdsCalculationService.calculateTax(1L, "2025-26");
+
+            String slabAmounts = tax.getTaxSlabDetails().stream()
+                    .map(slab -> slab.getTaxableAmount().toPlainString()).collect(Collectors.joining(" "));
+            String slabTaxes = tax.getTaxSlabDetails().stream()
+                    .map(slab -> slab.getTaxAmount().toPlainString()).collect(Collectors.joining(" "));
+            assertThat(join(tax.getTotalTaxableIncome(), tax.getTaxBeforeRebate(), tax.getRebate87A(),
+                    tax.getSurcharge(), tax.getEducationCess(), tax.getTotalTaxLiability()) + "," + slabAmounts + "," + slabTaxes)
+                    .as("income tax row %s", String.join(",", row))
+                    .isEqualTo(expected(row, 9));
+        }
+    }
+
+    @Test
+    void wagesBeyondPaiseAreRoundedToThePaisa() {
+        StatutorySettings settings = new StatutorySettings();
+        settings.setPfEmployeeRate(new BigDecimal("12.00"));
+        settings.setEsiEmployeeRate(new BigDecimal("0.75"));
+        settings.setEsiWageCeiling(new BigDecimal("21000.00"));
+        withSettings(settings);
+
+        // 10,004.165 rounds to 10,004.17: PF 1,200.5004 -> 1,201; ESI 75.03 -> 75
+        assertThat(statutoryComplianceService.calculatePFEmployee(new BigDecimal("10004.165"), TENANT_ID))
+                .isEqualByComparingTo("1201");
+        assertThat(statutoryComplianceService.calculateESIEmployee(new BigDecimal("10004.165"), TENANT_ID))
+                .isEqualByComparingTo("75");
+        // Just above the exempt limit still pays PT, as the BigDecimal slabs did
+        assertThat(statutoryComplianceService.calculateProfessionalTax(new BigDecimal("3500.001"), "Nowhere", "M"))
+                .isEqualByComparingTo("22.50");
+        assertThat(statutoryComplianceService.calculateProfessionalTax(new BigDecimal("3499.999"), "Nowhere", "M"))
+                .isEqualByComparingTo("0");
+    }
+
+    private void withSettings(StatutorySettings settings) {
+        when(statutorySettingsRepository.findByTenantId(any())).thenReturn(Optional.of(settings));
+    }
+
+    private static StatutorySettings pfSettings(String[] row) {
+        StatutorySettings settings = new StatutorySettings();
+        settings.setPfEmployeeRate(new BigDecimal(row[2]));
+        settings.setPfEmployerRate(new BigDecimal(row[2]));
+        settings.setPfWageCeiling(row[3].isEmpty() ? null : new BigDecimal(row[3]));
+        return settings;
+    }
+
+    private static StatutorySettings esiSettings(String[] row) {
+        StatutorySettings settings = new StatutorySettings();
+        settings.setEsiEmployeeRate(new BigDecimal(row[2]));
+        settings.setEsiEmployerRate(new BigDecimal(row[2]));
+        settings.setEsiWageCeiling(new BigDecimal(row[3]));
+        return settings;
+    }
+
+    private static String join(BigDecimal... values) {
+        List<String> plain = new ArrayList<>();
+        for (BigDecimal value : values) {
+            plain.add(value == null ? "" : value.toPlainString());
+        }
+        return String.join(",", plain);
+    }
+
+    private static String expected(String[] row, int from) {
+        return String.join(",", List.of(row).subList(from, row.length));
+    }
+
+    private static List<String[]> readGolden(String name) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                PayrollRoundingGoldenTest.class.getResourceAsStream("/golden/" + name), StandardCharsets.UTF_8))) {
+            reader.readLine(); // header
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                rows.add(line.split(",", -1));
+            }
+        }
+        assertThat(rows).isNotEmpty();
+        return rows;
+    }
+}
@@ -0,0 +1,344 @@
+package com.payroll.service;
+
+import com.payroll.entity.Employee;
+import com.payroll.entity.Payslip;
+import com.payroll.entity.PayslipEmailOutbox;
+import com.payroll.entity.PayslipEmailOutbox.OutboxStatus;
+import com.payroll.organization.Organization;
+import com.payroll.organization.OrganizationRepository;
+import com.payroll.repository.PayslipEmailOutboxRepository;
+import com.payroll.repository.PayslipRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PayslipEmailServiceTest {
+
+    private static final Long TENANT_ID = 7L;
+    private static final Duration RETRY_DELAY = Duration.ofMinutes(1);
+    private static final Duration CLAIM_LEASE = Duration.ofMinutes(15);
+    private static final int MAX_ATTEMPTS = 5;
+
+    private FakeSmtpServer smtp;
+    private PayslipEmailOutboxRepository outboxRepository;
+    private PayslipRepository payslipRepository;
+
+    // The outbox and payslip tables, as the repository mocks see them
+    private final Map<Long, PayslipEmailOutbox> outbox = new ConcurrentHashMap<>();
+    private final Map<Long, Payslip> payslips = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        smtp = new FakeSmtpServer();
+        outboxRepository = mock(PayslipEmailOutboxRepository.class);
+        payslipRepository = mock(PayslipRepository.class);
+
+        when(outboxRepository.lockDueIds(any(LocalDateTime.class), anyInt())).thenAnswer(invocation -> {
+            LocalDateTime now = invocation.getArgument(0);
+            return outbox.values().stream()
+                    .filter(row -> row.getStatus() == OutboxStatus.PENDING && !row.getNextAttemptAt().isAfter(now))
+                    .map(PayslipEmailOutbox::getId)
+                    .sorted()
+                    .limit(invocation.<Integer>getArgument(1))
+                    .toList();
+        });
+        when(outboxRepository.findAllById(any())).thenAnswer(invocation -> {
+            List<PayslipEmailOutbox> rows = new ArrayList<>();
+            invocation.<Iterable<Long>>getArgument(0).forEach(id -> rows.add(outbox.get(id)));
+            return rows;
+        });
+        when(payslipRepository.findByIdInWithEmployee(anyCollection())).thenAnswer(invocation ->
+                invocation.<Collection<Long>>getArgument(0).stream().map(payslips::get).toList());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        smtp.close();
+    }
+
+    @Test
+    void eachEmailWaitsForItsOwnSlotAndABatchSharesOneConnection() {
+        // 20 a second is one email every 50 ms; two threads of three emails each
+        PayslipEmailService service = service(20, 2, 3);
+        for (long id = 1; id <= 6; id++) {
+            queue(id, "employee" + id + "@example.com", 0);
+        }
+
+        service.dispatch();
+
+        assertThat(smtp.received).hasSize(6);
+        assertThat(smtp.connections.get()).isEqualTo(2);
+        // Five slots lie between the first email and the last, however the batches were split
+        assertThat(Duration.ofNanos(smtp.receivedAt.get(5) - smtp.receivedAt.get(0)))
+                .isGreaterThanOrEqualTo(Duration.ofMillis(200));
+        assertThat(outbox.values()).extracting(PayslipEmailOutbox::getStatus).containsOnly(OutboxStatus.SENT);
+        verify(payslipRepository).markEmailSent(eq(List.of(1L, 2L, 3L)), eq(Payslip.PayslipStatus.SENT), any());
+        verify(payslipRepository).markEmailSent(eq(List.of(4L, 5L, 6L)), eq(Payslip.PayslipStatus.SENT), any());
+    }
+
+    @Test
+    void rejectedEmailIsRetriedWithBackoffUntilTheLastAttempt() {
+        PayslipEmailService service = service(0, 1, 20);
+        smtp.rejected.add("bounce@example.com");
+        queue(1L, "ok@example.com", 0);
+        queue(2L, "bounce@example.com", 1);
+        queue(3L, "bounce@example.com", MAX_ATTEMPTS - 1);
+
+        LocalDateTime before = LocalDateTime.now();
+        service.dispatch();
+
+        assertThat(smtp.received).containsExactly("ok@example.com");
+        assertThat(outbox.get(1L).getStatus()).isEqualTo(OutboxStatus.SENT);
+        verify(payslipRepository).markEmailSent(eq(List.of(1L)), eq(Payslip.PayslipStatus.SENT), any());
+
+        // Second attempt failed: wait twice the retry delay
+        PayslipEmailOutbox retried = outbox.get(2L);
+        assertThat(retried.getStatus()).isEqualTo(OutboxStatus.PENDING);
+        assertThat(retried.getAttempts()).isEqualTo(2);
+        assertThat(retried.getLastError()).isNotBlank();
+        assertThat(retried.getNextAttemptAt()).isCloseTo(before.plus(RETRY_DELAY.multipliedBy(2)), within(5, ChronoUnit.SECONDS));
+
+        PayslipEmailOutbox givenUp = outbox.get(3L);
+        assertThat(givenUp.getStatus()).isEqualTo(OutboxStatus.FAILED);
+        assertThat(givenUp.getAttempts()).isEqualTo(MAX_ATTEMPTS);
+        assertThat(givenUp.getLastError()).isNotBlank();
+    }
+
+    @Test
+    void expiredClaimsAreRequeuedBeforeDueEmailsAreClaimed() {
+        PayslipEmailService service = service(0, 1, 20);
+
+        LocalDateTime before = LocalDateTime.now();
+        service.dispatch();
+        LocalDateTime after = LocalDateTime.now();
+
+        ArgumentCaptor<LocalDateTime> claimedBefore = ArgumentCaptor.forClass(LocalDateTime.class);
+        InOrder order = inOrder(outboxRepository);
+        order.verify(outboxRepository).requeueExpired(claimedBefore.capture(), eq(OutboxStatus.SENDING),
+                eq(OutboxStatus.PENDING), any());
+        order.verify(outboxRepository).lockDueIds(any(), anyInt());
+        assertThat(claimedBefore.getValue()).isBetween(before.minus(CLAIM_LEASE), after.minus(CLAIM_LEASE));
+    }
+
+    @Test
+    void resultIsIgnoredWhenTheRowWasClaimedAgainAfterItsLeaseRanOut() {
+        PayslipEmailService service = service(0, 1, 20);
+        queue(1L, "slow@example.com", 0);
+
+        // While this node is sending, its lease runs out and another node claims the row
+        PayslipEmailOutbox reclaimed = new PayslipEmailOutbox();
+        reclaimed.setId(1L);
+        reclaimed.setPayslipId(1L);
+        reclaimed.setTenantId(TENANT_ID);
+        reclaimed.setStatus(OutboxStatus.SENDING);
+        reclaimed.setOwnerNode("other-node");
+        reclaimed.setAttempts(2);
+        smtp.onReceive = () -> outbox.put(1L, reclaimed);
+
+        service.dispatch();
+
+        assertThat(smtp.received).containsExactly("slow@example.com");
+        assertThat(reclaimed.getStatus()).isEqualTo(OutboxStatus.SENDING);
+        assertThat(reclaimed.getOwnerNode()).isEqualTo("other-node");
+        assertThat(reclaimed.getSentAt()).isNull();
+        verify(payslipRepository, never()).markEmailSent(anyList(), any(), any());
+    }
+
+    private PayslipEmailService service(double ratePerSecond, int threads, int batchSize) {
+        OrganizationRepository organizationRepository = mock(OrganizationRepository.class);
+        Organization organization = new Organization();
+        organization.setCompanyName("Acme");
+        when(organizationRepository.findById(TENANT_ID)).thenReturn(Optional.of(organization));
+
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost(InetAddress.getLoopbackAddress().getHostAddress());
+        mailSender.setPort(smtp.port());
+        // Skip looking up this machine's name for EHLO
+        mailSender.getJavaMailProperties().setProperty("mail.smtp.localhost", "localhost");
+
+        PayslipEmailService service = new PayslipEmailService(outboxRepository, payslipRepository, null,
+                organizationRepository, null, mailSender,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                new SimpleAsyncTaskExecutor("email-"), mock(TaskScheduler.class), ratePerSecond);
+        ReflectionTestUtils.setField(service, "nodeId", "this-node");
+        ReflectionTestUtils.setField(service, "fromEmail", "payroll@example.com");
+        ReflectionTestUtils.setField(service, "threads", threads);
+        ReflectionTestUtils.setField(service, "batchSize", batchSize);
+        ReflectionTestUtils.setField(service, "maxAttempts", MAX_ATTEMPTS);
+        ReflectionTestUtils.setField(service, "retryDelay", RETRY_DELAY);
+        ReflectionTestUtils.setField(service, "claimLease", CLAIM_LEASE);
+        return service;
+    }
+
+    /**
+     * Add a due outbox row for a new payslip emailed to the given address.
+     */
+    private void queue(Long id, String email, int attempts) {
+        Employee employee = new Employee();
+        employee.setFirstName("Employee " + id);
+        employee.setWorkEmail(email);
+
+        Payslip payslip = new Payslip();
+        payslip.setId(id);
+        payslip.setTenantId(TENANT_ID);
+        payslip.setEmployee(employee);
+        payslip.setPayPeriodStart(LocalDate.of(2025, 1, 1));
+        payslip.setPayPeriodEnd(LocalDate.of(2025, 1, 31));
+        payslip.setGrossSalary(new BigDecimal("50000.00"));
+        payslip.setTotalDeductions(new BigDecimal("4590.00"));
+        payslip.setNetSalary(new BigDecimal("45410.00"));
+        payslips.put(id, payslip);
+
+        PayslipEmailOutbox row = new PayslipEmailOutbox();
+        row.setId(id);
+        row.setPayslipId(id);
+        row.setTenantId(TENANT_ID);
+        row.setStatus(OutboxStatus.PENDING);
+        row.setAttempts(attempts);
+        row.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        outbox.put(id, row);
+    }
+
+    /**
+     * Just enough of an SMTP server for Jakarta Mail: accepts every message except those to
+     * rejected recipients, which get a temporary failure, and notes what arrived and when.
+     */
+    private static final class FakeSmtpServer implements AutoCloseable {
+
+        final Set<String> rejected = ConcurrentHashMap.newKeySet();
+        final List<String> received = new CopyOnWriteArrayList<>();
+        final List<Long> receivedAt = new CopyOnWriteArrayList<>();
+        final AtomicInteger connections = new AtomicInteger();
+        volatile Runnable onReceive = () -> {
+        };
+
+        private final ServerSocket serverSocket;
+
+        FakeSmtpServer() throws IOException {
+            serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            Thread acceptor = new Thread(this::accept, "fake-smtp");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        private void accept() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    connections.incrementAndGet();
+                    Thread session = new Thread(() -> session(socket), "fake-smtp-session");
+                    session.setDaemon(true);
+                    session.start();
+                } catch (IOException e) {
+                    return; // closed
+                }
+            }
+        }
+
+        private void session(Socket socket) {
+            try (socket;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                 PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII)) {
+                reply(out, "220 localhost ESMTP");
+                String recipient = null;
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.length() < 4 ? line.toUpperCase() : line.substring(0, 4).toUpperCase();
+                    switch (command) {
+                        case "EHLO", "HELO" -> reply(out, "250 localhost");
+                        case "MAIL" -> {
+                            recipient = null;
+                            reply(out, "250 OK");
+                        }
+                        case "RCPT" -> {
+                            String address = line.substring(line.indexOf('<') + 1, line.indexOf('>'));
+                            if (rejected.contains(address)) {
+                                reply(out, "451 4.3.0 Try again later");
+                            } else {
+                                recipient = address;
+                                reply(out, "250 OK");
+                            }
+                        }
+                        case "DATA" -> {
+                            reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                            String data;
+                            while ((data = in.readLine()) != null && !data.equals(".")) {
+                                // discard the message body
+                            }
+                            received.add(recipient);
+                            receivedAt.add(System.nanoTime());
+                            onReceive.run();
+                            reply(out, "250 OK");
+                        }
+                        case "QUIT" -> {
+                            reply(out, "221 Bye");
+                            return;
+                        }
+                        default -> reply(out, "250 OK"); // RSET, NOOP
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static void reply(PrintWriter out, String line) {
+            out.print(line + "\r\n");
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+    }
+}